@@ -0,0 +1,214 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.bench;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.file.FileSink;
+import org.graphstream.stream.file.FileSinkDGS;
+import org.graphstream.stream.file.FileSinkGML;
+import org.graphstream.stream.file.FileSinkGraphML;
+import org.graphstream.stream.file.FileSource;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceGML;
+import org.graphstream.stream.file.FileSourceGraphML;
+
+/**
+ * Datasets shared by the benchmarks.
+ * 
+ * <p>
+ * Every dataset is generated from a fixed seed so that two runs, on two
+ * machines or two versions of the library, measure exactly the same graphs.
+ * The graphs are built by preferential attachment, which gives the skewed
+ * degree distribution of most real networks, and carry a label on each node
+ * and a weight on each edge so that attribute handling is part of the
+ * measures.
+ * </p>
+ */
+public final class BenchmarkData {
+	/**
+	 * Seed of all the datasets.
+	 */
+	public static final long SEED = 0x6753L;
+
+	/**
+	 * Number of edges each new node creates.
+	 */
+	public static final int DEGREE = 4;
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * Create an empty graph of the given implementation.
+	 * 
+	 * @param implementation
+	 *            "SingleGraph", "MultiGraph" or "AdjacencyListGraph".
+	 * @param id
+	 *            The graph identifier.
+	 * @return The new graph.
+	 */
+	public static Graph createGraph(String implementation, String id) {
+		switch (implementation) {
+		case "SingleGraph":
+			return new SingleGraph(id);
+		case "MultiGraph":
+			return new MultiGraph(id);
+		case "AdjacencyListGraph":
+			return new AdjacencyListGraph(id);
+		default:
+			throw new IllegalArgumentException("unknown graph implementation "
+					+ implementation);
+		}
+	}
+
+	/**
+	 * Add to a graph a preferential attachment graph of the given size, nodes
+	 * being named "0" to "size-1" and edges "i_j".
+	 * 
+	 * @param graph
+	 *            The graph to fill, usually empty.
+	 * @param size
+	 *            The number of nodes.
+	 * @return The graph.
+	 */
+	public static Graph populate(Graph graph, int size) {
+		Random random = new Random(SEED);
+		ArrayList<Integer> endpoints = new ArrayList<Integer>();
+		HashSet<Integer> targets = new HashSet<Integer>();
+
+		for (int i = 0; i < size; i++) {
+			String id = Integer.toString(i);
+
+			graph.addNode(id).addAttribute("label", "node " + id);
+			targets.clear();
+
+			int degree = Math.min(i, DEGREE);
+
+			while (targets.size() < degree) {
+				int target = endpoints.isEmpty() ? random.nextInt(i)
+						: endpoints.get(random.nextInt(endpoints.size()));
+
+				if (targets.add(target)) {
+					String edge = id + "_" + target;
+
+					graph.addEdge(edge, id, Integer.toString(target))
+							.addAttribute("weight", random.nextDouble());
+				}
+			}
+
+			for (int target : targets) {
+				endpoints.add(target);
+				endpoints.add(i);
+			}
+		}
+
+		return graph;
+	}
+
+	/**
+	 * A preferential attachment graph of the given size.
+	 * 
+	 * @param size
+	 *            The number of nodes.
+	 * @return A new graph.
+	 */
+	public static Graph graph(int size) {
+		return populate(new AdjacencyListGraph("bench"), size);
+	}
+
+	/**
+	 * Create a file sink for the given format.
+	 * 
+	 * @param format
+	 *            "dgs", "gml" or "graphml".
+	 * @return The sink.
+	 */
+	public static FileSink createFileSink(String format) {
+		switch (format) {
+		case "dgs":
+			return new FileSinkDGS();
+		case "gml":
+			return new FileSinkGML();
+		case "graphml":
+			return new FileSinkGraphML();
+		default:
+			throw new IllegalArgumentException("unknown format " + format);
+		}
+	}
+
+	/**
+	 * Create a file source for the given format.
+	 * 
+	 * @param format
+	 *            "dgs", "gml" or "graphml".
+	 * @return The source.
+	 */
+	public static FileSource createFileSource(String format) {
+		switch (format) {
+		case "dgs":
+			return new FileSourceDGS();
+		case "gml":
+			return new FileSourceGML();
+		case "graphml":
+			return new FileSourceGraphML();
+		default:
+			throw new IllegalArgumentException("unknown format " + format);
+		}
+	}
+
+	/**
+	 * The text of a preferential attachment graph of the given size in the
+	 * given format.
+	 * 
+	 * @param format
+	 *            "dgs", "gml" or "graphml".
+	 * @param size
+	 *            The number of nodes.
+	 * @return The file content.
+	 * @throws IOException
+	 *             If the sink fails.
+	 */
+	public static String file(String format, int size) throws IOException {
+		StringWriter writer = new StringWriter();
+		createFileSink(format).writeAll(graph(size), writer);
+		return writer.toString();
+	}
+}
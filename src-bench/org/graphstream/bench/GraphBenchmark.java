@@ -0,0 +1,150 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.bench;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Mutation and iteration of the graph implementations. This covers what the
+ * old hand timed BenchPerformance measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GraphBenchmark {
+	@Param({ "SingleGraph", "MultiGraph", "AdjacencyListGraph" })
+	public String implementation;
+
+	@Param({ "10000" })
+	public int size;
+
+	/**
+	 * Graph read by the iteration benchmarks.
+	 */
+	protected Graph graph;
+
+	/**
+	 * Graph consumed by the removal benchmark, rebuilt before each call.
+	 */
+	@State(Scope.Thread)
+	public static class Victim {
+		protected Graph graph;
+
+		@Setup(Level.Invocation)
+		public void setUp(GraphBenchmark bench) {
+			graph = BenchmarkData.populate(BenchmarkData.createGraph(
+					bench.implementation, "victim"), bench.size);
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = BenchmarkData.populate(
+				BenchmarkData.createGraph(implementation, "bench"), size);
+	}
+
+	@Benchmark
+	public Graph build() {
+		return BenchmarkData.populate(
+				BenchmarkData.createGraph(implementation, "build"), size);
+	}
+
+	@Benchmark
+	public Graph removeNodes(Victim victim) {
+		for (int i = size - 1; i >= 0; i--)
+			victim.graph.removeNode(i);
+
+		return victim.graph;
+	}
+
+	@Benchmark
+	public void nodeById(Blackhole hole) {
+		for (int i = 0; i < size; i++)
+			hole.consume(graph.getNode(Integer.toString(i)));
+	}
+
+	@Benchmark
+	public void iterateNodes(Blackhole hole) {
+		for (Node node : graph)
+			hole.consume(node);
+	}
+
+	@Benchmark
+	public void iterateEdges(Blackhole hole) {
+		for (Edge edge : graph.getEachEdge())
+			hole.consume(edge);
+	}
+
+	@Benchmark
+	public void iterateNeighbors(Blackhole hole) {
+		for (Node node : graph) {
+			Iterator<Node> neighbors = node.getNeighborNodeIterator();
+
+			while (neighbors.hasNext())
+				hole.consume(neighbors.next());
+		}
+	}
+
+	@Benchmark
+	public void edgeBetween(Blackhole hole) {
+		for (Edge edge : graph.getEachEdge())
+			hole.consume(edge.getSourceNode().getEdgeBetween(
+					edge.getTargetNode()));
+	}
+
+	@Benchmark
+	public void readAttributes(Blackhole hole) {
+		for (Edge edge : graph.getEachEdge())
+			hole.consume(edge.getNumber("weight"));
+	}
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.bench;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.GraphReplay;
+import org.graphstream.stream.binary.ByteEncoder;
+import org.graphstream.stream.netstream.NetStreamDecoder;
+import org.graphstream.stream.netstream.NetStreamEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Encoding and decoding of a whole graph, nodes, edges and attributes, in the
+ * NetStream protocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class NetStreamBenchmark {
+	@Param({ "5000" })
+	public int size;
+
+	@Param({ "false", "true" })
+	public boolean reusableBuffer;
+
+	protected Graph graph;
+
+	/**
+	 * The encoded messages of the graph.
+	 */
+	protected ArrayList<ByteBuffer> messages;
+
+	/**
+	 * Receives the messages of the encode benchmark.
+	 */
+	protected Blackhole hole;
+
+	protected NetStreamEncoder encoder;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		graph = BenchmarkData.graph(size);
+		messages = new ArrayList<ByteBuffer>();
+
+		NetStreamEncoder recorder = new NetStreamEncoder("bench",
+				new ByteEncoder.Transport() {
+					@Override
+					public void send(ByteBuffer buffer) {
+						ByteBuffer copy = ByteBuffer.allocate(buffer
+								.remaining());
+						copy.put(buffer.duplicate()).flip();
+						messages.add(copy);
+					}
+				});
+
+		replay(recorder);
+
+		encoder = new NetStreamEncoder("bench", new ByteEncoder.Transport() {
+			@Override
+			public void send(ByteBuffer buffer) {
+				hole.consume(buffer);
+			}
+		});
+
+		encoder.setReusableBuffer(reusableBuffer);
+	}
+
+	protected void replay(NetStreamEncoder target) {
+		GraphReplay replay = new GraphReplay("bench");
+		replay.addSink(target);
+		replay.replay(graph);
+		replay.removeSink(target);
+	}
+
+	@Benchmark
+	public void encode(Blackhole hole) {
+		this.hole = hole;
+		replay(encoder);
+	}
+
+	@Benchmark
+	public NetStreamDecoder decode() {
+		NetStreamDecoder decoder = new NetStreamDecoder();
+
+		for (int i = 0; i < messages.size(); i++)
+			decoder.decode(messages.get(i).duplicate());
+
+		return decoder;
+	}
+}
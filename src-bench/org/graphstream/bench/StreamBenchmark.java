@@ -0,0 +1,173 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Event dispatch from a source to its sinks, directly and through a thread
+ * proxy pipe. Each invocation sends a burst of {@link #EVENTS} attribute
+ * changes, the score is given per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StreamBenchmark {
+	/**
+	 * Number of events of each invocation.
+	 */
+	public static final int EVENTS = 1000;
+
+	/**
+	 * Sink counting the events it receives.
+	 */
+	public static class CountingSink extends SinkAdapter {
+		public long events;
+
+		@Override
+		public void nodeAttributeChanged(String sourceId, long timeId,
+				String nodeId, String attribute, Object oldValue,
+				Object newValue) {
+			events++;
+		}
+	}
+
+	public static class BenchSource extends SourceBase {
+		public BenchSource() {
+			super("bench");
+		}
+	}
+
+	@Param({ "1", "4" })
+	public int sinks;
+
+	protected BenchSource source;
+
+	protected CountingSink counter;
+
+	protected String[] nodeIds;
+
+	protected Double[] values;
+
+	/**
+	 * A source feeding a thread proxy pipe that is pumped in the benchmark
+	 * thread.
+	 */
+	@State(Scope.Benchmark)
+	public static class Pipe {
+		@Param({ "false", "true" })
+		public boolean coalescing;
+
+		protected BenchSource source;
+
+		protected ThreadProxyPipe pipe;
+
+		protected CountingSink counter;
+
+		@Setup(Level.Trial)
+		public void setUp(StreamBenchmark bench) {
+			source = new BenchSource();
+			pipe = new ThreadProxyPipe();
+			counter = new CountingSink();
+
+			for (int i = 0; i < bench.sinks; i++)
+				pipe.addSink(i == 0 ? counter : new CountingSink());
+
+			pipe.init(source);
+			pipe.setCoalescing(coalescing);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			pipe.unregisterFromSource();
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		source = new BenchSource();
+		counter = new CountingSink();
+		nodeIds = new String[EVENTS];
+		values = new Double[EVENTS];
+
+		for (int i = 0; i < EVENTS; i++) {
+			nodeIds[i] = Integer.toString(i);
+			values[i] = (double) i;
+		}
+
+		for (int i = 0; i < sinks; i++)
+			source.addSink(i == 0 ? counter : new CountingSink());
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public long sourceDispatch() {
+		for (int i = 0; i < EVENTS; i++)
+			source.sendNodeAttributeChanged("bench", nodeIds[i], "x", null,
+					values[i]);
+
+		return counter.events;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public long threadProxyPipe(Pipe pipe) {
+		for (int i = 0; i < EVENTS; i++)
+			pipe.source.sendNodeAttributeChanged("bench", nodeIds[i], "x",
+					null, values[i]);
+
+		pipe.pipe.pump();
+
+		return pipe.counter.events;
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.*;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.AttributeColumn;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.junit.Test;
+
+public class TestAttributeColumn {
+	@Test
+	public void testNodeColumn() {
+		AdjacencyListGraph graph = new MultiGraph("g");
+
+		for (int i = 0; i < 10; i++)
+			graph.addNode("n" + i).addAttribute("weight", i);
+
+		graph.getNode("n3").addAttribute("weight", "not a number");
+
+		AttributeColumn.DoubleColumn column = graph.nodeColumn("weight");
+
+		assertSame(column, graph.nodeColumn("weight"));
+		assertEquals(10, column.size());
+		assertTrue(Double.isNaN(column.get(3)));
+
+		for (Node n : graph)
+			if (!n.getId().equals("n3"))
+				assertEquals(n.getNumber("weight"),
+						column.get(n.getIndex()), 0);
+
+		// Changes and removal of attributes.
+
+		graph.getNode("n4").changeAttribute("weight", 42.0);
+		assertEquals(42, column.get(graph.getNode("n4").getIndex()), 0);
+		graph.getNode("n4").removeAttribute("weight");
+		assertTrue(Double.isNaN(column.get(graph.getNode("n4").getIndex())));
+
+		// Addition and removal of nodes.
+
+		Node added = graph.addNode("added");
+		assertEquals(11, column.size());
+		assertTrue(Double.isNaN(column.get(added.getIndex())));
+		added.addAttribute("weight", 7);
+		assertEquals(7, column.get(added.getIndex()), 0);
+
+		graph.removeNode("n0");
+		assertEquals(10, column.size());
+		assertEquals(7, column.get(added.getIndex()), 0);
+
+		for (int i = 0; i < 200; i++)
+			graph.addNode("m" + i).addAttribute("weight", 1);
+
+		double sum = 0;
+		double[] values = column.getArray();
+
+		for (int i = 0; i < column.size(); i++)
+			if (!Double.isNaN(values[i]))
+				sum += values[i];
+
+		assertEquals(1 + 2 + 5 + 6 + 7 + 8 + 9 + 7 + 200, sum, 0);
+
+		graph.clear();
+		assertEquals(0, column.size());
+	}
+
+	@Test
+	public void testEdgeColumns() {
+		AdjacencyListGraph graph = new MultiGraph("g");
+
+		graph.addNode("A");
+		graph.addNode("B");
+		graph.addNode("C");
+
+		Edge ab = graph.addEdge("AB", "A", "B");
+		Edge bc = graph.addEdge("BC", "B", "C");
+
+		ab.addAttribute("label", "ab");
+		bc.addAttribute("capacity", 3);
+
+		AttributeColumn.ObjectColumn labels = graph.edgeObjectColumn("label");
+		AttributeColumn.IntColumn capacities = graph.edgeIntColumn("capacity");
+
+		assertEquals("ab", labels.get(ab.getIndex()));
+		assertNull(labels.get(bc.getIndex()));
+		assertEquals(3, capacities.get(bc.getIndex()));
+
+		// Removing a node removes its edges.
+
+		graph.removeNode("A");
+		assertEquals(1, labels.size());
+		assertEquals(3, capacities.get(bc.getIndex()));
+
+		try {
+			graph.edgeColumn("label");
+			fail();
+		} catch (IllegalStateException e) {
+		}
+
+		graph.removeEdgeColumn("label");
+		bc.addAttribute("label", "bc");
+		assertEquals("bc", graph.edgeObjectColumn("label").get(bc.getIndex()));
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.*;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AbstractGraph;
+import org.graphstream.graph.implementations.AbstractGraph.BulkNotification;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.graphstream.stream.Replayable;
+import org.junit.Test;
+
+public class TestBulkLoad {
+	protected static final String[] NODES = { "A", "B", "C", "D" };
+	protected static final String[] EDGES = { "AB", "BC", "CD", "DA", "AC" };
+	protected static final int[] SOURCES = { 0, 1, 2, 3, 0 };
+	protected static final int[] TARGETS = { 1, 2, 3, 0, 2 };
+
+	@Test
+	public void testStructure() {
+		AbstractGraph graph = new SingleGraph("g");
+
+		graph.addNode("existing");
+		graph.bulkLoad(NODES, EDGES, shift(SOURCES, 1), shift(TARGETS, 1),
+				false, BulkNotification.SUMMARY);
+
+		assertEquals(5, graph.getNodeCount());
+		assertEquals(5, graph.getEdgeCount());
+		assertEquals(1, graph.getNode("A").getIndex());
+
+		for (int i = 0; i < EDGES.length; i++) {
+			Edge e = graph.getEdge(EDGES[i]);
+			assertEquals(NODES[SOURCES[i]], e.getSourceNode().getId());
+			assertEquals(NODES[TARGETS[i]], e.getTargetNode().getId());
+			assertFalse(e.isDirected());
+		}
+
+		assertEquals(3, graph.getNode("A").getDegree());
+		assertNotNull(graph.getNode("C").getEdgeBetween("A"));
+
+		// Edges toward existing nodes.
+
+		graph.bulkLoad(null, new String[] { "xA" }, new int[] { 0 },
+				new int[] { 1 }, true, BulkNotification.SUMMARY);
+
+		assertEquals(graph.getEdge("xA"), graph.getNode("existing")
+				.getEdgeToward("A"));
+	}
+
+	@Test
+	public void testEvents() {
+		AbstractGraph graph = new MultiGraph("g");
+		Graph replica = new MultiGraph("r");
+
+		graph.addSink(replica);
+		graph.bulkLoad(NODES, EDGES, SOURCES, TARGETS, true,
+				BulkNotification.EVENTS);
+
+		assertEquals(4, replica.getNodeCount());
+		assertEquals(5, replica.getEdgeCount());
+		assertTrue(replica.getEdge("AC").isDirected());
+	}
+
+	@Test
+	public void testSummaryAndReplay() {
+		AbstractGraph graph = new MultiGraph("g");
+		Graph replica = new MultiGraph("r");
+
+		graph.addSink(replica);
+
+		Replayable.Controller controller = graph.bulkLoad(NODES, EDGES,
+				SOURCES, TARGETS, false, BulkNotification.SUMMARY);
+
+		assertEquals(0, replica.getNodeCount());
+		assertTrue(replica.hasAttribute(AbstractGraph.BULK_LOADED_ATTRIBUTE));
+
+		Object[] summary = replica
+				.getAttribute(AbstractGraph.BULK_LOADED_ATTRIBUTE);
+		assertEquals(4, summary[0]);
+		assertEquals(5, summary[1]);
+
+		// The replica did not receive the elements, detach it before
+		// modifying them.
+
+		graph.removeSink(replica);
+		graph.getNode("A").addAttribute("color", "red");
+		graph.removeEdge("BC");
+
+		Graph lazy = new MultiGraph("l");
+		controller.addSink(lazy);
+		controller.replay();
+
+		assertEquals(4, lazy.getNodeCount());
+		assertEquals(4, lazy.getEdgeCount());
+		assertNull(lazy.getEdge("BC"));
+		assertEquals("red", lazy.getNode("A").getAttribute("color"));
+	}
+
+	@Test(expected = IdAlreadyInUseException.class)
+	public void testIdInUse() {
+		AbstractGraph graph = new MultiGraph("g");
+		graph.addNode("B");
+		graph.bulkLoad(NODES, null, null, null, false,
+				BulkNotification.SUMMARY);
+	}
+
+	@Test
+	public void testFailureLeavesGraphUnchanged() {
+		AbstractGraph graph = new SingleGraph("g");
+		Graph replica = new MultiGraph("r");
+
+		graph.addSink(replica);
+		graph.addNode("existing");
+
+		String[][] nodes = { { "A", "B", "A" }, { "A", "B", "C" },
+				{ "A", "B", "C" }, { "A", "B", "C" } };
+		String[][] edges = { {}, { "AB", "BC", "AB" }, { "AB", "BC" },
+				{ "AB", "BA" } };
+		int[][] sources = { {}, { 1, 2, 3 }, { 1, 2 }, { 1, 2 } };
+		int[][] targets = { {}, { 2, 3, 1 }, { 2, 4 }, { 2, 1 } };
+		Class<?>[] errors = { IdAlreadyInUseException.class,
+				IdAlreadyInUseException.class,
+				IndexOutOfBoundsException.class, EdgeRejectedException.class };
+
+		for (int i = 0; i < nodes.length; i++) {
+			try {
+				graph.bulkLoad(nodes[i], edges[i], sources[i], targets[i],
+						false, BulkNotification.EVENTS);
+				fail("load " + i + " should fail");
+			} catch (RuntimeException e) {
+				assertEquals(errors[i], e.getClass());
+			}
+
+			assertEquals(1, graph.getNodeCount());
+			assertEquals(0, graph.getEdgeCount());
+			assertEquals(0, graph.getNode("existing").getDegree());
+			assertEquals(1, replica.getNodeCount());
+		}
+
+		// The graph is still usable.
+		graph.bulkLoad(NODES, EDGES, shift(SOURCES, 1), shift(TARGETS, 1),
+				false, BulkNotification.EVENTS);
+
+		assertEquals(5, graph.getNodeCount());
+		assertEquals(5, replica.getEdgeCount());
+	}
+
+	@Test
+	public void testSummaryAttribute() {
+		AbstractGraph graph = new MultiGraph("g");
+		Graph replica = new MultiGraph("r");
+
+		graph.addSink(replica);
+		graph.bulkLoad(NODES, null, null, null, false,
+				BulkNotification.SUMMARY);
+		graph.bulkLoad(null, EDGES, SOURCES, TARGETS, false,
+				BulkNotification.SUMMARY);
+
+		Object[] summary = graph
+				.getAttribute(AbstractGraph.BULK_LOADED_ATTRIBUTE);
+		assertEquals(0, summary[0]);
+		assertEquals(5, summary[1]);
+		assertArrayEquals(summary, (Object[]) replica
+				.getAttribute(AbstractGraph.BULK_LOADED_ATTRIBUTE));
+	}
+
+	@Test
+	public void testLarge() {
+		AbstractGraph graph = new SingleGraph("g", false, false);
+		int n = 10000;
+		String[] nodes = new String[n];
+		String[] edges = new String[2 * n];
+		int[] sources = new int[2 * n];
+		int[] targets = new int[2 * n];
+
+		for (int i = 0; i < n; i++)
+			nodes[i] = Integer.toString(i);
+
+		for (int i = 0; i < 2 * n; i++) {
+			edges[i] = "e" + i;
+			sources[i] = i % n;
+			targets[i] = (i * 7 + 1) % n;
+		}
+
+		graph.bulkLoad(nodes, edges, sources, targets, true,
+				BulkNotification.SUMMARY);
+
+		assertEquals(n, graph.getNodeCount());
+
+		for (Node node : graph)
+			assertEquals(node.getDegree(), node.getInDegree()
+					+ node.getOutDegree());
+	}
+
+	protected int[] shift(int[] indices, int offset) {
+		int[] shifted = new int[indices.length];
+
+		for (int i = 0; i < indices.length; i++)
+			shifted[i] = indices[i] + offset;
+
+		return shifted;
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.graphstream.graph.implementations.CompactAttributeStore;
+import org.junit.Test;
+
+public class TestCompactAttributeStore {
+	@Test
+	public void testValueTypes() {
+		CompactAttributeStore store = new CompactAttributeStore();
+
+		assertEquals(0, store.size());
+		assertNull(store.get("a"));
+		assertTrue(Double.isNaN(store.getNumber("a")));
+
+		store.put("d", 3.2);
+		store.put("i", 4);
+		store.put("f", 1.5f);
+		store.put("s", "foo");
+		store.put("n", null);
+
+		assertEquals(5, store.size());
+		assertEquals(Double.valueOf(3.2), store.get("d"));
+		assertEquals(Integer.valueOf(4), store.get("i"));
+		assertEquals(Float.valueOf(1.5f), store.get("f"));
+		assertEquals("foo", store.get("s"));
+		assertNull(store.get("n"));
+		assertTrue(store.containsKey("n"));
+
+		assertEquals(3.2, store.getNumber("d"), 0);
+		assertEquals(4, store.getNumber("i"), 0);
+		assertEquals(1.5, store.getNumber("f"), 0);
+		assertTrue(Double.isNaN(store.getNumber("s")));
+
+		// Changing the kind of a value.
+
+		assertEquals(Double.valueOf(3.2), store.put("d", "bar"));
+		assertEquals("bar", store.get("d"));
+		assertEquals("foo", store.put("s", 7));
+		assertEquals(Integer.valueOf(7), store.get("s"));
+		assertEquals(5, store.size());
+	}
+
+	@Test
+	public void testAgainstHashMap() {
+		CompactAttributeStore store = new CompactAttributeStore();
+		HashMap<String, Object> map = new HashMap<String, Object>();
+		Random random = new Random(1);
+
+		for (int i = 0; i < 10000; i++) {
+			String key = "k" + random.nextInt(50);
+
+			switch (random.nextInt(4)) {
+			case 0:
+				assertEquals(map.remove(key), store.remove(key));
+				break;
+			case 1:
+				Double d = random.nextDouble();
+				assertEquals(map.put(key, d), store.put(key, d));
+				break;
+			case 2:
+				Integer n = random.nextInt();
+				assertEquals(map.put(key, n), store.put(key, n));
+				break;
+			default:
+				String s = "v" + i;
+				assertEquals(map.put(key, s), store.put(key, s));
+				break;
+			}
+
+			assertEquals(map.size(), store.size());
+		}
+
+		for (String key : map.keySet())
+			assertEquals(map.get(key), store.get(key));
+
+		assertEquals(map.keySet(), new HashSet<String>(store.keySet()));
+
+		store.clear();
+		assertEquals(0, store.size());
+		assertFalse(store.keySet().iterator().hasNext());
+	}
+
+	@Test
+	public void testInternedKeys() {
+		CompactAttributeStore s1 = new CompactAttributeStore();
+		CompactAttributeStore s2 = new CompactAttributeStore();
+
+		s1.put(new String("weight"), 1.0);
+		s2.put(new String("weight"), 2.0);
+
+		assertSame(s1.keySet().iterator().next(), s2.keySet().iterator()
+				.next());
+	}
+}
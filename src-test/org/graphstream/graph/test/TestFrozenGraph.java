@@ -0,0 +1,166 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.Graphs;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.junit.Test;
+
+public class TestFrozenGraph {
+	protected Graph randomGraph() {
+		Graph graph = new MultiGraph("g");
+		Random random = new Random(42);
+
+		for (int i = 0; i < 50; i++)
+			graph.addNode("n" + i).addAttribute("weight", i);
+
+		for (int i = 0; i < 300; i++) {
+			Edge e = graph.addEdge("e" + i, random.nextInt(50),
+					random.nextInt(50), random.nextBoolean());
+			e.addAttribute("label", "l" + i);
+		}
+
+		graph.addAttribute("title", "random");
+
+		return graph;
+	}
+
+	@Test
+	public void testStructure() {
+		Graph graph = randomGraph();
+		Graph frozen = Graphs.freeze(graph);
+
+		assertEquals(graph.getId(), frozen.getId());
+		assertEquals(graph.getNodeCount(), frozen.getNodeCount());
+		assertEquals(graph.getEdgeCount(), frozen.getEdgeCount());
+		assertEquals("random", frozen.getAttribute("title"));
+
+		for (Node n : graph) {
+			Node f = frozen.getNode(n.getId());
+
+			assertSame(f, frozen.getNode(n.getIndex()));
+			assertEquals(n.getIndex(), f.getIndex());
+			assertEquals(n.getNumber("weight"), f.getNumber("weight"), 0);
+			assertEquals(n.getDegree(), f.getDegree());
+			assertEquals(n.getInDegree(), f.getInDegree());
+			assertEquals(n.getOutDegree(), f.getOutDegree());
+
+			assertEquals(ids(n.getEachEdge()), ids(f.getEachEdge()));
+			assertEquals(ids(n.getEachEnteringEdge()),
+					ids(f.getEachEnteringEdge()));
+			assertEquals(ids(n.getEachLeavingEdge()),
+					ids(f.getEachLeavingEdge()));
+
+			for (Node o : graph) {
+				Node fo = frozen.getNode(o.getIndex());
+
+				assertEquals(n.hasEdgeBetween(o), f.hasEdgeBetween(fo));
+				assertEquals(n.hasEdgeFrom(o), f.hasEdgeFrom(fo));
+				assertEquals(n.hasEdgeToward(o), f.hasEdgeToward(fo));
+
+				Edge e = f.getEdgeToward(fo);
+
+				if (e != null)
+					assertSame(fo, e.getOpposite(f));
+			}
+		}
+
+		for (Edge e : graph.getEachEdge()) {
+			Edge f = frozen.getEdge(e.getId());
+
+			assertEquals(f, frozen.getEdge(e.getIndex()));
+			assertEquals(e.getIndex(), f.getIndex());
+			assertEquals(e.getSourceNode().getId(), f.getSourceNode().getId());
+			assertEquals(e.getTargetNode().getId(), f.getTargetNode().getId());
+			assertEquals(e.isDirected(), f.isDirected());
+			assertEquals(e.getAttribute("label"), f.getAttribute("label"));
+		}
+
+		assertNull(frozen.getNode("unknown"));
+		assertNull(frozen.getEdge("unknown"));
+	}
+
+	@Test
+	public void testReadOnly() {
+		Graph frozen = Graphs.freeze(randomGraph());
+
+		try {
+			frozen.addNode("new");
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		try {
+			frozen.addEdge("new", "n0", "n1");
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		try {
+			frozen.removeNode("n0");
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		try {
+			frozen.getNode("n0").addAttribute("foo");
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		try {
+			frozen.getEdge("e0").removeAttribute("label");
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+
+		assertEquals(50, frozen.getNodeCount());
+		assertEquals(300, frozen.getEdgeCount());
+	}
+
+	protected HashSet<String> ids(Iterable<? extends Edge> edges) {
+		HashSet<String> ids = new HashSet<String>();
+
+		for (Edge e : edges)
+			ids.add(e.getId());
+
+		return ids;
+	}
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.graph.implementations.MultiNode;
+import org.graphstream.graph.implementations.SingleGraph;
+import org.junit.Test;
+
+/**
+ * Edge lookups of hub nodes, whose edges are indexed by opposite node, must
+ * give the same results as a scan of their edges, including after nodes were
+ * removed and re-indexed.
+ */
+public class TestNeighborIndex {
+	@Test
+	public void testMultiGraph() {
+		Graph graph = new MultiGraph("g", false, true);
+		Random random = new Random(7);
+		int id = 0;
+
+		for (int i = 0; i < 3000; i++) {
+			int r = random.nextInt(100);
+
+			if (r < 80) {
+				// Hubs are nodes 0 to 4.
+				String from = "n" + random.nextInt(5);
+				String to = "n" + random.nextInt(60);
+				graph.addEdge("e" + id++, from, to, random.nextBoolean());
+			} else if (r < 90 && graph.getEdgeCount() > 0) {
+				graph.removeEdge(random.nextInt(graph.getEdgeCount()));
+			} else if (graph.getNodeCount() > 0) {
+				graph.removeNode(random.nextInt(graph.getNodeCount()));
+			}
+
+			if (i % 100 == 0)
+				checkLookups(graph);
+		}
+
+		checkLookups(graph);
+
+		for (Node n : graph)
+			for (Node o : graph)
+				assertEquals(scan(n, o, 'b').size(), ((MultiNode) n)
+						.getEdgeSetBetween(o).size());
+	}
+
+	@Test
+	public void testEdgeSetBetweenIsLive() {
+		Graph graph = new MultiGraph("g", false, true);
+		MultiNode hub = graph.addNode("hub");
+		graph.addNode("a");
+
+		Collection<Edge> between = hub.getEdgeSetBetween("a");
+		assertTrue(between.isEmpty());
+
+		graph.addEdge("e0", "hub", "a");
+		graph.addEdge("e1", "a", "hub", true);
+		assertEquals(2, between.size());
+
+		// Past the threshold the edges are indexed.
+		for (int i = 0; i < 100; i++)
+			graph.addEdge("x" + i, "hub", "n" + i);
+
+		graph.addEdge("e2", "hub", "a");
+		assertEquals(3, between.size());
+		assertTrue(between.contains(graph.getEdge("e2")));
+
+		graph.removeEdge("e0");
+		assertEquals(2, between.size());
+		assertFalse(between.contains(graph.getEdge("e0")));
+
+		try {
+			between.clear();
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+	}
+
+	@Test
+	public void testSingleGraph() {
+		Graph graph = new SingleGraph("g", false, true);
+		Node hub = graph.addNode("hub");
+
+		for (int i = 0; i < 100; i++)
+			graph.addEdge("e" + i, "hub", "n" + i, true);
+
+		assertEquals(100, hub.getDegree());
+
+		// A second edge from the hub toward a node is rejected, an edge in
+		// the other direction is accepted.
+
+		assertNull(graph.addEdge("dup", "hub", "n10", true));
+		assertNull(graph.addEdge("dup", "hub", "n10", false));
+		assertNotNull(graph.addEdge("back", "n10", "hub", true));
+		assertEquals(graph.getEdge("back"), hub.getEdgeFrom("n10"));
+		assertEquals(graph.getEdge("back"), hub.getEdgeBetween("n10"));
+		assertEquals(graph.getEdge("e10"), hub.getEdgeToward("n10"));
+
+		graph.setStrict(true);
+
+		try {
+			graph.addEdge("dup", "hub", "n20", true);
+			fail();
+		} catch (EdgeRejectedException e) {
+		}
+
+		// Remove nodes so that the others are re-indexed.
+
+		for (int i = 0; i < 50; i++)
+			graph.removeNode("n" + (2 * i));
+
+		checkLookups(graph);
+		assertEquals(graph.getEdge("e99"), hub.getEdgeToward("n99"));
+		assertNull(hub.getEdgeToward("n98"));
+	}
+
+	protected void checkLookups(Graph graph) {
+		for (Node n : graph) {
+			for (Node o : graph) {
+				checkSame(scan(n, o, 'i'), n.getEdgeFrom(o));
+				checkSame(scan(n, o, 'o'), n.getEdgeToward(o));
+				checkSame(scan(n, o, 'b'), n.getEdgeBetween(o));
+			}
+
+			checkNeighbors(n);
+		}
+	}
+
+	protected void checkNeighbors(Node n) {
+		HashSet<Node> expected = new HashSet<Node>();
+		ArrayList<Node> found = new ArrayList<Node>();
+
+		for (Edge e : n.getEachEdge())
+			expected.add(e.getOpposite(n));
+
+		for (Iterator<Node> it = n.getNeighborNodeIterator(); it.hasNext();)
+			found.add(it.next());
+
+		assertEquals(expected.size(), found.size());
+		assertEquals(expected, new HashSet<Node>(found));
+	}
+
+	protected void checkSame(ArrayList<Edge> expected, Edge found) {
+		if (expected.isEmpty())
+			assertNull(found);
+		else
+			assertTrue(expected.contains(found));
+	}
+
+	protected ArrayList<Edge> scan(Node n, Node o, char type) {
+		ArrayList<Edge> result = new ArrayList<Edge>();
+
+		for (Edge e : n.getEachEdge()) {
+			if (e.getOpposite(n) != o)
+				continue;
+
+			boolean entering = e.getTargetNode() == n || !e.isDirected();
+			boolean leaving = e.getSourceNode() == n || !e.isDirected();
+
+			if (type == 'b' || (type == 'i' && entering)
+					|| (type == 'o' && leaving))
+				result.add(e);
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.binary.test;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.binary.ByteProxy;
+import org.graphstream.stream.netstream.NetStreamConstants;
+import org.graphstream.stream.netstream.NetStreamDecoder;
+import org.graphstream.stream.netstream.NetStreamUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.zip.Inflater;
+
+public class TestByteProxy {
+    protected static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+
+    protected static int port = 20000;
+
+    protected ByteProxy createServer() throws IOException {
+        while (true) {
+            try {
+                return new ByteProxy(NetStreamUtils.getDefaultNetStreamFactory(), ByteProxy.Mode.SERVER, LOOPBACK,
+                        ++port);
+            } catch (IOException e) {
+                if (port > 20100)
+                    throw e;
+            }
+        }
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        ByteProxy server = createServer();
+        server.setBatching(4096, 50);
+        server.start();
+
+        ByteProxy client = new ByteProxy(NetStreamUtils.getDefaultNetStreamFactory(), ByteProxy.Mode.CLIENT,
+                LOOPBACK, server.port);
+
+        Graph g = new AdjacencyListGraph("g");
+        client.addSink(g);
+
+        try {
+            // Wait for the server to accept the client.
+            Thread.sleep(200);
+
+            for (int i = 0; i < 1000; i++) {
+                server.nodeAdded("src", 2 * i, "n" + i);
+                server.nodeAttributeAdded("src", 2 * i + 1, "n" + i, "xyz", new Object[]{1.0 * i, 2.0, 3.0});
+            }
+
+            // The last events are left to the delay threshold.
+
+            long end = System.currentTimeMillis() + 5000;
+
+            while ((g.getNode("n999") == null || !g.getNode("n999").hasAttribute("xyz"))
+                    && System.currentTimeMillis() < end)
+                client.poll(false);
+
+            Assert.assertEquals(1000, g.getNodeCount());
+            Assert.assertArrayEquals(new Object[]{999.0, 2.0, 3.0},
+                    (Object[]) g.getNode("n999").getAttribute("xyz"));
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testSlowClient() throws Exception {
+        ByteProxy server = createServer();
+        server.setMaxQueuedBytes(1 << 20);
+        server.start();
+
+        SocketChannel slow = SocketChannel.open(new InetSocketAddress(LOOPBACK, server.port));
+
+        try {
+            Thread.sleep(200);
+
+            // The client does not read, this must not block the sender.
+            long sent = 0;
+            String value = new String(new char[1000]).replace('\0', 'x');
+
+            for (int i = 0; i < 50000; i++) {
+                server.graphAttributeAdded("src", i, "a", value);
+                sent += value.length();
+            }
+
+            // Client has been disconnected: it reads what was queued, then the end of stream.
+            ByteBuffer buffer = ByteBuffer.allocate(65536);
+            long read = 0;
+            int r;
+
+            while ((r = slow.read(buffer)) >= 0) {
+                read += r;
+                buffer.clear();
+            }
+
+            Assert.assertTrue(read < sent);
+        } finally {
+            slow.close();
+            server.stop();
+        }
+    }
+
+    protected Graph exchange(boolean serverCompression, boolean clientCompression) throws Exception {
+        ByteProxy server = createServer();
+        server.setCompression(serverCompression);
+        server.setBatching(8192, 20);
+        server.start();
+
+        ByteProxy client = new ByteProxy(NetStreamUtils.getDefaultNetStreamFactory(), ByteProxy.Mode.CLIENT,
+                LOOPBACK, server.port);
+        client.setCompression(clientCompression);
+
+        Graph g = new AdjacencyListGraph("g");
+        client.addSink(g);
+
+        try {
+            Thread.sleep(200);
+
+            for (int i = 0; i < 500; i++) {
+                server.nodeAdded("src", 2 * i, "node-" + i);
+                server.nodeAttributeAdded("src", 2 * i + 1, "node-" + i, "xyz", new Object[]{0.5, 0.5, 0.0});
+            }
+
+            long end = System.currentTimeMillis() + 5000;
+
+            while ((g.getNode("node-499") == null || !g.getNode("node-499").hasAttribute("xyz"))
+                    && System.currentTimeMillis() < end)
+                client.poll(false);
+        } finally {
+            server.stop();
+        }
+
+        return g;
+    }
+
+    @Test
+    public void testCompression() throws Exception {
+        // Negotiated, refused by the server, not asked by the client.
+        Assert.assertEquals(500, exchange(true, true).getNodeCount());
+        Assert.assertEquals(500, exchange(false, true).getNodeCount());
+        Assert.assertEquals(500, exchange(true, false).getNodeCount());
+
+        // Check what is on the wire.
+        ByteProxy server = createServer();
+        server.setCompression(true);
+        server.start();
+
+        SocketChannel raw = SocketChannel.open(new InetSocketAddress(LOOPBACK, server.port));
+
+        try {
+            ByteBuffer request = NetStreamUtils.encodeControl("default", NetStreamConstants.EVENT_DEFLATE_REQUEST);
+
+            while (request.hasRemaining())
+                raw.write(request);
+
+            Thread.sleep(200);
+
+            for (int i = 0; i < 100; i++)
+                server.nodeAdded("src", i, "node-" + i);
+
+            server.stop();
+
+            // Read until nothing more comes.
+            ByteBuffer received = ByteBuffer.allocate(65536);
+            long end = System.currentTimeMillis() + 5000;
+
+            raw.configureBlocking(false);
+
+            while (System.currentTimeMillis() < end) {
+                int before = received.position();
+
+                if (raw.read(received) < 0)
+                    break;
+
+                Thread.sleep(10);
+
+                if (before > 0 && received.position() == before)
+                    break;
+            }
+
+            received.flip();
+
+            Assert.assertEquals(NetStreamConstants.EVENT_DEFLATE_START, NetStreamUtils.decodeControl(received));
+            received.position(received.getInt(0));
+
+            Inflater inflater = new Inflater();
+            inflater.setInput(received.array(), received.position(), received.remaining());
+
+            byte[] plain = new byte[65536];
+            int length = inflater.inflate(plain);
+
+            // Compressed data is smaller than the messages it carries.
+            Assert.assertTrue(received.remaining() < length);
+
+            NetStreamDecoder decoder = new NetStreamDecoder();
+            Graph g = new AdjacencyListGraph("g");
+            decoder.addSink(g);
+
+            ByteBuffer messages = ByteBuffer.wrap(plain, 0, length);
+
+            while (messages.hasRemaining())
+                decoder.decode(messages);
+
+            Assert.assertEquals(100, g.getNodeCount());
+        } finally {
+            raw.close();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.dgs.DGSByteParser;
+import org.graphstream.stream.file.dgs.DGSParser;
+import org.graphstream.util.parser.ParseException;
+import org.junit.Test;
+
+public class TestDGSByteParser {
+
+	static final String DGS = "DGS004\r\n" + "\"test\" 0 0\r\n" + "\n"
+			+ "# a comment\n" + "an A x:1 y:2.5 label:\"a \\\"quoted\\\" string\"\n"
+			+ "an \"B C\" color:#FF0000 map:[a=1, b=\"2\"]\n"
+			+ "an été array:{1,2,{3,4}} word:aWord\n"
+			+ "ae AB A > \"B C\" weight:-1.27E-07\n" + "st 1.5\n"
+			+ "ae Aé A été\r\n" + "cn A -x +y:3\n" + "st 2\n"
+			+ "de AB\n" + "dn \"B C\"\n" + "cg title:\"à la carte\"\n"
+			+ "cl\n";
+
+	@Test
+	public void testSameEvents() throws IOException, ParseException {
+		List<String> expected = parse(new ByteParserFactory(0));
+
+		for (int size : new int[] { 7, 16, 64, 1 << 16 })
+			assertEquals("buffer of " + size, expected,
+					parse(new ByteParserFactory(size)));
+	}
+
+	@Test
+	public void testInterning() throws IOException, ParseException {
+		final List<String> ids = new ArrayList<String>();
+		FileSourceDGS dgs = new FileSourceDGS();
+
+		dgs.addSink(new SinkAdapter() {
+			@Override
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				ids.add(nodeId);
+			}
+
+			@Override
+			public void edgeAdded(String sourceId, long timeId, String edgeId,
+					String fromNodeId, String toNodeId, boolean directed) {
+				ids.add(fromNodeId);
+				ids.add(toNodeId);
+			}
+		});
+
+		String data = "DGS004\nnull 0 0\nan A\nan \"B\"\nae AB A B\nae BA \"B\" A\n";
+		DGSParser parser = new DGSByteParser(dgs, Channels
+				.newChannel(new ByteArrayInputStream(data.getBytes("UTF-8"))),
+				16);
+
+		parser.all();
+		parser.close();
+
+		assertEquals(Arrays.asList("A", "B", "A", "B", "B", "A"), ids);
+		assertSame(ids.get(0), ids.get(2));
+		assertSame(ids.get(0), ids.get(5));
+		assertSame(ids.get(1), ids.get(3));
+		assertSame(ids.get(1), ids.get(4));
+	}
+
+	protected List<String> parse(ByteParserFactory factory)
+			throws IOException, ParseException {
+		final List<String> events = new ArrayList<String>();
+		FileSourceDGS dgs = new FileSourceDGS();
+
+		dgs.addSink(new SinkAdapter() {
+			@Override
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				events.add("an " + nodeId);
+			}
+
+			@Override
+			public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+				events.add("dn " + nodeId);
+			}
+
+			@Override
+			public void edgeAdded(String sourceId, long timeId, String edgeId,
+					String fromNodeId, String toNodeId, boolean directed) {
+				events.add("ae " + edgeId + " " + fromNodeId + " " + toNodeId
+						+ " " + directed);
+			}
+
+			@Override
+			public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+				events.add("de " + edgeId);
+			}
+
+			@Override
+			public void stepBegins(String sourceId, long timeId, double step) {
+				events.add("st " + step);
+			}
+
+			@Override
+			public void graphCleared(String sourceId, long timeId) {
+				events.add("cl");
+			}
+
+			@Override
+			public void graphAttributeAdded(String sourceId, long timeId,
+					String attribute, Object value) {
+				events.add("+g " + attribute + "=" + toString(value));
+			}
+
+			@Override
+			public void nodeAttributeAdded(String sourceId, long timeId,
+					String nodeId, String attribute, Object value) {
+				events.add("+n " + nodeId + " " + attribute + "="
+						+ toString(value));
+			}
+
+			@Override
+			public void nodeAttributeChanged(String sourceId, long timeId,
+					String nodeId, String attribute, Object oldValue,
+					Object newValue) {
+				events.add("~n " + nodeId + " " + attribute + "="
+						+ toString(newValue));
+			}
+
+			@Override
+			public void nodeAttributeRemoved(String sourceId, long timeId,
+					String nodeId, String attribute) {
+				events.add("-n " + nodeId + " " + attribute);
+			}
+
+			@Override
+			public void edgeAttributeAdded(String sourceId, long timeId,
+					String edgeId, String attribute, Object value) {
+				events.add("+e " + edgeId + " " + attribute + "="
+						+ toString(value));
+			}
+
+			String toString(Object value) {
+				if (value instanceof Object[])
+					return Arrays.deepToString((Object[]) value);
+
+				return String.valueOf(value);
+			}
+		});
+
+		DGSParser parser = factory.newParser(dgs);
+
+		parser.all();
+		parser.close();
+
+		return events;
+	}
+
+	protected static class ByteParserFactory {
+		int bufferSize;
+
+		ByteParserFactory(int bufferSize) {
+			this.bufferSize = bufferSize;
+		}
+
+		DGSParser newParser(FileSourceDGS dgs) {
+			if (bufferSize <= 0)
+				return new DGSParser(dgs, new StringReader(DGS));
+
+			byte[] data = DGS.getBytes(Charset.forName("UTF-8"));
+
+			return new DGSByteParser(dgs, Channels
+					.newChannel(new ByteArrayInputStream(data)), bufferSize);
+		}
+	}
+}
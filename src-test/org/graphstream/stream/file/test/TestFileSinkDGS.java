@@ -31,9 +31,20 @@
  */
 package org.graphstream.stream.file.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.Random;
+
 import org.graphstream.stream.file.FileSinkDGS;
 import org.graphstream.stream.file.FileSourceDGS;
 import org.junit.Before;
+import org.junit.Test;
 
 public class TestFileSinkDGS extends TestFileSinkBase {
 	@Override
@@ -47,4 +58,84 @@ public class TestFileSinkDGS extends TestFileSinkBase {
 		input = new FileSourceDGS();
 		output = new FileSinkDGS();
 	}
-}
\ No newline at end of file
+
+	/**
+	 * The buffered writer must produce exactly what printf-based formatting
+	 * used to.
+	 */
+	@Test
+	public void test_Format() throws IOException {
+		Random random = new Random(1234);
+		double[] values = new double[2000];
+		int k = 0;
+
+		for (double d : new double[] { 0, -0.0, 1, -1, 0.1, 0.5e-6, 1.5e-6,
+				-2.5e-6, 123.456, 9999999.9999995, 1e7, 1e300, -1e-9,
+				Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE })
+			values[k++] = d;
+
+		while (k < values.length) {
+			double scale = Math.pow(10, random.nextInt(16) - 8);
+			values[k++] = (random.nextDouble() - 0.5) * scale;
+		}
+
+		StringWriter out = new StringWriter();
+		StringBuilder expected = new StringBuilder();
+		String eol = String.format("%n");
+
+		output.begin(out);
+		expected.append(String.format("DGS004%nnull 0 0%n"));
+
+		output.stepBegins("?", 0, 2.5);
+		expected.append(String.format(Locale.US, "st %f%n", 2.5));
+
+		for (double d : values) {
+			output.nodeAttributeAdded("?", 0, "A", "d", d);
+			expected.append(String.format(Locale.US, "cn \"%s\"  \"%s\":%f%n",
+					"A", "d", d));
+		}
+
+		output.edgeAdded("?", 0, "a\"b", "A", "B", true);
+		expected.append("ae \"a\\\"b\" \"A\" > \"B\"").append(eol);
+		output.edgeAdded("?", 0, "AB", "A", "B", false);
+		expected.append("ae \"AB\" \"A\"  \"B\"").append(eol);
+		output.edgeAttributeAdded("?", 0, "AB", "xy", new Object[] { 1,
+				2.5f, "s" });
+		expected.append("ce \"AB\"  \"xy\":{1,2.500000,\"s\"}").append(eol);
+		output.graphAttributeAdded("?", 0, "c", new Color(1, 20, 255, 128));
+		expected.append("cg  \"c\":#0114FF80").append(eol);
+		output.graphAttributeRemoved("?", 0, "c");
+		expected.append("cg  -\"c\"").append(eol);
+		output.nodeAttributeAdded("?", 0, "A", "p", new double[] { 1, -0.25 });
+		expected.append("cn \"A\"  \"p\":{1.000000,-0.250000}").append(eol);
+		output.graphCleared("?", 0);
+		expected.append("cl").append(eol);
+		output.end();
+
+		assertEquals(expected.toString(), out.toString());
+	}
+
+	@Test
+	public void test_Compressed() throws IOException {
+		FileSinkDGS sink = (FileSinkDGS) output;
+		File file = File.createTempFile("foo", ".dgs.gz");
+
+		sink.setCompressed(true);
+		createAttributedTriangle();
+
+		try {
+			for (int i = 0; i < 50000; i++)
+				outGraph.addAttribute("filler" + i, i * 0.5);
+
+			sink.writeAll(outGraph, file.getPath());
+			assertTrue(file.length() > 0);
+
+			input.addSink(inGraph);
+			input.readAll(file.getPath());
+			testAttributedTriangle();
+			assertEquals(24999.5, inGraph.getNumber("filler49999"), 0);
+		} finally {
+			file.delete();
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.file.FileSinkFactory;
+import org.graphstream.stream.file.FileSinkGSB;
+import org.graphstream.stream.file.FileSourceFactory;
+import org.graphstream.stream.file.FileSourceGSB;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFileSinkGSB extends TestFileSinkBase {
+	@Override
+	protected String aTemporaryGraphFileName() {
+		return new File(System.getProperty("java.io.tmpdir"), "foo.gsb")
+				.getPath();
+	}
+
+	@Before
+	@Override
+	public void setup() {
+		input = new FileSourceGSB();
+		output = new FileSinkGSB();
+		formatHandleDynamics = false;
+	}
+
+	@Test
+	public void test_Columns() throws IOException {
+		Graph g = new AdjacencyListGraph("g");
+
+		for (int i = 0; i < 1000; i++)
+			g.addNode(Integer.toString(i));
+
+		for (int i = 1; i < 1000; i++)
+			g.addEdge(i + "-" + (i / 2), Integer.toString(i),
+					Integer.toString(i / 2), i % 3 == 0);
+
+		for (Node n : g) {
+			int i = n.getIndex();
+
+			n.setAttribute("d", i * 0.25);
+			n.setAttribute("xy", i, -i * 1.5);
+
+			if (i % 7 == 0)
+				n.setAttribute("sparse", (long) i << 33);
+
+			n.setAttribute("mixed", i % 2 == 0 ? "even" : (Object) i);
+		}
+
+		g.getEdge(0).setAttribute("ui.label", "é\"");
+		g.getEdge(10).setAttribute("flag", true);
+		g.getEdge(10).setAttribute("pos", 1.0, 2.0, 3.0);
+		g.setAttribute("title", "columns");
+		g.setAttribute("array", "a", 1, new Object[] { 2.5, "b" });
+		g.setAttribute("null", (Object) null);
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		output.writeAll(g, bytes);
+
+		FileSourceGSB source = new FileSourceGSB();
+		source.addSink(inGraph);
+		source.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+
+		assertEquals(1000, inGraph.getNodeCount());
+		assertEquals(999, inGraph.getEdgeCount());
+
+		for (Node n : g) {
+			Node m = inGraph.getNode(n.getId());
+			int i = n.getIndex();
+
+			assertEquals(i * 0.25, m.getAttribute("d"));
+			assertArrayEquals(new Object[] { i, -i * 1.5 },
+					(Object[]) m.getAttribute("xy"));
+			assertEquals(i % 7 == 0 ? (Object) ((long) i << 33) : null,
+					m.getAttribute("sparse"));
+			assertEquals(n.getAttribute("mixed"), m.getAttribute("mixed"));
+		}
+
+		for (int i = 1; i < 1000; i++) {
+			String id = i + "-" + (i / 2);
+
+			assertEquals(Integer.toString(i), inGraph.getEdge(id)
+					.getSourceNode().getId());
+			assertEquals(Integer.toString(i / 2), inGraph.getEdge(id)
+					.getTargetNode().getId());
+			assertEquals(i % 3 == 0, inGraph.getEdge(id).isDirected());
+		}
+
+		assertEquals("é\"", inGraph.getEdge(g.getEdge(0).getId())
+				.getAttribute("ui.label"));
+		assertEquals(true, inGraph.getEdge(g.getEdge(10).getId())
+				.getAttribute("flag"));
+		assertArrayEquals(new Object[] { 1.0, 2.0, 3.0 },
+				(Object[]) inGraph.getEdge(g.getEdge(10).getId())
+						.getAttribute("pos"));
+		assertEquals("columns", inGraph.getAttribute("title"));
+		assertArrayEquals(new Object[] { "a", 1, new Object[] { 2.5, "b" } },
+				(Object[]) inGraph.getAttribute("array"));
+		assertNull(inGraph.getAttribute("null"));
+	}
+
+	@Test
+	public void test_Values() throws IOException {
+		Graph g = new AdjacencyListGraph("g");
+		Node n = g.addNode("A");
+
+		n.setAttribute("max", Long.MAX_VALUE);
+		n.setAttribute("min", Long.MIN_VALUE);
+		n.setAttribute("minInt", Integer.MIN_VALUE);
+		n.setAttribute("byte", (byte) -3);
+		n.setAttribute("xyz", new double[] { 1.5, -2, 3e10 });
+		n.setAttribute("floats", new float[] { 0.5f });
+		n.setAttribute("longs", new long[] { Long.MIN_VALUE, -1, 0,
+				Long.MAX_VALUE });
+		n.setAttribute("ints", new int[] { Integer.MIN_VALUE, 7 });
+		n.setAttribute("shorts", new short[] { Short.MIN_VALUE, 3 });
+		n.setAttribute("bytes", new byte[] { -128, 0, 127 });
+		n.setAttribute("booleans", new boolean[] { true, false });
+		n.setAttribute("nested", (Object) new Object[] { Long.MIN_VALUE,
+				new int[] { -1 }, null });
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		output.writeAll(g, bytes);
+		input.addSink(inGraph);
+		input.readAll(new ByteArrayInputStream(bytes.toByteArray()));
+
+		Node m = inGraph.getNode("A");
+
+		assertEquals(Long.MAX_VALUE, m.getAttribute("max"));
+		assertEquals(Long.MIN_VALUE, m.getAttribute("min"));
+		assertEquals(Integer.MIN_VALUE, m.getAttribute("minInt"));
+		assertEquals((byte) -3, m.getAttribute("byte"));
+		assertArrayEquals(new double[] { 1.5, -2, 3e10 },
+				(double[]) m.getAttribute("xyz"), 0);
+		assertArrayEquals(new float[] { 0.5f },
+				(float[]) m.getAttribute("floats"), 0);
+		assertArrayEquals(new long[] { Long.MIN_VALUE, -1, 0, Long.MAX_VALUE },
+				(long[]) m.getAttribute("longs"));
+		assertArrayEquals(new int[] { Integer.MIN_VALUE, 7 },
+				(int[]) m.getAttribute("ints"));
+		assertArrayEquals(new short[] { Short.MIN_VALUE, 3 },
+				(short[]) m.getAttribute("shorts"));
+		assertArrayEquals(new byte[] { -128, 0, 127 },
+				(byte[]) m.getAttribute("bytes"));
+		assertArrayEquals(new boolean[] { true, false },
+				(boolean[]) m.getAttribute("booleans"));
+
+		Object[] nested = m.getAttribute("nested");
+
+		assertEquals(Long.MIN_VALUE, nested[0]);
+		assertArrayEquals(new int[] { -1 }, (int[]) nested[1]);
+		assertNull(nested[2]);
+	}
+
+	@Test
+	public void test_Factories() throws IOException {
+		File file = File.createTempFile("foo", ".data");
+
+		try {
+			assertTrue(FileSinkFactory.sinkFor("foo.gsb") instanceof FileSinkGSB);
+
+			createAttributedTriangle();
+			output.writeAll(outGraph, file.getPath());
+
+			assertTrue(FileSourceFactory.sourceFor(file.getPath()) instanceof FileSourceGSB);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void test_BadMagic() {
+		try {
+			input.readAll(new ByteArrayInputStream("DGS004\n".getBytes()));
+			assertFalse("should fail", true);
+		} catch (IOException e) {
+			// Expected.
+		}
+	}
+}
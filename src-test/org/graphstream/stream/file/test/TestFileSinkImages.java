@@ -0,0 +1,172 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.file.FileSinkImages;
+import org.graphstream.stream.file.FileSinkImages.CustomResolution;
+import org.graphstream.stream.file.FileSinkImages.OutputPolicy;
+import org.graphstream.stream.file.FileSinkImages.OutputType;
+import org.junit.Test;
+
+public class TestFileSinkImages {
+	/**
+	 * The pipelined output must produce the same files, with the same
+	 * content, as the sequential one.
+	 */
+	@Test
+	public void testPipelinedOutput() throws IOException {
+		File logo = File.createTempFile("logo", ".png");
+		BufferedImage square = new BufferedImage(8, 8,
+				BufferedImage.TYPE_INT_ARGB);
+
+		for (int x = 0; x < 8; x++)
+			for (int y = 0; y < 8; y++)
+				square.setRGB(x, y, 0xFF00FF00);
+
+		ImageIO.write(square, "png", logo);
+
+		File sequential = output(false, logo);
+		File pipelined = output(true, logo);
+
+		try {
+			String[] names = sequential.list();
+			Arrays.sort(names);
+
+			String[] pipelinedNames = pipelined.list();
+			Arrays.sort(pipelinedNames);
+
+			assertEquals(31, names.length);
+			assertArrayEquals(names, pipelinedNames);
+
+			for (String name : names) {
+				BufferedImage a = ImageIO.read(new File(sequential, name));
+				BufferedImage b = ImageIO.read(new File(pipelined, name));
+
+				assertEquals(a.getWidth(), b.getWidth());
+				assertEquals(a.getHeight(), b.getHeight());
+				assertArrayEquals(name, pixels(a), pixels(b));
+			}
+
+			// The graph was really drawn.
+			int[] last = pixels(ImageIO.read(new File(sequential,
+					names[names.length - 1])));
+			int[] sorted = last.clone();
+			Arrays.sort(sorted);
+			assertTrue(sorted[0] != sorted[sorted.length - 1]);
+			// The logo was drawn by the post renderer.
+			assertEquals(0xFF00FF00, last[2 * 160 + 2]);
+		} finally {
+			delete(sequential);
+			delete(pipelined);
+			logo.delete();
+		}
+	}
+
+	protected File output(boolean pipelined, File logo) throws IOException {
+		File dir = File.createTempFile("images", "");
+		dir.delete();
+		dir.mkdirs();
+
+		FileSinkImages images = new FileSinkImages("frame_", OutputType.PNG,
+				new CustomResolution(160, 120), OutputPolicy.BY_STEP);
+		Graph graph = new AdjacencyListGraph("images");
+		Random random = new Random(42);
+
+		images.setStyleSheet("node { fill-color: red; size: 6px; } edge { fill-color: blue; }");
+		images.addLogo(logo.getPath(), 0, 0);
+
+		if (pipelined) {
+			images.setPipelineRenderers(3);
+			images.setPipelineCapacity(4);
+			images.setPipelinedOutputEnabled(true);
+		}
+
+		images.begin(new File(dir, "frame_").getPath());
+		graph.addSink(images);
+
+		for (int step = 0; step < 30; step++) {
+			graph.stepBegins(step);
+
+			String id = "n" + step;
+			graph.addNode(id).setAttribute("xyz", random.nextDouble(),
+					random.nextDouble(), 0);
+
+			if (step > 0)
+				graph.addEdge("e" + step, id, "n" + random.nextInt(step));
+
+			graph.getNode(random.nextInt(step + 1)).setAttribute("xyz",
+					random.nextDouble(), random.nextDouble(), 0);
+
+			if (step == 20)
+				graph.removeEdge("e5");
+		}
+
+		graph.stepBegins(30);
+		images.end();
+
+		// end() stops the threads of the pipeline.
+		for (Thread thread : Thread.getAllStackTraces().keySet())
+			assertTrue(thread.getName(), !thread.getName().contains(
+					"-renderer-")
+					&& !thread.getName().endsWith("-writer"));
+
+		assertTrue(dir.list().length > 0);
+
+		return dir;
+	}
+
+	protected int[] pixels(BufferedImage image) {
+		return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null,
+				0, image.getWidth());
+	}
+
+	protected void delete(File dir) {
+		for (File file : dir.listFiles())
+			file.delete();
+
+		dir.delete();
+	}
+}
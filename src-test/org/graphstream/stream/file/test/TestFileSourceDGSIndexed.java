@@ -0,0 +1,251 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSinkDGS;
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.stream.file.FileSourceDGSIndexed;
+import org.graphstream.stream.file.dgs.DGSIndex;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestFileSourceDGSIndexed {
+	static final int STEPS = 50;
+
+	File file;
+
+	/**
+	 * State of the graph at the beginning of each step.
+	 */
+	List<String> states;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("indexed", ".dgs");
+
+		Graph g = new AdjacencyListGraph("g");
+		FileSinkDGS sink = new FileSinkDGS();
+		Random random = new Random(12);
+
+		g.addSink(sink);
+		sink.begin(file.getPath());
+		g.addNode("init");
+
+		for (int s = 0; s < STEPS; s++) {
+			g.stepBegins(s * 0.5);
+
+			for (int i = 0; i < 5; i++) {
+				Node n = g.addNode(s + "_" + i);
+				n.setAttribute("xy", random.nextDouble(), random.nextDouble());
+				n.setAttribute("s", s);
+			}
+
+			for (int i = 0; i < 5; i++) {
+				Node a = g.getNode(random.nextInt(g.getNodeCount()));
+				Node b = g.getNode(random.nextInt(g.getNodeCount()));
+
+				if (!a.hasEdgeBetween(b))
+					g.addEdge(a.getId() + "-" + b.getId(), a, b, i % 2 == 0)
+							.setAttribute("w", random.nextInt(10));
+			}
+
+			g.getNode(random.nextInt(g.getNodeCount())).setAttribute("label",
+					"step " + s);
+
+			if (s % 3 == 0)
+				g.removeNode(g.getNode(random.nextInt(g.getNodeCount())));
+
+			g.setAttribute("step", s);
+
+			// Values that checkpoints must restore exactly.
+			HashMap<String, Object> map = new HashMap<String, Object>();
+			map.put("a", s);
+			map.put("c", new Color(255, s, 0));
+			g.setAttribute("c", new Color(s, 0, 0, 128));
+			g.setAttribute("m", map);
+			g.setAttribute("big", Long.MAX_VALUE - s);
+			g.setAttribute("small", Long.MIN_VALUE + s);
+		}
+
+		sink.end();
+
+		states = new ArrayList<String>();
+
+		final Graph reference = new AdjacencyListGraph("reference");
+		FileSourceDGS source = new FileSourceDGS();
+
+		source.addSink(reference);
+		source.addSink(new SinkAdapter() {
+			@Override
+			public void stepBegins(String sourceId, long timeId, double step) {
+				states.add(state(reference));
+			}
+		});
+		source.readAll(file.getPath());
+	}
+
+	@After
+	public void tearDown() {
+		new File(file.getPath() + DGSIndex.SUFFIX).delete();
+		file.delete();
+	}
+
+	@Test
+	public void testIndex() throws IOException {
+		DGSIndex index = DGSIndex.build(file.getPath(), 7);
+
+		assertEquals(STEPS, index.getStepCount());
+		assertEquals(STEPS / 7, index.getCheckpointCount());
+		assertEquals(7, index.getCheckpointStep(0));
+		assertEquals(-1, index.getCheckpointBefore(6));
+		assertEquals(0, index.getCheckpointBefore(7));
+		assertEquals(0, index.getCheckpointBefore(13));
+		assertEquals(1, index.getCheckpointBefore(14));
+		assertEquals(10, index.indexOf(5.2));
+		assertEquals(-1, index.indexOf(-1));
+
+		DGSIndex loaded = DGSIndex.load(file.getPath());
+
+		assertEquals(index.getStepCount(), loaded.getStepCount());
+		assertEquals(index.getCheckpointCount(), loaded.getCheckpointCount());
+
+		for (int i = 0; i < STEPS; i++) {
+			assertEquals(index.getStep(i), loaded.getStep(i), 0);
+			assertEquals(index.getOffset(i), loaded.getOffset(i));
+		}
+	}
+
+	@Test
+	public void testSeek() throws IOException {
+		DGSIndex.build(file.getPath(), 7);
+
+		Graph g = new AdjacencyListGraph("g");
+		FileSourceDGSIndexed source = new FileSourceDGSIndexed();
+		source.addSink(g);
+		source.begin(file.getPath());
+
+		int[] targets = { 30, 3, 49, 7, 0, 13, 14, 48, 21, 6 };
+
+		for (int i : targets) {
+			source.seekIndex(i);
+			assertEquals(i, source.getCurrentStep());
+			assertEquals("step " + i, states.get(i), state(g));
+
+			if (i + 1 < STEPS) {
+				// Reads the events of the step up to the next one.
+				source.nextStep();
+				assertEquals(i, source.getCurrentStep());
+				assertEquals("step " + (i + 1), states.get(i + 1), state(g));
+			}
+		}
+
+		source.seek(10.7);
+		assertEquals(21, source.getCurrentStep());
+		assertEquals(states.get(21), state(g));
+
+		source.seekIndex(-1);
+		assertEquals(-1, source.getCurrentStep());
+		source.nextStep();
+		assertEquals(states.get(0), state(g));
+
+		source.end();
+	}
+
+	@Test
+	public void testBuiltOnFirstRead() throws IOException {
+		File sidecar = new File(file.getPath() + DGSIndex.SUFFIX);
+
+		assertTrue(!sidecar.exists());
+
+		FileSourceDGSIndexed source = new FileSourceDGSIndexed();
+		source.begin(file.getPath());
+		source.end();
+
+		assertTrue(sidecar.exists());
+		assertEquals(STEPS, DGSIndex.load(file.getPath()).getStepCount());
+	}
+
+	protected static String state(Graph g) {
+		List<String> lines = new ArrayList<String>();
+
+		lines.add(attributes(g));
+
+		for (Node n : g)
+			lines.add(n.getId() + attributes(n));
+
+		for (Edge e : g.getEachEdge())
+			lines.add(e.getId() + " " + e.getSourceNode().getId()
+					+ (e.isDirected() ? ">" : "-") + e.getTargetNode().getId()
+					+ attributes(e));
+
+		Collections.sort(lines);
+
+		return lines.toString();
+	}
+
+	protected static String attributes(Element e) {
+		List<String> attributes = new ArrayList<String>();
+
+		for (String key : e.getAttributeKeySet()) {
+			Object value = e.getAttribute(key);
+
+			if (value instanceof Object[])
+				value = Arrays.deepToString((Object[]) value);
+
+			attributes.add(key + "=" + value);
+		}
+
+		Collections.sort(attributes);
+
+		return attributes.toString();
+	}
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSourceEdge;
+import org.graphstream.stream.file.FileSourceEdgeListBase;
+import org.graphstream.stream.file.FileSourceLGL;
+import org.graphstream.stream.file.FileSourceNCol;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Check that the memory-mapped parallel reading of the edge list formats
+ * produces the same events as the tokenizer.
+ */
+public class TestFileSourceEdgeList {
+	protected File file;
+
+	@After
+	public void tearDown() {
+		if (file != null)
+			file.delete();
+	}
+
+	@Test
+	public void testEdge() throws IOException {
+		String data = "A B C\n" + "# a comment\n" + "B \"q r\" 007 7.50\n"
+				+ "\n" + "x/y 1.25 -3 n-1.5\n" + "D D E\r\n" + "\"\\101\\n\" é\n"
+				+ "A C";
+
+		compare(new FileSourceEdge(), new FileSourceEdge(), data, 4);
+		compare(new FileSourceEdge(), new FileSourceEdge(), data, 1 << 20);
+		compare(new FileSourceEdge(true), new FileSourceEdge(true), data, 4);
+	}
+
+	@Test
+	public void testNCol() throws IOException {
+		String data = "A B 1.5\n" + "B C\n" + "C D 2 # comment\n"
+				+ "D A \"3\"\n" + "\n" + "E F -0.5\n";
+
+		compare(new FileSourceNCol(true), new FileSourceNCol(true), data, 4);
+		compare(new FileSourceNCol(true), new FileSourceNCol(true), data,
+				1 << 20);
+	}
+
+	@Test
+	public void testLGL() throws IOException {
+		String data = "# A\n" + "B 1.5\n" + "C\n" + "% comment\n" + "D\n"
+				+ "# B\n" + "C 2\n" + "#\n" + "E\n" + "# F\n" + "A\n" + "G";
+
+		compare(new FileSourceLGL(true), new FileSourceLGL(true), data, 4);
+		compare(new FileSourceLGL(true), new FileSourceLGL(true), data, 1 << 20);
+	}
+
+	@Test
+	public void testLargeFile() throws IOException {
+		StringBuilder data = new StringBuilder();
+
+		for (int i = 0; i < 5000; i++)
+			data.append(i).append(' ').append((i * 7919) % 1000).append(' ')
+					.append(i % 3 == 0 ? "n" + i : "").append('\n');
+
+		compare(new FileSourceEdge(), new FileSourceEdge(), data.toString(),
+				1000);
+	}
+
+	@Test
+	public void testParseError() throws IOException {
+		String data = "A B\n" + "B C\n" + "C + D\n" + "E F\n";
+		FileSourceEdge tokenizer = new FileSourceEdge();
+		FileSourceEdge mapped = new FileSourceEdge();
+		Recorder r1 = new Recorder();
+		Recorder r2 = new Recorder();
+
+		write(data);
+		tokenizer.setMappedLoading(false);
+		tokenizer.addSink(r1);
+		mapped.setChunkSize(1);
+		mapped.setParallelism(2);
+		mapped.addSink(r2);
+
+		String m1 = error(tokenizer), m2 = error(mapped);
+		String prefix = "parse error: " + file.getPath() + ": 3: ";
+
+		assertTrue(m1, m1.startsWith(prefix));
+		assertTrue(m2, m2.startsWith(prefix));
+		assertEquals(r1.events, r2.events);
+	}
+
+	protected String error(FileSourceEdgeListBase source) {
+		try {
+			source.readAll(file.getPath());
+			fail("parse error expected");
+		} catch (IOException e) {
+			return e.getMessage();
+		}
+
+		return null;
+	}
+
+	protected void compare(FileSourceEdgeListBase tokenizer,
+			FileSourceEdgeListBase mapped, String data, int chunkSize)
+			throws IOException {
+		Recorder r1 = new Recorder();
+		Recorder r2 = new Recorder();
+
+		write(data);
+
+		tokenizer.addSink(r1);
+		tokenizer.readAll(new StringReader(data));
+
+		mapped.setChunkSize(chunkSize);
+		mapped.setParallelism(3);
+		mapped.addSink(r2);
+		mapped.readAll(file.getPath());
+
+		assertTrue(r1.events.size() > 0);
+		assertEquals(r1.events, r2.events);
+	}
+
+	protected void write(String data) throws IOException {
+		if (file == null)
+			file = File.createTempFile("gs-edgelist", ".txt");
+
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(data.getBytes("UTF-8"));
+		out.close();
+	}
+
+	/**
+	 * Record the events, without the source identifiers that contain a time
+	 * stamp.
+	 */
+	protected static class Recorder extends SinkAdapter {
+		ArrayList<String> events = new ArrayList<String>();
+
+		@Override
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			events.add("an [" + nodeId + "]");
+		}
+
+		@Override
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			events.add("ae " + edgeId + " [" + fromNodeId + "] ["
+					+ toNodeId + "] " + directed);
+		}
+
+		@Override
+		public void edgeAttributeAdded(String sourceId, long timeId,
+				String edgeId, String attribute, Object value) {
+			events.add("ce " + edgeId + " " + attribute + " " + value);
+		}
+	}
+}
@@ -31,8 +31,11 @@
  */
 package org.graphstream.stream.netstream.test;
 
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
 import org.graphstream.stream.binary.ByteEncoder;
 import org.graphstream.stream.netstream.NetStreamConstants;
+import org.graphstream.stream.netstream.NetStreamDecoder;
 import org.graphstream.stream.netstream.NetStreamEncoder;
 
 import static org.graphstream.stream.netstream.NetStreamUtils.*;
@@ -42,6 +45,9 @@ import org.junit.Test;
 
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 /**
  * @since 22/01/16.
@@ -237,4 +243,237 @@ public class TestNetStreamEncoder {
 
         enc.graphCleared(sourceId, timeId);
     }
+
+    protected void sendEvents(NetStreamEncoder enc) {
+        enc.stepBegins("src", 1, 1.5);
+        enc.nodeAdded("src", 2, "A");
+        enc.nodeAdded("src", 3, "B\u00e9\u4e2d\ud83d\ude00");
+        enc.edgeAdded("src", 4, "AB", "A", "B\u00e9\u4e2d\ud83d\ude00", true);
+        enc.graphAttributeAdded("other", 5, "title", "some title");
+        enc.nodeAttributeAdded("src", 6, "A", "xyz", new Object[]{1.0, 2.0, 3.0});
+        enc.nodeAttributeChanged("src", 7, "A", "xyz", new Object[]{1.0, 2.0, 3.0}, 12);
+        enc.nodeAttributeAdded("src", 8, "A", "ints", new Object[]{0, -1, 1000});
+        enc.edgeAttributeAdded("src", 9, "AB", "weight", -12345678901L);
+        enc.edgeAttributeChanged("src", 10, "AB", "weight", -12345678901L, 0.5f);
+        enc.edgeAttributeAdded("src", 11, "AB", "flag", true);
+        enc.edgeAttributeRemoved("src", 12, "AB", "flag");
+        enc.nodeAttributeRemoved("src", 13, "A", "ints");
+        enc.graphAttributeChanged("src", 14, "title", "some title", null);
+        enc.graphAttributeRemoved("src", 15, "title");
+        enc.edgeRemoved("src", 16, "AB");
+        enc.nodeRemoved("src", 17, "A");
+        enc.graphCleared("src", 18);
+    }
+
+    protected List<byte[]> record(final boolean reusable) {
+        final List<byte[]> messages = new ArrayList<>();
+
+        NetStreamEncoder enc = new NetStreamEncoder("stream-test", new ByteEncoder.Transport() {
+            @Override
+            public void send(ByteBuffer buffer) {
+                byte[] data = new byte[buffer.remaining()];
+                buffer.get(data);
+                messages.add(data);
+            }
+        });
+
+        if (reusable)
+            enc.setReusableBuffer(true, 16, true);
+
+        // Twice, so that identifiers come from the cache the second time.
+        sendEvents(enc);
+        sendEvents(enc);
+
+        return messages;
+    }
+
+    @Test
+    public void testReusableBuffer() {
+        List<byte[]> copied = record(false);
+        List<byte[]> reused = record(true);
+
+        Assert.assertEquals(36, copied.size());
+        Assert.assertEquals(copied.size(), reused.size());
+
+        for (int i = 0; i < copied.size(); i++) {
+            Assert.assertArrayEquals(copied.get(i), reused.get(i));
+            Assert.assertArrayEquals(copied.get(i), copied.get(i % 18));
+        }
+
+        final List<ByteBuffer> buffers = new ArrayList<>();
+
+        NetStreamEncoder enc = new NetStreamEncoder("stream-test", new ByteEncoder.Transport() {
+            @Override
+            public void send(ByteBuffer buffer) {
+                buffers.add(buffer);
+            }
+        });
+
+        enc.setReusableBuffer(true);
+        enc.nodeAdded("src", 1, "A");
+        enc.nodeAdded("src", 2, "B");
+
+        Assert.assertSame(buffers.get(0), buffers.get(1));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        final NetStreamDecoder dec = new NetStreamDecoder();
+        Graph g = new AdjacencyListGraph("g");
+
+        NetStreamEncoder enc = new NetStreamEncoder("stream-test", new ByteEncoder.Transport() {
+            @Override
+            public void send(ByteBuffer buffer) {
+                dec.decode(buffer);
+            }
+        });
+
+        enc.setReusableBuffer(true);
+        dec.addSink(g);
+
+        String id = "B\u00e9\u4e2d\ud83d\ude00";
+
+        enc.nodeAdded("src", 1, "A");
+        enc.nodeAdded("src", 2, id);
+        enc.edgeAdded("src", 3, "AB", "A", id, false);
+        enc.nodeAttributeAdded("src", 4, "A", "xyz", new double[]{1, 2, 3});
+        enc.nodeAttributeAdded("src", 5, id, "mixed", new Object[]{"a", 1, 2.5});
+        enc.edgeAttributeAdded("src", 6, "AB", "ints", new Object[]{0, -1, 1000});
+
+        Assert.assertEquals(2, g.getNodeCount());
+        Assert.assertNotNull(g.getNode(id));
+        Assert.assertNotNull(g.getEdge("AB"));
+        Assert.assertArrayEquals(new Object[]{1.0, 2.0, 3.0}, (Object[]) g.getNode("A").getAttribute("xyz"));
+        Assert.assertArrayEquals(new Object[]{"a", 1, 2.5}, (Object[]) g.getNode(id).getAttribute("mixed"));
+        Assert.assertArrayEquals(new Object[]{0, -1, 1000}, (Object[]) g.getEdge("AB").getAttribute("ints"));
+    }
+
+    @Test
+    public void testDeltaEncoding() {
+        final NetStreamDecoder dec = new NetStreamDecoder();
+        final NetStreamDecoder lateDec = new NetStreamDecoder();
+        final long[] sizes = new long[2];
+        final boolean[] late = new boolean[1];
+
+        Graph g = new AdjacencyListGraph("g");
+        Graph lateG = new AdjacencyListGraph("late");
+
+        NetStreamEncoder enc = new NetStreamEncoder("stream-test", new ByteEncoder.Transport() {
+            @Override
+            public void send(ByteBuffer buffer) {
+                sizes[0] += buffer.remaining();
+                dec.decode(buffer);
+            }
+        }, new ByteEncoder.Transport() {
+            @Override
+            public void send(ByteBuffer buffer) {
+                if (late[0])
+                    lateDec.decode(buffer);
+            }
+        });
+
+        NetStreamEncoder plain = new NetStreamEncoder("stream-test", new ByteEncoder.Transport() {
+            @Override
+            public void send(ByteBuffer buffer) {
+                sizes[1] += buffer.remaining();
+            }
+        });
+
+        enc.setDeltaEncoding(true);
+        enc.setDeltaPrecision(3);
+        enc.setDeltaKeyframeInterval(16);
+
+        dec.addSink(g);
+        lateDec.addSink(lateG);
+        lateG.addNode("n0");
+
+        Random random = new Random(1234);
+        Object[] xyz = {0.0, 0.0, 0.0};
+
+        long timeId = 0;
+
+        for (int i = 0; i < 10; i++) {
+            enc.nodeAdded("src", timeId, "n" + i);
+            plain.nodeAdded("src", timeId++, "n" + i);
+            enc.nodeAttributeAdded("src", timeId, "n" + i, "xyz", xyz);
+            plain.nodeAttributeAdded("src", timeId++, "n" + i, "xyz", xyz);
+        }
+
+        for (int step = 0; step < 100; step++) {
+            if (step == 10)
+                late[0] = true;
+
+            for (int i = 0; i < 10; i++) {
+                Object[] old = xyz;
+                xyz = new Object[]{(Double) old[0] + random.nextGaussian(),
+                        (Double) old[1] + random.nextGaussian(), 0.0};
+
+                enc.nodeAttributeChanged("src", timeId, "n" + i, "xyz", old, xyz);
+                plain.nodeAttributeChanged("src", timeId, "n" + i, "xyz", old, xyz);
+                timeId++;
+
+                Object[] received = (Object[]) g.getNode("n" + i).getAttribute("xyz");
+
+                for (int j = 0; j < 3; j++)
+                    Assert.assertEquals((Double) xyz[j], (Double) received[j], 0.5e-3 + 1e-9);
+            }
+        }
+
+        // Changes of numeric arrays are several times smaller.
+        Assert.assertTrue(sizes[0] * 2 < sizes[1]);
+
+        // The late receiver got the values back with an absolute event.
+        Object[] received = (Object[]) lateG.getNode("n0").getAttribute("xyz");
+        Object[] expected = (Object[]) g.getNode("n0").getAttribute("xyz");
+
+        Assert.assertArrayEquals(expected, received);
+
+        // Plain events take over.
+        enc.nodeAttributeChanged("src", timeId++, "n0", "xyz", xyz, "none");
+        Assert.assertEquals("none", g.getNode("n0").getAttribute("xyz"));
+
+        enc.nodeAttributeChanged("src", timeId++, "n0", "xyz", "none", new Object[]{1.0, 2.0, 3.0});
+        Assert.assertArrayEquals(new Object[]{1.0, 2.0, 3.0}, (Object[]) g.getNode("n0").getAttribute("xyz"));
+    }
+
+    @Test
+    public void testDeltaEncodingSameIds() {
+        final NetStreamDecoder dec = new NetStreamDecoder();
+        Graph g = new AdjacencyListGraph("g");
+
+        NetStreamEncoder enc = new NetStreamEncoder("stream-test", new ByteEncoder.Transport() {
+            @Override
+            public void send(ByteBuffer buffer) {
+                dec.decode(buffer);
+            }
+        });
+
+        enc.setDeltaEncoding(true);
+        dec.addSink(g);
+
+        enc.nodeAdded("src", 0, "x");
+        enc.nodeAdded("src", 1, "y");
+        enc.edgeAdded("src", 2, "x", "x", "y", false);
+
+        double[] node = {1, 2};
+        float[] edge = {10, 20};
+
+        enc.nodeAttributeAdded("src", 3, "x", "xy", node);
+        enc.edgeAttributeAdded("src", 4, "x", "xy", edge);
+
+        // The node and the edge named "x" keep separate last values.
+        for (int step = 0; step < 5; step++) {
+            double[] nextNode = {node[0] + 1, node[1] - 1};
+            float[] nextEdge = {edge[0] * 2, edge[1] + 0.5f};
+
+            enc.nodeAttributeChanged("src", 5 + 2 * step, "x", "xy", node, nextNode);
+            enc.edgeAttributeChanged("src", 6 + 2 * step, "x", "xy", edge, nextEdge);
+            node = nextNode;
+            edge = nextEdge;
+
+            Assert.assertArrayEquals(new Object[]{node[0], node[1]}, (Object[]) g.getNode("x").getAttribute("xy"));
+            Assert.assertArrayEquals(new Object[]{(double) edge[0], (double) edge[1]},
+                    (Object[]) g.getEdge("x").getAttribute("xy"));
+        }
+    }
 }
@@ -76,4 +76,53 @@ public class TestSync {
 			assertTrue(tst.isNewEvent(st.getSourceId(), timeId));
 		}
 	}
+
+	@Test
+	public void testManySources() {
+		TestSinkTime tst = new TestSinkTime();
+
+		if (!tst.isSynchEnable())
+			return;
+
+		// More sources than identity slots, ids given as new instances.
+
+		for (long timeId = 1; timeId <= 3; timeId++) {
+			for (int i = 0; i < 20; i++) {
+				String id = new String("source" + i);
+
+				assertTrue(tst.isNewEvent(id, timeId));
+				assertFalse(tst.isNewEvent(new String(id), timeId));
+				assertFalse(tst.isNewEvent(id, timeId - 1));
+			}
+		}
+
+		int handle = tst.intern("source12");
+
+		assertTrue(handle == tst.intern(new String("source12")));
+		assertFalse(tst.isNewEvent(handle, 3));
+		assertTrue(tst.isNewEvent(handle, 4));
+		assertFalse(tst.isNewEvent("source12", 4));
+
+		int fresh = tst.intern("fresh");
+
+		assertTrue(tst.isNewEvent(fresh, 0));
+		assertFalse(tst.isNewEvent("fresh", 0));
+	}
+
+	@Test
+	public void testEchoSuppression() {
+		TestSinkTime tst = new TestSinkTime();
+		SourceTime st = new SourceTime("echo", tst);
+
+		if (!tst.isSynchEnable())
+			return;
+
+		long timeId = st.newEvent();
+
+		// Events this source sent come back as already known.
+
+		assertFalse(tst.isNewEvent("echo", timeId));
+		assertTrue(tst.isNewEvent("echo", timeId + 1));
+		assertFalse(tst.isNewEvent(st.getSourceId(), st.newEvent()));
+	}
 }
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import org.graphstream.graph.implementations.AbstractGraph.BulkNotification;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.EventBatch;
+import org.graphstream.stream.PipeBase;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.binary.ByteEncoder;
+import org.graphstream.stream.file.FileSinkDGS;
+import org.graphstream.stream.netstream.NetStreamEncoder;
+import org.junit.Test;
+
+public class TestBatchSink {
+	/**
+	 * Records events as strings.
+	 */
+	static class PlainRecorder extends SinkAdapter {
+		ArrayList<String> events = new ArrayList<String>();
+
+		public void nodeAdded(String sourceId, long timeId, String nodeId) {
+			events.add("+" + nodeId);
+		}
+
+		public void edgeAdded(String sourceId, long timeId, String edgeId,
+				String fromNodeId, String toNodeId, boolean directed) {
+			events.add("+" + edgeId + ":" + fromNodeId + ">" + toNodeId);
+		}
+
+		public void nodeAttributeAdded(String sourceId, long timeId,
+				String nodeId, String attribute, Object value) {
+			events.add(nodeId + "." + attribute + "=" + value);
+		}
+
+		public void graphAttributeAdded(String sourceId, long timeId,
+				String attribute, Object value) {
+			events.add(attribute + "=" + value);
+		}
+
+		public void stepBegins(String sourceId, long timeId, double step) {
+			events.add("#" + step);
+		}
+	}
+
+	/**
+	 * Also records the size of the batches received.
+	 */
+	static class Recorder extends PlainRecorder implements BatchSink {
+		ArrayList<Integer> batches = new ArrayList<Integer>();
+
+		public void eventBatch(EventBatch batch) {
+			batches.add(batch.size());
+			batch.replay(this, this);
+		}
+	}
+
+	static class TestSource extends SourceBase {
+	}
+
+	protected AdjacencyListGraph createGraph(int nodes) {
+		AdjacencyListGraph g = new AdjacencyListGraph("g");
+		g.addAttribute("a", 1);
+
+		for (int i = 0; i < nodes; i++)
+			g.addNode("n" + i).addAttribute("x", i);
+
+		for (int i = 1; i < nodes; i++)
+			g.addEdge("e" + i, "n" + (i - 1), "n" + i);
+
+		return g;
+	}
+
+	@Test
+	public void testReplayByBatches() {
+		AdjacencyListGraph g = createGraph(10);
+		Recorder batched = new Recorder();
+		Recorder attributesOnly = new Recorder();
+		PlainRecorder plain = new PlainRecorder();
+
+		Replayable.Controller controller = g.getReplayController();
+		controller.addSink(batched);
+		controller.addSink(plain);
+		controller.addAttributeSink(attributesOnly);
+		controller.replay();
+
+		assertEquals(1 + 10 * 2 + 9, batched.events.size());
+		assertEquals(1, batched.batches.size());
+		assertEquals(batched.events, plain.events);
+
+		// A batch sink that is not registered for all events receives them
+		// one by one.
+		assertEquals(11, attributesOnly.events.size());
+		assertTrue(attributesOnly.batches.isEmpty());
+	}
+
+	@Test
+	public void testBatchesAreSplit() {
+		AdjacencyListGraph g = createGraph(1000);
+		Recorder batched = new Recorder();
+		PlainRecorder plain = new PlainRecorder();
+
+		Replayable.Controller controller = g.getReplayController();
+		controller.addSink(plain);
+		controller.addSink(batched);
+		controller.replay();
+
+		assertEquals(plain.events, batched.events);
+		assertEquals(3, batched.batches.size());
+		assertEquals(1024, (int) batched.batches.get(0));
+		assertEquals(1024, (int) batched.batches.get(1));
+		assertEquals(3000 - 2048, (int) batched.batches.get(2));
+	}
+
+	@Test
+	public void testGraphBulkLoad() {
+		AdjacencyListGraph g = new AdjacencyListGraph("g");
+		Recorder batched = new Recorder();
+
+		g.addSink(batched);
+		g.bulkLoad(new String[] { "A", "B", "C" }, new String[] { "AB",
+				"BC" }, new int[] { 0, 1 }, new int[] { 1, 2 }, false,
+				BulkNotification.EVENTS);
+
+		assertEquals(1, batched.batches.size());
+		assertArrayEquals(new Object[] { "+A", "+B", "+C", "+AB:A>B",
+				"+BC:B>C" }, batched.events.toArray());
+
+		// Outside of a batch, events are sent one by one.
+		g.addNode("D");
+		assertEquals(1, batched.batches.size());
+		assertEquals("+D", batched.events.get(5));
+	}
+
+	@Test
+	public void testSinkChangesDuringBatch() {
+		TestSource source = new TestSource();
+		Recorder batched = new Recorder();
+
+		source.addSink(batched);
+		source.beginBatch();
+		source.beginBatch();
+		source.sendNodeAdded("s", 1, "A");
+		source.sendStepBegins("s", 2, 1.5);
+		source.endBatch();
+
+		assertTrue(source.isBatching());
+		assertTrue(batched.events.isEmpty());
+
+		// Removing the sink flushes the pending events first.
+		source.removeSink(batched);
+		assertArrayEquals(new Object[] { "+A", "#1.5" },
+				batched.events.toArray());
+
+		source.sendNodeAdded("s", 3, "B");
+		source.addSink(batched);
+		source.sendNodeAdded("s", 4, "C");
+		source.endBatch();
+
+		assertFalse(source.isBatching());
+		assertArrayEquals(new Object[] { "+A", "#1.5", "+C" },
+				batched.events.toArray());
+		assertEquals(2, batched.batches.size());
+	}
+
+	@Test
+	public void testEventBatchAccessors() {
+		EventBatch batch = new EventBatch(1);
+
+		batch.edgeAdded("s", 1, "AB", "A", "B", true);
+		batch.nodeAttributeChanged("s", 2, "A", "x", 1, 2);
+		batch.stepBegins("s", 3, 4.5);
+
+		assertEquals(3, batch.size());
+		assertEquals(EventBatch.Type.EDGE_ADDED, batch.getType(0));
+		assertEquals("A", batch.getFromNodeId(0));
+		assertEquals("B", batch.getToNodeId(0));
+		assertNull(batch.getAttribute(0));
+		assertTrue(batch.isDirected(0));
+		assertEquals("x", batch.getAttribute(1));
+		assertEquals(1, batch.getOldValue(1));
+		assertEquals(2, batch.getNewValue(1));
+		assertNull(batch.getFromNodeId(1));
+		assertEquals(4.5, batch.getStep(2), 0);
+		assertNull(batch.getNewValue(2));
+		assertEquals(3, batch.getTimeId(2));
+
+		batch.clear();
+		assertTrue(batch.isEmpty());
+	}
+
+	@Test
+	public void testNetStreamEncoderBatch() {
+		final ByteArrayOutputStream single = new ByteArrayOutputStream();
+		final ArrayList<ByteBuffer> sent = new ArrayList<ByteBuffer>();
+
+		NetStreamEncoder perEvent = new NetStreamEncoder("test",
+				new ByteEncoder.Transport() {
+					public void send(ByteBuffer buffer) {
+						while (buffer.hasRemaining())
+							single.write(buffer.get());
+					}
+				});
+		NetStreamEncoder batched = new NetStreamEncoder("test",
+				new ByteEncoder.Transport() {
+					public void send(ByteBuffer buffer) {
+						ByteBuffer copy = ByteBuffer.allocate(buffer
+								.remaining());
+						copy.put(buffer);
+						sent.add(copy);
+					}
+				});
+
+		AdjacencyListGraph g = createGraph(200);
+		Replayable.Controller controller = g.getReplayController();
+		// A pipe is not a batch sink, its sinks receive events one by one.
+		PipeBase pipe = new PipeBase();
+		pipe.addSink(perEvent);
+		controller.addSink(pipe);
+		controller.addSink(batched);
+		controller.replay("replay");
+
+		assertEquals(1, sent.size());
+		assertArrayEquals(single.toByteArray(), sent.get(0).array());
+	}
+
+	@Test
+	public void testFileSinkDGSBatch() throws IOException {
+		final int[] batches = new int[1];
+		StringWriter single = new StringWriter();
+		StringWriter written = new StringWriter();
+		FileSinkDGS perEvent = new FileSinkDGS();
+		FileSinkDGS batched = new FileSinkDGS() {
+			@Override
+			public void eventBatch(EventBatch batch) {
+				batches[0]++;
+				super.eventBatch(batch);
+			}
+		};
+
+		perEvent.begin(single);
+		batched.begin(written);
+
+		// Larger than the buffer of the sinks.
+		AdjacencyListGraph g = createGraph(2000);
+		Replayable.Controller controller = g.getReplayController();
+		PipeBase pipe = new PipeBase();
+		pipe.addSink(perEvent);
+		controller.addSink(pipe);
+		controller.addSink(batched);
+		controller.replay("replay");
+
+		perEvent.end();
+		batched.end();
+
+		assertTrue(batches[0] > 0);
+		assertEquals(single.toString(), written.toString());
+	}
+}
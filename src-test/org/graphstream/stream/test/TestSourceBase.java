@@ -39,6 +39,7 @@ import java.util.LinkedList;
 import java.util.Random;
 
 import org.graphstream.stream.Sink;
+import org.graphstream.stream.SinkAdapter;
 import org.graphstream.stream.SourceBase;
 import org.junit.Test;
 
@@ -145,6 +146,63 @@ public class TestSourceBase {
 			events.get(i).assertEventEquals(stack.get(i));
 	}
 
+	@Test
+	public void testDeferredEvents() {
+		final SourceBase source = new TestSource();
+		final EventStack stack = new EventStack();
+		final EventStack late = new EventStack();
+
+		// Each node added triggers many events from inside the dispatch, more
+		// than the initial capacity of the queue, and a sink registration.
+		source.addSink(new SinkAdapter() {
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				if (nodeId.startsWith("#"))
+					return;
+
+				for (int i = 0; i < 40; i++)
+					source.sendNodeAttributeAdded(sourceId, timeId, nodeId,
+							"a" + i, i);
+
+				source.sendNodeAdded(sourceId, timeId, "#" + nodeId);
+
+				if (nodeId.equals("B"))
+					source.addSink(late);
+			}
+		});
+		source.addSink(stack);
+
+		source.sendNodeAdded("s", 1, "A");
+		source.sendNodeAdded("s", 2, "B");
+		source.sendNodeAdded("s", 3, "C");
+
+		assertEquals(3 * 42, stack.size());
+
+		int k = 0;
+
+		for (String id : new String[] { "A", "B", "C" }) {
+			assertEquals(EventType.AN, stack.get(k).type);
+			assertEquals(id, stack.get(k++).args[0]);
+
+			for (int i = 0; i < 40; i++) {
+				assertEquals(EventType.CNA, stack.get(k).type);
+				assertEquals("a" + i, stack.get(k).args[1]);
+				assertEquals(i, stack.get(k++).args[2]);
+			}
+
+			assertEquals(EventType.AN, stack.get(k).type);
+			assertEquals("#" + id, stack.get(k++).args[0]);
+		}
+
+		// The late sink is registered after the events triggered by B.
+		assertEquals(42, late.size());
+		assertEquals("C", late.get(0).args[0]);
+
+		source.removeSink(late);
+		source.sendNodeAdded("s", 4, "#D");
+		assertEquals(42, late.size());
+		assertEquals(3 * 42 + 1, stack.size());
+	}
+
 	protected void send(SourceBase base, Event e) {
 		switch (e.type) {
 		case AN:
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.thread.test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Random;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSinkDGS;
+import org.graphstream.stream.thread.RingBufferProxyPipe;
+import org.graphstream.stream.thread.RingBufferProxyPipe.Backpressure;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test the ring buffer proxy pipe.
+ */
+public class TestRingBufferProxyPipe {
+	@Test
+	public void testReplayAndPump() {
+		Graph source = new MultiGraph("g1");
+		Graph target = new MultiGraph("g2");
+
+		source.addNode("A");
+		source.addNode("B");
+		source.addEdge("AB", "A", "B", true);
+		source.getNode("A").addAttribute("xyz", 1, 2, 3);
+
+		RingBufferProxyPipe pipe = new RingBufferProxyPipe(64,
+				Backpressure.BLOCK);
+		pipe.addSink(target);
+		pipe.init(source, true);
+		pipe.pump();
+
+		source.addNode("C");
+		source.addEdge("BC", "B", "C");
+		source.removeNode("A");
+		source.stepBegins(2.5);
+		pipe.pump();
+
+		Assert.assertFalse(pipe.hasPostRemaining());
+		Assert.assertEquals(2, target.getNodeCount());
+		Assert.assertEquals(1, target.getEdgeCount());
+		Assert.assertNull(target.getNode("A"));
+		Assert.assertNotNull(target.getEdge("BC"));
+		Assert.assertEquals(2.5, target.getStep(), 0);
+	}
+
+	@Test
+	public void testBlockingBetweenThreads() throws IOException {
+		for (int i = 0; i < 20; i++)
+			compareWithDirectSink(new RingBufferProxyPipe(16,
+					Backpressure.BLOCK));
+	}
+
+	@Test
+	public void testCoalesceBetweenThreads() throws IOException {
+		for (int i = 0; i < 20; i++) {
+			RingBufferProxyPipe pipe = new RingBufferProxyPipe(16,
+					Backpressure.COALESCE);
+			Graph g = new AdjacencyListGraph("g");
+			Graph copy = new AdjacencyListGraph("copy");
+			pipe.init(g);
+			pipe.addSink(copy);
+
+			Consumer c = new Consumer(pipe);
+			Thread t = new Thread(c);
+			t.start();
+
+			for (int n = 0; n < 50; n++)
+				g.addNode(Integer.toString(n));
+
+			for (int step = 0; step < 100; step++)
+				for (int n = 0; n < 50; n++)
+					g.getNode(n).setAttribute("x", step);
+
+			g.removeNode("0");
+			stop(c, t);
+
+			Assert.assertEquals(49, copy.getNodeCount());
+
+			for (int n = 1; n < 50; n++)
+				Assert.assertEquals(99, copy.getNode(Integer.toString(n))
+						.getAttribute("x"));
+		}
+	}
+
+	@Test
+	public void testCoalesceKeepsLastValue() {
+		RingBufferProxyPipe pipe = new RingBufferProxyPipe(2,
+				Backpressure.COALESCE);
+		final ArrayList<Object> values = new ArrayList<Object>();
+
+		pipe.addSink(new SinkAdapter() {
+			public void nodeAttributeAdded(String sourceId, long timeId,
+					String nodeId, String attribute, Object value) {
+				values.add(nodeId + "+" + value);
+			}
+
+			public void nodeAttributeChanged(String sourceId, long timeId,
+					String nodeId, String attribute, Object oldValue,
+					Object newValue) {
+				values.add(nodeId + ":" + oldValue + ">" + newValue);
+			}
+		});
+
+		pipe.nodeAttributeChanged("g", 0, "A", "x", 0, 1);
+		pipe.nodeAttributeChanged("g", 1, "B", "x", 0, 1);
+		// The ring is full from here.
+		pipe.nodeAttributeChanged("g", 2, "A", "x", 1, 2);
+		pipe.nodeAttributeChanged("g", 3, "A", "x", 2, 3);
+		pipe.nodeAttributeAdded("g", 4, "C", "x", 1);
+		pipe.nodeAttributeChanged("g", 5, "C", "x", 1, 2);
+
+		Assert.assertTrue(pipe.hasPostRemaining());
+		pipe.pump();
+		Assert.assertFalse(pipe.hasPostRemaining());
+
+		Assert.assertEquals(4, values.size());
+		Assert.assertEquals("A:0>1", values.get(0));
+		Assert.assertEquals("B:0>1", values.get(1));
+		Assert.assertEquals("A:1>3", values.get(2));
+		Assert.assertEquals("C+2", values.get(3));
+	}
+
+	@Test
+	public void testDropOldest() {
+		RingBufferProxyPipe pipe = new RingBufferProxyPipe(3,
+				Backpressure.DROP_OLDEST);
+		final ArrayList<String> nodes = new ArrayList<String>();
+
+		Assert.assertEquals(4, pipe.getCapacity());
+
+		pipe.addSink(new SinkAdapter() {
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				nodes.add(nodeId);
+			}
+		});
+
+		for (int i = 0; i < 10; i++)
+			pipe.nodeAdded("g", i, Integer.toString(i));
+
+		pipe.pump();
+
+		Assert.assertEquals(6, pipe.getDroppedCount());
+		Assert.assertEquals(4, nodes.size());
+		Assert.assertEquals("6", nodes.get(0));
+		Assert.assertEquals("9", nodes.get(3));
+	}
+
+	@Test(timeout = 5000)
+	public void testBlockingPump() throws InterruptedException {
+		final RingBufferProxyPipe pipe = new RingBufferProxyPipe();
+		Graph target = new AdjacencyListGraph("target");
+		pipe.addSink(target);
+
+		pipe.blockingPump(10);
+		Assert.assertEquals(0, target.getNodeCount());
+
+		Thread producer = new Thread() {
+			public void run() {
+				try {
+					Thread.sleep(50);
+				} catch (InterruptedException e) {
+				}
+
+				pipe.nodeAdded("g", 0, "A");
+			}
+		};
+
+		producer.start();
+		pipe.blockingPump();
+		producer.join();
+
+		Assert.assertNotNull(target.getNode("A"));
+	}
+
+	protected void compareWithDirectSink(RingBufferProxyPipe pipe)
+			throws IOException {
+		Graph g = new AdjacencyListGraph("g");
+		pipe.init(g);
+
+		FileSinkDGS dgs1 = new FileSinkDGS();
+		FileSinkDGS dgs2 = new FileSinkDGS();
+		StringWriter w1 = new StringWriter();
+		StringWriter w2 = new StringWriter();
+
+		g.addSink(dgs1);
+		pipe.addSink(dgs2);
+
+		dgs1.begin(w1);
+		dgs2.begin(w2);
+
+		Consumer c = new Consumer(pipe);
+		Thread t = new Thread(c);
+		t.start();
+
+		Random random = new Random(1234);
+
+		for (int i = 0; i < 1000; i++) {
+			int n = g.getNodeCount();
+
+			if (n < 10 || random.nextFloat() < 0.6f) {
+				g.addNode(String.format("n%d", i)).addAttribute("x",
+						random.nextDouble());
+			} else if (random.nextBoolean() && g.getEdgeCount() > 0) {
+				g.removeEdge(random.nextInt(g.getEdgeCount()));
+			} else {
+				String e = String.format("e%d", i);
+
+				if (g.getEdge(e) == null)
+					g.addEdge(e, random.nextInt(n), random.nextInt(n));
+			}
+		}
+
+		stop(c, t);
+
+		w1.close();
+		w2.close();
+
+		Assert.assertTrue(w1.toString().length() > 0);
+		Assert.assertEquals(w1.toString(), w2.toString());
+	}
+
+	protected void stop(Consumer c, Thread t) {
+		c.alive = false;
+
+		try {
+			t.join();
+		} catch (InterruptedException e) {
+		}
+	}
+
+	static class Consumer implements Runnable {
+		RingBufferProxyPipe pipe;
+		volatile boolean alive = true;
+
+		Consumer(RingBufferProxyPipe pipe) {
+			this.pipe = pipe;
+		}
+
+		public void run() {
+			while (alive)
+				pipe.pump();
+
+			pipe.pump();
+		}
+	}
+}
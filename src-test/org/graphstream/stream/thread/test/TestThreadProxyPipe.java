@@ -33,12 +33,14 @@ package org.graphstream.stream.thread.test;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.ArrayList;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Graph;
 import org.graphstream.graph.Node;
 import org.graphstream.graph.implementations.AdjacencyListGraph;
 import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.stream.SinkAdapter;
 import org.graphstream.stream.file.FileSinkDGS;
 import org.graphstream.stream.thread.ThreadProxyPipe;
 import org.junit.Assert;
@@ -154,6 +156,80 @@ public class TestThreadProxyPipe {
 		}
 	}
 
+	@Test
+	public void testCoalescing() {
+		Graph g = new AdjacencyListGraph("g");
+		ThreadProxyPipe tpp = new ThreadProxyPipe();
+		final ArrayList<String> received = new ArrayList<String>();
+
+		tpp.setCoalescing(true);
+		tpp.init(g);
+		tpp.addSink(new SinkAdapter() {
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				received.add("+" + nodeId);
+			}
+
+			public void nodeRemoved(String sourceId, long timeId,
+					String nodeId) {
+				received.add("-" + nodeId);
+			}
+
+			public void nodeAttributeAdded(String sourceId, long timeId,
+					String nodeId, String attribute, Object value) {
+				received.add(nodeId + "." + attribute + "+" + value);
+			}
+
+			public void nodeAttributeChanged(String sourceId, long timeId,
+					String nodeId, String attribute, Object oldValue,
+					Object newValue) {
+				received.add(nodeId + "." + attribute + ":" + oldValue + ">"
+						+ newValue);
+			}
+
+			public void nodeAttributeRemoved(String sourceId, long timeId,
+					String nodeId, String attribute) {
+				received.add(nodeId + "." + attribute + "-");
+			}
+		});
+
+		Node a = g.addNode("A");
+		a.setAttribute("x", 1);
+		a.setAttribute("x", 2);
+		a.setAttribute("x", 3);
+		Node b = g.addNode("B");
+		a.setAttribute("x", 4);
+		b.setAttribute("y", 1);
+		b.removeAttribute("y");
+		b.setAttribute("y", 2);
+		b.setAttribute("y", 3);
+		g.removeNode("A");
+		a = g.addNode("A");
+		a.setAttribute("x", 5);
+		a.setAttribute("x", 6);
+
+		tpp.pump();
+
+		Assert.assertArrayEquals(new String[] { "+A", "A.x+4", "+B", "B.y+1",
+				"B.y-", "B.y+3", "-A", "+A", "A.x+6" }, received.toArray());
+
+		received.clear();
+		a.setAttribute("x", 7);
+		a.setAttribute("x", 8);
+		tpp.pump();
+
+		Assert.assertArrayEquals(new String[] { "A.x:6>8" },
+				received.toArray());
+
+		received.clear();
+		tpp.setCoalescing(false);
+		a.setAttribute("x", 9);
+		a.setAttribute("x", 10);
+		tpp.pump();
+
+		Assert.assertArrayEquals(new String[] { "A.x:8>9", "A.x:9>10" },
+				received.toArray());
+	}
+
 	public void testOne() throws IOException {
 		Graph g = new AdjacencyListGraph("g");
 		ThreadProxyPipe tpp = new ThreadProxyPipe();
@@ -32,6 +32,7 @@
 package org.graphstream.ui.graphicGraph.test;
 
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.HashSet;
 
 import org.graphstream.graph.*;
@@ -546,4 +547,143 @@ public class TestGraphicGraph {
 
 		assertNull(sman.getSprite("S2"));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testIncrementalBounds() {
+		GraphicGraph graph = new GraphicGraph("bounds");
+		java.util.Random random = new java.util.Random(42);
+
+		for (int i = 0; i < 50; i++)
+			graph.addNode("n" + i);
+
+		for (int step = 0; step < 3000; step++) {
+			String node = "n" + random.nextInt(50);
+			String sprite = "s" + random.nextInt(5);
+
+			switch (random.nextInt(10)) {
+			case 0:
+				graph.getNode(node).addAttribute("ui.hide");
+				break;
+			case 1:
+				graph.getNode(node).removeAttribute("ui.hide");
+				break;
+			case 2:
+				if (graph.getSprite(sprite) == null)
+					graph.addSprite(sprite);
+				else
+					graph.removeSprite(sprite);
+				break;
+			case 3:
+				if (graph.getSprite(sprite) != null) {
+					if (graph.getSprite(sprite).isAttached())
+						graph.getSprite(sprite).detach();
+					else
+						graph.getSprite(sprite).attachToNode(
+								(GraphicNode) graph.getNode(node));
+				}
+				break;
+			case 4:
+				if (graph.getSprite(sprite) != null)
+					graph.getSprite(sprite).setPosition(
+							random.nextInt(20) - 10, random.nextInt(20) - 10,
+							0, StyleConstants.Units.GU);
+				break;
+			case 5:
+				graph.getNode(node).addAttribute("x", random.nextInt(20) - 10);
+				break;
+			case 6:
+				if (graph.getNode(node) != null && random.nextInt(10) == 0) {
+					graph.removeNode(node);
+					graph.addNode(node);
+				}
+				break;
+			default:
+				// Small integer grid, so that many elements share extremes.
+				((GraphicNode) graph.getNode(node)).move(
+						random.nextInt(20) - 10, random.nextInt(20) - 10,
+						random.nextInt(3));
+			}
+
+			double[] expected = scanBounds(graph);
+
+			graph.computeBounds();
+
+			assertEquals(expected[0], graph.getMinPos().x, 0);
+			assertEquals(expected[1], graph.getMinPos().y, 0);
+			assertEquals(expected[2], graph.getMinPos().z, 0);
+			assertEquals(expected[3], graph.getMaxPos().x, 0);
+			assertEquals(expected[4], graph.getMaxPos().y, 0);
+			assertEquals(expected[5], graph.getMaxPos().z, 0);
+		}
+	}
+
+	@Test
+	public void testGeometryVersion() {
+		GraphicGraph graph = new GraphicGraph("geometry");
+
+		graph.addNode("A");
+		graph.addNode("B");
+
+		long version = graph.getGeometryVersion();
+
+		graph.addEdge("AB", "A", "B");
+		assertTrue(graph.getGeometryVersion() != version);
+
+		version = graph.getGeometryVersion();
+		((GraphicNode) graph.getNode("A")).move(1, 2, 0);
+		assertTrue(graph.getGeometryVersion() != version);
+
+		version = graph.getGeometryVersion();
+		graph.getEdge("AB").addAttribute("ui.hide");
+		assertTrue(graph.getGeometryVersion() != version);
+
+		version = graph.getGeometryVersion();
+		graph.getNode("B").addAttribute("label", "B");
+		assertEquals(version, graph.getGeometryVersion());
+
+		graph.removeEdge("AB");
+		assertTrue(graph.getGeometryVersion() != version);
+	}
+
+	/**
+	 * Bounds as computed by a scan of all the elements.
+	 */
+	protected double[] scanBounds(GraphicGraph graph) {
+		double[] b = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
+				-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE };
+		ArrayList<double[]> points = new ArrayList<double[]>();
+
+		for (Node n : graph) {
+			GraphicNode node = (GraphicNode) n;
+
+			if (!node.hidden && node.positionned)
+				points.add(new double[] { node.x, node.y, node.z });
+		}
+
+		for (GraphicSprite sprite : graph.spriteSet()) {
+			if (!sprite.hidden && !sprite.isAttached()
+					&& sprite.getUnits() == StyleConstants.Units.GU)
+				points.add(new double[] { sprite.getX(), sprite.getY(),
+						sprite.getZ() });
+		}
+
+		if (points.isEmpty())
+			return new double[] { -1, -1, -1, 1, 1, 1 };
+
+		for (double[] p : points) {
+			for (int i = 0; i < 3; i++) {
+				b[i] = Math.min(b[i], p[i]);
+				b[i + 3] = Math.max(b[i + 3], p[i]);
+			}
+		}
+
+		for (int i = 0; i < 3; i++) {
+			if (b[i + 3] - b[i] < 0.000001) {
+				b[i + 3] += 1;
+				b[i] -= 1;
+			}
+		}
+
+		return b;
+	}
+}
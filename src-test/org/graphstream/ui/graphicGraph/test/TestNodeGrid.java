@@ -0,0 +1,232 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.ui.graphicGraph.test;
+
+import static org.junit.Assert.*;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Random;
+
+import org.graphstream.graph.Node;
+import org.graphstream.ui.graphicGraph.GraphicElement;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.NodeGrid;
+import org.graphstream.ui.swingViewer.util.DefaultCamera;
+import org.graphstream.ui.view.util.InteractiveElement;
+import org.junit.Test;
+
+/**
+ * Check the node grid and the camera queries relying on it against a plain
+ * scan of all the nodes.
+ */
+public class TestNodeGrid {
+	/**
+	 * Camera giving access to the per node tests.
+	 */
+	protected static class ScanCamera extends DefaultCamera {
+		public ScanCamera(GraphicGraph graph) {
+			super(graph);
+		}
+
+		public HashSet<GraphicNode> scanVisible(GraphicGraph graph) {
+			HashSet<GraphicNode> visible = new HashSet<GraphicNode>();
+			double X = metrics.viewport[0];
+			double Y = metrics.viewport[1];
+			double W = metrics.viewport[2];
+			double H = metrics.viewport[3];
+
+			for (Node node : graph) {
+				GraphicNode n = (GraphicNode) node;
+
+				if (isNodeIn(n, X, Y, X + W, Y + H) && !n.hidden && n.positionned)
+					visible.add(n);
+			}
+
+			return visible;
+		}
+
+		public HashSet<GraphicNode> scanAt(GraphicGraph graph, double x, double y) {
+			HashSet<GraphicNode> found = new HashSet<GraphicNode>();
+
+			for (Node node : graph) {
+				if (nodeContains((GraphicNode) node, x, y))
+					found.add((GraphicNode) node);
+			}
+
+			return found;
+		}
+
+		public HashSet<GraphicNode> scanIn(GraphicGraph graph, double x1, double y1, double x2, double y2) {
+			HashSet<GraphicNode> found = new HashSet<GraphicNode>();
+
+			for (Node node : graph) {
+				if (isNodeIn((GraphicNode) node, x1, y1, x2, y2))
+					found.add((GraphicNode) node);
+			}
+
+			return found;
+		}
+	}
+
+	@Test
+	public void testGridQueries() {
+		GraphicGraph graph = new GraphicGraph("g");
+		Random random = new Random(7);
+
+		for (int i = 0; i < 500; i++)
+			graph.addNode("n" + i).addAttribute("xy", random.nextDouble() * 100, random.nextDouble() * 100);
+
+		graph.addNode("unpositioned");
+
+		NodeGrid grid = graph.getNodeGrid();
+
+		checkQueries(graph, random);
+		assertTrue(grid.getCellCount() > 1);
+
+		// Small moves keep the grid, nodes change of cell.
+
+		for (int i = 0; i < 200; i++)
+			graph.getNode("n" + random.nextInt(500)).addAttribute("x", random.nextDouble() * 100);
+
+		for (int i = 0; i < 50; i++)
+			graph.removeNode("n" + (i * 7));
+
+		checkQueries(graph, random);
+
+		// A layout spreading the nodes much further triggers a rebuild.
+
+		double size = grid.getCellSize();
+
+		for (Node node : graph) {
+			GraphicNode n = (GraphicNode) node;
+			n.move(n.getX() * 10, n.getY() * 10, 0);
+		}
+
+		checkQueries(graph, random);
+		assertTrue(grid.getCellSize() > size * 2);
+
+		graph.clear();
+
+		assertEquals(0, grid.nodesIn(-1000, -1000, 1000, 1000, new ArrayList<GraphicNode>()));
+	}
+
+	protected void checkQueries(GraphicGraph graph, Random random) {
+		graph.computeBounds();
+
+		double w = graph.getMaxPos().x - graph.getMinPos().x;
+		double h = graph.getMaxPos().y - graph.getMinPos().y;
+
+		for (int q = 0; q < 100; q++) {
+			double x1 = graph.getMinPos().x + random.nextDouble() * w;
+			double y1 = graph.getMinPos().y + random.nextDouble() * h;
+			double x2 = x1 + random.nextDouble() * w / 4;
+			double y2 = y1 + random.nextDouble() * h / 4;
+			HashSet<GraphicNode> expected = new HashSet<GraphicNode>();
+			HashSet<GraphicNode> found = new HashSet<GraphicNode>();
+
+			for (Node node : graph) {
+				GraphicNode n = (GraphicNode) node;
+
+				if (n.positionned && n.x >= x1 && n.x <= x2 && n.y >= y1 && n.y <= y2)
+					expected.add(n);
+			}
+
+			assertEquals(expected.size(), graph.getNodeGrid().nodesIn(x1, y1, x2, y2, found));
+			assertEquals(expected, found);
+		}
+	}
+
+	@Test
+	public void testCameraQueries() {
+		GraphicGraph graph = new GraphicGraph("g");
+		Random random = new Random(11);
+
+		graph.addAttribute("ui.stylesheet", "node { size: 12px, 8px; } node.big { size: 40px; }");
+
+		for (int i = 0; i < 2000; i++) {
+			Node node = graph.addNode("n" + i);
+			node.addAttribute("xy", random.nextDouble() * 100, random.nextDouble() * 100);
+
+			if (i % 50 == 0)
+				node.addAttribute("ui.class", "big");
+		}
+
+		ScanCamera camera = new ScanCamera(graph);
+		Graphics2D g2 = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB).createGraphics();
+
+		graph.computeBounds();
+		camera.setBounds(graph.getMinPos().x, graph.getMinPos().y, 0, graph.getMaxPos().x, graph.getMaxPos().y, 0);
+		camera.setViewport(0, 0, 400, 300);
+		camera.setViewCenter(40, 60);
+		camera.setViewPercent(0.25);
+		camera.setViewRotation(30);
+		camera.pushView(graph, g2);
+		camera.popView(g2);
+
+		HashSet<GraphicNode> visible = camera.scanVisible(graph);
+
+		assertTrue(visible.size() > 0);
+		assertTrue(visible.size() < graph.getNodeCount());
+
+		for (Node node : graph)
+			assertEquals(visible.contains(node), camera.isVisible((GraphicNode) node));
+
+		EnumSet<InteractiveElement> types = EnumSet.of(InteractiveElement.NODE);
+
+		for (int q = 0; q < 500; q++) {
+			double x = random.nextDouble() * 400;
+			double y = random.nextDouble() * 300;
+			HashSet<GraphicNode> under = camera.scanAt(graph, x, y);
+			GraphicElement picked = camera.findGraphicElementAt(graph, types, x, y);
+
+			if (under.isEmpty())
+				assertNull(picked);
+			else
+				assertTrue(under.contains(picked));
+		}
+
+		for (int q = 0; q < 50; q++) {
+			double x1 = random.nextDouble() * 400;
+			double y1 = random.nextDouble() * 300;
+			double x2 = x1 + random.nextDouble() * 100;
+			double y2 = y1 + random.nextDouble() * 100;
+
+			assertEquals(camera.scanIn(graph, x1, y1, x2, y2),
+					new HashSet<GraphicElement>(camera.allGraphicElementsIn(graph, types, x1, y1, x2, y2)));
+		}
+	}
+}
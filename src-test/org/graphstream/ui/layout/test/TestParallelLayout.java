@@ -0,0 +1,160 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.ui.layout.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.ui.layout.springbox.BarnesHutLayout;
+import org.graphstream.ui.layout.springbox.ParallelParticleBox;
+import org.graphstream.ui.layout.springbox.implementations.LinLog;
+import org.graphstream.ui.layout.springbox.implementations.SpringBox;
+import org.junit.Test;
+import org.miv.pherd.geom.Point3;
+
+/**
+ * Test the parallel mode of the Barnes-Hut layouts.
+ */
+public class TestParallelLayout {
+	protected static final int NODES = 1000;
+
+	protected static final int STEPS = 20;
+
+	@Test
+	public void testSpringBoxSameAsSequential() {
+		compare(new SpringBox(false, new Random(42)), new SpringBox(false,
+				new Random(42)));
+	}
+
+	@Test
+	public void testSpringBox3DSameAsSequential() {
+		compare(new SpringBox(true, new Random(42)), new SpringBox(true,
+				new Random(42)));
+	}
+
+	@Test
+	public void testLinLogSameAsSequential() {
+		compare(new LinLog(false, new Random(42)), new LinLog(false,
+				new Random(42)));
+	}
+
+	@Test
+	public void testParallelAttribute() {
+		SpringBox layout = new SpringBox(false, new Random(42));
+		Graph g = new AdjacencyListGraph("g");
+
+		g.addSink(layout);
+		g.addAttribute("layout.parallel", true);
+		assertTrue(layout.isParallel());
+		g.changeAttribute("layout.parallel", false);
+		assertEquals(false, layout.isParallel());
+	}
+
+	@Test
+	public void testShutdown() {
+		SpringBox layout = new SpringBox(false, new Random(42));
+		layout.setParallel(true);
+		ForkJoinPool owned = ((ParallelParticleBox) layout.getSpatialIndex())
+				.getPool();
+
+		layout.shutdown();
+		assertEquals(false, layout.isParallel());
+		assertTrue(owned.isShutdown());
+
+		ForkJoinPool given = new ForkJoinPool(2);
+
+		try {
+			layout.setPool(given);
+			layout.shutdown();
+			assertTrue(layout.isParallel());
+			assertEquals(false, given.isShutdown());
+		} finally {
+			given.shutdown();
+		}
+	}
+
+	protected void compare(BarnesHutLayout sequential, BarnesHutLayout parallel) {
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			parallel.setPool(pool);
+			((ParallelParticleBox) parallel.getSpatialIndex()).setThreshold(16);
+
+			Graph g = new AdjacencyListGraph("g");
+			g.addSink(sequential);
+			g.addSink(parallel);
+			build(g);
+
+			for (int i = 0; i < STEPS; i++) {
+				sequential.compute();
+				parallel.compute();
+			}
+
+			assertEquals(sequential.getNodeMovedCount(),
+					parallel.getNodeMovedCount());
+			assertEquals(sequential.getEnergies().getEnergy(), parallel
+					.getEnergies().getEnergy(), 0);
+
+			for (int i = 0; i < NODES; i++) {
+				String id = Integer.toString(i);
+				Point3 p0 = sequential.getSpatialIndex().getParticle(id)
+						.getPosition();
+				Point3 p1 = parallel.getSpatialIndex().getParticle(id)
+						.getPosition();
+
+				assertEquals(p0.x, p1.x, 0);
+				assertEquals(p0.y, p1.y, 0);
+				assertEquals(p0.z, p1.z, 0);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	protected void build(Graph g) {
+		Random random = new Random(7);
+
+		for (int i = 0; i < NODES; i++) {
+			g.addNode(Integer.toString(i));
+
+			if (i > 0) {
+				String other = Integer.toString(random.nextInt(i));
+				g.addEdge(i + "_" + other, Integer.toString(i), other);
+			}
+		}
+	}
+}
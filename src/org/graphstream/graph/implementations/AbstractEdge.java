@@ -103,6 +103,7 @@ public class AbstractEdge extends AbstractElement implements Edge {
 	@Override
 	protected void attributeChanged(AttributeChangeEvent event,
 			String attribute, Object oldValue, Object newValue) {
+		graph.edgeAttributeCallback(this, attribute, event, newValue);
 		graph.listeners.sendAttributeChangedEvent(id, ElementType.EDGE,
 				attribute, event, oldValue, newValue);
 	}
@@ -35,12 +35,15 @@ import org.graphstream.graph.CompoundAttribute;
 import org.graphstream.graph.Element;
 import org.graphstream.graph.NullAttributeException;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * A base implementation of an element.
@@ -74,10 +77,13 @@ public abstract class AbstractElement implements Element {
 	private int index;
 
 	/**
-	 * Attributes map. This map is created only when needed. It contains pairs
-	 * (key,value) where the key is the attribute name and the value an Object.
+	 * Attributes store. This store is created only when needed, using
+	 * {@link #createAttributeStore()}. It contains pairs (key,value) where the
+	 * key is the attribute name and the value an Object. This field used to be
+	 * a {@link HashMap}, subclasses needing a {@link Map} can use
+	 * {@link #getAttributeMap()}.
 	 */
-	protected HashMap<String, Object> attributes = null;
+	protected AttributeStore attributes = null;
 
 	/**
 	 * Vector used when removing attributes to avoid recursive removing.
@@ -133,6 +139,108 @@ public abstract class AbstractElement implements Element {
 
 	protected abstract boolean nullAttributesAreErrors(); // XXX
 
+	/**
+	 * Create the store used to hold the attributes of this element. This is
+	 * called the first time an attribute is added. Override this to use
+	 * another layout than the default {@link CompactAttributeStore}.
+	 * 
+	 * @return A new empty attribute store.
+	 */
+	protected AttributeStore createAttributeStore() {
+		return new CompactAttributeStore();
+	}
+
+	/**
+	 * A map view on the attributes of this element, backed by its store which
+	 * is created on the first insertion. As when accessing {@link #attributes}
+	 * directly, changes made through the view do not send any event. Removing
+	 * through the iterators of the view works only if the store supports it.
+	 * 
+	 * @return A live view on the attributes.
+	 */
+	protected Map<String, Object> getAttributeMap() {
+		return new AbstractMap<String, Object>() {
+			@Override
+			public int size() {
+				return attributes == null ? 0 : attributes.size();
+			}
+
+			@Override
+			public boolean containsKey(Object key) {
+				return attributes != null && key instanceof String
+						&& attributes.containsKey((String) key);
+			}
+
+			@Override
+			public Object get(Object key) {
+				return attributes == null || !(key instanceof String) ? null
+						: attributes.get((String) key);
+			}
+
+			@Override
+			public Object put(String key, Object value) {
+				if (attributes == null)
+					attributes = createAttributeStore();
+
+				return attributes.put(key, value);
+			}
+
+			@Override
+			public Object remove(Object key) {
+				return attributes == null || !(key instanceof String) ? null
+						: attributes.remove((String) key);
+			}
+
+			@Override
+			public void clear() {
+				if (attributes != null)
+					attributes.clear();
+			}
+
+			@Override
+			public Set<Map.Entry<String, Object>> entrySet() {
+				return new AbstractSet<Map.Entry<String, Object>>() {
+					@Override
+					public int size() {
+						return attributes == null ? 0 : attributes.size();
+					}
+
+					@Override
+					public Iterator<Map.Entry<String, Object>> iterator() {
+						final Iterator<String> keys = attributes == null ? Collections
+								.<String> emptySet().iterator() : attributes
+								.keySet().iterator();
+
+						return new Iterator<Map.Entry<String, Object>>() {
+							public boolean hasNext() {
+								return keys.hasNext();
+							}
+
+							public Map.Entry<String, Object> next() {
+								final String key = keys.next();
+
+								return new AbstractMap.SimpleEntry<String, Object>(
+										key, attributes.get(key)) {
+									private static final long serialVersionUID = 1L;
+
+									@Override
+									public Object setValue(Object value) {
+										super.setValue(value);
+										return attributes.put(key, value);
+									}
+								};
+							}
+
+							public void remove() {
+								keys.remove();
+							}
+						};
+					}
+				};
+			}
+		};
+	}
+
 	/**
 	 * Called for each change in the attribute set. This method must be
 	 * implemented by sub-elements in order to send events to the graph
@@ -265,6 +373,11 @@ public abstract class AbstractElement implements Element {
 	 */
 	public double getNumber(String key) {
 		if (attributes != null) {
+			double v = attributes.getNumber(key);
+
+			if (!Double.isNaN(v))
+				return v;
+
 			Object o = attributes.get(key);
 
 			if (o != null) {
@@ -504,9 +617,9 @@ public abstract class AbstractElement implements Element {
 
 	public void clearAttributes() {
 		if (attributes != null) {
-			for (Map.Entry<String, Object> entry : attributes.entrySet())
-				attributeChanged(AttributeChangeEvent.REMOVE, entry.getKey(),
-						entry.getValue(), null);
+			for (String key : attributes.keySet())
+				attributeChanged(AttributeChangeEvent.REMOVE, key,
+						attributes.get(key), null);
 
 			attributes.clear();
 		}
@@ -523,7 +636,7 @@ public abstract class AbstractElement implements Element {
 	 */
 	public void addAttribute(String attribute, Object... values) {
 		if (attributes == null)
-			attributes = new HashMap<String, Object>(1);
+			attributes = createAttributeStore();
 
 		Object oldValue;
 		Object value;
@@ -566,7 +679,7 @@ public abstract class AbstractElement implements Element {
 	 */
 	public void addAttributes(Map<String, Object> attributes) {
 		if (this.attributes == null)
-			this.attributes = new HashMap<String, Object>(attributes.size());
+			this.attributes = createAttributeStore();
 
 		Iterator<String> i = attributes.keySet().iterator();
 		Iterator<Object> j = attributes.values().iterator();
@@ -99,6 +99,36 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 
 	private long replayId = 0;
 
+	/**
+	 * Key of the graph attribute set when elements are loaded with
+	 * {@link #bulkLoad(String[], String[], int[], int[], boolean, BulkNotification)}
+	 * and {@link BulkNotification#SUMMARY} is requested. The value is an array
+	 * made of the number of nodes and the number of edges of the last load.
+	 */
+	public static final String BULK_LOADED_ATTRIBUTE = "bulk.loaded";
+
+	/**
+	 * How the sinks of a graph are notified of a bulk load.
+	 * 
+	 * @see AbstractGraph#bulkLoad(String[], String[], int[], int[], boolean,
+	 *      BulkNotification)
+	 */
+	public static enum BulkNotification {
+		/**
+		 * The graph attribute {@link AbstractGraph#BULK_LOADED_ATTRIBUTE} is
+		 * set, so sinks receive a single attribute added, or changed, event.
+		 * They can get the elements by replaying the controller returned by
+		 * the load.
+		 */
+		SUMMARY,
+		/**
+		 * Sinks receive a node added event for each node and an edge added
+		 * event for each edge, once all the elements are inserted.
+		 * {@link org.graphstream.stream.BatchSink}s receive them by batches.
+		 */
+		EVENTS
+	}
+
 	// *** Constructors ***
 
 	/**
@@ -395,6 +425,201 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 				(AbstractNode) to, to.getId(), directed);
 	}
 
+	/**
+	 * Add a large number of nodes and edges at once.
+	 * 
+	 * <p>
+	 * This is much faster than calling {@link #addNode(String)} and
+	 * {@link #addEdge(String, int, int, boolean)} for each element: the data
+	 * structures of the graph and of the nodes are sized once using the
+	 * degrees of the nodes, edge endpoints are given as node indices and no
+	 * event is sent while elements are inserted. Sinks are then notified as
+	 * requested by {@code notification}.
+	 * </p>
+	 * 
+	 * <p>
+	 * New nodes are appended to the graph in the order of {@code nodeIds}: if
+	 * the graph had {@code n} nodes before the call, the node
+	 * {@code nodeIds[i]} gets the index {@code n + i}. Edge endpoints can be
+	 * either new or existing nodes. Ids must not be in use. If an error
+	 * occurs, the elements already inserted are removed, so the graph is left
+	 * unchanged and no event is sent.
+	 * </p>
+	 * 
+	 * @param nodeIds
+	 *            Ids of the nodes to add, can be null.
+	 * @param edgeIds
+	 *            Ids of the edges to add, can be null if there is no edge.
+	 * @param sources
+	 *            Index of the source node of each edge.
+	 * @param targets
+	 *            Index of the target node of each edge.
+	 * @param directed
+	 *            Are the edges directed ?
+	 * @param notification
+	 *            How sinks are notified.
+	 * @return A controller that replays, when asked, the elements loaded by
+	 *         this call that are still in the graph.
+	 * @throws IdAlreadyInUseException
+	 *             If an id is already in use or appears twice.
+	 * @throws IndexOutOfBoundsException
+	 *             If an edge endpoint is not the index of a node.
+	 * @throws EdgeRejectedException
+	 *             If an edge is rejected by one of its endpoints and strict
+	 *             checking is enabled. Otherwise the edge is ignored.
+	 * @complexity O(n + m) where n and m are the numbers of nodes and edges
+	 *             added.
+	 */
+	public Replayable.Controller bulkLoad(String[] nodeIds, String[] edgeIds,
+			int[] sources, int[] targets, boolean directed,
+			BulkNotification notification) {
+		int nodeCount = nodeIds == null ? 0 : nodeIds.length;
+		int edgeCount = edgeIds == null ? 0 : edgeIds.length;
+		int firstNode = getNodeCount();
+		int lastNode = firstNode + nodeCount;
+
+		if (edgeCount > 0
+				&& (sources.length < edgeCount || targets.length < edgeCount))
+			throw new IllegalArgumentException(
+					"each edge needs a source and a target");
+
+		for (int i = 0; i < edgeCount; i++)
+			if (sources[i] < 0 || sources[i] >= lastNode || targets[i] < 0
+					|| targets[i] >= lastNode)
+				throw new IndexOutOfBoundsException(String.format(
+						"edge \"%s\" has an endpoint out of [0, %d[",
+						edgeIds[i], lastNode));
+
+		ensureCapacity(lastNode, getEdgeCount() + edgeCount);
+
+		int nodesAdded = 0;
+		int edgesDone = 0;
+
+		try {
+			for (; nodesAdded < nodeCount; nodesAdded++) {
+				String nodeId = nodeIds[nodesAdded];
+
+				if (getNode(nodeId) != null)
+					throw new IdAlreadyInUseException("id \"" + nodeId
+							+ "\" already in use. Cannot create a node.");
+
+				addNodeCallback(nodeFactory.newInstance(nodeId, this));
+			}
+
+			if (edgeCount > 0) {
+				int[] degrees = new int[lastNode];
+
+				for (int i = 0; i < edgeCount; i++) {
+					degrees[sources[i]]++;
+
+					if (sources[i] != targets[i])
+						degrees[targets[i]]++;
+				}
+
+				for (int i = 0; i < degrees.length; i++) {
+					if (degrees[i] > 0) {
+						AbstractNode n = getNode(i);
+						n.ensureEdgeCapacity(n.getDegree() + degrees[i]);
+					}
+				}
+			}
+
+			for (; edgesDone < edgeCount; edgesDone++) {
+				String edgeId = edgeIds[edgesDone];
+
+				if (getEdge(edgeId) != null)
+					throw new IdAlreadyInUseException("id \"" + edgeId
+							+ "\" already in use. Cannot create an edge.");
+
+				AbstractNode src = getNode(sources[edgesDone]);
+				AbstractNode dst = getNode(targets[edgesDone]);
+				AbstractEdge edge = edgeFactory.newInstance(edgeId, src, dst,
+						directed);
+
+				if (!src.addEdgeCallback(edge)) {
+					if (strictChecking)
+						throw new EdgeRejectedException("Edge " + edge
+								+ " was rejected by node " + src);
+					continue;
+				}
+
+				if (src != dst && !dst.addEdgeCallback(edge)) {
+					src.removeEdgeCallback(edge);
+					if (strictChecking)
+						throw new EdgeRejectedException("Edge " + edge
+								+ " was rejected by node " + dst);
+					continue;
+				}
+
+				addEdgeCallback(edge);
+			}
+		} catch (RuntimeException e) {
+			cancelBulkLoad(firstNode, nodesAdded, edgeIds, edgesDone);
+			throw e;
+		}
+
+		BulkReplayController controller = new BulkReplayController(nodeIds,
+				edgeIds);
+
+		if (notification == BulkNotification.EVENTS) {
+			listeners.beginBatch();
+
+			try {
+				for (int i = 0; i < nodeCount; i++)
+					listeners.sendNodeAdded(nodeIds[i]);
+
+				for (int i = 0; i < edgeCount; i++) {
+					AbstractEdge edge = getEdge(edgeIds[i]);
+
+					if (edge != null)
+						listeners.sendEdgeAdded(edgeIds[i], edge
+								.getSourceNode().getId(), edge.getTargetNode()
+								.getId(), directed);
+				}
+			} finally {
+				listeners.endBatch();
+			}
+		} else {
+			setAttribute(BULK_LOADED_ATTRIBUTE, nodeCount, edgeCount);
+		}
+
+		return controller;
+	}
+
+	/**
+	 * Remove, without sending events, the elements inserted by a bulk load
+	 * that failed.
+	 * 
+	 * @param firstNode
+	 *            Index of the first node inserted.
+	 * @param nodeCount
+	 *            Number of nodes inserted.
+	 * @param edgeIds
+	 *            Ids of the edges of the load.
+	 * @param edgeCount
+	 *            Number of edges of the load processed before the failure.
+	 */
+	private void cancelBulkLoad(int firstNode, int nodeCount, String[] edgeIds,
+			int edgeCount) {
+		for (int i = edgeCount - 1; i >= 0; i--) {
+			AbstractEdge edge = getEdge(edgeIds[i]);
+
+			// Rejected edges were not inserted.
+			if (edge == null)
+				continue;
+
+			edge.source.removeEdgeCallback(edge);
+
+			if (edge.source != edge.target)
+				edge.target.removeEdgeCallback(edge);
+
+			removeEdgeCallback(edge);
+		}
+
+		for (int i = firstNode + nodeCount - 1; i >= firstNode; i--)
+			removeNodeCallback((AbstractNode) getNode(i));
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -846,6 +1071,56 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 	 */
 	protected abstract void clearCallback();
 
+	/**
+	 * This method is called before a bulk load so that subclasses can size
+	 * their data structures once. The default implementation does nothing.
+	 * 
+	 * @param nodeCapacity
+	 *            the number of nodes the graph will contain
+	 * @param edgeCapacity
+	 *            the number of edges the graph will contain
+	 */
+	protected void ensureCapacity(int nodeCapacity, int edgeCapacity) {
+	}
+
+	/**
+	 * This method is automatically called when an attribute of a node is
+	 * added, changed or removed, before the event is sent to the sinks.
+	 * Subclasses maintaining data derived from node attributes can override it.
+	 * The default implementation does nothing.
+	 * 
+	 * @param node
+	 *            the node whose attribute changed
+	 * @param attribute
+	 *            the attribute key
+	 * @param event
+	 *            the kind of change
+	 * @param newValue
+	 *            the new value, null if the attribute is being removed
+	 */
+	protected void nodeAttributeCallback(AbstractNode node, String attribute,
+			AttributeChangeEvent event, Object newValue) {
+	}
+
+	/**
+	 * This method is automatically called when an attribute of an edge is
+	 * added, changed or removed, before the event is sent to the sinks.
+	 * Subclasses maintaining data derived from edge attributes can override it.
+	 * The default implementation does nothing.
+	 * 
+	 * @param edge
+	 *            the edge whose attribute changed
+	 * @param attribute
+	 *            the attribute key
+	 * @param event
+	 *            the kind of change
+	 * @param newValue
+	 *            the new value, null if the attribute is being removed
+	 */
+	protected void edgeAttributeCallback(AbstractEdge edge, String attribute,
+			AttributeChangeEvent event, Object newValue) {
+	}
+
 	// *** _ methods ***
 
 	// Why do we pass both the ids and the references of the endpoints here?
@@ -999,6 +1274,63 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 			removeEdgeCallback(edge);
 	}
 
+	/**
+	 * Replays the elements added by a bulk load.
+	 */
+	class BulkReplayController extends SourceBase implements
+			Replayable.Controller {
+		String[] nodeIds;
+		String[] edgeIds;
+
+		BulkReplayController(String[] nodeIds, String[] edgeIds) {
+			super(AbstractGraph.this.id + "bulk");
+			this.nodeIds = nodeIds == null ? new String[0] : nodeIds;
+			this.edgeIds = edgeIds == null ? new String[0] : edgeIds;
+		}
+
+		public void replay() {
+			String sourceId = String.format("%s-replay-%x", id, replayId++);
+			replay(sourceId);
+		}
+
+		public void replay(String sourceId) {
+			beginBatch();
+
+			try {
+				for (String nodeId : nodeIds) {
+					Node node = getNode(nodeId);
+
+					if (node == null)
+						continue;
+
+					sendNodeAdded(sourceId, nodeId);
+
+					if (node.getAttributeCount() > 0)
+						for (String key : node.getAttributeKeySet())
+							sendNodeAttributeAdded(sourceId, nodeId, key,
+									node.getAttribute(key));
+				}
+
+				for (String edgeId : edgeIds) {
+					Edge edge = getEdge(edgeId);
+
+					if (edge == null)
+						continue;
+
+					sendEdgeAdded(sourceId, edgeId, edge.getNode0().getId(),
+							edge.getNode1().getId(), edge.isDirected());
+
+					if (edge.getAttributeCount() > 0)
+						for (String key : edge.getAttributeKeySet())
+							sendEdgeAttributeAdded(sourceId, edgeId, key,
+									edge.getAttribute(key));
+				}
+			} finally {
+				endBatch();
+			}
+		}
+	}
+
 	class GraphReplayController extends SourceBase implements
 			Replayable.Controller {
 		GraphReplayController() {
@@ -1022,32 +1354,38 @@ public abstract class AbstractGraph extends AbstractElement implements Graph,
 		 * org.graphstream.stream.Replayable.Controller#replay(java.lang.String)
 		 */
 		public void replay(String sourceId) {
-			for (String key : getAttributeKeySet())
-				sendGraphAttributeAdded(sourceId, key, getAttribute(key));
-
-			for (int i = 0; i < getNodeCount(); i++) {
-				Node node = getNode(i);
-				String nodeId = node.getId();
-
-				sendNodeAdded(sourceId, nodeId);
-
-				if (node.getAttributeCount() > 0)
-					for (String key : node.getAttributeKeySet())
-						sendNodeAttributeAdded(sourceId, nodeId, key,
-								node.getAttribute(key));
-			}
-
-			for (int i = 0; i < getEdgeCount(); i++) {
-				Edge edge = getEdge(i);
-				String edgeId = edge.getId();
-
-				sendEdgeAdded(sourceId, edgeId, edge.getNode0().getId(), edge
-						.getNode1().getId(), edge.isDirected());
-
-				if (edge.getAttributeCount() > 0)
-					for (String key : edge.getAttributeKeySet())
-						sendEdgeAttributeAdded(sourceId, edgeId, key,
-								edge.getAttribute(key));
+			beginBatch();
+
+			try {
+				for (String key : getAttributeKeySet())
+					sendGraphAttributeAdded(sourceId, key, getAttribute(key));
+
+				for (int i = 0; i < getNodeCount(); i++) {
+					Node node = getNode(i);
+					String nodeId = node.getId();
+
+					sendNodeAdded(sourceId, nodeId);
+
+					if (node.getAttributeCount() > 0)
+						for (String key : node.getAttributeKeySet())
+							sendNodeAttributeAdded(sourceId, nodeId, key,
+									node.getAttribute(key));
+				}
+
+				for (int i = 0; i < getEdgeCount(); i++) {
+					Edge edge = getEdge(i);
+					String edgeId = edge.getId();
+
+					sendEdgeAdded(sourceId, edgeId, edge.getNode0().getId(),
+							edge.getNode1().getId(), edge.isDirected());
+
+					if (edge.getAttributeCount() > 0)
+						for (String key : edge.getAttributeKeySet())
+							sendEdgeAttributeAdded(sourceId, edgeId, key,
+									edge.getAttribute(key));
+				}
+			} finally {
+				endBatch();
 			}
 		}
 	}
@@ -91,6 +91,7 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	@Override
 	protected void attributeChanged(AttributeChangeEvent event,
 			String attribute, Object oldValue, Object newValue) {
+		graph.nodeAttributeCallback(this, attribute, event, newValue);
 		graph.listeners.sendAttributeChangedEvent(id,
 				SourceBase.ElementType.NODE, attribute, event, oldValue,
 				newValue);
@@ -559,6 +560,17 @@ public abstract class AbstractNode extends AbstractElement implements Node {
 	 */
 	protected abstract void clearCallback();
 
+	/**
+	 * This method is called before a bulk load of the graph so that the node
+	 * can size its data structures once. The default implementation does
+	 * nothing.
+	 * 
+	 * @param capacity
+	 *            the degree the node will have
+	 */
+	protected void ensureEdgeCapacity(int capacity) {
+	}
+
 	/**
 	 * Checks if an edge enters this node. Utility method that can be useful in
 	 * subclasses.
@@ -70,6 +70,13 @@ public class AdjacencyListGraph extends AbstractGraph {
 	protected int nodeCount;
 	protected int edgeCount;
 
+	/**
+	 * Attribute columns of nodes and edges, created when the first column is
+	 * requested.
+	 */
+	protected AttributeColumnTable nodeColumns;
+	protected AttributeColumnTable edgeColumns;
+
 	// *** Constructors ***
 
 	/**
@@ -166,6 +173,9 @@ public class AdjacencyListGraph extends AbstractGraph {
 		}
 		edgeArray[edgeCount] = edge;
 		edge.setIndex(edgeCount++);
+
+		if (edgeColumns != null)
+			edgeColumns.elementAdded(edgeCount - 1, edgeArray.length);
 	}
 
 	@Override
@@ -179,6 +189,9 @@ public class AdjacencyListGraph extends AbstractGraph {
 		}
 		nodeArray[nodeCount] = node;
 		node.setIndex(nodeCount++);
+
+		if (nodeColumns != null)
+			nodeColumns.elementAdded(nodeCount - 1, nodeArray.length);
 	}
 
 	@Override
@@ -188,6 +201,9 @@ public class AdjacencyListGraph extends AbstractGraph {
 		edgeArray[i] = edgeArray[--edgeCount];
 		edgeArray[i].setIndex(i);
 		edgeArray[edgeCount] = null;
+
+		if (edgeColumns != null)
+			edgeColumns.elementRemoved(i, edgeCount);
 	}
 
 	@Override
@@ -197,6 +213,9 @@ public class AdjacencyListGraph extends AbstractGraph {
 		nodeArray[i] = nodeArray[--nodeCount];
 		nodeArray[i].setIndex(i);
 		nodeArray[nodeCount] = null;
+
+		if (nodeColumns != null)
+			nodeColumns.elementRemoved(i, nodeCount);
 	}
 
 	@Override
@@ -206,6 +225,53 @@ public class AdjacencyListGraph extends AbstractGraph {
 		Arrays.fill(nodeArray, 0, nodeCount, null);
 		Arrays.fill(edgeArray, 0, edgeCount, null);
 		nodeCount = edgeCount = 0;
+
+		if (nodeColumns != null)
+			nodeColumns.clear();
+		if (edgeColumns != null)
+			edgeColumns.clear();
+	}
+
+	@Override
+	protected void ensureCapacity(int nodeCapacity, int edgeCapacity) {
+		if (nodeCapacity > nodeArray.length) {
+			nodeArray = Arrays.copyOf(nodeArray, nodeCapacity);
+			HashMap<String, AbstractNode> tmp = new HashMap<String, AbstractNode>(
+					4 * nodeCapacity / 3 + 1);
+			tmp.putAll(nodeMap);
+			nodeMap = tmp;
+		}
+
+		if (edgeCapacity > edgeArray.length) {
+			edgeArray = Arrays.copyOf(edgeArray, edgeCapacity);
+			HashMap<String, AbstractEdge> tmp = new HashMap<String, AbstractEdge>(
+					4 * edgeCapacity / 3 + 1);
+			tmp.putAll(edgeMap);
+			edgeMap = tmp;
+		}
+	}
+
+	@Override
+	protected void nodeAttributeCallback(AbstractNode node, String attribute,
+			AttributeChangeEvent event, Object newValue) {
+		if (nodeColumns != null) {
+			int i = node.getIndex();
+
+			// The node may have been removed from the graph.
+			if (i < nodeCount && nodeArray[i] == node)
+				nodeColumns.attributeChanged(i, attribute, newValue);
+		}
+	}
+
+	@Override
+	protected void edgeAttributeCallback(AbstractEdge edge, String attribute,
+			AttributeChangeEvent event, Object newValue) {
+		if (edgeColumns != null) {
+			int i = edge.getIndex();
+
+			if (i < edgeCount && edgeArray[i] == edge)
+				edgeColumns.attributeChanged(i, attribute, newValue);
+		}
 	}
 
 	@SuppressWarnings("unchecked")
@@ -248,6 +314,156 @@ public class AdjacencyListGraph extends AbstractGraph {
 		return nodeCount;
 	}
 
+	// *** Attribute columns ***
+
+	/**
+	 * A column of doubles holding the given attribute of all the nodes, in
+	 * node index order. The column is created and filled on the first call,
+	 * then it is kept in sync with the graph until
+	 * {@link #removeNodeColumn(String)} is called.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column.
+	 * @throws IllegalStateException
+	 *             If a column of another type exists for this key.
+	 * @complexity O(n) for the first call where n is the node count, O(1)
+	 *             then.
+	 */
+	public AttributeColumn.DoubleColumn nodeColumn(String key) {
+		return nodeColumn(key, AttributeColumn.DoubleColumn.class);
+	}
+
+	/**
+	 * A column of integers holding the given attribute of all the nodes.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column.
+	 * @see #nodeColumn(String)
+	 */
+	public AttributeColumn.IntColumn nodeIntColumn(String key) {
+		return nodeColumn(key, AttributeColumn.IntColumn.class);
+	}
+
+	/**
+	 * A column of objects holding the given attribute of all the nodes.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column.
+	 * @see #nodeColumn(String)
+	 */
+	public AttributeColumn.ObjectColumn nodeObjectColumn(String key) {
+		return nodeColumn(key, AttributeColumn.ObjectColumn.class);
+	}
+
+	/**
+	 * A column of doubles holding the given attribute of all the edges, in
+	 * edge index order.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column.
+	 * @see #nodeColumn(String)
+	 */
+	public AttributeColumn.DoubleColumn edgeColumn(String key) {
+		return edgeColumn(key, AttributeColumn.DoubleColumn.class);
+	}
+
+	/**
+	 * A column of integers holding the given attribute of all the edges.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column.
+	 * @see #nodeColumn(String)
+	 */
+	public AttributeColumn.IntColumn edgeIntColumn(String key) {
+		return edgeColumn(key, AttributeColumn.IntColumn.class);
+	}
+
+	/**
+	 * A column of objects holding the given attribute of all the edges.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The column.
+	 * @see #nodeColumn(String)
+	 */
+	public AttributeColumn.ObjectColumn edgeObjectColumn(String key) {
+		return edgeColumn(key, AttributeColumn.ObjectColumn.class);
+	}
+
+	/**
+	 * Stop maintaining the node column of the given key, if any.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 */
+	public void removeNodeColumn(String key) {
+		if (nodeColumns != null) {
+			nodeColumns.remove(key);
+
+			if (nodeColumns.isEmpty())
+				nodeColumns = null;
+		}
+	}
+
+	/**
+	 * Stop maintaining the edge column of the given key, if any.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 */
+	public void removeEdgeColumn(String key) {
+		if (edgeColumns != null) {
+			edgeColumns.remove(key);
+
+			if (edgeColumns.isEmpty())
+				edgeColumns = null;
+		}
+	}
+
+	protected <T extends AttributeColumn> T nodeColumn(String key,
+			Class<T> type) {
+		if (nodeColumns == null)
+			nodeColumns = new AttributeColumnTable();
+
+		return column(nodeColumns, key, type, nodeArray, nodeCount);
+	}
+
+	protected <T extends AttributeColumn> T edgeColumn(String key,
+			Class<T> type) {
+		if (edgeColumns == null)
+			edgeColumns = new AttributeColumnTable();
+
+		return column(edgeColumns, key, type, edgeArray, edgeCount);
+	}
+
+	private static <T extends AttributeColumn> T column(
+			AttributeColumnTable table, String key, Class<T> type,
+			AbstractElement[] elements, int count) {
+		AttributeColumn column = table.get(key);
+
+		if (column == null) {
+			if (type == AttributeColumn.DoubleColumn.class)
+				column = new AttributeColumn.DoubleColumn(key, elements.length);
+			else if (type == AttributeColumn.IntColumn.class)
+				column = new AttributeColumn.IntColumn(key, elements.length);
+			else
+				column = new AttributeColumn.ObjectColumn(key, elements.length);
+
+			table.add(column, elements, count);
+		} else if (!type.isInstance(column)) {
+			throw new IllegalStateException("a column of type "
+					+ column.getClass().getSimpleName()
+					+ " already exists for attribute \"" + key + "\"");
+		}
+
+		return type.cast(column);
+	}
+
 	// *** Iterators ***
 
 	protected class EdgeIterator<T extends Edge> implements Iterator<T> {
@@ -45,6 +45,7 @@ import org.graphstream.graph.Node;
  */
 public class AdjacencyListNode extends AbstractNode {
 	protected static final int INITIAL_EDGE_CAPACITY;
+	protected static final int NEIGHBOR_INDEX_THRESHOLD;
 	protected static final double GROWTH_FACTOR = 1.1;
 
 	static {
@@ -55,6 +56,15 @@ public class AdjacencyListNode extends AbstractNode {
 		} catch (AccessControlException e) {
 		}
 		INITIAL_EDGE_CAPACITY = initialEdgeCapacity;
+
+		p = "org.graphstream.graph.node.neighborIndexThreshold";
+		int neighborIndexThreshold = 16;
+		try {
+			neighborIndexThreshold = Integer.valueOf(System.getProperty(p,
+					"16"));
+		} catch (AccessControlException e) {
+		}
+		NEIGHBOR_INDEX_THRESHOLD = neighborIndexThreshold;
 	}
 
 	protected static final char I_EDGE = 0;
@@ -64,6 +74,14 @@ public class AdjacencyListNode extends AbstractNode {
 	protected AbstractEdge[] edges;
 	protected int ioStart, oStart, degree;
 
+	/**
+	 * Index of the edges by opposite node. It is only used by nodes that
+	 * {@link #indexesNeighbors()} and only exists while the degree is above
+	 * {@link #NEIGHBOR_INDEX_THRESHOLD}, a linear scan of the edges being
+	 * faster for small degrees.
+	 */
+	protected NeighborIndex neighborIndex;
+
 	// *** Constructor ***
 
 	protected AdjacencyListNode(AbstractGraph graph, String id) {
@@ -74,6 +92,36 @@ public class AdjacencyListNode extends AbstractNode {
 
 	// *** Helpers ***
 
+	/**
+	 * Does this node maintain a {@link NeighborIndex} when its degree is
+	 * high ? The default implementation returns false: these nodes favor
+	 * memory over the speed of edge lookups.
+	 * 
+	 * @return True if the edges are indexed by opposite node.
+	 */
+	protected boolean indexesNeighbors() {
+		return false;
+	}
+
+	/**
+	 * The index of a node changed, update the neighbor indices of the
+	 * opposite nodes.
+	 */
+	@Override
+	protected void setIndex(int index) {
+		int old = getIndex();
+		super.setIndex(index);
+
+		if (old != index)
+			for (int i = 0; i < degree; i++) {
+				AdjacencyListNode o = (AdjacencyListNode) edges[i]
+						.getOpposite(this);
+
+				if (o.neighborIndex != null)
+					o.neighborIndex.rekey(old, index);
+			}
+	}
+
 	protected char edgeType(AbstractEdge e) {
 		if (!e.directed || e.source == e.target)
 			return IO_EDGE;
@@ -82,6 +130,10 @@ public class AdjacencyListNode extends AbstractNode {
 
 	@SuppressWarnings("unchecked")
 	protected <T extends Edge> T locateEdge(Node opposite, char type) {
+		if (neighborIndex != null)
+			return opposite instanceof AbstractNode ? (T) neighborIndex.find(
+					this, (AbstractNode) opposite, type) : null;
+
 		// where to search ?
 		int start = 0;
 		int end = degree;
@@ -97,6 +149,14 @@ public class AdjacencyListNode extends AbstractNode {
 	}
 
 	protected void removeEdge(int i) {
+		if (neighborIndex != null) {
+			if (degree <= NEIGHBOR_INDEX_THRESHOLD / 2)
+				neighborIndex = null;
+			else
+				neighborIndex.remove(edges[i].getOpposite(this).getIndex(),
+						edges[i]);
+		}
+
 		if (i >= oStart) {
 			edges[i] = edges[--degree];
 			edges[degree] = null;
@@ -133,18 +193,25 @@ public class AdjacencyListNode extends AbstractNode {
 
 		if (type == O_EDGE) {
 			edges[degree++] = edge;
-			return true;
-		}
-
-		if (type == IO_EDGE) {
+		} else if (type == IO_EDGE) {
 			edges[degree++] = edges[oStart];
 			edges[oStart++] = edge;
-			return true;
+		} else {
+			edges[degree++] = edges[oStart];
+			edges[oStart++] = edges[ioStart];
+			edges[ioStart++] = edge;
+		}
+
+		if (neighborIndex != null) {
+			neighborIndex.add(edge.getOpposite(this).getIndex(), edge);
+		} else if (degree > NEIGHBOR_INDEX_THRESHOLD && indexesNeighbors()) {
+			neighborIndex = new NeighborIndex(degree * 2);
+
+			for (int i = 0; i < degree; i++)
+				neighborIndex.add(edges[i].getOpposite(this).getIndex(),
+						edges[i]);
 		}
 
-		edges[degree++] = edges[oStart];
-		edges[oStart++] = edges[ioStart];
-		edges[ioStart++] = edge;
 		return true;
 	}
 
@@ -167,6 +234,13 @@ public class AdjacencyListNode extends AbstractNode {
 	protected void clearCallback() {
 		Arrays.fill(edges, 0, degree, null);
 		ioStart = oStart = degree = 0;
+		neighborIndex = null;
+	}
+
+	@Override
+	protected void ensureEdgeCapacity(int capacity) {
+		if (capacity > edges.length)
+			edges = Arrays.copyOf(edges, capacity);
 	}
 
 	// *** Access methods ***
@@ -269,6 +343,71 @@ public class AdjacencyListNode extends AbstractNode {
 		}
 	}
 
+	/**
+	 * Iterator on the neighbors, walking the {@link NeighborIndex} if there is
+	 * one and the edges otherwise. Neither allocates per neighbor.
+	 */
+	protected class NeighborNodeIterator<T extends Node> implements Iterator<T> {
+		protected NeighborIndex index;
+		protected int next;
+
+		protected NeighborNodeIterator() {
+			index = neighborIndex;
+			next = seek(-1);
+		}
+
+		protected int seek(int from) {
+			if (index != null)
+				return index.nextNeighborSlot(from);
+
+			// Small degree, a neighbor is visited at its first edge.
+			for (int i = from + 1; i < degree; i++) {
+				AbstractNode o = edges[i].getOpposite(AdjacencyListNode.this);
+				int j = 0;
+
+				while (edges[j].getOpposite(AdjacencyListNode.this) != o)
+					j++;
+
+				if (j == i)
+					return i;
+			}
+
+			return -1;
+		}
+
+		public boolean hasNext() {
+			return next >= 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (next < 0)
+				throw new NoSuchElementException();
+
+			AbstractEdge e = index != null ? index.edgeAt(next) : edges[next];
+			next = seek(next);
+			return (T) e.getOpposite(AdjacencyListNode.this);
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException(
+					"This iterator does not support remove");
+		}
+	}
+
+	/**
+	 * Without a {@link NeighborIndex}, the edges are scanned to skip the
+	 * neighbors already visited while the degree is small. Above, the set of
+	 * {@link AbstractNode#getNeighborNodeIterator()} is used.
+	 */
+	@Override
+	public <T extends Node> Iterator<T> getNeighborNodeIterator() {
+		if (neighborIndex == null && degree > NEIGHBOR_INDEX_THRESHOLD)
+			return super.getNeighborNodeIterator();
+
+		return new NeighborNodeIterator<T>();
+	}
+
 	@Override
 	public <T extends Edge> Iterator<T> getEdgeIterator() {
 		return new EdgeIterator<T>(IO_EDGE);
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Arrays;
+
+import org.graphstream.graph.Element;
+
+/**
+ * A dense, graph-wide copy of one attribute of all the nodes or all the edges
+ * of a graph.
+ * 
+ * <p>
+ * Values are stored in an array indexed by {@link Element#getIndex()}. Walking
+ * this array is far more cache friendly than calling
+ * {@link Element#getNumber(String)} on each element. Columns are obtained from
+ * the graph (see for example {@link AdjacencyListGraph#nodeColumn(String)})
+ * that keeps them in sync with attribute changes and with the addition and
+ * removal of elements.
+ * </p>
+ * 
+ * <p>
+ * Columns are read-only mirrors of the attributes: changing an attribute must
+ * still be done on the element. The backing array returned by the typed
+ * columns may be reallocated when the graph grows, and only its first
+ * {@link #size()} cells are meaningful.
+ * </p>
+ */
+public abstract class AttributeColumn {
+	/**
+	 * The attribute key.
+	 */
+	protected final String key;
+
+	/**
+	 * Number of elements covered by the column.
+	 */
+	protected int size;
+
+	protected AttributeColumn(String key) {
+		this.key = key;
+		this.size = 0;
+	}
+
+	/**
+	 * The attribute mirrored by this column.
+	 * 
+	 * @return The attribute key.
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * Number of elements covered by this column, that is the number of nodes
+	 * or edges of the graph.
+	 * 
+	 * @return The column size.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Make room for at least the given number of elements.
+	 */
+	protected abstract void ensureCapacity(int capacity);
+
+	/**
+	 * Store the value of the attribute for the element at the given index. A
+	 * null value means the attribute is absent.
+	 */
+	protected abstract void set(int index, Object value);
+
+	/**
+	 * Copy the value stored at index {@code from} at index {@code to}.
+	 */
+	protected abstract void move(int from, int to);
+
+	/**
+	 * Reset all the cells.
+	 */
+	protected abstract void clear();
+
+	/**
+	 * A column of doubles. Absent and non numeric values are stored as NaN.
+	 */
+	public static class DoubleColumn extends AttributeColumn {
+		protected double[] values;
+
+		public DoubleColumn(String key, int capacity) {
+			super(key);
+			values = new double[capacity];
+			Arrays.fill(values, Double.NaN);
+		}
+
+		/**
+		 * Value of the element at the given index.
+		 * 
+		 * @param index
+		 *            The element index.
+		 * @return The value or NaN if absent.
+		 */
+		public double get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Element " + index
+						+ " does not exist");
+			return values[index];
+		}
+
+		/**
+		 * The backing array, only the first {@link #size()} cells are valid.
+		 * 
+		 * @return The values.
+		 */
+		public double[] getArray() {
+			return values;
+		}
+
+		@Override
+		protected void ensureCapacity(int capacity) {
+			if (capacity > values.length) {
+				int old = values.length;
+				values = Arrays.copyOf(values, capacity);
+				Arrays.fill(values, old, capacity, Double.NaN);
+			}
+		}
+
+		@Override
+		protected void set(int index, Object value) {
+			values[index] = value instanceof Number ? ((Number) value)
+					.doubleValue() : Double.NaN;
+		}
+
+		@Override
+		protected void move(int from, int to) {
+			values[to] = values[from];
+			values[from] = Double.NaN;
+		}
+
+		@Override
+		protected void clear() {
+			Arrays.fill(values, 0, size, Double.NaN);
+		}
+	}
+
+	/**
+	 * A column of integers. Absent and non numeric values are stored as 0.
+	 */
+	public static class IntColumn extends AttributeColumn {
+		protected int[] values;
+
+		public IntColumn(String key, int capacity) {
+			super(key);
+			values = new int[capacity];
+		}
+
+		/**
+		 * Value of the element at the given index.
+		 * 
+		 * @param index
+		 *            The element index.
+		 * @return The value or 0 if absent.
+		 */
+		public int get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Element " + index
+						+ " does not exist");
+			return values[index];
+		}
+
+		/**
+		 * The backing array, only the first {@link #size()} cells are valid.
+		 * 
+		 * @return The values.
+		 */
+		public int[] getArray() {
+			return values;
+		}
+
+		@Override
+		protected void ensureCapacity(int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		protected void set(int index, Object value) {
+			values[index] = value instanceof Number ? ((Number) value)
+					.intValue() : 0;
+		}
+
+		@Override
+		protected void move(int from, int to) {
+			values[to] = values[from];
+			values[from] = 0;
+		}
+
+		@Override
+		protected void clear() {
+			Arrays.fill(values, 0, size, 0);
+		}
+	}
+
+	/**
+	 * A column of arbitrary values. Absent values are stored as null.
+	 */
+	public static class ObjectColumn extends AttributeColumn {
+		protected Object[] values;
+
+		public ObjectColumn(String key, int capacity) {
+			super(key);
+			values = new Object[capacity];
+		}
+
+		/**
+		 * Value of the element at the given index.
+		 * 
+		 * @param index
+		 *            The element index.
+		 * @return The value or null if absent.
+		 */
+		@SuppressWarnings("unchecked")
+		public <T> T get(int index) {
+			if (index < 0 || index >= size)
+				throw new IndexOutOfBoundsException("Element " + index
+						+ " does not exist");
+			return (T) values[index];
+		}
+
+		/**
+		 * The backing array, only the first {@link #size()} cells are valid.
+		 * 
+		 * @return The values.
+		 */
+		public Object[] getArray() {
+			return values;
+		}
+
+		@Override
+		protected void ensureCapacity(int capacity) {
+			if (capacity > values.length)
+				values = Arrays.copyOf(values, capacity);
+		}
+
+		@Override
+		protected void set(int index, Object value) {
+			values[index] = value;
+		}
+
+		@Override
+		protected void move(int from, int to) {
+			values[to] = values[from];
+			values[from] = null;
+		}
+
+		@Override
+		protected void clear() {
+			Arrays.fill(values, 0, size, null);
+		}
+	}
+}
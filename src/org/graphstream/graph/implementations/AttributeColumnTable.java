@@ -0,0 +1,173 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * The set of {@link AttributeColumn}s defined for one kind of elements (nodes
+ * or edges) of a graph. The graph notifies the table of the changes of its
+ * element array so that all the columns stay aligned with element indices.
+ */
+public class AttributeColumnTable {
+	protected HashMap<String, AttributeColumn> columnMap;
+
+	/**
+	 * Columns as an array, to iterate on them without allocating at each
+	 * element addition or removal.
+	 */
+	protected AttributeColumn[] columns;
+
+	public AttributeColumnTable() {
+		columnMap = new HashMap<String, AttributeColumn>();
+		columns = new AttributeColumn[0];
+	}
+
+	/**
+	 * The column of the given key, or null if it is not defined.
+	 */
+	public AttributeColumn get(String key) {
+		return columnMap.get(key);
+	}
+
+	/**
+	 * Is there at least one column ?
+	 */
+	public boolean isEmpty() {
+		return columns.length == 0;
+	}
+
+	/**
+	 * Register a new column and fill it with the current values of the
+	 * elements.
+	 * 
+	 * @param column
+	 *            The new column.
+	 * @param elements
+	 *            The element array of the graph.
+	 * @param count
+	 *            The number of elements.
+	 */
+	public void add(AttributeColumn column, AbstractElement[] elements,
+			int count) {
+		column.ensureCapacity(elements.length);
+		column.size = count;
+
+		for (int i = 0; i < count; i++)
+			column.set(i, elements[i].attributes == null ? null
+					: elements[i].attributes.get(column.key));
+
+		columnMap.put(column.key, column);
+		columns = Arrays.copyOf(columns, columns.length + 1);
+		columns[columns.length - 1] = column;
+	}
+
+	/**
+	 * Forget a column.
+	 */
+	public void remove(String key) {
+		AttributeColumn column = columnMap.remove(key);
+
+		if (column != null) {
+			AttributeColumn[] tmp = new AttributeColumn[columns.length - 1];
+
+			for (int i = 0, j = 0; i < columns.length; i++)
+				if (columns[i] != column)
+					tmp[j++] = columns[i];
+
+			columns = tmp;
+		}
+	}
+
+	/**
+	 * An element was appended at the end of the element array.
+	 * 
+	 * @param index
+	 *            Index of the new element.
+	 * @param capacity
+	 *            Current length of the element array.
+	 */
+	public void elementAdded(int index, int capacity) {
+		for (AttributeColumn column : columns) {
+			column.ensureCapacity(capacity);
+			column.set(index, null);
+			column.size = index + 1;
+		}
+	}
+
+	/**
+	 * An element was removed and the last element moved at its place.
+	 * 
+	 * @param index
+	 *            Index of the removed element.
+	 * @param last
+	 *            Index of the last element, that is now free.
+	 */
+	public void elementRemoved(int index, int last) {
+		for (AttributeColumn column : columns) {
+			if (index != last)
+				column.move(last, index);
+			else
+				column.set(index, null);
+
+			column.size = last;
+		}
+	}
+
+	/**
+	 * An attribute of the element at the given index changed.
+	 * 
+	 * @param index
+	 *            Index of the element.
+	 * @param key
+	 *            The attribute.
+	 * @param value
+	 *            The new value, null if the attribute is removed.
+	 */
+	public void attributeChanged(int index, String key, Object value) {
+		AttributeColumn column = columnMap.get(key);
+
+		if (column != null)
+			column.set(index, value);
+	}
+
+	/**
+	 * All the elements were removed.
+	 */
+	public void clear() {
+		for (AttributeColumn column : columns) {
+			column.clear();
+			column.size = 0;
+		}
+	}
+}
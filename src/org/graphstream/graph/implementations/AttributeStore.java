@@ -0,0 +1,121 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Collection;
+
+/**
+ * Storage of the attributes of an {@link AbstractElement}.
+ * 
+ * <p>
+ * An attribute store maps attribute keys to their values. It is a purely
+ * structural container: it does not check anything and does not send any
+ * event, this is the job of the element owning it. Element implementations
+ * choose the store they use by overriding
+ * {@link AbstractElement#createAttributeStore()}. By default, elements use a
+ * {@link CompactAttributeStore}.
+ * </p>
+ * 
+ * <p>
+ * As for a {@link java.util.HashMap}, null values are allowed, so
+ * {@link #containsKey(String)} must be used to know if a key is present.
+ * </p>
+ */
+public interface AttributeStore {
+	/**
+	 * Number of attributes stored.
+	 * 
+	 * @return The attribute count.
+	 */
+	int size();
+
+	/**
+	 * Is there a value (possibly null) stored for the given key ?
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return True if the key is present.
+	 */
+	boolean containsKey(String key);
+
+	/**
+	 * Value stored for the given key.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The value or null if the key is not present.
+	 */
+	Object get(String key);
+
+	/**
+	 * Numeric value stored for the given key. This allows stores keeping
+	 * numbers in primitive form to avoid boxing them back.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The value as a double if it is a {@link Number}, else NaN.
+	 */
+	double getNumber(String key);
+
+	/**
+	 * Store a value, replacing the previous one if any.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @param value
+	 *            The new value, can be null.
+	 * @return The previous value or null if the key was not present.
+	 */
+	Object put(String key, Object value);
+
+	/**
+	 * Remove a key and its value.
+	 * 
+	 * @param key
+	 *            The attribute key.
+	 * @return The removed value or null if the key was not present.
+	 */
+	Object remove(String key);
+
+	/**
+	 * Remove all the attributes.
+	 */
+	void clear();
+
+	/**
+	 * A view on the keys of this store. The view reflects the changes of the
+	 * store. Modifying the store while iterating on the view is an error.
+	 * 
+	 * @return The set of keys.
+	 */
+	Collection<String> keySet();
+}
@@ -0,0 +1,479 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A memory efficient attribute store.
+ * 
+ * <p>
+ * Attributes are stored in a small open-addressed table (linear probing)
+ * made of parallel arrays instead of a map of entries. {@link Double} and
+ * {@link Integer} values are unboxed and kept in a primitive slot, other
+ * values are kept as objects. The arrays holding primitive and object values
+ * are only created when a value of this kind is stored, so an element
+ * holding only numbers does not pay for object slots.
+ * </p>
+ * 
+ * <p>
+ * Keys are interned in a pool shared by all the stores so that the millions
+ * of elements of a large graph share the same key instances, whatever the
+ * source of these keys (parsers for example create a new string for each
+ * key they read). As some keys are generated (one per sprite for example),
+ * the pool is bounded: once it holds {@link #MAX_POOLED_KEYS} keys, new keys
+ * are stored as given.
+ * </p>
+ * 
+ * <p>
+ * Values are boxed again when read with {@link #get(String)}, the type of
+ * the value given to {@link #put(String, Object)} is preserved.
+ * {@link #getNumber(String)} reads numbers without boxing.
+ * </p>
+ */
+public class CompactAttributeStore implements AttributeStore {
+	/**
+	 * Kind of a slot holding an object.
+	 */
+	protected static final byte OBJECT = 0;
+
+	/**
+	 * Kind of a slot holding a double.
+	 */
+	protected static final byte DOUBLE = 1;
+
+	/**
+	 * Kind of a slot holding an integer.
+	 */
+	protected static final byte INT = 2;
+
+	/**
+	 * Initial capacity of the table, must be a power of two.
+	 */
+	protected static final int INITIAL_CAPACITY = 4;
+
+	/**
+	 * Maximum number of keys in the pool.
+	 */
+	public static final int MAX_POOLED_KEYS = 4096;
+
+	/**
+	 * Pool of keys shared by all the stores, never holding more than
+	 * {@link #MAX_POOLED_KEYS} keys.
+	 */
+	private static final ConcurrentHashMap<String, String> keyPool = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * Keys of the table, null for a free slot.
+	 */
+	protected String[] keys;
+
+	/**
+	 * Kind of the value of each slot.
+	 */
+	protected byte[] kinds;
+
+	/**
+	 * Raw bits of primitive values, created lazily.
+	 */
+	protected long[] primitives;
+
+	/**
+	 * Object values, created lazily.
+	 */
+	protected Object[] objects;
+
+	/**
+	 * Number of keys stored.
+	 */
+	protected int size;
+
+	/**
+	 * Incremented at each structural change, used to detect concurrent
+	 * modifications while iterating.
+	 */
+	protected int modCount;
+
+	/**
+	 * New empty store. Nothing is allocated until the first attribute is
+	 * stored.
+	 */
+	public CompactAttributeStore() {
+		size = 0;
+	}
+
+	/**
+	 * Canonical instance of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The shared instance equal to the key, or the key itself if it
+	 *         is not in the pool and the pool is full.
+	 */
+	public static String intern(String key) {
+		String k = keyPool.get(key);
+
+		if (k != null)
+			return k;
+
+		// The size may be exceeded by a few keys under contention, it only
+		// has to be bounded.
+		if (keyPool.size() >= MAX_POOLED_KEYS)
+			return key;
+
+		k = keyPool.putIfAbsent(key, key);
+		return k == null ? key : k;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean containsKey(String key) {
+		return indexOf(key) >= 0;
+	}
+
+	public Object get(String key) {
+		int i = indexOf(key);
+		return i < 0 ? null : valueAt(i);
+	}
+
+	public double getNumber(String key) {
+		int i = indexOf(key);
+
+		if (i < 0)
+			return Double.NaN;
+
+		switch (kinds[i]) {
+		case DOUBLE:
+			return Double.longBitsToDouble(primitives[i]);
+		case INT:
+			return (int) primitives[i];
+		default:
+			Object o = objects[i];
+			return o instanceof Number ? ((Number) o).doubleValue()
+					: Double.NaN;
+		}
+	}
+
+	public Object put(String key, Object value) {
+		if (keys == null)
+			allocate(INITIAL_CAPACITY);
+
+		int i = indexOf(key);
+		Object old = null;
+
+		if (i >= 0) {
+			old = valueAt(i);
+		} else {
+			if ((size + 1) * 4 > keys.length * 3)
+				rehash(keys.length * 2);
+
+			i = freeSlotFor(key);
+			keys[i] = intern(key);
+			size++;
+			modCount++;
+		}
+
+		setValueAt(i, value);
+		return old;
+	}
+
+	public Object remove(String key) {
+		int i = indexOf(key);
+
+		if (i < 0)
+			return null;
+
+		Object old = valueAt(i);
+		int mask = keys.length - 1;
+		int j = i;
+
+		clearSlot(i);
+
+		//
+		// Backward shift deletion: move back the following keys of the probe
+		// sequence so that lookups never meet a hole before their key.
+		//
+		while (true) {
+			j = (j + 1) & mask;
+
+			if (keys[j] == null)
+				break;
+
+			int h = slot(keys[j], mask);
+
+			if (i <= j ? (i < h && h <= j) : (i < h || h <= j))
+				continue;
+
+			keys[i] = keys[j];
+			kinds[i] = kinds[j];
+
+			if (primitives != null)
+				primitives[i] = primitives[j];
+			if (objects != null)
+				objects[i] = objects[j];
+
+			clearSlot(j);
+			i = j;
+		}
+
+		size--;
+		modCount++;
+
+		return old;
+	}
+
+	public void clear() {
+		if (keys != null) {
+			for (int i = 0; i < keys.length; i++)
+				clearSlot(i);
+
+			size = 0;
+			modCount++;
+		}
+	}
+
+	public Collection<String> keySet() {
+		return new KeySet();
+	}
+
+	/**
+	 * Slot index of a key.
+	 * 
+	 * @param key
+	 *            The key.
+	 * @return The index of the key in the table or -1 if not present.
+	 */
+	protected int indexOf(String key) {
+		if (keys == null || size == 0)
+			return -1;
+
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		String k;
+
+		while ((k = keys[i]) != null) {
+			if (k == key || k.equals(key))
+				return i;
+
+			i = (i + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * First free slot in the probe sequence of a key, the key must not be
+	 * present and the table must not be full.
+	 */
+	protected int freeSlotFor(String key) {
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+
+		while (keys[i] != null)
+			i = (i + 1) & mask;
+
+		return i;
+	}
+
+	/**
+	 * Home slot of a key.
+	 */
+	protected static int slot(String key, int mask) {
+		int h = key.hashCode();
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	/**
+	 * Value of a slot, boxed if the slot holds a primitive.
+	 */
+	protected Object valueAt(int i) {
+		switch (kinds[i]) {
+		case DOUBLE:
+			return Double.longBitsToDouble(primitives[i]);
+		case INT:
+			return (int) primitives[i];
+		default:
+			return objects[i];
+		}
+	}
+
+	/**
+	 * Set the value of a slot, unboxing doubles and integers.
+	 */
+	protected void setValueAt(int i, Object value) {
+		if (value instanceof Double) {
+			if (primitives == null)
+				primitives = new long[keys.length];
+
+			kinds[i] = DOUBLE;
+			primitives[i] = Double.doubleToRawLongBits((Double) value);
+
+			if (objects != null)
+				objects[i] = null;
+		} else if (value instanceof Integer) {
+			if (primitives == null)
+				primitives = new long[keys.length];
+
+			kinds[i] = INT;
+			primitives[i] = (Integer) value;
+
+			if (objects != null)
+				objects[i] = null;
+		} else {
+			if (objects == null)
+				objects = new Object[keys.length];
+
+			kinds[i] = OBJECT;
+			objects[i] = value;
+		}
+	}
+
+	protected void clearSlot(int i) {
+		keys[i] = null;
+		kinds[i] = OBJECT;
+
+		if (objects != null)
+			objects[i] = null;
+	}
+
+	protected void allocate(int capacity) {
+		keys = new String[capacity];
+		kinds = new byte[capacity];
+		primitives = null;
+		objects = null;
+	}
+
+	/**
+	 * Move all the keys in a new table of the given capacity.
+	 */
+	protected void rehash(int capacity) {
+		String[] oldKeys = keys;
+		byte[] oldKinds = kinds;
+		long[] oldPrimitives = primitives;
+		Object[] oldObjects = objects;
+
+		keys = new String[capacity];
+		kinds = new byte[capacity];
+		primitives = oldPrimitives == null ? null : new long[capacity];
+		objects = oldObjects == null ? null : new Object[capacity];
+
+		int mask = capacity - 1;
+
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int j = slot(oldKeys[i], mask);
+
+				while (keys[j] != null)
+					j = (j + 1) & mask;
+
+				keys[j] = oldKeys[i];
+				kinds[j] = oldKinds[i];
+
+				if (primitives != null)
+					primitives[j] = oldPrimitives[i];
+				if (objects != null)
+					objects[j] = oldObjects[i];
+			}
+		}
+
+		modCount++;
+	}
+
+	/**
+	 * Live view on the keys of the store.
+	 */
+	protected class KeySet extends AbstractCollection<String> {
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return o instanceof String && containsKey((String) o);
+		}
+
+		@Override
+		public Iterator<String> iterator() {
+			return new KeyIterator();
+		}
+	}
+
+	/**
+	 * Iterator on the occupied slots of the table.
+	 */
+	protected class KeyIterator implements Iterator<String> {
+		int expectedModCount = modCount;
+		int next = -1;
+
+		KeyIterator() {
+			advance();
+		}
+
+		void advance() {
+			next++;
+
+			if (keys != null)
+				while (next < keys.length && keys[next] == null)
+					next++;
+		}
+
+		public boolean hasNext() {
+			return keys != null && next < keys.length;
+		}
+
+		public String next() {
+			if (modCount != expectedModCount)
+				throw new ConcurrentModificationException();
+
+			if (!hasNext())
+				throw new NoSuchElementException();
+
+			String k = keys[next];
+			advance();
+
+			return k;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException(
+					"this iterator does not allow removing");
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Map;
+
+/**
+ * Edges used with {@link FrozenGraph}. Edges of a frozen graph are flyweights
+ * created on access from the arrays of the graph, two instances of the same
+ * edge are equal but not always identical.
+ */
+public class FrozenEdge extends AbstractEdge {
+	protected FrozenEdge(FrozenGraph graph, int index) {
+		super(graph.edgeIds[index], graph.nodes[graph.edgeSource[index]],
+				graph.nodes[graph.edgeTarget[index]], graph.edgeDirected
+						.get(index));
+		setIndex(index);
+		attributes = graph.edgeAttributes[index];
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+
+		if (o instanceof FrozenEdge) {
+			FrozenEdge e = (FrozenEdge) o;
+			return e.graph == graph && e.getIndex() == getIndex();
+		}
+
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return getIndex();
+	}
+
+	// *** Read-only attributes ***
+
+	@Override
+	public void addAttribute(String attribute, Object... values) {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	public void clearAttributes() {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	public void addAttributes(Map<String, Object> attributes) {
+		throw FrozenGraph.readOnly();
+	}
+}
@@ -0,0 +1,526 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * <p>
+ * A compact, read-only snapshot of a graph, obtained with
+ * {@link Graphs#freeze(Graph)}.
+ * </p>
+ * 
+ * <p>
+ * The topology is stored in compressed sparse row form: the incident edges of
+ * all the nodes are stored as edge indices in one int array, each node owning
+ * a slice of this array delimited by an offset array. Inside its slice, the
+ * edges of a node are grouped in entering, undirected and leaving edges, as in
+ * {@link AdjacencyListNode}, and each group is sorted by opposite node so that
+ * {@link Node#getEdgeBetween(Node)} and its variants run in logarithmic time.
+ * Edge endpoints are stored as node indices. Nothing else is allocated per
+ * edge, in particular there are no id maps: ids are found with a compact open
+ * addressed index.
+ * </p>
+ * 
+ * <p>
+ * Nodes are small objects (they hold only their id and attributes) created
+ * once, so that node identity is preserved. Edges are flyweights created on
+ * access: two edge objects are equal if they have the same index, but they are
+ * not necessarily the same instance.
+ * </p>
+ * 
+ * <p>
+ * Element indices are those of the source graph. Attribute storage is shared
+ * with the source graph when its elements are {@link AbstractElement}s, the
+ * source graph should therefore not be modified while the snapshot is in use.
+ * All the methods modifying the snapshot throw an
+ * {@link UnsupportedOperationException}.
+ * </p>
+ */
+public class FrozenGraph extends AbstractGraph {
+	/**
+	 * Nodes, by index.
+	 */
+	protected FrozenNode[] nodes;
+
+	/**
+	 * Edge ids, by index.
+	 */
+	protected String[] edgeIds;
+
+	/**
+	 * Edge endpoints as node indices.
+	 */
+	protected int[] edgeSource, edgeTarget;
+
+	/**
+	 * Directed edges.
+	 */
+	protected BitSet edgeDirected;
+
+	/**
+	 * Edge attributes, by index. Cells can be null.
+	 */
+	protected AttributeStore[] edgeAttributes;
+
+	/**
+	 * Slice of each node in {@link #incidence}, node i owns cells offsets[i]
+	 * (included) to offsets[i + 1] (excluded).
+	 */
+	protected int[] offsets;
+
+	/**
+	 * Start of the undirected edges and of the leaving edges in the slice of
+	 * each node.
+	 */
+	protected int[] ioStarts, oStarts;
+
+	/**
+	 * Incident edge indices of all the nodes.
+	 */
+	protected int[] incidence;
+
+	/**
+	 * Open addressed tables mapping ids to index + 1.
+	 */
+	protected int[] nodeIdTable, edgeIdTable;
+
+	/**
+	 * Create a snapshot of a graph.
+	 * 
+	 * @param source
+	 *            The graph to freeze.
+	 * @complexity O(n + m log(d)) where n is the node count, m the edge count
+	 *             and d the maximum degree.
+	 */
+	public FrozenGraph(Graph source) {
+		super(source.getId(), true, false);
+
+		int n = source.getNodeCount();
+		int m = source.getEdgeCount();
+		String[] nodeIds = new String[n];
+
+		nodes = new FrozenNode[n];
+		edgeIds = new String[m];
+		edgeSource = new int[m];
+		edgeTarget = new int[m];
+		edgeDirected = new BitSet(m);
+		edgeAttributes = new AttributeStore[m];
+
+		attributes = attributesOf(source);
+
+		for (int i = 0; i < n; i++) {
+			Node node = source.getNode(i);
+			nodes[i] = new FrozenNode(this, node.getId(), i);
+			nodes[i].attributes = attributesOf(node);
+			nodeIds[i] = node.getId();
+		}
+
+		for (int i = 0; i < m; i++) {
+			Edge edge = source.getEdge(i);
+			edgeIds[i] = edge.getId();
+			edgeSource[i] = edge.getSourceNode().getIndex();
+			edgeTarget[i] = edge.getTargetNode().getIndex();
+			edgeDirected.set(i, edge.isDirected());
+			edgeAttributes[i] = attributesOf(edge);
+		}
+
+		buildIncidence(n, m);
+
+		nodeIdTable = buildIdTable(nodeIds);
+		edgeIdTable = buildIdTable(edgeIds);
+	}
+
+	// *** Construction helpers ***
+
+	/**
+	 * Attribute store of an element, shared if possible.
+	 */
+	private static AttributeStore attributesOf(Element element) {
+		if (element instanceof AbstractElement)
+			return ((AbstractElement) element).attributes;
+
+		if (element.getAttributeCount() == 0)
+			return null;
+
+		AttributeStore store = new CompactAttributeStore();
+
+		for (String key : element.getAttributeKeySet())
+			store.put(key, element.getAttribute(key));
+
+		return store;
+	}
+
+	private char edgeType(int edge, int node) {
+		if (!edgeDirected.get(edge) || edgeSource[edge] == edgeTarget[edge])
+			return AdjacencyListNode.IO_EDGE;
+
+		return edgeSource[edge] == node ? AdjacencyListNode.O_EDGE
+				: AdjacencyListNode.I_EDGE;
+	}
+
+	private void buildIncidence(int n, int m) {
+		int[] counts = new int[3 * n];
+
+		for (int e = 0; e < m; e++) {
+			counts[3 * edgeSource[e] + edgeType(e, edgeSource[e])]++;
+
+			if (edgeSource[e] != edgeTarget[e])
+				counts[3 * edgeTarget[e] + edgeType(e, edgeTarget[e])]++;
+		}
+
+		offsets = new int[n + 1];
+		ioStarts = new int[n];
+		oStarts = new int[n];
+
+		for (int i = 0; i < n; i++) {
+			ioStarts[i] = offsets[i] + counts[3 * i];
+			oStarts[i] = ioStarts[i] + counts[3 * i + 1];
+			offsets[i + 1] = oStarts[i] + counts[3 * i + 2];
+		}
+
+		//
+		// Fill the slices with (opposite node, edge) pairs packed in longs, so
+		// that sorting them sorts the groups by opposite node.
+		//
+		long[] packed = new long[offsets[n]];
+		int[] cursors = counts;
+
+		for (int i = 0; i < n; i++) {
+			cursors[3 * i] = offsets[i];
+			cursors[3 * i + 1] = ioStarts[i];
+			cursors[3 * i + 2] = oStarts[i];
+		}
+
+		for (int e = 0; e < m; e++) {
+			int s = edgeSource[e], t = edgeTarget[e];
+
+			packed[cursors[3 * s + edgeType(e, s)]++] = ((long) t << 32) | e;
+
+			if (s != t)
+				packed[cursors[3 * t + edgeType(e, t)]++] = ((long) s << 32)
+						| e;
+		}
+
+		for (int i = 0; i < n; i++) {
+			Arrays.sort(packed, offsets[i], ioStarts[i]);
+			Arrays.sort(packed, ioStarts[i], oStarts[i]);
+			Arrays.sort(packed, oStarts[i], offsets[i + 1]);
+		}
+
+		incidence = new int[packed.length];
+
+		for (int i = 0; i < packed.length; i++)
+			incidence[i] = (int) packed[i];
+	}
+
+	private static int[] buildIdTable(String[] ids) {
+		int capacity = Integer.highestOneBit(Math.max(2, ids.length) * 2 - 1) * 2;
+		int[] table = new int[capacity];
+		int mask = capacity - 1;
+
+		for (int i = 0; i < ids.length; i++) {
+			int slot = hash(ids[i]) & mask;
+
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+
+			table[slot] = i + 1;
+		}
+
+		return table;
+	}
+
+	private static int hash(String id) {
+		int h = id.hashCode();
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Index of the node of the given id, or -1.
+	 */
+	protected int nodeIndex(String id) {
+		int mask = nodeIdTable.length - 1;
+		int slot = hash(id) & mask;
+
+		while (nodeIdTable[slot] != 0) {
+			int index = nodeIdTable[slot] - 1;
+
+			if (nodes[index].getId().equals(id))
+				return index;
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Index of the edge of the given id, or -1.
+	 */
+	protected int edgeIndex(String id) {
+		int mask = edgeIdTable.length - 1;
+		int slot = hash(id) & mask;
+
+		while (edgeIdTable[slot] != 0) {
+			int index = edgeIdTable[slot] - 1;
+
+			if (edgeIds[index].equals(id))
+				return index;
+
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+	}
+
+	// *** Access used by the nodes ***
+
+	/**
+	 * Flyweight of the edge of the given index.
+	 */
+	protected FrozenEdge edge(int index) {
+		return new FrozenEdge(this, index);
+	}
+
+	/**
+	 * Index of the node opposite to the given node on an edge.
+	 */
+	protected int opposite(int edge, int node) {
+		return edgeSource[edge] == node ? edgeTarget[edge] : edgeSource[edge];
+	}
+
+	/**
+	 * Binary search of an edge toward a node in a group of the slice of a
+	 * node.
+	 * 
+	 * @return The edge index or -1.
+	 */
+	protected int search(int node, int from, int to, int opposite) {
+		int lo = from, hi = to - 1;
+
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			int o = opposite(incidence[mid], node);
+
+			if (o < opposite)
+				lo = mid + 1;
+			else if (o > opposite)
+				hi = mid - 1;
+			else {
+				// Several edges in a multi-graph, return the first one.
+				while (mid > from
+						&& opposite(incidence[mid - 1], node) == opposite)
+					mid--;
+
+				return incidence[mid];
+			}
+		}
+
+		return -1;
+	}
+
+	// *** Inherited from AbstractGraph ***
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(String id) {
+		int i = nodeIndex(id);
+		return i < 0 ? null : (T) nodes[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Node> T getNode(int index) {
+		if (index < 0 || index >= nodes.length)
+			throw new IndexOutOfBoundsException("Node " + index
+					+ " does not exist");
+		return (T) nodes[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(String id) {
+		int i = edgeIndex(id);
+		return i < 0 ? null : (T) edge(i);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(int index) {
+		if (index < 0 || index >= edgeIds.length)
+			throw new IndexOutOfBoundsException("Edge " + index
+					+ " does not exist");
+		return (T) edge(index);
+	}
+
+	@Override
+	public int getNodeCount() {
+		return nodes.length;
+	}
+
+	@Override
+	public int getEdgeCount() {
+		return edgeIds.length;
+	}
+
+	@Override
+	public <T extends Node> Iterator<T> getNodeIterator() {
+		return new Iterator<T>() {
+			int next = 0;
+
+			public boolean hasNext() {
+				return next < nodes.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (next >= nodes.length)
+					throw new NoSuchElementException();
+				return (T) nodes[next++];
+			}
+
+			public void remove() {
+				throw readOnly();
+			}
+		};
+	}
+
+	@Override
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		return new Iterator<T>() {
+			int next = 0;
+
+			public boolean hasNext() {
+				return next < edgeIds.length;
+			}
+
+			@SuppressWarnings("unchecked")
+			public T next() {
+				if (next >= edgeIds.length)
+					throw new NoSuchElementException();
+				return (T) edge(next++);
+			}
+
+			public void remove() {
+				throw readOnly();
+			}
+		};
+	}
+
+	// *** Read-only ***
+
+	static UnsupportedOperationException readOnly() {
+		return new UnsupportedOperationException("frozen graphs are read-only");
+	}
+
+	@Override
+	public <T extends Node> T addNode(String id) {
+		throw readOnly();
+	}
+
+	@Override
+	protected <T extends Edge> T addEdge(String edgeId, AbstractNode src,
+			String srcId, AbstractNode dst, String dstId, boolean directed) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeNode(AbstractNode node, boolean graphCallback) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeEdge(AbstractEdge edge, boolean graphCallback,
+			boolean sourceCallback, boolean targetCallback) {
+		throw readOnly();
+	}
+
+	@Override
+	public void clear() {
+		throw readOnly();
+	}
+
+	@Override
+	public void addAttribute(String attribute, Object... values) {
+		throw readOnly();
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		throw readOnly();
+	}
+
+	@Override
+	public void clearAttributes() {
+		throw readOnly();
+	}
+
+	@Override
+	public void addAttributes(Map<String, Object> attributes) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void addNodeCallback(AbstractNode node) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void addEdgeCallback(AbstractEdge edge) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeNodeCallback(AbstractNode node) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void removeEdgeCallback(AbstractEdge edge) {
+		throw readOnly();
+	}
+
+	@Override
+	protected void clearCallback() {
+		throw readOnly();
+	}
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Node;
+
+/**
+ * Nodes used with {@link FrozenGraph}. They hold no topology, their incident
+ * edges are read from the arrays of the graph.
+ */
+public class FrozenNode extends AbstractNode {
+	// *** Constructor ***
+
+	protected FrozenNode(FrozenGraph graph, String id, int index) {
+		super(graph, id);
+		setIndex(index);
+	}
+
+	// *** Helpers ***
+
+	protected FrozenGraph frozen() {
+		return (FrozenGraph) graph;
+	}
+
+	/**
+	 * Edge toward a node among the groups of this node from {@code from} to
+	 * {@code to} (one of the I_EDGE, IO_EDGE and O_EDGE constants of
+	 * {@link AdjacencyListNode}).
+	 */
+	@SuppressWarnings("unchecked")
+	protected <T extends Edge> T locateEdge(Node opposite, char from, char to) {
+		if (!(opposite instanceof FrozenNode) || opposite.getGraph() != graph)
+			return null;
+
+		FrozenGraph g = frozen();
+		int i = getIndex();
+		int o = opposite.getIndex();
+		int[] bounds = { g.offsets[i], g.ioStarts[i], g.oStarts[i],
+				g.offsets[i + 1] };
+
+		for (char group = from; group <= to; group++) {
+			int e = g.search(i, bounds[group], bounds[group + 1], o);
+
+			if (e >= 0)
+				return (T) g.edge(e);
+		}
+
+		return null;
+	}
+
+	// *** Callbacks ***
+
+	@Override
+	protected boolean addEdgeCallback(AbstractEdge edge) {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	protected void removeEdgeCallback(AbstractEdge edge) {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	protected void clearCallback() {
+		throw FrozenGraph.readOnly();
+	}
+
+	// *** Access methods ***
+
+	@Override
+	public int getDegree() {
+		int i = getIndex();
+		return frozen().offsets[i + 1] - frozen().offsets[i];
+	}
+
+	@Override
+	public int getInDegree() {
+		int i = getIndex();
+		return frozen().oStarts[i] - frozen().offsets[i];
+	}
+
+	@Override
+	public int getOutDegree() {
+		int i = getIndex();
+		return frozen().offsets[i + 1] - frozen().ioStarts[i];
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEdge(int i) {
+		if (i < 0 || i >= getDegree())
+			throw new IndexOutOfBoundsException("Node \"" + this + "\""
+					+ " has no edge " + i);
+		FrozenGraph g = frozen();
+		return (T) g.edge(g.incidence[g.offsets[getIndex()] + i]);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getEnteringEdge(int i) {
+		if (i < 0 || i >= getInDegree())
+			throw new IndexOutOfBoundsException("Node \"" + this + "\""
+					+ " has no entering edge " + i);
+		FrozenGraph g = frozen();
+		return (T) g.edge(g.incidence[g.offsets[getIndex()] + i]);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Edge> T getLeavingEdge(int i) {
+		if (i < 0 || i >= getOutDegree())
+			throw new IndexOutOfBoundsException("Node \"" + this + "\""
+					+ " has no edge " + i);
+		FrozenGraph g = frozen();
+		return (T) g.edge(g.incidence[g.ioStarts[getIndex()] + i]);
+	}
+
+	@Override
+	public <T extends Edge> T getEdgeBetween(Node node) {
+		return locateEdge(node, AdjacencyListNode.I_EDGE,
+				AdjacencyListNode.O_EDGE);
+	}
+
+	@Override
+	public <T extends Edge> T getEdgeFrom(Node node) {
+		return locateEdge(node, AdjacencyListNode.I_EDGE,
+				AdjacencyListNode.IO_EDGE);
+	}
+
+	@Override
+	public <T extends Edge> T getEdgeToward(Node node) {
+		return locateEdge(node, AdjacencyListNode.IO_EDGE,
+				AdjacencyListNode.O_EDGE);
+	}
+
+	// *** Iterators ***
+
+	protected class EdgeIterator<T extends Edge> implements Iterator<T> {
+		protected int iNext, iEnd;
+
+		protected EdgeIterator(int start, int end) {
+			iNext = start;
+			iEnd = end;
+		}
+
+		public boolean hasNext() {
+			return iNext < iEnd;
+		}
+
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (iNext >= iEnd)
+				throw new NoSuchElementException();
+			return (T) frozen().edge(frozen().incidence[iNext++]);
+		}
+
+		public void remove() {
+			throw FrozenGraph.readOnly();
+		}
+	}
+
+	@Override
+	public <T extends Edge> Iterator<T> getEdgeIterator() {
+		int i = getIndex();
+		return new EdgeIterator<T>(frozen().offsets[i], frozen().offsets[i + 1]);
+	}
+
+	@Override
+	public <T extends Edge> Iterator<T> getEnteringEdgeIterator() {
+		int i = getIndex();
+		return new EdgeIterator<T>(frozen().offsets[i], frozen().oStarts[i]);
+	}
+
+	@Override
+	public <T extends Edge> Iterator<T> getLeavingEdgeIterator() {
+		int i = getIndex();
+		return new EdgeIterator<T>(frozen().ioStarts[i],
+				frozen().offsets[i + 1]);
+	}
+
+	// *** Read-only attributes ***
+
+	@Override
+	public void addAttribute(String attribute, Object... values) {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	public void removeAttribute(String attribute) {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	public void clearAttributes() {
+		throw FrozenGraph.readOnly();
+	}
+
+	@Override
+	public void addAttributes(Map<String, Object> attributes) {
+		throw FrozenGraph.readOnly();
+	}
+}
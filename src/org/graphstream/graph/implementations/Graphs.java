@@ -68,6 +68,22 @@ public class Graphs {
 		return null;
 	}
 
+	/**
+	 * Create a compact read-only snapshot of a graph. The topology of the
+	 * snapshot is stored in compressed sparse row form, which needs far less
+	 * memory than the usual implementations, and its attributes are shared
+	 * with the given graph. Modifying the given graph while the snapshot is
+	 * used is not supported.
+	 * 
+	 * @param g
+	 *            the graph to freeze
+	 * @return a read-only snapshot of g
+	 * @see FrozenGraph
+	 */
+	public static Graph freeze(Graph g) {
+		return new FrozenGraph(g);
+	}
+
 	/**
 	 * Synchronizes a graph. The returned graph can be accessed and modified by
 	 * several threads. You lose genericity in methods returning edge or node
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * An attribute store backed by a {@link java.util.HashMap}.
+ * 
+ * <p>
+ * This is the historical layout of element attributes. Each value is kept
+ * as an object, numbers are therefore boxed. It is faster than
+ * {@link CompactAttributeStore} for elements with many attributes, at the
+ * price of a larger memory footprint.
+ * </p>
+ */
+public class HashAttributeStore implements AttributeStore {
+	/**
+	 * The attributes.
+	 */
+	protected HashMap<String, Object> map;
+
+	/**
+	 * New empty store.
+	 */
+	public HashAttributeStore() {
+		map = new HashMap<String, Object>(1);
+	}
+
+	public int size() {
+		return map.size();
+	}
+
+	public boolean containsKey(String key) {
+		return map.containsKey(key);
+	}
+
+	public Object get(String key) {
+		return map.get(key);
+	}
+
+	public double getNumber(String key) {
+		Object o = map.get(key);
+
+		if (o instanceof Number)
+			return ((Number) o).doubleValue();
+
+		return Double.NaN;
+	}
+
+	public Object put(String key, Object value) {
+		return map.put(key, value);
+	}
+
+	public Object remove(String key) {
+		return map.remove(key);
+	}
+
+	public void clear() {
+		map.clear();
+	}
+
+	public Collection<String> keySet() {
+		return map.keySet();
+	}
+}
@@ -31,94 +31,114 @@
  */
 package org.graphstream.graph.implementations;
 
+import java.util.AbstractCollection;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.graphstream.graph.Edge;
 import org.graphstream.graph.Node;
 
 /**
  * Nodes used with {@link MultiGraph}
- *
+ * 
+ * <p>
+ * Edges are looked up by a linear scan while the degree is small and through
+ * a {@link NeighborIndex} above.
+ * </p>
  */
 public class MultiNode extends AdjacencyListNode {
-	protected HashMap<AbstractNode, List<AbstractEdge>> neighborMap;
-
 	// *** Constructor ***
 
 	public MultiNode(AbstractGraph graph, String id) {
 		super(graph, id);
-		neighborMap = new HashMap<AbstractNode, List<AbstractEdge>>(
-				4 * INITIAL_EDGE_CAPACITY / 3 + 1);
 	}
 
 	// *** Helpers ***
 
-	@SuppressWarnings("unchecked")
 	@Override
-	protected <T extends Edge> T locateEdge(Node opposite, char type) {
-		List<AbstractEdge> l = neighborMap.get(opposite);
-		if (l == null)
-			return null;
-
-		for (AbstractEdge e : l) {
-			char etype = edgeType(e);
-			if ((type != I_EDGE || etype != O_EDGE)
-					&& (type != O_EDGE || etype != I_EDGE))
-				return (T) e;
-		}
-		return null;
+	protected boolean indexesNeighbors() {
+		return true;
 	}
 
-	@Override
-	protected void removeEdge(int i) {
-		AbstractNode opposite = edges[i].getOpposite(this);
-		List<AbstractEdge> l = neighborMap.get(opposite);
-		l.remove(edges[i]);
-		if (l.isEmpty())
-			neighborMap.remove(opposite);
-		super.removeEdge(i);
-	}
+	// *** Others ***
 
-	// *** Callbacks ***
+	/**
+	 * Iterator on the edges leading to a node, walking the
+	 * {@link NeighborIndex} if there is one and the edges otherwise.
+	 */
+	protected class EdgeBetweenIterator<T extends Edge> implements Iterator<T> {
+		protected AbstractNode opposite;
+		protected NeighborIndex index;
+		protected int next;
+
+		protected EdgeBetweenIterator(AbstractNode opposite) {
+			this.opposite = opposite;
+			this.index = neighborIndex;
+			this.next = seek(-1);
+		}
 
-	@Override
-	protected boolean addEdgeCallback(AbstractEdge edge) {
-		AbstractNode opposite = edge.getOpposite(this);
-		List<AbstractEdge> l = neighborMap.get(opposite);
-		if (l == null) {
-			l = new LinkedList<AbstractEdge>();
-			neighborMap.put(opposite, l);
+		protected int seek(int from) {
+			if (index != null)
+				return index.nextSlot(opposite.getIndex(), from);
+
+			for (int i = from + 1; i < degree; i++)
+				if (edges[i].getOpposite(MultiNode.this) == opposite)
+					return i;
+
+			return -1;
 		}
-		l.add(edge);
-		return super.addEdgeCallback(edge);
-	}
 
-	@Override
-	protected void clearCallback() {
-		neighborMap.clear();
-		super.clearCallback();
-	}
+		public boolean hasNext() {
+			return next >= 0;
+		}
 
-	// *** Others ***
+		@SuppressWarnings("unchecked")
+		public T next() {
+			if (next < 0)
+				throw new NoSuchElementException();
 
-	@SuppressWarnings("unchecked")
-	@Override
-	public <T extends Node> Iterator<T> getNeighborNodeIterator() {
-		return (Iterator<T>) Collections.unmodifiableSet(neighborMap.keySet())
-				.iterator();
+			AbstractEdge e = index != null ? index.edgeAt(next) : edges[next];
+			next = seek(next);
+			return (T) e;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException(
+					"This iterator does not support remove");
+		}
 	}
 
-	@SuppressWarnings("unchecked")
-	public <T extends Edge> Collection<T> getEdgeSetBetween(Node node) {
-		List<AbstractEdge> l = neighborMap.get(node);
-		if (l == null)
+	/**
+	 * All the edges between this node and the given one.
+	 * 
+	 * @param node
+	 *            The opposite node.
+	 * @return An unmodifiable live view of the edges: edges added or removed
+	 *         later are seen by the collection. Its size is computed by
+	 *         walking the edges.
+	 */
+	public <T extends Edge> Collection<T> getEdgeSetBetween(final Node node) {
+		if (!(node instanceof AbstractNode))
 			return Collections.emptyList();
-		return (Collection<T>) Collections.unmodifiableList(l);
+
+		return new AbstractCollection<T>() {
+			@Override
+			public Iterator<T> iterator() {
+				return new EdgeBetweenIterator<T>((AbstractNode) node);
+			}
+
+			@Override
+			public int size() {
+				int size = 0;
+
+				for (Iterator<T> it = iterator(); it.hasNext(); it.next())
+					size++;
+
+				return size;
+			}
+		};
 	}
 
 	public <T extends Edge> Collection<T> getEdgeSetBetween(String id) {
@@ -0,0 +1,335 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.graph.implementations;
+
+/**
+ * An index of the incident edges of a node by opposite node.
+ * 
+ * <p>
+ * This is an open addressed multi-map (linear probing) whose keys are the
+ * indices of the opposite nodes and whose values, the edges, are stored
+ * inline in a parallel array. Several edges can be stored for the same
+ * opposite node, they are kept in insertion order. Nothing is allocated per
+ * entry.
+ * </p>
+ * 
+ * <p>
+ * Since node indices change when nodes are removed, the owner of the index
+ * must call {@link #rekey(int, int)} when the index of one of its neighbors
+ * changes. This is done by {@link AdjacencyListNode}.
+ * </p>
+ */
+public class NeighborIndex {
+	/**
+	 * Opposite node indices plus one, 0 marks a free slot.
+	 */
+	protected int[] keys;
+
+	/**
+	 * Edges.
+	 */
+	protected AbstractEdge[] edges;
+
+	/**
+	 * Number of entries.
+	 */
+	protected int size;
+
+	/**
+	 * New index able to hold the given number of edges without growing.
+	 * 
+	 * @param expected
+	 *            Expected number of edges.
+	 */
+	public NeighborIndex(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(4, expected * 2) - 1) * 2;
+		keys = new int[capacity];
+		edges = new AbstractEdge[capacity];
+		size = 0;
+	}
+
+	/**
+	 * Number of edges in the index.
+	 * 
+	 * @return The entry count.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Add an edge.
+	 * 
+	 * @param opposite
+	 *            Index of the opposite node.
+	 * @param edge
+	 *            The edge.
+	 */
+	public void add(int opposite, AbstractEdge edge) {
+		if ((size + 1) * 2 > keys.length)
+			grow();
+
+		insert(opposite + 1, edge);
+		size++;
+	}
+
+	/**
+	 * Remove an edge.
+	 * 
+	 * @param opposite
+	 *            Index of the opposite node.
+	 * @param edge
+	 *            The edge.
+	 * @return True if the edge was found.
+	 */
+	public boolean remove(int opposite, AbstractEdge edge) {
+		int key = opposite + 1;
+		int mask = keys.length - 1;
+
+		for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+			if (keys[i] == key && edges[i] == edge) {
+				delete(i);
+				size--;
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * First edge, in insertion order, leading to the given node and whose type
+	 * with respect to the owner node is compatible with the requested type.
+	 * 
+	 * @param owner
+	 *            The node owning the index.
+	 * @param opposite
+	 *            The opposite node.
+	 * @param type
+	 *            One of {@link AdjacencyListNode#I_EDGE},
+	 *            {@link AdjacencyListNode#IO_EDGE} and
+	 *            {@link AdjacencyListNode#O_EDGE}.
+	 * @return The edge or null.
+	 */
+	public AbstractEdge find(AdjacencyListNode owner, AbstractNode opposite,
+			char type) {
+		int key = opposite.getIndex() + 1;
+		int mask = keys.length - 1;
+
+		for (int i = slot(key, mask); keys[i] != 0; i = (i + 1) & mask) {
+			AbstractEdge e = edges[i];
+
+			if (keys[i] == key && e.getOpposite(owner) == opposite
+					&& compatible(owner.edgeType(e), type))
+				return e;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Next slot holding an edge leading to the given node, following its probe
+	 * sequence, that is in insertion order.
+	 * 
+	 * @param opposite
+	 *            Index of the opposite node.
+	 * @param from
+	 *            The slot returned by the previous call, or -1 to get the
+	 *            first one.
+	 * @return The slot, or -1 if there are no more edges.
+	 */
+	public int nextSlot(int opposite, int from) {
+		int key = opposite + 1;
+		int mask = keys.length - 1;
+
+		for (int i = from < 0 ? slot(key, mask) : (from + 1) & mask; keys[i] != 0; i = (i + 1) & mask)
+			if (keys[i] == key)
+				return i;
+
+		return -1;
+	}
+
+	/**
+	 * Next slot, in table order, holding the first edge leading to its
+	 * opposite node. Walking these slots visits each neighbor once.
+	 * 
+	 * @param from
+	 *            The slot returned by the previous call, or -1 to get the
+	 *            first one.
+	 * @return The slot, or -1 if there are no more neighbors.
+	 */
+	public int nextNeighborSlot(int from) {
+		int mask = keys.length - 1;
+
+		for (int i = from + 1; i < keys.length; i++) {
+			int key = keys[i];
+
+			if (key == 0)
+				continue;
+
+			// Edges sharing the key all lie on the probe sequence from
+			// its home slot, look for one before this slot.
+			int j = slot(key, mask);
+
+			while (j != i && keys[j] != key)
+				j = (j + 1) & mask;
+
+			if (j == i)
+				return i;
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Edge stored in a slot.
+	 * 
+	 * @param slot
+	 *            A slot given by {@link #nextSlot(int, int)} or
+	 *            {@link #nextNeighborSlot(int)}.
+	 * @return The edge.
+	 */
+	public AbstractEdge edgeAt(int slot) {
+		return edges[slot];
+	}
+
+	/**
+	 * Change the key of all the edges leading to a node whose index changed.
+	 * 
+	 * @param oldIndex
+	 *            Previous index of the opposite node.
+	 * @param newIndex
+	 *            New index of the opposite node.
+	 */
+	public void rekey(int oldIndex, int newIndex) {
+		int key = oldIndex + 1;
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+		AbstractEdge[] moved = null;
+		int count = 0;
+
+		while (keys[i] != 0) {
+			if (keys[i] == key) {
+				if (moved == null)
+					moved = new AbstractEdge[size];
+
+				moved[count++] = edges[i];
+				delete(i);
+				// The next entry may have been shifted at position i.
+			} else {
+				i = (i + 1) & mask;
+			}
+		}
+
+		for (int j = 0; j < count; j++)
+			insert(newIndex + 1, moved[j]);
+	}
+
+	// *** Helpers ***
+
+	protected static boolean compatible(char edgeType, char type) {
+		return (type != AdjacencyListNode.I_EDGE || edgeType != AdjacencyListNode.O_EDGE)
+				&& (type != AdjacencyListNode.O_EDGE || edgeType != AdjacencyListNode.I_EDGE);
+	}
+
+	protected static int slot(int key, int mask) {
+		int h = key * 0x9E3779B9;
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	protected void insert(int key, AbstractEdge edge) {
+		int mask = keys.length - 1;
+		int i = slot(key, mask);
+
+		while (keys[i] != 0)
+			i = (i + 1) & mask;
+
+		keys[i] = key;
+		edges[i] = edge;
+	}
+
+	/**
+	 * Backward shift deletion, keeps the order of the entries along probe
+	 * sequences.
+	 */
+	protected void delete(int i) {
+		int mask = keys.length - 1;
+		int j = i;
+
+		keys[i] = 0;
+		edges[i] = null;
+
+		while (true) {
+			j = (j + 1) & mask;
+
+			if (keys[j] == 0)
+				return;
+
+			int h = slot(keys[j], mask);
+
+			if (i <= j ? (i < h && h <= j) : (i < h || h <= j))
+				continue;
+
+			keys[i] = keys[j];
+			edges[i] = edges[j];
+			keys[j] = 0;
+			edges[j] = null;
+			i = j;
+		}
+	}
+
+	protected void grow() {
+		int[] oldKeys = keys;
+		AbstractEdge[] oldEdges = edges;
+
+		keys = new int[oldKeys.length * 2];
+		edges = new AbstractEdge[oldKeys.length * 2];
+
+		//
+		// Entries are reinserted following the probe sequences of the old
+		// table so that the insertion order of entries sharing a key is
+		// kept.
+		//
+		int mask = oldKeys.length - 1;
+		int start = 0;
+
+		while (start < oldKeys.length && oldKeys[start] != 0)
+			start++;
+
+		for (int k = 1; k <= oldKeys.length; k++) {
+			int i = (start + k) & mask;
+
+			if (oldKeys[i] != 0)
+				insert(oldKeys[i], oldEdges[i]);
+		}
+	}
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream;
+
+/**
+ * Sink able to receive events by batches.
+ * 
+ * <p>
+ * A {@link SourceBase} detects the batch sinks registered as full sinks (both
+ * as attribute and element sink) when it starts a batch with
+ * {@link SourceBase#beginBatch()}. Until the matching
+ * {@link SourceBase#endBatch()}, these sinks receive the events of the source
+ * in one or more {@link EventBatch}es through
+ * {@link #eventBatch(EventBatch)}, instead of one call per event. Outside of a
+ * batch, and for sources that do not batch events, a batch sink receives
+ * events one by one like any other sink, so it must implement both paths.
+ * </p>
+ * 
+ * <p>
+ * Graphs start batches when they replay their content or load elements in bulk,
+ * and file sources when they read a whole file.
+ * </p>
+ */
+public interface BatchSink extends Sink {
+	/**
+	 * Receive a batch of consecutive events of a source. The batch is reused by
+	 * the source once this method returns, it must not be kept.
+	 * 
+	 * @param batch
+	 *            The events, in the order they were produced.
+	 */
+	void eventBatch(EventBatch batch);
+}
@@ -0,0 +1,439 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream;
+
+import java.util.Arrays;
+
+/**
+ * A sequence of graph events stored in parallel arrays.
+ * 
+ * <p>
+ * An event batch is a sink that records the events it receives, so that they
+ * can be handed to {@link BatchSink}s at once. The type of the i-th event is
+ * given by {@link #getType(int)}, and its parameters by the other accessors.
+ * Accessors that do not apply to the event type return null (or zero). The
+ * source and target node of an edge addition are given by
+ * {@link #getFromNodeId(int)} and {@link #getToNodeId(int)}.
+ * </p>
+ * 
+ * <p>
+ * {@link #replay(AttributeSink, ElementSink)} sends the events one by one to
+ * sinks that do not handle batches.
+ * </p>
+ */
+public class EventBatch implements Sink {
+	/**
+	 * Types of the events of a batch.
+	 */
+	public static enum Type {
+		NODE_ADDED, NODE_REMOVED, EDGE_ADDED, EDGE_REMOVED, GRAPH_CLEARED, STEP_BEGINS, GRAPH_ATTRIBUTE_ADDED, GRAPH_ATTRIBUTE_CHANGED, GRAPH_ATTRIBUTE_REMOVED, NODE_ATTRIBUTE_ADDED, NODE_ATTRIBUTE_CHANGED, NODE_ATTRIBUTE_REMOVED, EDGE_ATTRIBUTE_ADDED, EDGE_ATTRIBUTE_CHANGED, EDGE_ATTRIBUTE_REMOVED
+	}
+
+	protected Type[] types;
+	protected String[] sourceIds;
+	protected long[] timeIds;
+
+	/**
+	 * Node or edge id.
+	 */
+	protected String[] elementIds;
+
+	/**
+	 * Attribute name, or source node id of an edge addition.
+	 */
+	protected String[] attributes;
+
+	/**
+	 * Target node id of an edge addition.
+	 */
+	protected String[] targets;
+
+	protected Object[] oldValues;
+
+	/**
+	 * Attribute value, or step of a step event as a Double.
+	 */
+	protected Object[] newValues;
+
+	protected boolean[] directed;
+
+	protected int size;
+
+	public EventBatch() {
+		this(64);
+	}
+
+	/**
+	 * New empty batch.
+	 * 
+	 * @param capacity
+	 *            Initial number of events the batch can store before growing.
+	 */
+	public EventBatch(int capacity) {
+		capacity = Math.max(capacity, 1);
+
+		types = new Type[capacity];
+		sourceIds = new String[capacity];
+		timeIds = new long[capacity];
+		elementIds = new String[capacity];
+		attributes = new String[capacity];
+		targets = new String[capacity];
+		oldValues = new Object[capacity];
+		newValues = new Object[capacity];
+		directed = new boolean[capacity];
+		size = 0;
+	}
+
+	// Access
+
+	/**
+	 * Number of events in the batch.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public Type getType(int i) {
+		check(i);
+		return types[i];
+	}
+
+	public String getSourceId(int i) {
+		check(i);
+		return sourceIds[i];
+	}
+
+	public long getTimeId(int i) {
+		check(i);
+		return timeIds[i];
+	}
+
+	/**
+	 * Id of the node or edge of the event, null for graph events.
+	 */
+	public String getElementId(int i) {
+		check(i);
+		return elementIds[i];
+	}
+
+	/**
+	 * Attribute of an attribute event.
+	 */
+	public String getAttribute(int i) {
+		check(i);
+		return types[i] == Type.EDGE_ADDED ? null : attributes[i];
+	}
+
+	/**
+	 * Source node of an edge addition.
+	 */
+	public String getFromNodeId(int i) {
+		check(i);
+		return types[i] == Type.EDGE_ADDED ? attributes[i] : null;
+	}
+
+	/**
+	 * Target node of an edge addition.
+	 */
+	public String getToNodeId(int i) {
+		check(i);
+		return targets[i];
+	}
+
+	/**
+	 * Is the edge of an edge addition directed ?
+	 */
+	public boolean isDirected(int i) {
+		check(i);
+		return directed[i];
+	}
+
+	/**
+	 * Time stamp of a step event.
+	 */
+	public double getStep(int i) {
+		check(i);
+		return types[i] == Type.STEP_BEGINS ? (Double) newValues[i] : 0;
+	}
+
+	/**
+	 * Old value of an attribute change.
+	 */
+	public Object getOldValue(int i) {
+		check(i);
+		return oldValues[i];
+	}
+
+	/**
+	 * Value of an attribute addition, or new value of an attribute change.
+	 */
+	public Object getNewValue(int i) {
+		check(i);
+		return types[i] == Type.STEP_BEGINS ? null : newValues[i];
+	}
+
+	protected void check(int i) {
+		if (i < 0 || i >= size)
+			throw new IndexOutOfBoundsException(String.format(
+					"event %d, batch of %d events", i, size));
+	}
+
+	// Command
+
+	/**
+	 * Remove all the events of the batch, keeping its capacity.
+	 */
+	public void clear() {
+		Arrays.fill(sourceIds, 0, size, null);
+		Arrays.fill(elementIds, 0, size, null);
+		Arrays.fill(attributes, 0, size, null);
+		Arrays.fill(targets, 0, size, null);
+		Arrays.fill(oldValues, 0, size, null);
+		Arrays.fill(newValues, 0, size, null);
+		size = 0;
+	}
+
+	/**
+	 * Send the events of the batch one by one, in order. Either sink may be
+	 * null.
+	 * 
+	 * @param attributeSink
+	 *            Receiver of the attribute events.
+	 * @param elementSink
+	 *            Receiver of the element events.
+	 */
+	public void replay(AttributeSink attributeSink, ElementSink elementSink) {
+		for (int i = 0; i < size; i++) {
+			switch (types[i]) {
+			case NODE_ADDED:
+				if (elementSink != null)
+					elementSink.nodeAdded(sourceIds[i], timeIds[i],
+							elementIds[i]);
+				break;
+			case NODE_REMOVED:
+				if (elementSink != null)
+					elementSink.nodeRemoved(sourceIds[i], timeIds[i],
+							elementIds[i]);
+				break;
+			case EDGE_ADDED:
+				if (elementSink != null)
+					elementSink.edgeAdded(sourceIds[i], timeIds[i],
+							elementIds[i], attributes[i], targets[i],
+							directed[i]);
+				break;
+			case EDGE_REMOVED:
+				if (elementSink != null)
+					elementSink.edgeRemoved(sourceIds[i], timeIds[i],
+							elementIds[i]);
+				break;
+			case GRAPH_CLEARED:
+				if (elementSink != null)
+					elementSink.graphCleared(sourceIds[i], timeIds[i]);
+				break;
+			case STEP_BEGINS:
+				if (elementSink != null)
+					elementSink.stepBegins(sourceIds[i], timeIds[i],
+							(Double) newValues[i]);
+				break;
+			case GRAPH_ATTRIBUTE_ADDED:
+				if (attributeSink != null)
+					attributeSink.graphAttributeAdded(sourceIds[i],
+							timeIds[i], attributes[i], newValues[i]);
+				break;
+			case GRAPH_ATTRIBUTE_CHANGED:
+				if (attributeSink != null)
+					attributeSink.graphAttributeChanged(sourceIds[i],
+							timeIds[i], attributes[i], oldValues[i],
+							newValues[i]);
+				break;
+			case GRAPH_ATTRIBUTE_REMOVED:
+				if (attributeSink != null)
+					attributeSink.graphAttributeRemoved(sourceIds[i],
+							timeIds[i], attributes[i]);
+				break;
+			case NODE_ATTRIBUTE_ADDED:
+				if (attributeSink != null)
+					attributeSink.nodeAttributeAdded(sourceIds[i], timeIds[i],
+							elementIds[i], attributes[i], newValues[i]);
+				break;
+			case NODE_ATTRIBUTE_CHANGED:
+				if (attributeSink != null)
+					attributeSink.nodeAttributeChanged(sourceIds[i],
+							timeIds[i], elementIds[i], attributes[i],
+							oldValues[i], newValues[i]);
+				break;
+			case NODE_ATTRIBUTE_REMOVED:
+				if (attributeSink != null)
+					attributeSink.nodeAttributeRemoved(sourceIds[i],
+							timeIds[i], elementIds[i], attributes[i]);
+				break;
+			case EDGE_ATTRIBUTE_ADDED:
+				if (attributeSink != null)
+					attributeSink.edgeAttributeAdded(sourceIds[i], timeIds[i],
+							elementIds[i], attributes[i], newValues[i]);
+				break;
+			case EDGE_ATTRIBUTE_CHANGED:
+				if (attributeSink != null)
+					attributeSink.edgeAttributeChanged(sourceIds[i],
+							timeIds[i], elementIds[i], attributes[i],
+							oldValues[i], newValues[i]);
+				break;
+			case EDGE_ATTRIBUTE_REMOVED:
+				if (attributeSink != null)
+					attributeSink.edgeAttributeRemoved(sourceIds[i],
+							timeIds[i], elementIds[i], attributes[i]);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Append an event.
+	 * 
+	 * @return The index of the event.
+	 */
+	protected int append(Type type, String sourceId, long timeId,
+			String elementId, String attribute, Object oldValue,
+			Object newValue) {
+		if (size == types.length) {
+			int capacity = size * 2;
+
+			types = Arrays.copyOf(types, capacity);
+			sourceIds = Arrays.copyOf(sourceIds, capacity);
+			timeIds = Arrays.copyOf(timeIds, capacity);
+			elementIds = Arrays.copyOf(elementIds, capacity);
+			attributes = Arrays.copyOf(attributes, capacity);
+			targets = Arrays.copyOf(targets, capacity);
+			oldValues = Arrays.copyOf(oldValues, capacity);
+			newValues = Arrays.copyOf(newValues, capacity);
+			directed = Arrays.copyOf(directed, capacity);
+		}
+
+		types[size] = type;
+		sourceIds[size] = sourceId;
+		timeIds[size] = timeId;
+		elementIds[size] = elementId;
+		attributes[size] = attribute;
+		oldValues[size] = oldValue;
+		newValues[size] = newValue;
+
+		return size++;
+	}
+
+	// Sink
+
+	public void nodeAdded(String sourceId, long timeId, String nodeId) {
+		append(Type.NODE_ADDED, sourceId, timeId, nodeId, null, null, null);
+	}
+
+	public void nodeRemoved(String sourceId, long timeId, String nodeId) {
+		append(Type.NODE_REMOVED, sourceId, timeId, nodeId, null, null, null);
+	}
+
+	public void edgeAdded(String sourceId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		int i = append(Type.EDGE_ADDED, sourceId, timeId, edgeId, fromNodeId,
+				null, null);
+		this.targets[i] = toNodeId;
+		this.directed[i] = directed;
+	}
+
+	public void edgeRemoved(String sourceId, long timeId, String edgeId) {
+		append(Type.EDGE_REMOVED, sourceId, timeId, edgeId, null, null, null);
+	}
+
+	public void graphCleared(String sourceId, long timeId) {
+		append(Type.GRAPH_CLEARED, sourceId, timeId, null, null, null, null);
+	}
+
+	public void stepBegins(String sourceId, long timeId, double step) {
+		append(Type.STEP_BEGINS, sourceId, timeId, null, null, null, step);
+	}
+
+	public void graphAttributeAdded(String sourceId, long timeId,
+			String attribute, Object value) {
+		append(Type.GRAPH_ATTRIBUTE_ADDED, sourceId, timeId, null, attribute,
+				null, value);
+	}
+
+	public void graphAttributeChanged(String sourceId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		append(Type.GRAPH_ATTRIBUTE_CHANGED, sourceId, timeId, null,
+				attribute, oldValue, newValue);
+	}
+
+	public void graphAttributeRemoved(String sourceId, long timeId,
+			String attribute) {
+		append(Type.GRAPH_ATTRIBUTE_REMOVED, sourceId, timeId, null,
+				attribute, null, null);
+	}
+
+	public void nodeAttributeAdded(String sourceId, long timeId, String nodeId,
+			String attribute, Object value) {
+		append(Type.NODE_ATTRIBUTE_ADDED, sourceId, timeId, nodeId, attribute,
+				null, value);
+	}
+
+	public void nodeAttributeChanged(String sourceId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		append(Type.NODE_ATTRIBUTE_CHANGED, sourceId, timeId, nodeId,
+				attribute, oldValue, newValue);
+	}
+
+	public void nodeAttributeRemoved(String sourceId, long timeId,
+			String nodeId, String attribute) {
+		append(Type.NODE_ATTRIBUTE_REMOVED, sourceId, timeId, nodeId,
+				attribute, null, null);
+	}
+
+	public void edgeAttributeAdded(String sourceId, long timeId, String edgeId,
+			String attribute, Object value) {
+		append(Type.EDGE_ATTRIBUTE_ADDED, sourceId, timeId, edgeId, attribute,
+				null, value);
+	}
+
+	public void edgeAttributeChanged(String sourceId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		append(Type.EDGE_ATTRIBUTE_CHANGED, sourceId, timeId, edgeId,
+				attribute, oldValue, newValue);
+	}
+
+	public void edgeAttributeRemoved(String sourceId, long timeId,
+			String edgeId, String attribute) {
+		append(Type.EDGE_ATTRIBUTE_REMOVED, sourceId, timeId, edgeId,
+				attribute, null, null);
+	}
+}
@@ -32,8 +32,6 @@
 package org.graphstream.stream;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
 
 import org.graphstream.graph.implementations.AbstractElement.AttributeChangeEvent;
 import org.graphstream.stream.sync.SourceTime;
@@ -57,7 +55,17 @@ import org.graphstream.stream.sync.SourceTime;
  * This class is "reentrant". This means that if a send*() method is called
  * during the execution of another or the same send*() method, the event is
  * deferred until the first send*() method is finished. This avoid recursive
- * loops if a sink modifies the input during event handling.
+ * loops if a sink modifies the input during event handling. Deferred events
+ * are stored in a ring of reusable records, and sinks are called through array
+ * snapshots of the sink lists that are only rebuilt when sinks are added or
+ * removed, so that dispatching events does not allocate.
+ * </p>
+ * 
+ * <p>
+ * Between calls to {@link #beginBatch()} and {@link #endBatch()}, the events
+ * are also recorded in an {@link EventBatch} that is handed to the registered
+ * {@link BatchSink}s, rather than calling them once per event. The other sinks
+ * still receive each event when it is sent.
  * </p>
  */
 public abstract class SourceBase implements Source {
@@ -77,11 +85,60 @@ public abstract class SourceBase implements Source {
 	 */
 	protected ArrayList<ElementSink> eltsSinks = new ArrayList<ElementSink>();
 
+	/**
+	 * Snapshot of {@link #attrSinks}, the array used to dispatch events.
+	 */
+	protected AttributeSink[] attrSinkArray = new AttributeSink[0];
+
+	/**
+	 * Snapshot of {@link #eltsSinks}, the array used to dispatch events.
+	 */
+	protected ElementSink[] eltsSinkArray = new ElementSink[0];
+
+	/**
+	 * The sinks registered both as attribute and element sinks that handle
+	 * batches of events.
+	 */
+	protected BatchSink[] batchSinkArray = new BatchSink[0];
+
+	/**
+	 * Maximum number of events of a batch. Larger batches are split.
+	 */
+	protected int maxBatchSize = 1024;
+
+	/**
+	 * Number of nested {@link #beginBatch()} calls.
+	 */
+	protected int batchDepth = 0;
+
+	/**
+	 * The events of the current batch, non null only while a batch is open and
+	 * there are batch sinks.
+	 */
+	protected EventBatch eventBatch = null;
+
+	/**
+	 * Batch reused from one batch to the next.
+	 */
+	private PendingBatch batchBuffer = null;
+
 	/**
 	 * A queue that allow the management of events (nodes/edge
-	 * add/delete/change) in the right order.
+	 * add/delete/change) in the right order. This is a ring whose length is a
+	 * power of two, allocated on the first deferred event. Its records are
+	 * reused.
+	 */
+	protected EventRecord[] eventQueue = null;
+
+	/**
+	 * Index of the first deferred event in the queue.
+	 */
+	protected int eventQueueHead = 0;
+
+	/**
+	 * Number of deferred events in the queue.
 	 */
-	protected LinkedList<GraphEvent> eventQueue = new LinkedList<GraphEvent>();
+	protected int eventQueueSize = 0;
 
 	/**
 	 * A boolean that indicates whether or not an Sink event is being sent
@@ -134,12 +191,14 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
+			flushBatch();
 			attrSinks.add(sink);
+			sinksChanged();
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new AddToListEvent<AttributeSink>(attrSinks, sink));
+			enqueue(DeferredEvent.ADD_ATTRIBUTE_SINK, null, -1).sink = sink;
 		}
 	}
 
@@ -148,12 +207,14 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
+			flushBatch();
 			eltsSinks.add(sink);
+			sinksChanged();
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new AddToListEvent<ElementSink>(eltsSinks, sink));
+			enqueue(DeferredEvent.ADD_ELEMENT_SINK, null, -1).sink = sink;
 		}
 	}
 
@@ -167,12 +228,14 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
+			flushBatch();
 			eltsSinks.clear();
+			sinksChanged();
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new ClearListEvent<ElementSink>(eltsSinks));
+			enqueue(DeferredEvent.CLEAR_ELEMENT_SINKS, null, -1);
 		}
 	}
 
@@ -181,12 +244,14 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
+			flushBatch();
 			attrSinks.clear();
+			sinksChanged();
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new ClearListEvent<AttributeSink>(attrSinks));
+			enqueue(DeferredEvent.CLEAR_ATTRIBUTE_SINKS, null, -1);
 		}
 	}
 
@@ -200,13 +265,14 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
+			flushBatch();
 			attrSinks.remove(sink);
+			sinksChanged();
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new RemoveFromListEvent<AttributeSink>(attrSinks,
-					sink));
+			enqueue(DeferredEvent.REMOVE_ATTRIBUTE_SINK, null, -1).sink = sink;
 		}
 	}
 
@@ -215,16 +281,118 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
+			flushBatch();
 			eltsSinks.remove(sink);
+			sinksChanged();
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue
-					.add(new RemoveFromListEvent<ElementSink>(eltsSinks, sink));
+			enqueue(DeferredEvent.REMOVE_ELEMENT_SINK, null, -1).sink = sink;
 		}
 	}
 
+	/**
+	 * Rebuild the sink snapshots after a change of the lists or the start or
+	 * end of a batch. While a batch is open, the batch sinks are left out of
+	 * the per-event snapshots.
+	 */
+	protected void sinksChanged() {
+		ArrayList<BatchSink> batchSinks = new ArrayList<BatchSink>();
+
+		for (AttributeSink sink : attrSinks)
+			if (sink instanceof BatchSink && eltsSinks.contains(sink)
+					&& !batchSinks.contains(sink))
+				batchSinks.add((BatchSink) sink);
+
+		batchSinkArray = batchSinks.toArray(new BatchSink[batchSinks.size()]);
+
+		if (batchDepth > 0 && batchSinkArray.length > 0) {
+			ArrayList<AttributeSink> attr = new ArrayList<AttributeSink>(
+					attrSinks);
+			ArrayList<ElementSink> elts = new ArrayList<ElementSink>(
+					eltsSinks);
+
+			if (batchBuffer == null)
+				batchBuffer = new PendingBatch();
+
+			eventBatch = batchBuffer;
+
+			// The batch records the events as any other sink.
+			attr.removeAll(batchSinks);
+			elts.removeAll(batchSinks);
+			attr.add(eventBatch);
+			elts.add(eventBatch);
+
+			attrSinkArray = attr.toArray(new AttributeSink[attr.size()]);
+			eltsSinkArray = elts.toArray(new ElementSink[elts.size()]);
+		} else {
+			attrSinkArray = attrSinks.toArray(new AttributeSink[attrSinks
+					.size()]);
+			eltsSinkArray = eltsSinks
+					.toArray(new ElementSink[eltsSinks.size()]);
+			eventBatch = null;
+		}
+	}
+
+	/**
+	 * Start a batch of events. Until the matching call to {@link #endBatch()},
+	 * the registered {@link BatchSink}s receive the events sent by this source
+	 * by batches. Batches can be nested, only the outermost one is considered.
+	 */
+	public void beginBatch() {
+		if (batchDepth++ == 0)
+			sinksChanged();
+	}
+
+	/**
+	 * End a batch of events started with {@link #beginBatch()}, sending the
+	 * pending events to the batch sinks.
+	 */
+	public void endBatch() {
+		if (batchDepth == 0)
+			throw new IllegalStateException("no batch to end");
+
+		if (--batchDepth > 0)
+			return;
+
+		if (!eventProcessing) {
+			eventProcessing = true;
+			manageEvents();
+
+			flushBatch();
+			sinksChanged();
+
+			manageEvents();
+			eventProcessing = false;
+		} else {
+			flushBatch();
+			sinksChanged();
+		}
+	}
+
+	/**
+	 * Is a batch open ?
+	 * 
+	 * @return True between {@link #beginBatch()} and {@link #endBatch()}.
+	 */
+	public boolean isBatching() {
+		return batchDepth > 0;
+	}
+
+	/**
+	 * Send the events of the current batch, if any, to the batch sinks.
+	 */
+	protected void flushBatch() {
+		if (eventBatch == null || eventBatch.isEmpty())
+			return;
+
+		for (int i = 0; i < batchSinkArray.length; i++)
+			batchSinkArray[i].eventBatch(eventBatch);
+
+		eventBatch.clear();
+	}
+
 	/**
 	 * Send a "graph cleared" event to all element sinks.
 	 * 
@@ -247,13 +415,13 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).graphCleared(sourceId, timeId);
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].graphCleared(sourceId, timeId);
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new BeforeGraphClearEvent(sourceId, timeId));
+			enqueue(DeferredEvent.GRAPH_CLEARED, sourceId, timeId);
 		}
 	}
 
@@ -283,13 +451,13 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).stepBegins(sourceId, timeId, step);
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].stepBegins(sourceId, timeId, step);
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new StepBeginsEvent(sourceId, timeId, step));
+			enqueue(DeferredEvent.STEP_BEGINS, sourceId, timeId).step = step;
 		}
 	}
 
@@ -319,13 +487,13 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).nodeAdded(sourceId, timeId, nodeId);
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].nodeAdded(sourceId, timeId, nodeId);
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new AfterNodeAddEvent(sourceId, timeId, nodeId));
+			enqueue(DeferredEvent.NODE_ADDED, sourceId, timeId).eltId = nodeId;
 		}
 	}
 
@@ -355,13 +523,13 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).nodeRemoved(sourceId, timeId, nodeId);
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].nodeRemoved(sourceId, timeId, nodeId);
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new BeforeNodeRemoveEvent(sourceId, timeId, nodeId));
+			enqueue(DeferredEvent.NODE_REMOVED, sourceId, timeId).eltId = nodeId;
 		}
 	}
 
@@ -406,15 +574,18 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).edgeAdded(sourceId, timeId, edgeId,
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].edgeAdded(sourceId, timeId, edgeId,
 						fromNodeId, toNodeId, directed);
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new AfterEdgeAddEvent(sourceId, timeId, edgeId,
-					fromNodeId, toNodeId, directed));
+			EventRecord r = enqueue(DeferredEvent.EDGE_ADDED, sourceId, timeId);
+			r.eltId = edgeId;
+			r.fromNodeId = fromNodeId;
+			r.toNodeId = toNodeId;
+			r.directed = directed;
 		}
 	}
 
@@ -444,13 +615,13 @@ public abstract class SourceBase implements Source {
 			eventProcessing = true;
 			manageEvents();
 
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).edgeRemoved(sourceId, timeId, edgeId);
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].edgeRemoved(sourceId, timeId, edgeId);
 
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new BeforeEdgeRemoveEvent(sourceId, timeId, edgeId));
+			enqueue(DeferredEvent.EDGE_REMOVED, sourceId, timeId).eltId = edgeId;
 		}
 	}
 
@@ -811,44 +982,44 @@ public abstract class SourceBase implements Source {
 
 			if (event == AttributeChangeEvent.ADD) {
 				if (eltType == ElementType.NODE) {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).nodeAttributeAdded(sourceId, timeId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].nodeAttributeAdded(sourceId, timeId,
 								eltId, attribute, newValue);
 				} else if (eltType == ElementType.EDGE) {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).edgeAttributeAdded(sourceId, timeId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].edgeAttributeAdded(sourceId, timeId,
 								eltId, attribute, newValue);
 				} else {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).graphAttributeAdded(sourceId, timeId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].graphAttributeAdded(sourceId, timeId,
 								attribute, newValue);
 				}
 			} else if (event == AttributeChangeEvent.REMOVE) {
 				if (eltType == ElementType.NODE) {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).nodeAttributeRemoved(sourceId, timeId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].nodeAttributeRemoved(sourceId, timeId,
 								eltId, attribute);
 				} else if (eltType == ElementType.EDGE) {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).edgeAttributeRemoved(sourceId, timeId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].edgeAttributeRemoved(sourceId, timeId,
 								eltId, attribute);
 				} else {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).graphAttributeRemoved(sourceId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].graphAttributeRemoved(sourceId,
 								timeId, attribute);
 				}
 			} else {
 				if (eltType == ElementType.NODE) {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).nodeAttributeChanged(sourceId, timeId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].nodeAttributeChanged(sourceId, timeId,
 								eltId, attribute, oldValue, newValue);
 				} else if (eltType == ElementType.EDGE) {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).edgeAttributeChanged(sourceId, timeId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].edgeAttributeChanged(sourceId, timeId,
 								eltId, attribute, oldValue, newValue);
 				} else {
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).graphAttributeChanged(sourceId,
+					for (int i = 0; i < attrSinkArray.length; i++)
+						attrSinkArray[i].graphAttributeChanged(sourceId,
 								timeId, attribute, oldValue, newValue);
 				}
 			}
@@ -856,254 +1027,258 @@ public abstract class SourceBase implements Source {
 			manageEvents();
 			eventProcessing = false;
 		} else {
-			eventQueue.add(new AttributeChangedEvent(sourceId, timeId, eltId,
-					eltType, attribute, event, oldValue, newValue));
+			EventRecord r = enqueue(DeferredEvent.ATTRIBUTE_CHANGED, sourceId,
+					timeId);
+			r.eltId = eltId;
+			r.eltType = eltType;
+			r.attribute = attribute;
+			r.event = event;
+			r.oldValue = oldValue;
+			r.newValue = newValue;
 		}
 	}
 
 	// Deferred event management
 
-	/**
-	 * If in "event processing mode", ensure all pending events are processed.
-	 */
 	protected void manageEvents() {
 		if (eventProcessing) {
-			while (!eventQueue.isEmpty())
-				eventQueue.remove().trigger();
+			while (eventQueueSize > 0) {
+				EventRecord r = eventQueue[eventQueueHead];
+
+				// The record stays in the queue while it is triggered, so that
+				// events deferred meanwhile never reuse it. The queue may grow
+				// in between, hence the head is read again afterward.
+				trigger(r);
+				r.clear();
+
+				eventQueueHead = (eventQueueHead + 1) & (eventQueue.length - 1);
+				eventQueueSize--;
+			}
 		}
 	}
 
-	// Events Management
-
 	/**
-	 * Interface that provide general purpose classification for evens involved
-	 * in graph modifications
+	 * Append a record at the end of the queue of deferred events.
+	 * 
+	 * @param type
+	 *            The event type.
+	 * @param sourceId
+	 *            The source identifier.
+	 * @param timeId
+	 *            The time identifier.
+	 * @return The record, whose other fields must be set by the caller.
 	 */
-	abstract class GraphEvent {
-		String sourceId;
-		long timeId;
-
-		GraphEvent(String sourceId, long timeId) {
-			this.sourceId = sourceId;
-			this.timeId = timeId;
+	protected EventRecord enqueue(DeferredEvent type, String sourceId, long timeId) {
+		if (eventQueue == null)
+			eventQueue = new EventRecord[16];
+		else if (eventQueueSize == eventQueue.length)
+			growEventQueue();
+
+		int i = (eventQueueHead + eventQueueSize) & (eventQueue.length - 1);
+		EventRecord r = eventQueue[i];
+
+		if (r == null) {
+			r = new EventRecord();
+			eventQueue[i] = r;
 		}
 
-		abstract void trigger();
-	}
+		r.type = type;
+		r.sourceId = sourceId;
+		r.timeId = timeId;
+		eventQueueSize++;
 
-	class AfterEdgeAddEvent extends GraphEvent {
-		String edgeId;
-		String fromNodeId;
-		String toNodeId;
-		boolean directed;
-
-		AfterEdgeAddEvent(String sourceId, long timeId, String edgeId,
-				String fromNodeId, String toNodeId, boolean directed) {
-			super(sourceId, timeId);
-			this.edgeId = edgeId;
-			this.fromNodeId = fromNodeId;
-			this.toNodeId = toNodeId;
-			this.directed = directed;
-		}
-
-		void trigger() {
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).edgeAdded(sourceId, timeId, edgeId,
-						fromNodeId, toNodeId, directed);
-		}
+		return r;
 	}
 
-	class BeforeEdgeRemoveEvent extends GraphEvent {
-		String edgeId;
+	protected void growEventQueue() {
+		EventRecord[] q = new EventRecord[eventQueue.length * 2];
 
-		BeforeEdgeRemoveEvent(String sourceId, long timeId, String edgeId) {
-			super(sourceId, timeId);
-			this.edgeId = edgeId;
-		}
+		for (int i = 0; i < eventQueueSize; i++)
+			q[i] = eventQueue[(eventQueueHead + i) & (eventQueue.length - 1)];
 
-		void trigger() {
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).edgeRemoved(sourceId, timeId, edgeId);
-		}
+		eventQueue = q;
+		eventQueueHead = 0;
 	}
 
-	class AfterNodeAddEvent extends GraphEvent {
-		String nodeId;
-
-		AfterNodeAddEvent(String sourceId, long timeId, String nodeId) {
-			super(sourceId, timeId);
-			this.nodeId = nodeId;
-		}
-
-		void trigger() {
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).nodeAdded(sourceId, timeId, nodeId);
+	protected void trigger(EventRecord r) {
+		switch (r.type) {
+		case EDGE_ADDED:
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].edgeAdded(r.sourceId, r.timeId, r.eltId,
+						r.fromNodeId, r.toNodeId, r.directed);
+			break;
+		case EDGE_REMOVED:
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].edgeRemoved(r.sourceId, r.timeId, r.eltId);
+			break;
+		case NODE_ADDED:
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].nodeAdded(r.sourceId, r.timeId, r.eltId);
+			break;
+		case NODE_REMOVED:
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].nodeRemoved(r.sourceId, r.timeId, r.eltId);
+			break;
+		case GRAPH_CLEARED:
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].graphCleared(r.sourceId, r.timeId);
+			break;
+		case STEP_BEGINS:
+			for (int i = 0; i < eltsSinkArray.length; i++)
+				eltsSinkArray[i].stepBegins(r.sourceId, r.timeId, r.step);
+			break;
+		case ATTRIBUTE_CHANGED:
+			triggerAttributeChanged(r);
+			break;
+		case ADD_ATTRIBUTE_SINK:
+			flushBatch();
+			attrSinks.add((AttributeSink) r.sink);
+			sinksChanged();
+			break;
+		case ADD_ELEMENT_SINK:
+			flushBatch();
+			eltsSinks.add((ElementSink) r.sink);
+			sinksChanged();
+			break;
+		case REMOVE_ATTRIBUTE_SINK:
+			flushBatch();
+			attrSinks.remove(r.sink);
+			sinksChanged();
+			break;
+		case REMOVE_ELEMENT_SINK:
+			flushBatch();
+			eltsSinks.remove(r.sink);
+			sinksChanged();
+			break;
+		case CLEAR_ATTRIBUTE_SINKS:
+			flushBatch();
+			attrSinks.clear();
+			sinksChanged();
+			break;
+		case CLEAR_ELEMENT_SINKS:
+			flushBatch();
+			eltsSinks.clear();
+			sinksChanged();
+			break;
 		}
 	}
 
-	class BeforeNodeRemoveEvent extends GraphEvent {
-		String nodeId;
-
-		BeforeNodeRemoveEvent(String sourceId, long timeId, String nodeId) {
-			super(sourceId, timeId);
-			this.nodeId = nodeId;
-		}
-
-		void trigger() {
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).nodeRemoved(sourceId, timeId, nodeId);
+	protected void triggerAttributeChanged(EventRecord r) {
+		String sourceId = r.sourceId;
+		long timeId = r.timeId;
+		String eltId = r.eltId;
+		String attribute = r.attribute;
+
+		switch (r.event) {
+		case ADD:
+			switch (r.eltType) {
+			case NODE:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].nodeAttributeAdded(sourceId, timeId,
+							eltId, attribute, r.newValue);
+				break;
+			case EDGE:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].edgeAttributeAdded(sourceId, timeId,
+							eltId, attribute, r.newValue);
+				break;
+			default:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].graphAttributeAdded(sourceId, timeId,
+							attribute, r.newValue);
+			}
+			break;
+		case REMOVE:
+			switch (r.eltType) {
+			case NODE:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].nodeAttributeRemoved(sourceId, timeId,
+							eltId, attribute);
+				break;
+			case EDGE:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].edgeAttributeRemoved(sourceId, timeId,
+							eltId, attribute);
+				break;
+			default:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].graphAttributeRemoved(sourceId, timeId,
+							attribute);
+			}
+			break;
+		default:
+			switch (r.eltType) {
+			case NODE:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].nodeAttributeChanged(sourceId, timeId,
+							eltId, attribute, r.oldValue, r.newValue);
+				break;
+			case EDGE:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].edgeAttributeChanged(sourceId, timeId,
+							eltId, attribute, r.oldValue, r.newValue);
+				break;
+			default:
+				for (int i = 0; i < attrSinkArray.length; i++)
+					attrSinkArray[i].graphAttributeChanged(sourceId, timeId,
+							attribute, r.oldValue, r.newValue);
+			}
 		}
 	}
 
-	class BeforeGraphClearEvent extends GraphEvent {
-		BeforeGraphClearEvent(String sourceId, long timeId) {
-			super(sourceId, timeId);
-		}
+	// Events Management
 
-		void trigger() {
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).graphCleared(sourceId, timeId);
+	/**
+	 * The batch of a source, sent to the batch sinks when it is full.
+	 */
+	class PendingBatch extends EventBatch {
+		@Override
+		protected int append(Type type, String sourceId, long timeId,
+				String elementId, String attribute, Object oldValue,
+				Object newValue) {
+			if (size >= maxBatchSize)
+				flushBatch();
+
+			return super.append(type, sourceId, timeId, elementId, attribute,
+					oldValue, newValue);
 		}
 	}
 
-	class StepBeginsEvent extends GraphEvent {
-		double step;
-
-		StepBeginsEvent(String sourceId, long timeId, double step) {
-			super(sourceId, timeId);
-			this.step = step;
-		}
-
-		void trigger() {
-			for (int i = 0; i < eltsSinks.size(); i++)
-				eltsSinks.get(i).stepBegins(sourceId, timeId, step);
-		}
+	/**
+	 * Kinds of deferred events.
+	 */
+	protected static enum DeferredEvent {
+		EDGE_ADDED, EDGE_REMOVED, NODE_ADDED, NODE_REMOVED, GRAPH_CLEARED, STEP_BEGINS, ATTRIBUTE_CHANGED, ADD_ATTRIBUTE_SINK, ADD_ELEMENT_SINK, REMOVE_ATTRIBUTE_SINK, REMOVE_ELEMENT_SINK, CLEAR_ATTRIBUTE_SINKS, CLEAR_ELEMENT_SINKS
 	}
 
-	class AttributeChangedEvent extends GraphEvent {
-		ElementType eltType;
-
+	/**
+	 * A deferred event. The fields used depend on the event type.
+	 */
+	protected static final class EventRecord {
+		DeferredEvent type;
+		String sourceId;
+		long timeId;
 		String eltId;
-
+		String fromNodeId;
+		String toNodeId;
+		boolean directed;
+		double step;
+		ElementType eltType;
 		String attribute;
-
 		AttributeChangeEvent event;
-
 		Object oldValue;
-
 		Object newValue;
-
-		AttributeChangedEvent(String sourceId, long timeId, String eltId,
-				ElementType eltType, String attribute,
-				AttributeChangeEvent event, Object oldValue, Object newValue) {
-			super(sourceId, timeId);
-			this.eltType = eltType;
-			this.eltId = eltId;
-			this.attribute = attribute;
-			this.event = event;
-			this.oldValue = oldValue;
-			this.newValue = newValue;
-		}
-
-		void trigger() {
-			switch (event) {
-			case ADD:
-				switch (eltType) {
-				case NODE:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).nodeAttributeAdded(sourceId, timeId,
-								eltId, attribute, newValue);
-					break;
-				case EDGE:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).edgeAttributeAdded(sourceId, timeId,
-								eltId, attribute, newValue);
-					break;
-				default:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).graphAttributeAdded(sourceId, timeId,
-								attribute, newValue);
-				}
-				break;
-			case REMOVE:
-				switch (eltType) {
-				case NODE:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).nodeAttributeRemoved(sourceId, timeId,
-								eltId, attribute);
-					break;
-				case EDGE:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).edgeAttributeRemoved(sourceId, timeId,
-								eltId, attribute);
-					break;
-				default:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).graphAttributeRemoved(sourceId,
-								timeId, attribute);
-				}
-				break;
-			default:
-				switch (eltType) {
-				case NODE:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).nodeAttributeChanged(sourceId, timeId,
-								eltId, attribute, oldValue, newValue);
-					break;
-				case EDGE:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).edgeAttributeChanged(sourceId, timeId,
-								eltId, attribute, oldValue, newValue);
-					break;
-				default:
-					for (int i = 0; i < attrSinks.size(); i++)
-						attrSinks.get(i).graphAttributeChanged(sourceId,
-								timeId, attribute, oldValue, newValue);
-				}
-			}
-		}
-	}
-
-	class AddToListEvent<T> extends GraphEvent {
-		List<T> l;
-		T obj;
-
-		AddToListEvent(List<T> l, T obj) {
-			super(null, -1);
-			this.l = l;
-			this.obj = obj;
-		}
-
-		void trigger() {
-			l.add(obj);
-		}
-	}
-
-	class RemoveFromListEvent<T> extends GraphEvent {
-		List<T> l;
-		T obj;
-
-		RemoveFromListEvent(List<T> l, T obj) {
-			super(null, -1);
-			this.l = l;
-			this.obj = obj;
-		}
-
-		void trigger() {
-			l.remove(obj);
-		}
-	}
-
-	class ClearListEvent<T> extends GraphEvent {
-		List<T> l;
-
-		ClearListEvent(List<T> l) {
-			super(null, -1);
-			this.l = l;
-		}
-
-		void trigger() {
-			l.clear();
+		Object sink;
+
+		void clear() {
+			sourceId = null;
+			eltId = null;
+			fromNodeId = null;
+			toNodeId = null;
+			attribute = null;
+			oldValue = null;
+			newValue = null;
+			sink = null;
 		}
 	}
-}
\ No newline at end of file
+}
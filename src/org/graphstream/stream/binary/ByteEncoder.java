@@ -68,6 +68,7 @@ public interface ByteEncoder extends Sink {
         /**
          * Called by the encoder once an event has been encoded.
          * The buffer's position and limit should be correctly set so the Transport just has to read it.
+         * An encoder receiving a batch of events may hand several consecutive encoded events in one buffer.
          *
          * @param buffer buffer that has to be transported
          */
@@ -31,6 +31,8 @@
  */
 package org.graphstream.stream.binary;
 
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.EventBatch;
 import org.graphstream.stream.Pipe;
 import org.graphstream.stream.Sink;
 import org.graphstream.stream.SourceBase;
@@ -41,12 +43,21 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.*;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Logger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 /**
  * This class is a proxy that can exchange event binary-encoded (opposed to text-encoder) with another proxy.
@@ -57,10 +68,19 @@ import java.util.logging.Logger;
  * <p/>
  * Proxy can run on its own thread, just by calling the {@link ByteProxy#start()} method. It can be manually used with
  * the {@link ByteProxy#poll()} method that process available {@link java.nio.channels.SelectionKey}.
+ * <p/>
+ * Outgoing data is put in a write queue for each client, and written without blocking with gathering writes. If a
+ * client does not read fast enough and its queue grows beyond {@link #setMaxQueuedBytes(long)}, it is disconnected so
+ * that it cannot stall the proxy. With {@link #setBatching(int, long)}, encoded events are also aggregated and sent
+ * once a size or a delay threshold is reached, instead of being written one by one.
+ * <p/>
+ * If the factory is a {@link org.graphstream.stream.binary.CompressibleByteFactory}, the data sent to a client can be
+ * compressed with deflate, when both ends enable it with {@link #setCompression(boolean)}. Peers that do not support
+ * compression keep on using the plain stream.
  *
  * @since 31/01/16.
  */
-public class ByteProxy extends SourceBase implements Pipe, Runnable {
+public class ByteProxy extends SourceBase implements Pipe, BatchSink, Runnable {
     private static final Logger LOGGER = Logger.getLogger(ByteProxy.class.getName());
 
     /**
@@ -80,6 +100,16 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
 
     protected static final int BUFFER_INITIAL_SIZE = 8192;
 
+    /**
+     * Default limit of the data waiting to be written to a client.
+     */
+    public static final long DEFAULT_MAX_QUEUED_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Maximum number of buffers given to a single gathering write.
+     */
+    protected static final int MAX_GATHER = 64;
+
     protected final ByteFactory byteFactory;
     protected final ByteEncoder encoder;
     protected final ByteDecoder decoder;
@@ -132,6 +162,66 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
      */
     protected Replayable replayable;
 
+    /**
+     * Write queue of each client.
+     */
+    protected final Map<SocketChannel, WriteQueue> writeQueues;
+
+    /**
+     * Queues waiting for the worker to register their interest in writing.
+     */
+    protected final Queue<WriteQueue> writeRequests;
+
+    /**
+     * Limit of the data waiting to be written to a client.
+     */
+    protected long maxQueuedBytes;
+
+    /**
+     * Size threshold of a batch of events, zero if events are not batched.
+     */
+    protected int batchSize;
+
+    /**
+     * Delay threshold of a batch of events, in milliseconds.
+     */
+    protected long batchDelay;
+
+    /**
+     * Events waiting to be sent, null if there is none.
+     */
+    protected ByteBuffer pending;
+
+    /**
+     * Date of the first event waiting to be sent.
+     */
+    protected long pendingSince;
+
+    /**
+     * Guards {@link #pending}.
+     */
+    protected final Object pendingLock;
+
+    /**
+     * If true, compression is asked for, in client mode, or granted to the clients asking for it, in server mode.
+     */
+    protected boolean compression;
+
+    /**
+     * Level of the compression.
+     */
+    protected int compressionLevel;
+
+    /**
+     * Inflaters of the channels receiving compressed data.
+     */
+    protected final Map<SelectableChannel, Inflater> inflaters;
+
+    /**
+     * Buffer where compressed data is read.
+     */
+    protected ByteBuffer compressedBuffer;
+
     /**
      * Create a new ByteProxy, in server mode, which will be bound to a local address and the given port.
      *
@@ -154,7 +244,18 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
      */
     public ByteProxy(ByteFactory factory, Mode mode, InetAddress address, int port) throws IOException {
         running = new AtomicBoolean(false);
-        writableChannels = new LinkedList<>();
+        writableChannels = new CopyOnWriteArrayList<>();
+        writeQueues = new ConcurrentHashMap<>();
+        writeRequests = new ConcurrentLinkedQueue<>();
+        maxQueuedBytes = DEFAULT_MAX_QUEUED_BYTES;
+        batchSize = 0;
+        batchDelay = 0;
+        pending = null;
+        pendingLock = new Object();
+        compression = false;
+        compressionLevel = Deflater.DEFAULT_COMPRESSION;
+        inflaters = new ConcurrentHashMap<>();
+        compressedBuffer = null;
         replayable = null;
         thread = null;
 
@@ -290,6 +391,84 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
         this.replayable = replayable;
     }
 
+    /**
+     * Enable the aggregation of outgoing events. Events are sent when the size of the aggregated data reaches
+     * {@code size} bytes, or when the oldest aggregated event is {@code delay} milliseconds old. The delay is only
+     * watched while the proxy is polled, {@link #flush()} can be used to send aggregated events at once.
+     *
+     * @param size  size threshold in bytes, zero or less to disable batching
+     * @param delay delay threshold in milliseconds
+     */
+    public void setBatching(int size, long delay) {
+        flush();
+
+        batchSize = Math.max(0, size);
+        batchDelay = Math.max(0, delay);
+    }
+
+    /**
+     * Set the limit of the data waiting to be written to a client. A client going over this limit is disconnected.
+     *
+     * @param max limit in bytes
+     */
+    public void setMaxQueuedBytes(long max) {
+        maxQueuedBytes = max;
+    }
+
+    /**
+     * Enable or disable the compression of the data sent to clients. In client mode, enabling compression asks the
+     * server to compress what it sends, which it does only if it supports it and if it has enabled compression too.
+     * In server mode, enabling compression allows it for the clients that ask for it. Compression works better with
+     * {@link #setBatching(int, long)}.
+     *
+     * @param on true to enable compression
+     * @throws IOException if the request could not be sent to the server
+     */
+    public void setCompression(boolean on) throws IOException {
+        if (on && !(byteFactory instanceof CompressibleByteFactory)) {
+            LOGGER.warning("the protocol does not support compression");
+            return;
+        }
+
+        boolean request = on && !compression && mode == Mode.CLIENT;
+        compression = on;
+
+        if (request) {
+            ByteBuffer message = ((CompressibleByteFactory) byteFactory).createCompressionRequest();
+            SocketChannel channel = (SocketChannel) mainChannel;
+
+            while (message.hasRemaining())
+                channel.write(message);
+        }
+    }
+
+    /**
+     * Set the level of the compression, from {@link java.util.zip.Deflater#BEST_SPEED} to
+     * {@link java.util.zip.Deflater#BEST_COMPRESSION}. It applies to the clients asking for compression after the call.
+     *
+     * @param level the compression level
+     */
+    public void setCompressionLevel(int level) {
+        compressionLevel = level;
+    }
+
+    /**
+     * Send the events aggregated so far, if any.
+     */
+    public void flush() {
+        ByteBuffer chunk;
+
+        synchronized (pendingLock) {
+            chunk = pending;
+            pending = null;
+        }
+
+        if (chunk != null) {
+            chunk.flip();
+            dispatch(chunk);
+        }
+    }
+
     /**
      * Starts the proxy worker.
      */
@@ -311,6 +490,7 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
         if (thread != null) {
             Thread t = thread;
             running.set(false);
+            selector.wakeup();
 
             t.join();
         }
@@ -360,30 +540,98 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
                 if (decoder != null)
                     socketChannel.register(selector, SelectionKey.OP_READ);
 
-                replay(socketChannel);
+                //
+                // Events aggregated so far belong to the clients already
+                // connected, the new one gets the replay instead.
+                //
+
+                flush();
+
+                WriteQueue queue = new WriteQueue(socketChannel);
+                writeQueues.put(socketChannel, queue);
+
+                replay(queue);
                 writableChannels.add(socketChannel);
-            } else if (key.isReadable()) {
+
+                continue;
+            }
+
+            if (key.isReadable()) {
                 //
                 // If a message arrives, read it.
                 //
 
                 readDataChunk(key);
-            } else if (key.isWritable()) {
-                ByteBuffer buffer = (ByteBuffer) key.attachment();
-                WritableByteChannel out = (WritableByteChannel) key.channel();
+            }
 
-                try {
-                    out.write(buffer);
-                } catch (IOException e) {
-                    LOGGER.severe("I/O error while writing to channel.");
-                    close(out);
-                } finally {
-                    key.cancel();
+            if (key.isValid() && key.isWritable()) {
+                //
+                // The client can accept more data, continue to empty its
+                // queue.
+                //
+
+                WriteQueue queue = writeQueues.get(key.channel());
+
+                if (queue == null) {
+                    key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                } else {
+                    synchronized (queue) {
+                        if (write(queue)) {
+                            queue.waitingWrite = false;
+                            key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                        }
+                    }
                 }
             }
         }
     }
 
+    /**
+     * Register the interest in writing of the queues which could not be emptied at once. This is done by the thread
+     * polling the selector.
+     */
+    protected void processWriteRequests() throws IOException {
+        WriteQueue queue;
+
+        while ((queue = writeRequests.poll()) != null) {
+            if (!queue.channel.isOpen())
+                continue;
+
+            SelectionKey key = queue.channel.keyFor(selector);
+
+            if (key == null)
+                queue.channel.register(selector, SelectionKey.OP_WRITE);
+            else if (key.isValid())
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Send aggregated events if the oldest one has waited long enough.
+     */
+    protected void checkBatchDelay() {
+        boolean due;
+
+        synchronized (pendingLock) {
+            due = pending != null && System.currentTimeMillis() - pendingSince >= batchDelay;
+        }
+
+        if (due)
+            flush();
+    }
+
+    /**
+     * Time the selector can wait before the aggregated events have to be sent, 0 if it can wait indefinitely.
+     */
+    protected long getSelectTimeout() {
+        synchronized (pendingLock) {
+            if (pending == null)
+                return 0;
+
+            return Math.max(1, pendingSince + batchDelay - System.currentTimeMillis());
+        }
+    }
+
     /**
      * Same as calling {@link #poll(boolean)} with blocking flag set to true.
      */
@@ -401,8 +649,10 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
      */
     public void poll(boolean blocking) {
         try {
+            processWriteRequests();
+
             if (blocking) {
-                if (selector.select() > 0) {
+                if (selector.select(getSelectTimeout()) > 0) {
                     processSelectedKeys();
                 }
             } else {
@@ -410,6 +660,8 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
                     processSelectedKeys();
                 }
             }
+
+            checkBatchDelay();
         } catch (IOException e) {
             LOGGER.severe(String.format("I/O error in receiver //:%d thread: aborting: %s", port, e.getMessage()));
             running.set(false);
@@ -438,7 +690,21 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
         }
 
         try {
-            int r = socket.read(buffer);
+            Inflater inflater = inflaters.get(socket);
+            int r;
+
+            if (inflater == null) {
+                r = socket.read(buffer);
+            } else {
+                if (compressedBuffer == null)
+                    compressedBuffer = ByteBuffer.allocate(BUFFER_INITIAL_SIZE);
+
+                compressedBuffer.clear();
+                r = socket.read(compressedBuffer);
+
+                if (r > 0)
+                    buffer = inflate(key, inflater, compressedBuffer.array(), 0, r);
+            }
 
             if (r < 0) {
                 //
@@ -450,19 +716,12 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
             } else if (r == 0) {
                 LOGGER.warning("Strange, no binary read.");
             } else {
-                while (decoder.validate(buffer)) {
-                    buffer.flip();
-                    decoder.decode(buffer);
-                    buffer.compact();
-                }
+                buffer = decodeAvailable(key, buffer);
 
-                if (!buffer.hasRemaining()) {
-                    ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() + BUFFER_INITIAL_SIZE);
-                    bigger.put(buffer);
-                    key.attach(bigger);
-                }
+                if (!buffer.hasRemaining())
+                    grow(key, buffer);
             }
-        } catch (IOException e) {
+        } catch (IOException | DataFormatException e) {
             LOGGER.severe(String.format("receiver //%s:%d cannot read object socket mainChannel (I/O error): %s",
                     address.getHostName(), port, e.getMessage()));
 
@@ -470,32 +729,277 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
         }
     }
 
+    /**
+     * Decode the complete messages available in the buffer of a channel, handling compression control messages.
+     *
+     * @return the buffer of the channel, which may have been replaced
+     */
+    protected ByteBuffer decodeAvailable(SelectionKey key, ByteBuffer buffer) throws DataFormatException {
+        CompressibleByteFactory compressible = byteFactory instanceof CompressibleByteFactory ?
+                (CompressibleByteFactory) byteFactory : null;
+
+        while (decoder.validate(buffer)) {
+            buffer.flip();
+
+            boolean request = compressible != null && compressible.isCompressionRequest(buffer);
+            boolean start = compressible != null && compressible.isCompressionStart(buffer);
+
+            decoder.decode(buffer);
+            buffer.compact();
+
+            if (request) {
+                startCompression(key.channel());
+            } else if (start && !inflaters.containsKey(key.channel())) {
+                //
+                // What follows the start message has been read as plain
+                // data, it has to be inflated.
+                //
+
+                Inflater inflater = new Inflater();
+                inflaters.put(key.channel(), inflater);
+
+                buffer.flip();
+                byte[] compressed = new byte[buffer.remaining()];
+                buffer.get(compressed);
+                buffer.clear();
+
+                buffer = inflate(key, inflater, compressed, 0, compressed.length);
+            }
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Inflate data into the buffer of a channel.
+     *
+     * @return the buffer of the channel, which may have been replaced
+     */
+    protected ByteBuffer inflate(SelectionKey key, Inflater inflater, byte[] data, int offset, int length)
+            throws DataFormatException {
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+
+        inflater.setInput(data, offset, length);
+
+        while (true) {
+            if (!buffer.hasRemaining())
+                buffer = grow(key, buffer);
+
+            int n = inflater.inflate(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.position() + n);
+
+            if (n == 0 && (inflater.needsInput() || inflater.finished() || buffer.hasRemaining()))
+                break;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Replace the buffer of a channel with a bigger one.
+     *
+     * @return the new buffer
+     */
+    protected ByteBuffer grow(SelectionKey key, ByteBuffer buffer) {
+        ByteBuffer bigger = ByteBuffer.allocate(buffer.capacity() + BUFFER_INITIAL_SIZE);
+        buffer.flip();
+        bigger.put(buffer);
+        key.attach(bigger);
+
+        return bigger;
+    }
+
+    /**
+     * Answer the compression request of a client.
+     */
+    protected void startCompression(SelectableChannel channel) {
+        WriteQueue queue = writeQueues.get(channel);
+
+        if (queue == null || !compression) {
+            LOGGER.info("compression request refused");
+            return;
+        }
+
+        synchronized (queue) {
+            if (queue.deflater == null) {
+                enqueue(queue, ((CompressibleByteFactory) byteFactory).createCompressionStart(), false);
+                queue.deflater = new Deflater(compressionLevel);
+            }
+        }
+    }
+
+    /**
+     * Compress data for a client. Must be called with the lock of the queue held.
+     *
+     * @param queue  queue of the client
+     * @param buffer the data, backed by an array
+     * @return the compressed data
+     */
+    protected ByteBuffer deflate(WriteQueue queue, ByteBuffer buffer) {
+        Deflater deflater = queue.deflater;
+        byte[] out = queue.deflated;
+        int length = 0;
+
+        deflater.setInput(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        buffer.position(buffer.limit());
+
+        while (true) {
+            length += deflater.deflate(out, length, out.length - length, Deflater.SYNC_FLUSH);
+
+            if (length < out.length)
+                break;
+
+            out = Arrays.copyOf(out, out.length * 2);
+        }
+
+        queue.deflated = out;
+
+        return ByteBuffer.wrap(Arrays.copyOf(out, length));
+    }
+
     protected void doSend(ByteBuffer buffer) {
-        ByteBuffer sendBuffer = ByteBuffer.allocate(buffer.remaining());
-        sendBuffer.put(buffer);
-        sendBuffer.rewind();
+        if (writableChannels.isEmpty())
+            return;
+
+        if (batchSize <= 0) {
+            ByteBuffer sendBuffer = ByteBuffer.allocate(buffer.remaining());
+            sendBuffer.put(buffer);
+            sendBuffer.flip();
 
-        Iterator<SocketChannel> channels = writableChannels.iterator();
+            dispatch(sendBuffer);
+            return;
+        }
 
-        while (channels.hasNext()) {
-            SocketChannel writableChannel = channels.next();
+        boolean full;
+        boolean first = false;
 
-            try {
-                try {
-                    writableChannel.write(sendBuffer.duplicate());
-                } catch (NotYetConnectedException e) {
-                    writableChannel.register(selector, SelectionKey.OP_WRITE, sendBuffer.duplicate());
+        synchronized (pendingLock) {
+            if (pending != null && pending.remaining() < buffer.remaining()) {
+                ByteBuffer bigger = ByteBuffer.allocate(pending.position() + buffer.remaining());
+                pending.flip();
+                bigger.put(pending);
+                pending = bigger;
+            }
+
+            if (pending == null) {
+                pending = ByteBuffer.allocate(Math.max(batchSize, buffer.remaining()));
+                pendingSince = System.currentTimeMillis();
+                first = true;
+            }
+
+            pending.put(buffer);
+            full = pending.position() >= batchSize
+                    || System.currentTimeMillis() - pendingSince >= batchDelay;
+        }
+
+        if (full) {
+            flush();
+        } else if (first && thread != null) {
+            //
+            // Let the worker know it has a delay to watch.
+            //
+
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Put a chunk of data in the write queue of each client.
+     *
+     * @param chunk the data, shared between the clients
+     */
+    protected void dispatch(ByteBuffer chunk) {
+        for (SocketChannel channel : writableChannels) {
+            WriteQueue queue = writeQueues.get(channel);
+
+            if (queue != null)
+                enqueue(queue, chunk.duplicate(), true);
+        }
+    }
+
+    /**
+     * Add data to the write queue of a client, and try to write it at once unless the client is already waiting for
+     * being writable.
+     *
+     * @param queue    queue of the client
+     * @param buffer   the data
+     * @param limited  true if the client has to be disconnected when its queue goes over the limit
+     */
+    protected void enqueue(WriteQueue queue, ByteBuffer buffer, boolean limited) {
+        boolean overflow;
+        boolean request = false;
+
+        synchronized (queue) {
+            if (queue.deflater != null)
+                buffer = deflate(queue, buffer);
+
+            queue.buffers.add(buffer);
+            queue.queuedBytes += buffer.remaining();
+
+            overflow = limited && queue.queuedBytes > maxQueuedBytes;
+
+            if (!overflow && !queue.waitingWrite && !write(queue)) {
+                queue.waitingWrite = true;
+                writeRequests.add(queue);
+                request = true;
+            }
+        }
+
+        if (overflow) {
+            LOGGER.warning(String.format("client %s is too slow, %d bytes waiting: disconnecting",
+                    queue.channel.socket().getRemoteSocketAddress(), queue.queuedBytes));
+
+            close(queue.channel);
+        } else if (request && thread != null) {
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Write as much queued data as possible, without blocking. Must be called with the lock of the queue held.
+     *
+     * @param queue queue of the client
+     * @return true if the queue is now empty
+     */
+    protected boolean write(WriteQueue queue) {
+        try {
+            while (!queue.buffers.isEmpty()) {
+                int n = 0;
+
+                for (ByteBuffer buffer : queue.buffers) {
+                    if (n == MAX_GATHER)
+                        break;
+
+                    queue.gather[n++] = buffer;
                 }
-            } catch (IOException e) {
-                LOGGER.severe("I/O error while writing to channel : " + e.getMessage());
 
-                channels.remove();
-                close(writableChannel);
+                long written = queue.channel.write(queue.gather, 0, n);
+                Arrays.fill(queue.gather, 0, n, null);
+
+                queue.queuedBytes -= written;
+
+                while (!queue.buffers.isEmpty() && !queue.buffers.peek().hasRemaining())
+                    queue.buffers.poll();
+
+                if (written == 0)
+                    break;
             }
+        } catch (NotYetConnectedException e) {
+            return false;
+        } catch (IOException e) {
+            LOGGER.severe("I/O error while writing to channel : " + e.getMessage());
+
+            queue.buffers.clear();
+            queue.queuedBytes = 0;
+            close(queue.channel);
+
+            return true;
         }
+
+        return queue.buffers.isEmpty();
     }
 
-    protected void replay(final SocketChannel channel) {
+    protected void replay(final WriteQueue queue) {
         if (replayable != null) {
             final Replayable.Controller controller = replayable.getReplayController();
             final ByteEncoder encoder = byteFactory.createByteEncoder();
@@ -503,12 +1007,16 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
             encoder.addTransport(new ByteEncoder.Transport() {
                 @Override
                 public void send(ByteBuffer buffer) {
-                    try {
-                        channel.write(buffer);
-                    } catch (IOException e) {
-                        LOGGER.severe("Failled to replay : " + e.getMessage());
-                        controller.removeSink(encoder);
-                    }
+                    ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+                    copy.put(buffer);
+                    copy.flip();
+
+                    //
+                    // The whole replay is queued at once, the client could
+                    // not have read it yet.
+                    //
+
+                    enqueue(queue, copy, false);
                 }
             });
 
@@ -520,6 +1028,22 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
     protected void close(Channel channel) {
         writableChannels.remove(channel);
 
+        WriteQueue queue = writeQueues.remove(channel);
+
+        if (queue != null) {
+            synchronized (queue) {
+                if (queue.deflater != null) {
+                    queue.deflater.end();
+                    queue.deflater = null;
+                }
+            }
+        }
+
+        Inflater inflater = inflaters.remove(channel);
+
+        if (inflater != null)
+            inflater.end();
+
         if (channel == mainChannel) {
             LOGGER.warning("Closing main channel.");
 
@@ -613,4 +1137,51 @@ public class ByteProxy extends SourceBase implements Pipe, Runnable {
     public void stepBegins(String sourceId, long timeId, double step) {
         encoder.stepBegins(sourceId, timeId, step);
     }
+
+    @Override
+    public void eventBatch(EventBatch batch) {
+        if (encoder instanceof BatchSink)
+            ((BatchSink) encoder).eventBatch(batch);
+        else
+            batch.replay(encoder, encoder);
+    }
+
+    /**
+     * Data waiting to be written to a client.
+     */
+    protected static class WriteQueue {
+        protected final SocketChannel channel;
+        protected final ArrayDeque<ByteBuffer> buffers;
+        protected final ByteBuffer[] gather;
+
+        /**
+         * Number of bytes in the queue.
+         */
+        protected long queuedBytes;
+
+        /**
+         * True if the queue waits for the channel to be writable.
+         */
+        protected boolean waitingWrite;
+
+        /**
+         * Compressor of the data sent to the client, null if the data is not compressed.
+         */
+        protected Deflater deflater;
+
+        /**
+         * Output of the compressor, kept from one write to the next.
+         */
+        protected byte[] deflated;
+
+        protected WriteQueue(SocketChannel channel) {
+            this.channel = channel;
+            this.buffers = new ArrayDeque<>();
+            this.gather = new ByteBuffer[MAX_GATHER];
+            this.queuedBytes = 0;
+            this.waitingWrite = false;
+            this.deflater = null;
+            this.deflated = new byte[BUFFER_INITIAL_SIZE];
+        }
+    }
 }
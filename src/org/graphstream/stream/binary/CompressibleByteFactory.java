@@ -0,0 +1,77 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.binary;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A factory whose protocol can negotiate the compression of a connection.
+ * <p/>
+ * A peer asks for compression by sending a request message. A peer agreeing to it answers with a start message, and
+ * everything it sends after this message is a deflate stream, flushed after each write. Peers that do not know these
+ * messages must be able to skip them, so that they keep on using the plain stream.
+ *
+ * @see org.graphstream.stream.binary.ByteProxy#setCompression(boolean)
+ */
+public interface CompressibleByteFactory extends ByteFactory {
+    /**
+     * Create the message asking the other end to compress what it sends.
+     *
+     * @return the message, ready to be sent
+     */
+    ByteBuffer createCompressionRequest();
+
+    /**
+     * Create the message announcing that what follows is compressed.
+     *
+     * @return the message, ready to be sent
+     */
+    ByteBuffer createCompressionStart();
+
+    /**
+     * Check if a message, validated by a decoder, is a compression request. The position of the buffer is not
+     * changed.
+     *
+     * @param message buffer with the message starting at its position
+     * @return true if the message is a compression request
+     */
+    boolean isCompressionRequest(ByteBuffer message);
+
+    /**
+     * Check if a message, validated by a decoder, announces that what follows is compressed. The position of the
+     * buffer is not changed.
+     *
+     * @param message buffer with the message starting at its position
+     * @return true if the message is a compression start
+     */
+    boolean isCompressionStart(ByteBuffer message);
+}
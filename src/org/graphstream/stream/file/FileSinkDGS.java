@@ -31,45 +31,195 @@
  */
 package org.graphstream.stream.file;
 
-import java.awt.Color;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.lang.reflect.Array;
-import java.util.HashMap;
-import java.util.Locale;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 
-import org.graphstream.graph.CompoundAttribute;
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.EventBatch;
+import org.graphstream.stream.file.dgs.BackgroundGZIPOutputStream;
 
 /**
  * File output for the DGS (Dynamic Graph Stream) file format.
+ * 
+ * <p>
+ * Events are appended to a reusable buffer that is written to the output once
+ * it exceeds {@link #BUFFER_SIZE} characters, when {@link #flush()} is called
+ * and at {@link #end()}. Files and streams are written in UTF-8, the encoding
+ * {@link FileSourceDGS} reads them with. When compression is enabled (see
+ * {@link #setCompressed(boolean)}) files and streams are gzipped by a
+ * background thread, {@link FileSourceDGS} detects it when reading them back.
+ * </p>
+ * 
+ * <p>
+ * As a {@link BatchSink}, the events of a whole batch are appended to the
+ * buffer before it is written, whatever its size.
+ * </p>
  */
-public class FileSinkDGS extends FileSinkBase {
+public class FileSinkDGS extends FileSinkBase implements BatchSink {
+	/**
+	 * Number of buffered characters that triggers a write to the output.
+	 */
+	public static final int BUFFER_SIZE = 16 * 1024;
+
+	protected static final String EOL = System.getProperty("line.separator");
+
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
 	// Attribute
 
 	/**
-	 * A shortcut to the output.
+	 * Events not yet written to the output.
+	 */
+	protected StringBuilder buffer = new StringBuilder(BUFFER_SIZE + 1024);
+
+	/**
+	 * Scratch array used to hand the buffer to the output.
 	 */
-	protected PrintWriter out;
+	protected char[] chars = new char[0];
 
 	protected String graphName = "";
 
+	/**
+	 * True while a batch is appended to the buffer.
+	 */
+	protected boolean batching = false;
+
+	/**
+	 * Gzip output files and streams.
+	 */
+	protected boolean compressed = false;
+
+	// Access
+
+	/**
+	 * True if files and streams are written gzipped.
+	 */
+	public boolean isCompressed() {
+		return compressed;
+	}
+
 	// Command
 
+	/**
+	 * Gzip the output of the next {@link #begin(String)} or
+	 * {@link #begin(OutputStream)}. Compression takes place in a background
+	 * thread. This has no effect on {@link #begin(Writer)}.
+	 * 
+	 * @param on
+	 *            True to compress.
+	 */
+	public void setCompressed(boolean on) {
+		compressed = on;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.BatchSink#eventBatch(org.graphstream.stream.EventBatch)
+	 */
+	public void eventBatch(EventBatch batch) {
+		batching = true;
+
+		try {
+			batch.replay(this, this);
+		} finally {
+			batching = false;
+		}
+
+		writeIfFull();
+	}
+
 	@Override
-	protected void outputHeader() throws IOException {
-		out = (PrintWriter) output;
+	public void flush() throws IOException {
+		if (output != null)
+			drain();
 
-		out.printf("DGS004%n");
+		super.flush();
+	}
+
+	@Override
+	protected Writer createWriter(String fileName) throws IOException {
+		return createWriter(new FileOutputStream(fileName));
+	}
 
-		if (graphName.length() <= 0)
-			out.printf("null 0 0%n");
+	@Override
+	protected Writer createWriter(OutputStream stream) throws IOException {
+		if (compressed)
+			stream = new BackgroundGZIPOutputStream(stream);
 		else
-			out.printf("\"%s\" 0 0%n", FileSinkDGSUtility.formatStringForQuoting(graphName));
+			stream = new BufferedOutputStream(stream, BUFFER_SIZE);
+
+		return new OutputStreamWriter(stream, UTF8);
+	}
+
+	@Override
+	protected void outputHeader() throws IOException {
+		buffer.setLength(0);
+		buffer.append("DGS004").append(EOL);
+
+		if (graphName.length() <= 0) {
+			buffer.append("null 0 0");
+		} else {
+			buffer.append('"');
+			FileSinkDGSUtility.appendStringForQuoting(buffer, graphName);
+			buffer.append("\" 0 0");
+		}
+
+		endLine();
 	}
 
 	@Override
 	protected void outputEndOfFile() throws IOException {
-		// NOP
+		drain();
+	}
+
+	/**
+	 * Write the buffered events to the output.
+	 */
+	protected void drain() throws IOException {
+		int n = buffer.length();
+
+		if (chars.length < n)
+			chars = new char[buffer.capacity()];
+
+		buffer.getChars(0, n, chars, 0);
+		buffer.setLength(0);
+		output.write(chars, 0, n);
+	}
+
+	/**
+	 * Terminate the current event, writing the buffer if it is full and no
+	 * batch is being appended.
+	 */
+	protected void endLine() {
+		buffer.append(EOL);
+
+		if (!batching)
+			writeIfFull();
+	}
+
+	/**
+	 * Write the buffer if it is full.
+	 */
+	protected void writeIfFull() {
+		if (buffer.length() >= BUFFER_SIZE) {
+			try {
+				drain();
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
+
+	protected void startLine(String command, String id) {
+		buffer.append(command).append(" \"");
+		FileSinkDGSUtility.appendStringForQuoting(buffer, id);
+		buffer.append('"');
 	}
 
 	public void edgeAttributeAdded(String graphId, long timeId, String edgeId,
@@ -79,14 +229,18 @@ public class FileSinkDGS extends FileSinkBase {
 
 	public void edgeAttributeChanged(String graphId, long timeId,
 			String edgeId, String attribute, Object oldValue, Object newValue) {
-		out.printf("ce \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(edgeId),
-				FileSinkDGSUtility.attributeString(attribute, newValue, false));
+		startLine("ce", edgeId);
+		buffer.append(' ');
+		FileSinkDGSUtility.appendAttribute(buffer, attribute, newValue, false);
+		endLine();
 	}
 
 	public void edgeAttributeRemoved(String graphId, long timeId,
 			String edgeId, String attribute) {
-		out.printf("ce \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(edgeId),
-				FileSinkDGSUtility.attributeString(attribute, null, true));
+		startLine("ce", edgeId);
+		buffer.append(' ');
+		FileSinkDGSUtility.appendAttribute(buffer, attribute, null, true);
+		endLine();
 	}
 
 	public void graphAttributeAdded(String graphId, long timeId,
@@ -96,12 +250,16 @@ public class FileSinkDGS extends FileSinkBase {
 
 	public void graphAttributeChanged(String graphId, long timeId,
 			String attribute, Object oldValue, Object newValue) {
-		out.printf("cg %s%n", FileSinkDGSUtility.attributeString(attribute, newValue, false));
+		buffer.append("cg ");
+		FileSinkDGSUtility.appendAttribute(buffer, attribute, newValue, false);
+		endLine();
 	}
 
 	public void graphAttributeRemoved(String graphId, long timeId,
 			String attribute) {
-		out.printf("cg %s%n", FileSinkDGSUtility.attributeString(attribute, null, true));
+		buffer.append("cg ");
+		FileSinkDGSUtility.appendAttribute(buffer, attribute, null, true);
+		endLine();
 	}
 
 	public void nodeAttributeAdded(String graphId, long timeId, String nodeId,
@@ -111,43 +269,54 @@ public class FileSinkDGS extends FileSinkBase {
 
 	public void nodeAttributeChanged(String graphId, long timeId,
 			String nodeId, String attribute, Object oldValue, Object newValue) {
-		out.printf("cn \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(nodeId),
-				FileSinkDGSUtility.attributeString(attribute, newValue, false));
+		startLine("cn", nodeId);
+		buffer.append(' ');
+		FileSinkDGSUtility.appendAttribute(buffer, attribute, newValue, false);
+		endLine();
 	}
 
 	public void nodeAttributeRemoved(String graphId, long timeId,
 			String nodeId, String attribute) {
-		out.printf("cn \"%s\" %s%n", FileSinkDGSUtility.formatStringForQuoting(nodeId),
-				FileSinkDGSUtility.attributeString(attribute, null, true));
+		startLine("cn", nodeId);
+		buffer.append(' ');
+		FileSinkDGSUtility.appendAttribute(buffer, attribute, null, true);
+		endLine();
 	}
 
 	public void edgeAdded(String graphId, long timeId, String edgeId,
 			String fromNodeId, String toNodeId, boolean directed) {
-		edgeId = FileSinkDGSUtility.formatStringForQuoting(edgeId);
-		fromNodeId = FileSinkDGSUtility.formatStringForQuoting(fromNodeId);
-		toNodeId = FileSinkDGSUtility.formatStringForQuoting(toNodeId);
-
-		out.printf("ae \"%s\" \"%s\" %s \"%s\"%n", edgeId, fromNodeId,
-				directed ? ">" : "", toNodeId);
+		startLine("ae", edgeId);
+		buffer.append(" \"");
+		FileSinkDGSUtility.appendStringForQuoting(buffer, fromNodeId);
+		buffer.append(directed ? "\" > \"" : "\"  \"");
+		FileSinkDGSUtility.appendStringForQuoting(buffer, toNodeId);
+		buffer.append('"');
+		endLine();
 	}
 
 	public void edgeRemoved(String graphId, long timeId, String edgeId) {
-		out.printf("de \"%s\"%n", FileSinkDGSUtility.formatStringForQuoting(edgeId));
+		startLine("de", edgeId);
+		endLine();
 	}
 
 	public void graphCleared(String graphId, long timeId) {
-		out.printf("cl%n");
+		buffer.append("cl");
+		endLine();
 	}
 
 	public void nodeAdded(String graphId, long timeId, String nodeId) {
-		out.printf("an \"%s\"%n", FileSinkDGSUtility.formatStringForQuoting(nodeId));
+		startLine("an", nodeId);
+		endLine();
 	}
 
 	public void nodeRemoved(String graphId, long timeId, String nodeId) {
-		out.printf("dn \"%s\"%n", FileSinkDGSUtility.formatStringForQuoting(nodeId));
+		startLine("dn", nodeId);
+		endLine();
 	}
 
 	public void stepBegins(String graphId, long timeId, double step) {
-		out.printf(Locale.US, "st %f%n", step);
+		buffer.append("st ");
+		FileSinkDGSUtility.appendDouble(buffer, step);
+		endLine();
 	}
-}
\ No newline at end of file
+}
@@ -38,82 +38,148 @@ import java.util.Locale;
 
 import org.graphstream.graph.CompoundAttribute;
 
+/**
+ * Formatting of identifiers and attribute values for the DGS format.
+ * 
+ * <p>
+ * Each value can be formatted either as a new string or appended to an
+ * existing {@link StringBuilder}. Both produce exactly the same text, the
+ * later avoids intermediate strings and is what {@link FileSinkDGS} uses.
+ * </p>
+ */
 public class FileSinkDGSUtility {
+	/**
+	 * Absolute values under this bound are formatted as "%f" without the help
+	 * of {@link String#format(Locale, String, Object...)}.
+	 */
+	protected static final double FAST_DOUBLE_BOUND = 1e7;
+
+	protected static final char[] HEXA = { '0', '1', '2', '3', '4', '5', '6',
+			'7', '8', '9', 'A', 'B', 'C', 'D', 'E', 'F' };
+
 	protected static String formatStringForQuoting(String str) {
 		return str.replaceAll("(^|[^\\\\])\"", "$1\\\\\"");
 	}
 
+	protected static void appendStringForQuoting(StringBuilder sb, String str) {
+		if (str.indexOf('"') < 0)
+			sb.append(str);
+		else
+			sb.append(formatStringForQuoting(str));
+	}
+
 	protected static String attributeString(String key, Object value, boolean remove) {
 		if (key == null || key.length() == 0)
 			return null;
 
-		if (remove) {
-			return String.format(" -\"%s\"", key);
+		StringBuilder sb = new StringBuilder();
+		appendAttribute(sb, key, value, remove);
+		return sb.toString();
+	}
+
+	/**
+	 * Append the same text as {@link #attributeString(String, Object, boolean)}
+	 * ("null" if the key is empty).
+	 */
+	protected static void appendAttribute(StringBuilder sb, String key,
+			Object value, boolean remove) {
+		if (key == null || key.length() == 0) {
+			sb.append("null");
+		} else if (remove) {
+			sb.append(" -\"").append(key).append('"');
 		} else {
+			sb.append(" \"").append(key).append("\":");
+
 			if (value != null && value.getClass().isArray())
-				return String.format(" \"%s\":%s", key, arrayString(value));
+				appendArray(sb, value);
 			else
-				return String.format(" \"%s\":%s", key, valueString(value));
+				appendValue(sb, value);
 		}
 	}
 
 	protected static String arrayString(Object value) {
-		if (value != null && value.getClass().isArray()) {
-			StringBuilder sb = new StringBuilder();
-			sb.append("{");
+		StringBuilder sb = new StringBuilder();
+		appendArray(sb, value);
+		return sb.toString();
+	}
+
+	protected static void appendArray(StringBuilder sb, Object value) {
+		if (value instanceof double[]) {
+			double[] array = (double[]) value;
+
+			sb.append('{');
+
+			if (array.length == 0)
+				sb.append("\"\"");
+
+			for (int i = 0; i < array.length; ++i) {
+				if (i > 0)
+					sb.append(',');
+
+				appendDouble(sb, array[i]);
+			}
+
+			sb.append('}');
+		} else if (value != null && value.getClass().isArray()) {
+			int length = Array.getLength(value);
+
+			sb.append('{');
 
-			if (Array.getLength(value) == 0)
+			if (length == 0)
 				sb.append("\"\"");
 			else
-				sb.append(arrayString(Array.get(value, 0)));
+				appendArray(sb, Array.get(value, 0));
 
-			for (int i = 1; i < Array.getLength(value); ++i)
-				sb.append(String
-						.format(",%s", arrayString(Array.get(value, i))));
+			for (int i = 1; i < length; ++i) {
+				sb.append(',');
+				appendArray(sb, Array.get(value, i));
+			}
 
-			sb.append("}");
-			return sb.toString();
+			sb.append('}');
 		} else {
-			return valueString(value);
+			appendValue(sb, value);
 		}
 	}
 
 	protected static String valueString(Object value) {
-		if (value == null)
-			return "\"\"";
+		StringBuilder sb = new StringBuilder();
+		appendValue(sb, value);
+		return sb.toString();
+	}
+
+	protected static void appendValue(StringBuilder sb, Object value) {
+		if (value == null) {
+			sb.append("\"\"");
+		} else if (value instanceof CharSequence) {
+			sb.append('"');
 
-		if (value instanceof CharSequence) {
 			if (value instanceof String)
-				return String.format("\"%s\"",
-						formatStringForQuoting((String) value));
+				appendStringForQuoting(sb, (String) value);
 			else
-				return String.format("\"%s\"", (CharSequence) value);
+				sb.append((CharSequence) value);
+
+			sb.append('"');
 		} else if (value instanceof Number) {
 			Number nval = (Number) value;
 
 			if (value instanceof Integer || value instanceof Short
 					|| value instanceof Byte || value instanceof Long)
-				return String.format(Locale.US, "%d", nval.longValue());
+				sb.append(nval.longValue());
 			else
-				return String.format(Locale.US, "%f", nval.doubleValue());
+				appendDouble(sb, nval.doubleValue());
 		} else if (value instanceof Boolean) {
-			return String.format(Locale.US, "%b", ((Boolean) value));
+			sb.append(((Boolean) value).booleanValue());
 		} else if (value instanceof Character) {
-			return String.format("\"%c\"", ((Character) value).charValue());
+			sb.append('"').append(((Character) value).charValue()).append('"');
 		} else if (value instanceof Object[]) {
 			Object array[] = (Object[]) value;
-			int n = array.length;
-			StringBuffer sb = new StringBuffer();
 
-			if (array.length > 0)
-				sb.append(valueString(array[0]));
+			for (int i = 0; i < array.length; i++) {
+				if (i > 0)
+					sb.append(',');
 
-			for (int i = 1; i < n; i++) {
-				sb.append(",");
-				sb.append(valueString(array[i]));
+				appendValue(sb, array[i]);
 			}
-
-			return sb.toString();
 		} else if (value instanceof HashMap<?, ?>
 				|| value instanceof CompoundAttribute) {
 			HashMap<?, ?> hash;
@@ -123,28 +189,69 @@ public class FileSinkDGSUtility {
 			else
 				hash = (HashMap<?, ?>) value;
 
-			return hashToString(hash);
+			appendHash(sb, hash);
 		} else if (value instanceof Color) {
 			Color c = (Color) value;
-			return String.format("#%02X%02X%02X%02X", c.getRed(), c.getGreen(),
-					c.getBlue(), c.getAlpha());
+
+			sb.append('#');
+			appendHexa(sb, c.getRed());
+			appendHexa(sb, c.getGreen());
+			appendHexa(sb, c.getBlue());
+			appendHexa(sb, c.getAlpha());
 		} else {
-			return String.format("\"%s\"", value.toString());
+			sb.append('"').append(value.toString()).append('"');
 		}
 	}
 
 	protected static String hashToString(HashMap<?, ?> hash) {
 		StringBuilder sb = new StringBuilder();
+		appendHash(sb, hash);
+		return sb.toString();
+	}
 
+	protected static void appendHash(StringBuilder sb, HashMap<?, ?> hash) {
 		sb.append("[ ");
 
 		for (Object key : hash.keySet()) {
-			sb.append(attributeString(key.toString(), hash.get(key), false));
-			sb.append(",");
+			appendAttribute(sb, key.toString(), hash.get(key), false);
+			sb.append(',');
 		}
 
 		sb.append(']');
+	}
 
-		return sb.toString();
+	protected static void appendHexa(StringBuilder sb, int b) {
+		sb.append(HEXA[(b >> 4) & 0xF]).append(HEXA[b & 0xF]);
+	}
+
+	/**
+	 * Append a double exactly as {@code String.format(Locale.US, "%f", d)}
+	 * would. Small values whose sixth decimal is not close to a rounding tie
+	 * are written digit by digit, other values go through the formatter.
+	 */
+	protected static void appendDouble(StringBuilder sb, double d) {
+		double abs = Math.abs(d);
+
+		if (abs < FAST_DOUBLE_BOUND) {
+			double scaled = abs * 1e6;
+			long r = Math.round(scaled);
+
+			if (Math.abs(scaled - r) < 0.49) {
+				if (d < 0 || (d == 0 && 1 / d < 0))
+					sb.append('-');
+
+				long frac = r % 1000000;
+
+				sb.append(r / 1000000).append('.');
+
+				for (long p = 100000; p > frac && p > 1; p /= 10)
+					sb.append('0');
+
+				sb.append(frac);
+				return;
+			}
+		}
+
+		sb.append(String.format(Locale.US, "%f", d));
 	}
 }
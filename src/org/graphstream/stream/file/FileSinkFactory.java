@@ -52,6 +52,7 @@ public class FileSinkFactory {
 		ext2sink.put("dgsz", FileSinkDGS.class);
 		ext2sink.put("dgml", FileSinkDynamicGML.class);
 		ext2sink.put("gml", FileSinkGML.class);
+		ext2sink.put("gsb", FileSinkGSB.class);
 		ext2sink.put("graphml", FileSinkGraphML.class);
 		ext2sink.put("dot", FileSinkDOT.class);
 		ext2sink.put("svg", FileSinkSVG2.class);
@@ -0,0 +1,659 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.awt.Color;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Element;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.PipeBase;
+import org.graphstream.stream.netstream.NetStreamConstants;
+import org.graphstream.stream.netstream.NetStreamUtils;
+
+/**
+ * Binary snapshot of a graph, the GSB format.
+ * 
+ * <p>
+ * The GSB format stores the state of a graph at a given time, not its
+ * dynamics. It is meant to save and reload large graphs quickly: there is
+ * nothing to tokenize, every id is stored once and topology is made of small
+ * integers. The file is, with varints encoded as in {@link NetStreamUtils} :
+ * </p>
+ * 
+ * <ul>
+ * <li>the magic "GSB" followed by the version byte,</li>
+ * <li>a string table: a varint count followed by each string as a varint
+ * length and its UTF-8 bytes,</li>
+ * <li>the nodes: a varint count followed by the table index of each node id,</li>
+ * <li>the edges: a varint count followed, for each edge, by the table index of
+ * its id, the index of its source node shifted left by one with the lowest bit
+ * set if the edge is directed, and the index of its target node,</li>
+ * <li>three attribute sections, for the graph, the nodes and the edges.</li>
+ * </ul>
+ * 
+ * <p>
+ * An attribute section is a varint count of columns, one per attribute key. A
+ * column is the table index of the key, a type byte, a varint count of values,
+ * then for each value the distance to the index of the previous element having
+ * the attribute minus one, followed by the value. The type is one of the
+ * {@link NetStreamConstants} types. Doubles and floats are stored raw,
+ * integers as zig-zag varints ({@code (n << 1) ^ (n >> 63)}), bytes and
+ * booleans as a byte and strings as table indices. Primitive arrays are a
+ * varint length followed by their elements encoded as above. Object arrays are
+ * {@link NetStreamConstants#TYPE_ARRAY}: a varint length followed by each
+ * element preceded by its own type, and are read back as {@code Object[]}
+ * whatever their component type. Columns of values of different types are
+ * {@link NetStreamConstants#TYPE_RAW} and each value is preceded by its own
+ * type. Colors are {@link #TYPE_COLOR}, four bytes, red, green, blue and
+ * alpha. Hash maps with string keys are {@link #TYPE_MAP}: a varint size
+ * followed by the table index of each key, the type of its value and the
+ * value. These are the values a DGS file can hold. Other attribute values
+ * (other maps, char arrays, arbitrary objects) are skipped with a warning,
+ * {@link #canStore(Element)} tells if a snapshot will be exact.
+ * </p>
+ * 
+ * <p>
+ * In the {@link #begin(String)}/{@link #end()} mode, events are applied to an
+ * internal graph which is written when {@link #end()} is called.
+ * </p>
+ * 
+ * @see FileSourceGSB
+ */
+public class FileSinkGSB extends PipeBase implements FileSink {
+	private static final Logger LOGGER = Logger.getLogger(FileSinkGSB.class
+			.getName());
+
+	/**
+	 * File signature.
+	 */
+	public static final byte[] MAGIC = { 'G', 'S', 'B' };
+
+	/**
+	 * Version of the format written.
+	 */
+	public static final byte VERSION = 2;
+
+	/**
+	 * Type of {@link Color} values, in addition to the NetStream types.
+	 */
+	public static final int TYPE_COLOR = 0x70;
+
+	/**
+	 * Type of {@link HashMap} values with string keys, in addition to the
+	 * NetStream types.
+	 */
+	public static final int TYPE_MAP = 0x71;
+
+	protected static final int BUFFER_SIZE = 64 * 1024;
+
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Values of one attribute key among a set of elements.
+	 */
+	protected static class Column {
+		int key;
+		int type = -1;
+		int size;
+		int[] elements = new int[16];
+		Object[] values = new Object[16];
+
+		void add(int element, Object value, int valueType) {
+			if (size == elements.length) {
+				elements = Arrays.copyOf(elements, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+
+			elements[size] = element;
+			values[size++] = value;
+
+			if (type < 0)
+				type = valueType;
+			else if (type != valueType)
+				type = NetStreamConstants.TYPE_RAW;
+		}
+	}
+
+	// Attribute
+
+	/**
+	 * Graph receiving the events in the begin()/end() mode.
+	 */
+	protected Graph current;
+
+	protected OutputStream output;
+
+	protected boolean closeAtEnd;
+
+	protected ByteBuffer buffer;
+
+	protected HashMap<String, Integer> stringIndices;
+
+	protected ArrayList<String> strings;
+
+	// Access
+
+	/**
+	 * Can all the attribute values of an element be stored? When false, a
+	 * snapshot of the element misses some of its attributes.
+	 * 
+	 * @param e
+	 *            A graph, node or edge.
+	 * @return True if no attribute would be skipped.
+	 */
+	public static boolean canStore(Element e) {
+		if (e.getAttributeCount() == 0)
+			return true;
+
+		for (String key : e.getAttributeKeySet())
+			if (typeOf(e.getAttribute(key)) == NetStreamConstants.TYPE_UNKNOWN)
+				return false;
+
+		return true;
+	}
+
+	// Command
+
+	public void writeAll(Graph graph, String fileName) throws IOException {
+		OutputStream out = new FileOutputStream(fileName);
+
+		try {
+			write(graph, out);
+		} finally {
+			out.close();
+		}
+	}
+
+	public void writeAll(Graph graph, OutputStream stream) throws IOException {
+		write(graph, stream);
+	}
+
+	public void writeAll(Graph graph, Writer writer) throws IOException {
+		throw new IOException("GSB is a binary format, use a stream");
+	}
+
+	public void begin(String fileName) throws IOException {
+		begin(new FileOutputStream(fileName));
+		closeAtEnd = true;
+	}
+
+	public void begin(OutputStream stream) throws IOException {
+		if (current != null)
+			throw new IOException(
+					"cannot call begin() twice without calling end() before.");
+
+		output = stream;
+		closeAtEnd = false;
+		current = new AdjacencyListGraph("gsb", false, true);
+		addSink(current);
+	}
+
+	public void begin(Writer writer) throws IOException {
+		throw new IOException("GSB is a binary format, use a stream");
+	}
+
+	public void flush() throws IOException {
+		// The snapshot is written by end().
+	}
+
+	public void end() throws IOException {
+		if (current == null)
+			throw new IOException("end() called without begin()");
+
+		removeSink(current);
+
+		try {
+			write(current, output);
+		} finally {
+			if (closeAtEnd)
+				output.close();
+
+			current = null;
+			output = null;
+		}
+	}
+
+	/**
+	 * Write a snapshot of a graph.
+	 * 
+	 * @param graph
+	 *            The graph.
+	 * @param out
+	 *            The output, flushed but not closed.
+	 */
+	protected void write(Graph graph, OutputStream out) throws IOException {
+		int nodeCount = graph.getNodeCount();
+		int edgeCount = graph.getEdgeCount();
+
+		strings = new ArrayList<String>(nodeCount + edgeCount);
+		stringIndices = new HashMap<String, Integer>(
+				2 * (nodeCount + edgeCount));
+
+		int[] nodeIds = new int[nodeCount];
+		int[] edgeIds = new int[edgeCount];
+
+		for (int i = 0; i < nodeCount; i++)
+			nodeIds[i] = string(graph.getNode(i).getId());
+
+		for (int i = 0; i < edgeCount; i++)
+			edgeIds[i] = string(graph.getEdge(i).getId());
+
+		LinkedHashMap<String, Column> graphColumns = columns(graph, 0, null);
+		LinkedHashMap<String, Column> nodeColumns = null;
+		LinkedHashMap<String, Column> edgeColumns = null;
+
+		for (int i = 0; i < nodeCount; i++)
+			nodeColumns = columns(graph.getNode(i), i, nodeColumns);
+
+		for (int i = 0; i < edgeCount; i++)
+			edgeColumns = columns(graph.getEdge(i), i, edgeColumns);
+
+		output = out;
+		buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+		buffer.put(MAGIC).put(VERSION);
+
+		varint(strings.size());
+
+		for (String s : strings) {
+			byte[] data = s.getBytes(UTF8);
+			varint(data.length);
+			bytes(data);
+		}
+
+		varint(nodeCount);
+
+		for (int i = 0; i < nodeCount; i++)
+			varint(nodeIds[i]);
+
+		varint(edgeCount);
+
+		for (int i = 0; i < edgeCount; i++) {
+			Edge e = graph.getEdge(i);
+
+			varint(edgeIds[i]);
+			varint(((long) e.getSourceNode().getIndex() << 1)
+					| (e.isDirected() ? 1 : 0));
+			varint(e.getTargetNode().getIndex());
+		}
+
+		section(graphColumns);
+		section(nodeColumns);
+		section(edgeColumns);
+
+		drain();
+		out.flush();
+
+		buffer = null;
+		strings = null;
+		stringIndices = null;
+	}
+
+	/**
+	 * Add the attributes of an element to the columns of its kind.
+	 */
+	protected LinkedHashMap<String, Column> columns(Element e, int index,
+			LinkedHashMap<String, Column> columns) {
+		if (e.getAttributeCount() == 0)
+			return columns;
+
+		if (columns == null)
+			columns = new LinkedHashMap<String, Column>();
+
+		for (String key : e.getAttributeKeySet()) {
+			Object value = e.getAttribute(key);
+			int type = typeOf(value);
+
+			if (type == NetStreamConstants.TYPE_UNKNOWN) {
+				LOGGER.warning(String.format(
+						"cannot store attribute \"%s\" of \"%s\" (%s)", key,
+						e.getId(), value.getClass().getName()));
+				continue;
+			}
+
+			Column column = columns.get(key);
+
+			if (column == null) {
+				column = new Column();
+				column.key = string(key);
+				columns.put(key, column);
+			}
+
+			if (type == NetStreamConstants.TYPE_STRING
+					|| type == NetStreamConstants.TYPE_ARRAY
+					|| type == TYPE_MAP)
+				strings(value);
+
+			column.add(index, value, type);
+		}
+
+		return columns;
+	}
+
+	/**
+	 * The NetStream type of a value, {@link NetStreamConstants#TYPE_UNKNOWN}
+	 * if it cannot be encoded.
+	 */
+	protected static int typeOf(Object value) {
+		if (value == null)
+			return NetStreamConstants.TYPE_NULL;
+
+		Class<?> c = value.getClass();
+
+		if (c.isArray()) {
+			if (value instanceof Object[]) {
+				for (Object o : (Object[]) value)
+					if (typeOf(o) == NetStreamConstants.TYPE_UNKNOWN)
+						return NetStreamConstants.TYPE_UNKNOWN;
+
+				return NetStreamConstants.TYPE_ARRAY;
+			} else if (c == double[].class)
+				return NetStreamConstants.TYPE_DOUBLE_ARRAY;
+			else if (c == float[].class)
+				return NetStreamConstants.TYPE_FLOAT_ARRAY;
+			else if (c == long[].class)
+				return NetStreamConstants.TYPE_LONG_ARRAY;
+			else if (c == int[].class)
+				return NetStreamConstants.TYPE_INT_ARRAY;
+			else if (c == short[].class)
+				return NetStreamConstants.TYPE_SHORT_ARRAY;
+			else if (c == byte[].class)
+				return NetStreamConstants.TYPE_BYTE_ARRAY;
+			else if (c == boolean[].class)
+				return NetStreamConstants.TYPE_BOOLEAN_ARRAY;
+
+			return NetStreamConstants.TYPE_UNKNOWN;
+		}
+
+		if (c == HashMap.class) {
+			for (Map.Entry<?, ?> entry : ((HashMap<?, ?>) value).entrySet())
+				if (!(entry.getKey() instanceof String)
+						|| typeOf(entry.getValue()) == NetStreamConstants.TYPE_UNKNOWN)
+					return NetStreamConstants.TYPE_UNKNOWN;
+
+			return TYPE_MAP;
+		}
+
+		if (c == String.class)
+			return NetStreamConstants.TYPE_STRING;
+		else if (c == Double.class)
+			return NetStreamConstants.TYPE_DOUBLE;
+		else if (c == Float.class)
+			return NetStreamConstants.TYPE_FLOAT;
+		else if (c == Long.class)
+			return NetStreamConstants.TYPE_LONG;
+		else if (c == Integer.class)
+			return NetStreamConstants.TYPE_INT;
+		else if (c == Short.class)
+			return NetStreamConstants.TYPE_SHORT;
+		else if (c == Byte.class)
+			return NetStreamConstants.TYPE_BYTE;
+		else if (c == Boolean.class)
+			return NetStreamConstants.TYPE_BOOLEAN;
+		else if (c == Color.class)
+			return TYPE_COLOR;
+
+		return NetStreamConstants.TYPE_UNKNOWN;
+	}
+
+	protected void section(LinkedHashMap<String, Column> columns)
+			throws IOException {
+		if (columns == null) {
+			varint(0);
+			return;
+		}
+
+		varint(columns.size());
+
+		for (Column column : columns.values()) {
+			int type = column.type;
+			int previous = -1;
+
+			varint(column.key);
+			ensure(1);
+			buffer.put((byte) type);
+			varint(column.size);
+
+			for (int i = 0; i < column.size; i++) {
+				varint(column.elements[i] - previous - 1);
+				previous = column.elements[i];
+
+				if (type == NetStreamConstants.TYPE_RAW) {
+					int valueType = typeOf(column.values[i]);
+					ensure(1);
+					buffer.put((byte) valueType);
+					value(column.values[i], valueType);
+				} else {
+					value(column.values[i], type);
+				}
+			}
+		}
+	}
+
+	protected void value(Object value, int type) throws IOException {
+		if (type == NetStreamConstants.TYPE_DOUBLE) {
+			ensure(8);
+			buffer.putDouble((Double) value);
+		} else if (type == NetStreamConstants.TYPE_FLOAT) {
+			ensure(4);
+			buffer.putFloat((Float) value);
+		} else if (type == NetStreamConstants.TYPE_INT
+				|| type == NetStreamConstants.TYPE_LONG
+				|| type == NetStreamConstants.TYPE_SHORT) {
+			varint(zigzag(((Number) value).longValue()));
+		} else if (type == NetStreamConstants.TYPE_BYTE) {
+			ensure(1);
+			buffer.put((Byte) value);
+		} else if (type == NetStreamConstants.TYPE_BOOLEAN) {
+			ensure(1);
+			buffer.put((byte) (((Boolean) value) ? 1 : 0));
+		} else if (type == NetStreamConstants.TYPE_STRING) {
+			varint(stringIndices.get(value));
+		} else if (type == NetStreamConstants.TYPE_ARRAY) {
+			Object[] array = (Object[]) value;
+
+			varint(array.length);
+
+			for (Object o : array) {
+				int t = typeOf(o);
+				ensure(1);
+				buffer.put((byte) t);
+				value(o, t);
+			}
+		} else if (type == TYPE_COLOR) {
+			Color color = (Color) value;
+			ensure(4);
+			buffer.put((byte) color.getRed()).put((byte) color.getGreen())
+					.put((byte) color.getBlue()).put((byte) color.getAlpha());
+		} else if (type == TYPE_MAP) {
+			HashMap<?, ?> map = (HashMap<?, ?>) value;
+
+			varint(map.size());
+
+			for (Map.Entry<?, ?> entry : map.entrySet()) {
+				int t = typeOf(entry.getValue());
+				varint(stringIndices.get(entry.getKey()));
+				ensure(1);
+				buffer.put((byte) t);
+				value(entry.getValue(), t);
+			}
+		} else if (type != NetStreamConstants.TYPE_NULL) {
+			array(value, type);
+		}
+	}
+
+	/**
+	 * Write a primitive array.
+	 */
+	protected void array(Object value, int type) throws IOException {
+		if (type == NetStreamConstants.TYPE_DOUBLE_ARRAY) {
+			double[] array = (double[]) value;
+			varint(array.length);
+
+			for (double d : array) {
+				ensure(8);
+				buffer.putDouble(d);
+			}
+		} else if (type == NetStreamConstants.TYPE_FLOAT_ARRAY) {
+			float[] array = (float[]) value;
+			varint(array.length);
+
+			for (float f : array) {
+				ensure(4);
+				buffer.putFloat(f);
+			}
+		} else if (type == NetStreamConstants.TYPE_LONG_ARRAY) {
+			long[] array = (long[]) value;
+			varint(array.length);
+
+			for (long n : array)
+				varint(zigzag(n));
+		} else if (type == NetStreamConstants.TYPE_INT_ARRAY) {
+			int[] array = (int[]) value;
+			varint(array.length);
+
+			for (int n : array)
+				varint(zigzag(n));
+		} else if (type == NetStreamConstants.TYPE_SHORT_ARRAY) {
+			short[] array = (short[]) value;
+			varint(array.length);
+
+			for (short n : array)
+				varint(zigzag(n));
+		} else if (type == NetStreamConstants.TYPE_BYTE_ARRAY) {
+			byte[] array = (byte[]) value;
+			varint(array.length);
+			bytes(array);
+		} else {
+			boolean[] array = (boolean[]) value;
+			varint(array.length);
+			ensure(array.length);
+
+			for (boolean b : array)
+				buffer.put((byte) (b ? 1 : 0));
+		}
+	}
+
+	/**
+	 * Add the strings of a value, possibly nested in arrays or maps, to the
+	 * string table.
+	 */
+	protected void strings(Object value) {
+		if (value instanceof String)
+			string((String) value);
+		else if (value instanceof Object[])
+			for (Object o : (Object[]) value)
+				strings(o);
+		else if (value instanceof HashMap)
+			for (Map.Entry<?, ?> entry : ((HashMap<?, ?>) value).entrySet()) {
+				string((String) entry.getKey());
+				strings(entry.getValue());
+			}
+	}
+
+	protected int string(String s) {
+		Integer index = stringIndices.get(s);
+
+		if (index == null) {
+			index = strings.size();
+			strings.add(s);
+			stringIndices.put(s, index);
+		}
+
+		return index;
+	}
+
+	/**
+	 * Map signed integers to unsigned ones so that small negative values stay
+	 * small varints.
+	 */
+	protected static long zigzag(long n) {
+		return (n << 1) ^ (n >> 63);
+	}
+
+	/**
+	 * Write an unsigned varint. Zig-zag encoded values may use all the 64 bits,
+	 * which {@link NetStreamUtils#getVarintSize(long)} does not handle.
+	 */
+	protected void varint(long n) throws IOException {
+		ensure(10);
+
+		while ((n & ~127L) != 0) {
+			buffer.put((byte) ((n & 127) | 128));
+			n >>>= 7;
+		}
+
+		buffer.put((byte) n);
+	}
+
+	protected void bytes(byte[] data) throws IOException {
+		if (data.length > buffer.capacity()) {
+			drain();
+			output.write(data);
+		} else {
+			ensure(data.length);
+			buffer.put(data);
+		}
+	}
+
+	/**
+	 * Make room for n bytes in the buffer.
+	 */
+	protected void ensure(int n) throws IOException {
+		if (buffer.remaining() < n) {
+			drain();
+
+			if (buffer.capacity() < n)
+				buffer = ByteBuffer.allocate(n);
+		}
+	}
+
+	protected void drain() throws IOException {
+		output.write(buffer.array(), 0, buffer.position());
+		buffer.clear();
+	}
+}
@@ -31,6 +31,7 @@
  */
 package org.graphstream.stream.file;
 
+import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.io.File;
@@ -38,9 +39,14 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -48,6 +54,7 @@ import java.util.regex.Pattern;
 import javax.imageio.ImageIO;
 
 import org.graphstream.graph.Graph;
+import org.graphstream.stream.EventBatch;
 import org.graphstream.stream.GraphReplay;
 import org.graphstream.stream.ProxyPipe;
 import org.graphstream.stream.Sink;
@@ -58,6 +65,7 @@ import org.graphstream.ui.graphicGraph.GraphicGraph;
 import org.graphstream.ui.layout.Layout;
 import org.graphstream.ui.layout.LayoutRunner;
 import org.graphstream.ui.layout.Layouts;
+import org.graphstream.ui.view.Camera;
 import org.graphstream.ui.view.GraphRenderer;
 
 /**
@@ -87,6 +95,17 @@ import org.graphstream.ui.view.GraphRenderer;
  * mencoder "mf://$PREFIX*.$EXT" -mf fps=$FPS:type=$EXT -ovc lavc -lavcopts $OPTS -o $OUTPUT -nosound -vf scale
  * 
  * </pre>
+ * 
+ * <p>
+ * By default each image is rendered, encoded and written by the thread that
+ * asks for it. With {@link #setPipelinedOutputEnabled(boolean)}, the sink only
+ * records the changes of the graph since the previous image and hands them to
+ * a pool of renderers, each one keeping its own copy of the graphic graph.
+ * Rendered images are then completed by the {@link PostRenderer}s, encoded and
+ * written in order by a separate thread. The images produced and their names
+ * are the same as without the pipeline. The threads are started with the
+ * first image and stopped by {@link #end()}.
+ * </p>
  */
 public class FileSinkImages implements FileSink {
 	/**
@@ -202,7 +221,10 @@ public class FileSinkImages implements FileSink {
 	}
 
 	/**
-	 * Defines post rendering action on images.
+	 * Defines post rendering action on images. When the output is pipelined,
+	 * post renderers are called by the thread writing the images, one image
+	 * at a time and in the order of the images, not by the thread asking for
+	 * the images.
 	 */
 	public static interface PostRenderer {
 		void render(Graphics2D g);
@@ -291,6 +313,14 @@ public class FileSinkImages implements FileSink {
 	protected boolean hasBegan = false;
 	protected boolean autofit = true;
 	protected String styleSheet = null;
+	protected RendererType rendererType;
+	protected boolean userView = false;
+	protected double[] graphViewport = null;
+	protected int pipelineRenderers = Math.max(1, Runtime.getRuntime()
+			.availableProcessors() - 1);
+	protected int pipelineCapacity = 8;
+	protected boolean pipelined = false;
+	protected FramePipeline pipeline;
 
 	public FileSinkImages() {
 		this(OutputType.PNG, Resolutions.HD720);
@@ -392,19 +422,32 @@ public class FileSinkImages implements FileSink {
 	 * 
 	 * @param rendererType
 	 */
-	@SuppressWarnings("unchecked")
 	public void setRenderer(RendererType rendererType) {
-		try {
-			Class<? extends GraphRenderer> clazz = (Class<? extends GraphRenderer>) Class
-					.forName(rendererType.classname);
-
-			GraphRenderer obj = clazz.newInstance();
+		GraphRenderer<?, Graphics2D> obj = newRenderer(rendererType);
 
+		if (obj != null) {
 			if (this.renderer != null)
 				this.renderer.close();
 
+			obj.open(gg, null);
 			this.renderer = obj;
-			this.renderer.open(gg, null);
+			this.rendererType = rendererType;
+		}
+	}
+
+	/**
+	 * Create a renderer of the given type.
+	 * 
+	 * @param rendererType
+	 * @return the renderer, or null if it cannot be created
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	protected GraphRenderer<?, Graphics2D> newRenderer(RendererType rendererType) {
+		try {
+			Class<? extends GraphRenderer> clazz = (Class<? extends GraphRenderer>) Class
+					.forName(rendererType.classname);
+
+			return clazz.newInstance();
 		} catch (ClassNotFoundException e) {
 			e.printStackTrace();
 		} catch (ClassCastException e) {
@@ -415,6 +458,8 @@ public class FileSinkImages implements FileSink {
 		} catch (IllegalAccessException e) {
 			e.printStackTrace();
 		}
+
+		return null;
 	}
 
 	/**
@@ -567,6 +612,46 @@ public class FileSinkImages implements FileSink {
 		outputRunnerDelay = delay;
 	}
 
+	/**
+	 * Enable or disable the pipelined production of images. Images are then
+	 * written asynchronously : {@link #flush()}, {@link #end()} and disabling
+	 * the pipeline wait for all the pending images to be written. The threads
+	 * of the pipeline are started with the next image and stopped by
+	 * {@link #end()} or when the pipeline is disabled.
+	 * 
+	 * @param on
+	 *            true to render images in a pool of threads
+	 */
+	public synchronized void setPipelinedOutputEnabled(boolean on) {
+		pipelined = on;
+
+		if (!on)
+			closePipeline();
+	}
+
+	/**
+	 * Set the number of threads rendering images when the output is
+	 * pipelined. This is used the next time the pipeline is started.
+	 * 
+	 * @param renderers
+	 *            number of rendering threads
+	 */
+	public void setPipelineRenderers(int renderers) {
+		this.pipelineRenderers = Math.max(1, renderers);
+	}
+
+	/**
+	 * Set the maximum number of images being rendered or waiting to be
+	 * written when the output is pipelined. This bounds the memory used by the
+	 * pipeline. This is used the next time the pipeline is started.
+	 * 
+	 * @param frames
+	 *            number of images
+	 */
+	public void setPipelineCapacity(int frames) {
+		this.pipelineCapacity = Math.max(1, frames);
+	}
+
 	public void stabilizeLayout(double limit) {
 		if (layout != null) {
 			while (layout.getStabilization() < limit)
@@ -580,6 +665,7 @@ public class FileSinkImages implements FileSink {
 
 	public void setViewCenter(double x, double y) {
 		renderer.getCamera().setViewCenter(x, y, 0);
+		userView = true;
 	}
 
 	public double getViewPercent() {
@@ -588,11 +674,14 @@ public class FileSinkImages implements FileSink {
 
 	public void setViewPercent(double zoom) {
 		renderer.getCamera().setViewPercent(zoom);
+		userView = true;
 	}
 
 	public void setGraphViewport(double minx, double miny, double maxx,
 			double maxy) {
 		renderer.getCamera().setGraphViewport(minx, miny, maxx, maxy);
+		graphViewport = new double[] { minx, miny, maxx, maxy };
+		userView = true;
 	}
 
 	public void setClearImageBeforeOutputEnabled(boolean on) {
@@ -644,6 +733,15 @@ public class FileSinkImages implements FileSink {
 			break;
 		}
 
+		if (pipelined) {
+			if (pipeline == null)
+				pipeline = new FramePipeline(pipelineRenderers,
+						pipelineCapacity);
+
+			pipeline.submit(filename);
+			return;
+		}
+
 		if (resolution.getWidth() != image.getWidth()
 				|| resolution.getHeight() != image.getHeight())
 			initImage();
@@ -727,7 +825,10 @@ public class FileSinkImages implements FileSink {
 	 * @see org.graphstream.stream.file.FileSink#flush()
 	 */
 	public void flush() throws IOException {
-		// Nothing to do
+		FramePipeline p = pipeline;
+
+		if (p != null)
+			p.flush();
 	}
 
 	/*
@@ -736,10 +837,21 @@ public class FileSinkImages implements FileSink {
 	 * @see org.graphstream.stream.file.FileSink#end()
 	 */
 	public void end() throws IOException {
-		flush();
+		closePipeline();
 		this.hasBegan = false;
 	}
 
+	/**
+	 * Write the pending images, stop the threads of the pipeline and release
+	 * their copies of the graph.
+	 */
+	protected synchronized void closePipeline() {
+		if (pipeline != null) {
+			pipeline.close();
+			pipeline = null;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -1210,6 +1322,416 @@ public class FileSinkImages implements FileSink {
 		}
 	}
 
+	/**
+	 * State of the graph and of the sink needed to produce one image.
+	 */
+	protected static class Frame {
+		final long index;
+		final String filename;
+		/**
+		 * Changes of the graph since the previous frame.
+		 */
+		final EventBatch events;
+		int width, height, imageType;
+		String format;
+		boolean autofit, clear, userView;
+		List<PostRenderer> postRenderers;
+		Point3 viewCenter;
+		double viewPercent, viewRotation;
+		double[] graphViewport;
+		/**
+		 * The rendered image, null if it could not be rendered.
+		 */
+		BufferedImage image;
+
+		Frame(long index, String filename, EventBatch events) {
+			this.index = index;
+			this.filename = filename;
+			this.events = events;
+		}
+	}
+
+	/**
+	 * Produce images in three stages. The thread asking for an image only
+	 * records the events of the graph since the previous image. A pool of
+	 * renderers, each owning a copy of the graphic graph, replays all the
+	 * frames and renders one frame out of n. A writer thread encodes and
+	 * writes the images in the order of the frames. At most a fixed number of
+	 * frames can be rendered or waiting to be written, the images being
+	 * reused from one frame to another.
+	 */
+	protected class FramePipeline {
+		/**
+		 * Marks the end of the frames for the renderers.
+		 */
+		protected final Frame end = new Frame(-1, null, null);
+
+		protected final RenderWorker[] workers;
+
+		protected final FrameWriter writer;
+
+		/**
+		 * Events received by the graphic graph since the last frame.
+		 */
+		protected EventBatch events;
+
+		/**
+		 * Frames rendered and not yet written, by index.
+		 */
+		protected final HashMap<Long, Frame> rendered = new HashMap<Long, Frame>();
+
+		/**
+		 * Images that can be reused.
+		 */
+		protected final ArrayDeque<BufferedImage> images = new ArrayDeque<BufferedImage>();
+
+		protected final int capacity;
+
+		protected long submitted = 0;
+
+		protected long written = 0;
+
+		protected boolean closed = false;
+
+		public FramePipeline(int renderers, int capacity) {
+			EventBatch initial = new EventBatch();
+			GraphReplay replay = new GraphReplay(String.format(
+					"file_sink_image-pipeline-replay-%x", System.nanoTime()));
+
+			replay.addSink(initial);
+			replay.replay(gg);
+			replay.removeSink(initial);
+
+			this.capacity = capacity;
+			this.events = new EventBatch();
+			gg.addSink(events);
+
+			workers = new RenderWorker[renderers];
+
+			for (int i = 0; i < renderers; i++) {
+				workers[i] = new RenderWorker(i, initial);
+				workers[i].start();
+			}
+
+			writer = new FrameWriter();
+			writer.start();
+		}
+
+		/**
+		 * Snapshot the changes of the graph and the settings of the sink and
+		 * give them to the renderers. This blocks if the renderers are too
+		 * late.
+		 */
+		public void submit(String filename) {
+			Frame frame;
+
+			synchronized (this) {
+				frame = new Frame(submitted++, filename, events);
+			}
+
+			gg.removeSink(events);
+			events = new EventBatch();
+			gg.addSink(events);
+
+			Camera camera = renderer.getCamera();
+
+			frame.width = resolution.getWidth();
+			frame.height = resolution.getHeight();
+			frame.imageType = outputType.imageType;
+			frame.format = outputType.name();
+			frame.autofit = autofit;
+			frame.clear = clearImageBeforeOutput;
+			frame.postRenderers = new ArrayList<PostRenderer>(postRenderers);
+			frame.userView = userView;
+			frame.viewCenter = new Point3(camera.getViewCenter());
+			frame.viewPercent = camera.getViewPercent();
+			frame.viewRotation = camera.getViewRotation();
+			frame.graphViewport = graphViewport;
+
+			put(frame);
+		}
+
+		/**
+		 * Wait until all the submitted frames are written.
+		 */
+		public synchronized void flush() {
+			try {
+				while (written < submitted)
+					wait();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Write the pending frames and stop the threads.
+		 */
+		public void close() {
+			put(end);
+
+			try {
+				for (RenderWorker worker : workers)
+					worker.join();
+
+				synchronized (this) {
+					closed = true;
+					notifyAll();
+				}
+
+				writer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			gg.removeSink(events);
+		}
+
+		protected void put(Frame frame) {
+			try {
+				for (RenderWorker worker : workers)
+					worker.frames.put(frame);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		/**
+		 * Get an image for a frame, waiting for the frame to be close enough
+		 * to the last written one.
+		 */
+		protected BufferedImage acquire(Frame frame)
+				throws InterruptedException {
+			BufferedImage image;
+
+			synchronized (this) {
+				while (frame.index - written >= capacity)
+					wait();
+
+				image = images.poll();
+			}
+
+			if (image == null || image.getWidth() != frame.width
+					|| image.getHeight() != frame.height
+					|| image.getType() != frame.imageType)
+				image = new BufferedImage(frame.width, frame.height,
+						frame.imageType);
+
+			return image;
+		}
+
+		protected synchronized void rendered(Frame frame) {
+			rendered.put(frame.index, frame);
+			notifyAll();
+		}
+
+		/**
+		 * Next frame to write, or null if the pipeline is closed and all
+		 * frames were written.
+		 */
+		protected synchronized Frame next() throws InterruptedException {
+			while (!rendered.containsKey(written)) {
+				if (closed && written == submitted)
+					return null;
+
+				wait();
+			}
+
+			return rendered.remove(written);
+		}
+
+		protected synchronized void written(Frame frame) {
+			if (frame.image != null)
+				images.push(frame.image);
+
+			frame.image = null;
+			written++;
+			notifyAll();
+		}
+
+		/**
+		 * Keeps a copy of the graphic graph up to date with all the frames
+		 * and renders the frames which index modulo the number of renderers is
+		 * its rank.
+		 */
+		protected class RenderWorker extends Thread {
+			protected final int rank;
+
+			protected final EventBatch initial;
+
+			protected final ArrayBlockingQueue<Frame> frames;
+
+			protected GraphicGraph graph;
+
+			protected GraphRenderer<?, Graphics2D> frameRenderer;
+
+			public RenderWorker(int rank, EventBatch initial) {
+				this.rank = rank;
+				this.initial = initial;
+				this.frames = new ArrayBlockingQueue<Frame>(capacity);
+
+				setName(String.format("%s-renderer-%d", gg.getId(), rank));
+				setDaemon(true);
+			}
+
+			@Override
+			public void run() {
+				graph = new GraphicGraph(getName());
+				frameRenderer = newRenderer(rendererType);
+
+				if (frameRenderer != null)
+					frameRenderer.open(graph, null);
+
+				initial.replay(graph, graph);
+
+				try {
+					Frame frame = frames.take();
+
+					while (frame != end) {
+						frame.events.replay(graph, graph);
+
+						if (frame.index % workers.length == rank) {
+							render(frame);
+							rendered(frame);
+						}
+
+						frame = frames.take();
+					}
+				} catch (InterruptedException e) {
+					// Stop.
+				}
+
+				if (frameRenderer != null)
+					frameRenderer.close();
+			}
+
+			protected void render(Frame frame) throws InterruptedException {
+				if (frameRenderer == null)
+					return;
+
+				BufferedImage image = acquire(frame);
+				Graphics2D g = image.createGraphics();
+
+				try {
+					if (frame.clear) {
+						g.setComposite(AlphaComposite.Clear);
+						g.fillRect(0, 0, frame.width, frame.height);
+						g.setComposite(AlphaComposite.SrcOver);
+					}
+
+					if (graph.getNodeCount() > 0) {
+						Camera camera = frameRenderer.getCamera();
+
+						if (frame.userView) {
+							if (frame.graphViewport != null)
+								camera.setGraphViewport(frame.graphViewport[0],
+										frame.graphViewport[1],
+										frame.graphViewport[2],
+										frame.graphViewport[3]);
+
+							camera.setViewCenter(frame.viewCenter.x,
+									frame.viewCenter.y, frame.viewCenter.z);
+							camera.setViewPercent(frame.viewPercent);
+						}
+
+						camera.setViewRotation(frame.viewRotation);
+
+						if (frame.autofit) {
+							graph.computeBounds();
+
+							Point3 lo = graph.getMinPos();
+							Point3 hi = graph.getMaxPos();
+
+							camera.setBounds(lo.x, lo.y, lo.z, hi.x, hi.y,
+									hi.z);
+						}
+
+						frameRenderer.render(g, 0, 0, frame.width,
+								frame.height);
+					}
+
+					image.flush();
+					frame.image = image;
+				} catch (RuntimeException e) {
+					LOGGER.log(Level.WARNING, String.format(
+							"cannot render image \"%s\"", frame.filename), e);
+
+					synchronized (FramePipeline.this) {
+						images.push(image);
+					}
+				} finally {
+					g.dispose();
+				}
+			}
+		}
+
+		/**
+		 * Runs the post renderers on the rendered images, then encodes and
+		 * writes them, in the order of the frames.
+		 */
+		protected class FrameWriter extends Thread {
+			public FrameWriter() {
+				setName(String.format("%s-writer", gg.getId()));
+				setDaemon(true);
+			}
+
+			@Override
+			public void run() {
+				try {
+					Frame frame = next();
+
+					while (frame != null) {
+						if (frame.image != null) {
+							postRender(frame);
+							write(frame);
+						}
+
+						written(frame);
+						frame = next();
+					}
+				} catch (InterruptedException e) {
+					// Stop.
+				}
+			}
+
+			protected void postRender(Frame frame) {
+				if (frame.postRenderers.isEmpty())
+					return;
+
+				Graphics2D g = frame.image.createGraphics();
+
+				try {
+					for (PostRenderer action : frame.postRenderers)
+						action.render(g);
+
+					frame.image.flush();
+				} catch (RuntimeException e) {
+					LOGGER.log(Level.WARNING, String.format(
+							"cannot post render image \"%s\"",
+							frame.filename), e);
+				} finally {
+					g.dispose();
+				}
+			}
+
+			protected void write(Frame frame) {
+				try {
+					File out = new File(frame.filename);
+
+					if (out.getParent() != null
+							&& !out.getParentFile().exists())
+						out.getParentFile().mkdirs();
+
+					ImageIO.write(frame.image, frame.format, out);
+
+					printProgress();
+				} catch (IOException e) {
+					LOGGER.log(Level.WARNING, String.format(
+							"cannot write image \"%s\"", frame.filename), e);
+				}
+			}
+		}
+	}
+
 	public static void usage() {
 		LOGGER.info(String.format("usage: java %s [options] fichier.dgs%n",
 				FileSinkImages.class.getName()));
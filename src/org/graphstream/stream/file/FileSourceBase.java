@@ -151,29 +151,57 @@ public abstract class FileSourceBase extends SourceBase implements FileSource {
 
 	public void readAll(String filename) throws IOException {
 		begin(filename);
-		while (nextEvents())
-			;
+		beginBatch();
+
+		try {
+			while (nextEvents())
+				;
+		} finally {
+			endBatch();
+		}
+
 		end();
 	}
 
 	public void readAll(URL url) throws IOException {
 		begin(url);
-		while (nextEvents())
-			;
+		beginBatch();
+
+		try {
+			while (nextEvents())
+				;
+		} finally {
+			endBatch();
+		}
+
 		end();
 	}
 
 	public void readAll(InputStream stream) throws IOException {
 		begin(stream);
-		while (nextEvents())
-			;
+		beginBatch();
+
+		try {
+			while (nextEvents())
+				;
+		} finally {
+			endBatch();
+		}
+
 		end();
 	}
 
 	public void readAll(Reader reader) throws IOException {
 		begin(reader);
-		while (nextEvents())
-			;
+		beginBatch();
+
+		try {
+			while (nextEvents())
+				;
+		} finally {
+			endBatch();
+		}
+
 		end();
 	}
 
@@ -39,6 +39,7 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.zip.GZIPInputStream;
 
+import org.graphstream.stream.file.dgs.DGSByteParser;
 import org.graphstream.stream.file.dgs.DGSParser;
 import org.graphstream.util.parser.ParseException;
 import org.graphstream.util.parser.Parser;
@@ -54,11 +55,24 @@ import org.graphstream.util.parser.ParserFactory;
  * href="http://graphstream-project.org/">http://graphstream-project.org/</a>
  * </p>
  * 
+ * <p>
+ * Files and streams are read by a {@link DGSByteParser}, URLs and readers by a
+ * {@link DGSParser}. Both produce the same events. Note that files and streams
+ * are always decoded as UTF-8, whatever the default charset of the platform,
+ * while URLs are still decoded with the default charset. To read a stream in
+ * another charset, wrap it in a reader.
+ * </p>
+ * 
  * The usual file name extension used for this format is ".dgs".
  * 
  * @see FileSource
  */
 public class FileSourceDGS extends FileSourceParser {
+	/**
+	 * Size of the input buffer of compressed files.
+	 */
+	protected static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -81,8 +95,32 @@ public class FileSourceDGS extends FileSourceParser {
 		}
 	}
 
+	@Override
+	protected Parser createParserForFile(String filename) throws IOException {
+		return new DGSByteParser(this, openFile(filename));
+	}
+
+	@Override
+	protected Parser createParserForStream(InputStream stream)
+			throws IOException {
+		return new DGSByteParser(this, stream);
+	}
+
 	@Override
 	protected Reader createReaderForFile(String filename) throws IOException {
+		return new BufferedReader(new InputStreamReader(openFile(filename)));
+	}
+
+	/**
+	 * Open a file, uncompressing it if it is a gzip file.
+	 * 
+	 * @param filename
+	 *            Path of the file.
+	 * @return The content of the file.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	protected InputStream openFile(String filename) throws IOException {
 		InputStream is = null;
 
 		is = new FileInputStream(filename);
@@ -91,7 +129,7 @@ public class FileSourceDGS extends FileSourceParser {
 			is.mark(128);
 
 		try {
-			is = new GZIPInputStream(is);
+			is = new GZIPInputStream(is, GZIP_BUFFER_SIZE);
 		} catch (IOException e1) {
 			//
 			// This is not a gzip input.
@@ -121,6 +159,6 @@ public class FileSourceDGS extends FileSourceParser {
 			}
 		}
 
-		return new BufferedReader(new InputStreamReader(is));
+		return is;
 	}
 }
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.dgs.DGSByteParser;
+import org.graphstream.stream.file.dgs.DGSIndex;
+import org.graphstream.util.parser.ParseException;
+
+/**
+ * DGS source able to jump to any step of a file.
+ * 
+ * <p>
+ * When a file is opened with {@link #begin(String)}, its {@link DGSIndex} is
+ * loaded, or built if needed which means reading the whole file once. Then
+ * {@link #seek(double)} and {@link #seekIndex(int)} move the source to the
+ * beginning of any step: sinks receive a "graph cleared" event, the events
+ * rebuilding the graph from the nearest checkpoint, and the events of the file
+ * between the checkpoint and the step. Reading then continues from there with
+ * {@link #nextEvents()} or {@link #nextStep()}.
+ * </p>
+ * 
+ * <p>
+ * Streams, URLs and readers are read as by {@link FileSourceDGS}, but cannot be
+ * seeked.
+ * </p>
+ */
+public class FileSourceDGSIndexed extends FileSourceDGS {
+	/**
+	 * Index of the file being read, null if the input is not a file.
+	 */
+	protected DGSIndex index;
+
+	protected String fileName;
+
+	/**
+	 * Number of steps read since the beginning of the file.
+	 */
+	protected int stepsRead;
+
+	// Access
+
+	/**
+	 * Index of the file being read.
+	 * 
+	 * @return The index, null if no file is being read.
+	 */
+	public DGSIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Index of the last step read, -1 if no step has been read yet.
+	 */
+	public int getCurrentStep() {
+		return stepsRead - 1;
+	}
+
+	// Command
+
+	@Override
+	public void begin(String fileName) throws IOException {
+		DGSIndex index = DGSIndex.open(fileName);
+
+		super.begin(fileName);
+
+		this.index = index;
+		this.fileName = fileName;
+		this.stepsRead = 0;
+	}
+
+	@Override
+	public void begin(URL url) throws IOException {
+		index = null;
+		super.begin(url);
+	}
+
+	@Override
+	public void begin(InputStream stream) throws IOException {
+		index = null;
+		super.begin(stream);
+	}
+
+	@Override
+	public void begin(Reader reader) throws IOException {
+		index = null;
+		super.begin(reader);
+	}
+
+	@Override
+	public void end() throws IOException {
+		super.end();
+		index = null;
+		fileName = null;
+	}
+
+	@Override
+	public void sendStepBegins(String sourceId, double step) {
+		stepsRead++;
+		super.sendStepBegins(sourceId, step);
+	}
+
+	/**
+	 * Go to the beginning of the last step whose value is lower or equal to
+	 * the given one, or to the beginning of the file if there is none.
+	 * 
+	 * @param step
+	 *            A step value.
+	 * @throws IOException
+	 *             If no file is being read or on parse error.
+	 */
+	public void seek(double step) throws IOException {
+		checkIndex();
+		seekIndex(index.indexOf(step));
+	}
+
+	/**
+	 * Go to the beginning of a step. The step event is sent, the next call to
+	 * {@link #nextEvents()} reads the first event of the step.
+	 * 
+	 * @param i
+	 *            Index of the step, or -1 for the beginning of the file.
+	 * @throws IOException
+	 *             If no file is being read or on parse error.
+	 */
+	public void seekIndex(int i) throws IOException {
+		checkIndex();
+
+		if (i < -1 || i >= index.getStepCount())
+			throw new IOException(String.format("no step %d in \"%s\"", i,
+					fileName));
+
+		int checkpoint = index.getCheckpointBefore(i);
+
+		parser.close();
+		parser = null;
+		beginBatch();
+
+		try {
+			sendGraphCleared(sourceId);
+
+			if (checkpoint >= 0) {
+				int first = index.getCheckpointStep(checkpoint);
+				FileInputStream in = new FileInputStream(fileName);
+
+				restore(checkpoint);
+				in.getChannel().position(index.getOffset(first));
+				parser = new DGSByteParser(this, in);
+				stepsRead = first;
+			} else {
+				parser = createParserForFile(fileName);
+				parser.open();
+				stepsRead = 0;
+			}
+
+			while (stepsRead <= i)
+				if (!parser.next())
+					throw new IOException("unexpected end of file, index of \""
+							+ fileName + "\" may be outdated");
+		} catch (ParseException e) {
+			throw new IOException(e);
+		} finally {
+			endBatch();
+		}
+	}
+
+	protected void checkIndex() throws IOException {
+		if (index == null)
+			throw new IOException("only files opened with begin(String) can be seeked");
+	}
+
+	/**
+	 * Send the events creating the graph of a checkpoint.
+	 */
+	protected void restore(int checkpoint) throws IOException {
+		FileSourceGSB snapshot = new FileSourceGSB();
+
+		snapshot.addSink(new SinkAdapter() {
+			@Override
+			public void nodeAdded(String sourceId, long timeId, String nodeId) {
+				sendNodeAdded(FileSourceDGSIndexed.this.sourceId, nodeId);
+			}
+
+			@Override
+			public void edgeAdded(String sourceId, long timeId, String edgeId,
+					String fromNodeId, String toNodeId, boolean directed) {
+				sendEdgeAdded(FileSourceDGSIndexed.this.sourceId, edgeId,
+						fromNodeId, toNodeId, directed);
+			}
+
+			@Override
+			public void graphAttributeAdded(String sourceId, long timeId,
+					String attribute, Object value) {
+				sendGraphAttributeAdded(FileSourceDGSIndexed.this.sourceId,
+						attribute, value);
+			}
+
+			@Override
+			public void nodeAttributeAdded(String sourceId, long timeId,
+					String nodeId, String attribute, Object value) {
+				sendNodeAttributeAdded(FileSourceDGSIndexed.this.sourceId,
+						nodeId, attribute, value);
+			}
+
+			@Override
+			public void edgeAttributeAdded(String sourceId, long timeId,
+					String edgeId, String attribute, Object value) {
+				sendEdgeAttributeAdded(FileSourceDGSIndexed.this.sourceId,
+						edgeId, attribute, value);
+			}
+		});
+
+		InputStream in = index.openCheckpoint(checkpoint);
+
+		try {
+			snapshot.readAll(in);
+		} finally {
+			in.close();
+		}
+	}
+}
@@ -35,7 +35,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
-import java.util.HashSet;
 
 /**
  * Reader for the "edge" graph format.
@@ -76,26 +75,7 @@ import java.util.HashSet;
  * 
  * The usual file name extension for this format is ".edge".
  */
-public class FileSourceEdge extends FileSourceBase {
-	// Attribute
-
-	/**
-	 * Allocator for edge identifiers.
-	 */
-	protected int edgeid = 0;
-
-	/**
-	 * By default, consider edges as undirected.
-	 */
-	protected boolean directed = false;
-
-	/**
-	 * Set of existing nodes (if nodes are declared).
-	 */
-	protected HashSet<String> nodes;
-
-	protected String graphName = "EDGE_";
-
+public class FileSourceEdge extends FileSourceEdgeListBase {
 	// Construction
 
 	/**
@@ -124,8 +104,8 @@ public class FileSourceEdge extends FileSourceBase {
 	 *            If true (default=true) this reader outputs nodeAdded events.
 	 */
 	public FileSourceEdge(boolean edgesAreDirected, boolean declareNodes) {
+		super("EDGE_", declareNodes);
 		directed = edgesAreDirected;
-		nodes = declareNodes ? new HashSet<String>() : null;
 	}
 
 	// Commands
@@ -148,7 +128,7 @@ public class FileSourceEdge extends FileSourceBase {
 
 			String id2 = getWordOrNumberOrStringOrEolOrEof();
 
-			while (!id2.equals("EOL")) {
+			while (!id2.equals("EOL") && !id2.equals("EOF")) {
 				if (!id1.equals(id2)) {
 					String edgeId = Integer.toString(edgeid++);
 
@@ -163,11 +143,22 @@ public class FileSourceEdge extends FileSourceBase {
 		return true;
 	}
 
-	protected void declareNode(String id) {
-		if (nodes != null) {
-			if (!nodes.contains(id)) {
-				sendNodeAdded(graphName, id);
-				nodes.add(id);
+	@Override
+	protected void parseChunk(Chunk chunk) throws IOException {
+		int tok;
+
+		while ((tok = chunk.next()) != Chunk.EOF) {
+			if (tok != Chunk.EOL) {
+				int id1 = chunk.word(tok);
+
+				chunk.declare(id1);
+
+				while ((tok = chunk.next()) != Chunk.EOL && tok != Chunk.EOF) {
+					int id2 = chunk.word(tok);
+
+					if (!chunk.same(id1, id2))
+						chunk.edge(id1, id2);
+				}
 			}
 		}
 	}
@@ -200,8 +191,7 @@ public class FileSourceEdge extends FileSourceBase {
 		st.eolIsSignificant(true);
 		st.commentChar('#');
 
-		graphName = String.format("%s_%d", graphName,
-				System.currentTimeMillis() + ((long) Math.random() * 10));
+		initGraphName();
 	}
 
 	public boolean nextStep() throws IOException {
@@ -0,0 +1,1075 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Base for the readers of line oriented edge list formats.
+ * 
+ * <p>
+ * Beside the usual token by token parsing of {@link FileSourceBase}, this
+ * class provides a fast path used by {@link #readAll(String)} when the input is
+ * a regular file. The file is memory-mapped and split at line boundaries into
+ * chunks that are parsed in parallel by a pool of threads. Each chunk interns
+ * its node identifiers from the raw bytes, so that a string is created only
+ * once per distinct identifier and chunk. The parsed chunks are then sent, in
+ * the order of the file, to the sinks of this source in a single pass. The
+ * tokens are recognized exactly like the {@link java.io.StreamTokenizer} used
+ * by the other reading methods, and the events produced are the same.
+ * </p>
+ * 
+ * <p>
+ * Descendants describe their format in {@link #parseChunk(Chunk)}, which runs
+ * on the threads of the pool and therefore must only write to the chunk it is
+ * given.
+ * </p>
+ */
+public abstract class FileSourceEdgeListBase extends FileSourceBase {
+	// Constants
+
+	/**
+	 * Default size in bytes of the chunks parsed in parallel.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	// Attribute
+
+	/**
+	 * Allocator for edge identifiers.
+	 */
+	protected int edgeid = 0;
+
+	/**
+	 * By default, consider edges as undirected.
+	 */
+	protected boolean directed = false;
+
+	/**
+	 * Set of existing nodes (if nodes are declared).
+	 */
+	protected HashSet<String> nodes;
+
+	/**
+	 * Identifier of the graph, used as source of the events.
+	 */
+	protected String graphName;
+
+	/**
+	 * Use the memory-mapped parallel reading in {@link #readAll(String)}.
+	 */
+	protected boolean mappedLoading = true;
+
+	/**
+	 * Size in bytes of the chunks parsed in parallel.
+	 */
+	protected int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Number of threads parsing the chunks.
+	 */
+	protected int parallelism = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Last source node of the edges, for the formats where it is given on its
+	 * own line.
+	 */
+	protected String source;
+
+	// Construction
+
+	/**
+	 * New reader.
+	 * 
+	 * @param graphName
+	 *            The prefix of the graph identifier.
+	 * @param declareNodes
+	 *            If true this reader outputs nodeAdded events.
+	 */
+	protected FileSourceEdgeListBase(String graphName, boolean declareNodes) {
+		this.graphName = graphName;
+		this.nodes = declareNodes ? new HashSet<String>() : null;
+	}
+
+	// Access
+
+	/**
+	 * Is the memory-mapped parallel reading used when reading a whole file?
+	 * 
+	 * @return True if the fast path is used.
+	 */
+	public boolean isMappedLoading() {
+		return mappedLoading;
+	}
+
+	/**
+	 * Size in bytes of the chunks parsed in parallel.
+	 * 
+	 * @return The chunk size.
+	 */
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Number of threads parsing the chunks.
+	 * 
+	 * @return The parallelism level.
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	// Command
+
+	/**
+	 * Enable or disable the memory-mapped parallel reading of
+	 * {@link #readAll(String)}. When disabled, files are read with the
+	 * tokenizer like any other input.
+	 * 
+	 * @param on
+	 *            True to use the fast path.
+	 */
+	public void setMappedLoading(boolean on) {
+		mappedLoading = on;
+	}
+
+	/**
+	 * Set the size of the chunks parsed in parallel. A chunk is extended up to
+	 * the end of its last line.
+	 * 
+	 * @param size
+	 *            The size in bytes, at least 1.
+	 */
+	public void setChunkSize(int size) {
+		if (size < 1)
+			throw new IllegalArgumentException("chunk size must be at least 1");
+
+		chunkSize = size;
+	}
+
+	/**
+	 * Set the number of threads parsing the chunks.
+	 * 
+	 * @param parallelism
+	 *            The number of threads, at least 1.
+	 */
+	public void setParallelism(int parallelism) {
+		if (parallelism < 1)
+			throw new IllegalArgumentException(
+					"parallelism must be at least 1");
+
+		this.parallelism = parallelism;
+	}
+
+	@Override
+	public void readAll(String filename) throws IOException {
+		File file = new File(filename);
+
+		if (mappedLoading && file.isFile())
+			readMapped(file);
+		else
+			super.readAll(filename);
+	}
+
+	/**
+	 * Give a new identifier to the graph. Called each time a new input is
+	 * read.
+	 */
+	protected void initGraphName() {
+		graphName = String.format("%s_%d", graphName,
+				System.currentTimeMillis() + ((long) Math.random() * 10));
+	}
+
+	/**
+	 * Send a nodeAdded event for the given node if nodes are declared and this
+	 * is the first time the node is encountered.
+	 * 
+	 * @param id
+	 *            The node identifier.
+	 */
+	protected void declareNode(String id) {
+		if (nodes != null) {
+			if (!nodes.contains(id)) {
+				sendNodeAdded(graphName, id);
+				nodes.add(id);
+			}
+		}
+	}
+
+	/**
+	 * Parse a whole chunk of the file. The tokens are read with
+	 * {@link Chunk#next()} and the parsed elements are stored with the
+	 * {@link Chunk#declare(int)}, {@link Chunk#edge(int, int)},
+	 * {@link Chunk#source(int)} and {@link Chunk#target(int)} methods.
+	 * 
+	 * @param chunk
+	 *            The chunk to parse, positioned at the start of a line.
+	 * @throws IOException
+	 *             If the chunk does not follow the format.
+	 */
+	protected abstract void parseChunk(Chunk chunk) throws IOException;
+
+	/**
+	 * Read a whole file using the fast path.
+	 * 
+	 * @param file
+	 *            The file to read.
+	 * @throws IOException
+	 *             For any I/O or parse error.
+	 */
+	protected void readMapped(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+
+		try {
+			final FileChannel channel = raf.getChannel();
+			final long[] bounds = splitChunks(channel);
+			int count = bounds.length - 1;
+			int window = parallelism * 2;
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			ArrayList<Future<Chunk>> pending = new ArrayList<Future<Chunk>>();
+			int line = 1;
+
+			filename = file.getPath();
+			initGraphName();
+			beginBatch();
+
+			try {
+				for (int i = 0; i < count; i++) {
+					// Keep a bounded number of chunks parsed ahead.
+
+					while (pending.size() < count && pending.size() < i + window) {
+						final int c = pending.size();
+
+						pending.add(pool.submit(new Callable<Chunk>() {
+							public Chunk call() throws IOException {
+								return parse(channel, bounds[c], bounds[c + 1]);
+							}
+						}));
+					}
+
+					Chunk chunk = pending.get(i).get();
+					pending.set(i, null);
+
+					send(chunk);
+
+					if (chunk.error != null)
+						throw new IOException("parse error: " + filename + ": "
+								+ (line + chunk.errorLine) + ": " + chunk.error);
+
+					line += chunk.lines;
+				}
+			} catch (InterruptedException e) {
+				throw new InterruptedIOException(e.getMessage());
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof IOException)
+					throw (IOException) e.getCause();
+
+				throw new IOException(e.getCause());
+			} finally {
+				pool.shutdownNow();
+				endBatch();
+			}
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Compute the offsets of the chunks. Each chunk but the last one ends just
+	 * after a line feed.
+	 * 
+	 * @param channel
+	 *            The file.
+	 * @return The chunk offsets, the last one being the file size.
+	 * @throws IOException
+	 *             For any I/O error.
+	 */
+	protected long[] splitChunks(FileChannel channel) throws IOException {
+		long size = channel.size();
+		long[] bounds = new long[16];
+		ByteBuffer probe = ByteBuffer.allocate(4096);
+		int n = 1;
+		long pos = 0;
+
+		while (size - pos > chunkSize) {
+			long end = pos + chunkSize;
+			boolean found = false;
+
+			while (!found && end < size) {
+				probe.clear();
+
+				int read = channel.read(probe, end);
+
+				if (read <= 0)
+					break;
+
+				for (int i = 0; i < read && !found; i++) {
+					if (probe.get(i) == '\n')
+						found = true;
+
+					end++;
+				}
+			}
+
+			if (!found || end >= size)
+				break;
+
+			if (n == bounds.length)
+				bounds = Arrays.copyOf(bounds, n * 2);
+
+			bounds[n++] = end;
+			pos = end;
+		}
+
+		if (n == bounds.length)
+			bounds = Arrays.copyOf(bounds, n + 1);
+
+		bounds[n++] = size;
+
+		return Arrays.copyOf(bounds, n);
+	}
+
+	/**
+	 * Map and parse a chunk. Parse errors are stored in the chunk, so that the
+	 * elements parsed before the error are still sent.
+	 */
+	protected Chunk parse(FileChannel channel, long from, long to)
+			throws IOException {
+		Chunk chunk = new Chunk(channel.map(FileChannel.MapMode.READ_ONLY,
+				from, to - from));
+
+		configureChunk(chunk);
+
+		try {
+			parseChunk(chunk);
+		} catch (IOException e) {
+			chunk.error = e.getMessage();
+			chunk.errorLine = chunk.lines;
+		}
+
+		return chunk;
+	}
+
+	/**
+	 * Set the characters of a chunk that start comments. By default '/' and
+	 * the comment character of the tokenizer.
+	 * 
+	 * @param chunk
+	 *            The chunk.
+	 */
+	protected void configureChunk(Chunk chunk) {
+		chunk.commentChar('/');
+
+		if (COMMENT_CHAR > 0)
+			chunk.commentChar(COMMENT_CHAR);
+	}
+
+	/**
+	 * Send the events of a parsed chunk.
+	 * 
+	 * @param chunk
+	 *            The chunk.
+	 */
+	protected void send(Chunk chunk) {
+		chunk.declared = new boolean[chunk.count];
+
+		for (int r = 0; r < chunk.size; r++) {
+			int a = chunk.a[r];
+			int b = chunk.b[r];
+
+			switch (chunk.kinds[r]) {
+			case Chunk.DECLARE:
+				declare(chunk, a);
+				break;
+			case Chunk.EDGE:
+			case Chunk.WEIGHTED_EDGE:
+				declare(chunk, a);
+				declare(chunk, b);
+				sendEdge(chunk, r, chunk.names[a], chunk.names[b]);
+				break;
+			case Chunk.SOURCE:
+				if (a >= 0) {
+					declare(chunk, a);
+					source = chunk.names[a];
+				} else {
+					source = null;
+				}
+				break;
+			case Chunk.TARGET:
+			case Chunk.WEIGHTED_TARGET:
+				if (source != null) {
+					declare(chunk, b);
+					sendEdge(chunk, r, source, chunk.names[b]);
+				}
+				break;
+			}
+		}
+	}
+
+	private void declare(Chunk chunk, int id) {
+		if (!chunk.declared[id]) {
+			chunk.declared[id] = true;
+			declareNode(chunk.names[id]);
+		}
+	}
+
+	private void sendEdge(Chunk chunk, int r, String from, String to) {
+		String edgeId = Integer.toString(edgeid++);
+
+		sendEdgeAdded(graphName, edgeId, from, to, directed);
+
+		if (chunk.kinds[r] == Chunk.WEIGHTED_EDGE
+				|| chunk.kinds[r] == Chunk.WEIGHTED_TARGET)
+			sendEdgeAttributeAdded(graphName, edgeId, "weight",
+					(Double) chunk.weights[r]);
+	}
+
+	/**
+	 * A part of a file, with a tokenizer over its bytes and the elements
+	 * parsed from it.
+	 * 
+	 * <p>
+	 * Words, numbers and strings are recognized like the default
+	 * {@link java.io.StreamTokenizer} configured by {@link FileSourceBase}
+	 * would do, numbers being turned into identifiers like
+	 * {@link FileSourceBase#getWordOrNumberOrStringOrEolOrEof()} does. Bytes
+	 * above 127 are word characters and words are decoded as UTF-8.
+	 * </p>
+	 */
+	protected static class Chunk {
+		/**
+		 * End of the chunk.
+		 */
+		public static final int EOF = -1;
+
+		/**
+		 * End of a line.
+		 */
+		public static final int EOL = -2;
+
+		/**
+		 * A word, a number or a string. Other tokens are returned as their
+		 * character.
+		 */
+		public static final int WORD = -3;
+
+		static final byte DECLARE = 0;
+		static final byte EDGE = 1;
+		static final byte WEIGHTED_EDGE = 2;
+		static final byte SOURCE = 3;
+		static final byte TARGET = 4;
+		static final byte WEIGHTED_TARGET = 5;
+
+		static final Charset UTF8 = Charset.forName("UTF-8");
+
+		protected final ByteBuffer buffer;
+
+		protected final int limit;
+
+		protected final boolean[] comments = new boolean[128];
+
+		protected int pos = 0;
+
+		/**
+		 * Number of lines read.
+		 */
+		protected int lines = 0;
+
+		/**
+		 * Start and end of the last token.
+		 */
+		protected int start, end;
+
+		/**
+		 * Type of the last token.
+		 */
+		protected int token;
+
+		/**
+		 * True if the last token is a number, then stored in {@link #nval}.
+		 */
+		protected boolean number;
+
+		protected double nval;
+
+		protected int hash;
+
+		/**
+		 * True if the last string token ended with its quote.
+		 */
+		protected boolean closed;
+
+		// Parsed elements.
+
+		protected int size = 0;
+
+		protected byte[] kinds = new byte[64];
+
+		protected int[] a = new int[64];
+
+		protected int[] b = new int[64];
+
+		protected double[] weights = new double[64];
+
+		// Interned identifiers.
+
+		protected int[] table = new int[256];
+
+		protected int count = 0;
+
+		protected int[] keyStart = new int[64];
+
+		protected int[] keyLength = new int[64];
+
+		protected int[] keyHash = new int[64];
+
+		protected String[] names = new String[64];
+
+		protected boolean[] declared;
+
+		protected String error;
+
+		protected int errorLine;
+
+		protected Chunk(ByteBuffer buffer) {
+			this.buffer = buffer;
+			this.limit = buffer.limit();
+		}
+
+		/**
+		 * Make a character start comments that end with the line.
+		 * 
+		 * @param c
+		 *            The character.
+		 */
+		public void commentChar(int c) {
+			if (c >= 0 && c < 128)
+				comments[c] = true;
+		}
+
+		/**
+		 * Make a character ordinary, so that it does not start comments.
+		 * 
+		 * @param c
+		 *            The character.
+		 */
+		public void ordinaryChar(int c) {
+			if (c >= 0 && c < 128)
+				comments[c] = false;
+		}
+
+		private int read() {
+			return pos < limit ? buffer.get(pos++) & 0xFF : -1;
+		}
+
+		private static boolean isAlpha(int c) {
+			return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')
+					|| c == '_' || c >= 128;
+		}
+
+		private static boolean isDigit(int c) {
+			return (c >= '0' && c <= '9') || c == '.' || c == '-';
+		}
+
+		/**
+		 * Read the next token.
+		 * 
+		 * @return {@link #WORD}, {@link #EOL}, {@link #EOF} or the character
+		 *         of an ordinary token.
+		 */
+		public int next() {
+			int c = read();
+
+			while (true) {
+				if (c < 0)
+					return token = EOF;
+
+				if (c == '\r') {
+					lines++;
+
+					if (pos < limit && buffer.get(pos) == '\n')
+						pos++;
+
+					return token = EOL;
+				}
+
+				if (c == '\n') {
+					lines++;
+					return token = EOL;
+				}
+
+				if (c <= ' ') {
+					c = read();
+				} else if (c < 128 && comments[c]) {
+					do {
+						c = read();
+					} while (c >= 0 && c != '\n' && c != '\r');
+				} else {
+					break;
+				}
+			}
+
+			start = pos - 1;
+			number = false;
+
+			if (isDigit(c)) {
+				boolean neg = false;
+
+				if (c == '-') {
+					c = read();
+
+					if (c != '.' && (c < '0' || c > '9')) {
+						if (c >= 0)
+							pos--;
+
+						end = pos;
+						return token = '-';
+					}
+
+					neg = true;
+				}
+
+				double v = 0;
+				int decexp = 0;
+				int seendot = 0;
+
+				while (true) {
+					if (c == '.' && seendot == 0)
+						seendot = 1;
+					else if ('0' <= c && c <= '9') {
+						v = v * 10 + (c - '0');
+						decexp += seendot;
+					} else
+						break;
+
+					c = read();
+				}
+
+				if (c >= 0)
+					pos--;
+
+				if (decexp != 0) {
+					double denom = 10;
+					decexp--;
+
+					while (decexp > 0) {
+						denom *= 10;
+						decexp--;
+					}
+
+					v = v / denom;
+				}
+
+				end = pos;
+				nval = neg ? -v : v;
+				number = true;
+				hash = Double.valueOf(nval).hashCode();
+
+				return token = WORD;
+			}
+
+			if (isAlpha(c)) {
+				int h = 0;
+
+				while (c >= 0 && (isAlpha(c) || isDigit(c))) {
+					h = 31 * h + c;
+					c = read();
+				}
+
+				if (c >= 0)
+					pos--;
+
+				end = pos;
+				hash = h;
+
+				return token = WORD;
+			}
+
+			if (c == '"' || c == '\'') {
+				int h = c;
+				int d = read();
+
+				while (d >= 0 && d != c && d != '\n' && d != '\r') {
+					if (d == '\\') {
+						h = 31 * h + d;
+						d = read();
+
+						if (d < 0 || d == '\n' || d == '\r')
+							break;
+					}
+
+					h = 31 * h + d;
+					d = read();
+				}
+
+				closed = d == c;
+
+				if (d >= 0 && !closed)
+					pos--;
+
+				end = pos;
+				hash = h;
+
+				return token = c == '"' ? WORD : c;
+			}
+
+			end = pos;
+
+			return token = c;
+		}
+
+		/**
+		 * The last token as a string, numbers being converted like
+		 * {@link FileSourceBase#getWordOrNumberOrStringOrEolOrEof()} does.
+		 * Ordinary tokens are given as their character.
+		 * 
+		 * @return The text of the last token.
+		 */
+		public String text() {
+			if (number) {
+				if (nval - ((int) nval) != 0)
+					return Double.toString(nval);
+
+				return Integer.toString((int) nval);
+			}
+
+			if (token != WORD)
+				return Character.toString((char) token);
+
+			int c = buffer.get(start) & 0xFF;
+
+			if (c == '"') {
+				String s = decode(start + 1, closed ? end - 1 : end);
+
+				return s.indexOf('\\') >= 0 ? unescape(s) : s;
+			}
+
+			return decode(start, end);
+		}
+
+		/**
+		 * The last token as a number, like {@link Double#parseDouble(String)}
+		 * of its text would give.
+		 * 
+		 * @return The value.
+		 * @throws NumberFormatException
+		 *             If the token is not a number.
+		 */
+		public double value() {
+			if (number)
+				return (nval - ((int) nval) != 0) ? nval : (double) (int) nval;
+
+			return Double.parseDouble(text());
+		}
+
+		private String decode(int from, int to) {
+			byte[] bytes = new byte[to - from];
+
+			for (int i = 0; i < bytes.length; i++)
+				bytes[i] = buffer.get(from + i);
+
+			return new String(bytes, UTF8);
+		}
+
+		private static String unescape(String s) {
+			StringBuilder sb = new StringBuilder(s.length());
+			int n = s.length();
+			int i = 0;
+
+			while (i < n) {
+				char c = s.charAt(i++);
+
+				if (c != '\\' || i >= n) {
+					sb.append(c);
+					continue;
+				}
+
+				c = s.charAt(i++);
+
+				if (c >= '0' && c <= '7') {
+					int first = c;
+					int v = c - '0';
+
+					if (i < n && s.charAt(i) >= '0' && s.charAt(i) <= '7') {
+						v = (v << 3) + (s.charAt(i++) - '0');
+
+						if (i < n && s.charAt(i) >= '0' && s.charAt(i) <= '7'
+								&& first <= '3')
+							v = (v << 3) + (s.charAt(i++) - '0');
+					}
+
+					sb.append((char) v);
+				} else {
+					switch (c) {
+					case 'a':
+						c = 0x7;
+						break;
+					case 'b':
+						c = '\b';
+						break;
+					case 'f':
+						c = 0xC;
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+					case 't':
+						c = '\t';
+						break;
+					case 'v':
+						c = 0xB;
+						break;
+					}
+
+					sb.append(c);
+				}
+			}
+
+			return sb.toString();
+		}
+
+		/**
+		 * Intern the last token, that must be a word, a number or a string.
+		 * 
+		 * @param tok
+		 *            The type of the last token.
+		 * @return The index of the identifier in this chunk.
+		 * @throws IOException
+		 *             If the token is not a word, a number or a string.
+		 */
+		public int word(int tok) throws IOException {
+			if (tok != WORD)
+				throw new IOException(
+						"expecting a word, a number, a string, EOL or EOF, got "
+								+ describe(tok));
+
+			return intern();
+		}
+
+		/**
+		 * Intern the last token, whatever its type.
+		 * 
+		 * @param tok
+		 *            The type of the last token.
+		 * @return The index of the identifier in this chunk.
+		 */
+		public int wordOrSymbol(int tok) {
+			if (tok != WORD) {
+				end = start + 1;
+				hash = -tok;
+			}
+
+			return intern();
+		}
+
+		/**
+		 * The last token as a weight.
+		 * 
+		 * @param tok
+		 *            The type of the last token.
+		 * @return The value.
+		 * @throws IOException
+		 *             If the token is not a number.
+		 */
+		public double weight(int tok) throws IOException {
+			if (tok != WORD)
+				throw new IOException(
+						"expecting a word, a number, a string, EOL or EOF, got "
+								+ describe(tok));
+
+			try {
+				return value();
+			} catch (NumberFormatException e) {
+				throw new IOException(String.format(
+						"cannot transform weight %s into a number", text()));
+			}
+		}
+
+		private String describe(int tok) {
+			if (tok == EOF)
+				return "EOF";
+			if (tok == EOL)
+				return "EOL";
+
+			return "'" + (char) tok + "'";
+		}
+
+		private int intern() {
+			int mask = table.length - 1;
+			int length = end - start;
+			int slot = mix(hash) & mask;
+
+			while (table[slot] != 0) {
+				int id = table[slot] - 1;
+
+				if (keyHash[id] == hash && keyLength[id] == length
+						&& sameBytes(keyStart[id], start, length))
+					return id;
+
+				slot = (slot + 1) & mask;
+			}
+
+			if (count == names.length) {
+				int n = count * 2;
+				keyStart = Arrays.copyOf(keyStart, n);
+				keyLength = Arrays.copyOf(keyLength, n);
+				keyHash = Arrays.copyOf(keyHash, n);
+				names = Arrays.copyOf(names, n);
+			}
+
+			int id = count++;
+
+			keyStart[id] = start;
+			keyLength[id] = length;
+			keyHash[id] = hash;
+			names[id] = text();
+			table[slot] = id + 1;
+
+			if (count * 2 > table.length)
+				rehash();
+
+			return id;
+		}
+
+		private boolean sameBytes(int p0, int p1, int length) {
+			if (p0 == p1)
+				return true;
+
+			for (int i = 0; i < length; i++)
+				if (buffer.get(p0 + i) != buffer.get(p1 + i))
+					return false;
+
+			return true;
+		}
+
+		private void rehash() {
+			table = new int[table.length * 2];
+			int mask = table.length - 1;
+
+			for (int id = 0; id < count; id++) {
+				int slot = mix(keyHash[id]) & mask;
+
+				while (table[slot] != 0)
+					slot = (slot + 1) & mask;
+
+				table[slot] = id + 1;
+			}
+		}
+
+		private static int mix(int h) {
+			h ^= (h >>> 20) ^ (h >>> 12);
+			return h ^ (h >>> 7) ^ (h >>> 4);
+		}
+
+		/**
+		 * Are two interned identifiers the same?
+		 */
+		public boolean same(int id1, int id2) {
+			return id1 == id2 || names[id1].equals(names[id2]);
+		}
+
+		/**
+		 * Declare a node.
+		 */
+		public void declare(int id) {
+			add(DECLARE, id, -1, 0);
+		}
+
+		/**
+		 * Add an edge between two nodes.
+		 */
+		public void edge(int from, int to) {
+			add(EDGE, from, to, 0);
+		}
+
+		/**
+		 * Add an edge between two nodes with a weight.
+		 */
+		public void edge(int from, int to, double weight) {
+			add(WEIGHTED_EDGE, from, to, weight);
+		}
+
+		/**
+		 * Change the source node of the next targets, -1 for none.
+		 */
+		public void source(int id) {
+			add(SOURCE, id, -1, 0);
+		}
+
+		/**
+		 * Add an edge from the current source node.
+		 */
+		public void target(int to) {
+			add(TARGET, -1, to, 0);
+		}
+
+		/**
+		 * Add an edge from the current source node with a weight.
+		 */
+		public void target(int to, double weight) {
+			add(WEIGHTED_TARGET, -1, to, weight);
+		}
+
+		private void add(byte kind, int id1, int id2, double weight) {
+			if (size == kinds.length) {
+				int n = size * 2;
+				kinds = Arrays.copyOf(kinds, n);
+				a = Arrays.copyOf(a, n);
+				b = Arrays.copyOf(b, n);
+				weights = Arrays.copyOf(weights, n);
+			}
+
+			kinds[size] = kind;
+			a[size] = id1;
+			b[size] = id2;
+			weights[size] = weight;
+			size++;
+		}
+	}
+}
@@ -114,6 +114,9 @@ public class FileSourceFactory {
 			}
 		}
 
+		if (n >= 3 && b[0] == 'G' && b[1] == 'S' && b[2] == 'B')
+			return new FileSourceGSB();
+
 		// Maybe match a GML file as most GML files begin by the line "graph [",
 		// but not sure, you may create a GML file that starts by a comment, an
 		// empty line, with any kind of spaces, etc.
@@ -140,6 +143,10 @@ public class FileSourceFactory {
 			return new org.graphstream.stream.file.FileSourceGML();
 		}
 
+		if (flc.endsWith(".gsb")) {
+			return new FileSourceGSB();
+		}
+
 		if (flc.endsWith(".net")) {
 			return new FileSourcePajek();
 		}
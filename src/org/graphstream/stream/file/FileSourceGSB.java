@@ -0,0 +1,429 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.netstream.NetStreamConstants;
+import org.graphstream.stream.netstream.NetStreamUtils;
+
+/**
+ * Reader for the binary GSB snapshot format written by {@link FileSinkGSB}.
+ * 
+ * <p>
+ * Files are memory mapped, streams are read entirely before decoding. Each
+ * call to {@link #nextEvents()} sends one part of the snapshot: all the nodes,
+ * then all the edges, then the graph, node and edge attributes. As a snapshot
+ * has no steps, {@link #nextStep()} sends everything left.
+ * </p>
+ */
+public class FileSourceGSB extends SourceBase implements FileSource {
+	protected static final Charset UTF8 = Charset.forName("UTF-8");
+
+	protected static final int NODES = 0;
+	protected static final int EDGES = 1;
+	protected static final int GRAPH_ATTRIBUTES = 2;
+	protected static final int NODE_ATTRIBUTES = 3;
+	protected static final int EDGE_ATTRIBUTES = 4;
+	protected static final int DONE = 5;
+
+	// Attribute
+
+	protected ByteBuffer data;
+
+	protected String[] strings;
+
+	protected String[] nodeIds;
+
+	protected String[] edgeIds;
+
+	/**
+	 * Version of the snapshot being read.
+	 */
+	protected int version;
+
+	/**
+	 * The next part of the snapshot to send.
+	 */
+	protected int part;
+
+	// Command
+
+	public void readAll(String fileName) throws IOException {
+		begin(fileName);
+		readAll();
+	}
+
+	public void readAll(URL url) throws IOException {
+		begin(url);
+		readAll();
+	}
+
+	public void readAll(InputStream stream) throws IOException {
+		begin(stream);
+		readAll();
+	}
+
+	public void readAll(Reader reader) throws IOException {
+		throw new IOException("GSB is a binary format, use a stream");
+	}
+
+	protected void readAll() throws IOException {
+		beginBatch();
+
+		try {
+			while (nextEvents())
+				;
+		} finally {
+			endBatch();
+		}
+
+		end();
+	}
+
+	public void begin(String fileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+
+		try {
+			FileChannel channel = file.getChannel();
+			begin(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		} finally {
+			file.close();
+		}
+	}
+
+	public void begin(URL url) throws IOException {
+		InputStream stream = url.openStream();
+
+		try {
+			begin(stream);
+		} finally {
+			stream.close();
+		}
+	}
+
+	public void begin(InputStream stream) throws IOException {
+		byte[] bytes = new byte[64 * 1024];
+		int length = 0;
+		int n;
+
+		while ((n = stream.read(bytes, length, bytes.length - length)) >= 0) {
+			length += n;
+
+			if (length == bytes.length)
+				bytes = Arrays.copyOf(bytes, bytes.length * 2);
+		}
+
+		begin(ByteBuffer.wrap(bytes, 0, length));
+	}
+
+	public void begin(Reader reader) throws IOException {
+		throw new IOException("GSB is a binary format, use a stream");
+	}
+
+	/**
+	 * Start reading a snapshot, decoding its header and string table.
+	 * 
+	 * @param buffer
+	 *            The whole snapshot.
+	 */
+	protected void begin(ByteBuffer buffer) throws IOException {
+		data = buffer;
+
+		byte[] magic = FileSinkGSB.MAGIC;
+
+		if (data.remaining() < magic.length + 1)
+			throw new IOException("not a GSB file");
+
+		for (int i = 0; i < magic.length; i++)
+			if (data.get() != magic[i])
+				throw new IOException("not a GSB file");
+
+		version = data.get();
+
+		if (version > FileSinkGSB.VERSION)
+			throw new IOException("unsupported GSB version " + version);
+
+		try {
+			strings = new String[(int) varint()];
+
+			for (int i = 0; i < strings.length; i++) {
+				int length = (int) varint();
+
+				if (data.hasArray()) {
+					strings[i] = new String(data.array(), data.arrayOffset()
+							+ data.position(), length, UTF8);
+					data.position(data.position() + length);
+				} else {
+					byte[] bytes = new byte[length];
+					data.get(bytes);
+					strings[i] = new String(bytes, UTF8);
+				}
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("truncated GSB file", e);
+		}
+
+		part = NODES;
+	}
+
+	public boolean nextEvents() throws IOException {
+		if (data == null)
+			throw new IOException("begin() not called");
+
+		try {
+			switch (part) {
+			case NODES:
+				nodeIds = new String[(int) varint()];
+
+				for (int i = 0; i < nodeIds.length; i++) {
+					nodeIds[i] = strings[(int) varint()];
+					sendNodeAdded(sourceId, nodeIds[i]);
+				}
+				break;
+			case EDGES:
+				edgeIds = new String[(int) varint()];
+
+				for (int i = 0; i < edgeIds.length; i++) {
+					edgeIds[i] = strings[(int) varint()];
+					long source = varint();
+					int target = (int) varint();
+
+					sendEdgeAdded(sourceId, edgeIds[i],
+							nodeIds[(int) (source >> 1)], nodeIds[target],
+							(source & 1) != 0);
+				}
+				break;
+			case GRAPH_ATTRIBUTES:
+			case NODE_ATTRIBUTES:
+			case EDGE_ATTRIBUTES:
+				section(part);
+				break;
+			default:
+				return false;
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("malformed GSB file", e);
+		}
+
+		return ++part < DONE;
+	}
+
+	public boolean nextStep() throws IOException {
+		while (nextEvents())
+			;
+
+		return false;
+	}
+
+	public void end() throws IOException {
+		data = null;
+		strings = null;
+		nodeIds = null;
+		edgeIds = null;
+	}
+
+	/**
+	 * Send the attributes of a section.
+	 * 
+	 * @param part
+	 *            One of the attribute parts.
+	 */
+	protected void section(int part) {
+		String[] ids = part == NODE_ATTRIBUTES ? nodeIds : edgeIds;
+		int columns = (int) varint();
+
+		for (int c = 0; c < columns; c++) {
+			String key = strings[(int) varint()];
+			int type = data.get();
+			int size = (int) varint();
+			int element = -1;
+
+			for (int i = 0; i < size; i++) {
+				element += (int) varint() + 1;
+
+				Object value;
+
+				if (type == NetStreamConstants.TYPE_RAW)
+					value = value(data.get());
+				else
+					value = value(type);
+
+				if (part == GRAPH_ATTRIBUTES)
+					sendGraphAttributeAdded(sourceId, key, value);
+				else if (part == NODE_ATTRIBUTES)
+					sendNodeAttributeAdded(sourceId, ids[element], key, value);
+				else
+					sendEdgeAttributeAdded(sourceId, ids[element], key, value);
+			}
+		}
+	}
+
+	protected Object value(int type) {
+		if (type == NetStreamConstants.TYPE_DOUBLE)
+			return data.getDouble();
+		else if (type == NetStreamConstants.TYPE_FLOAT)
+			return data.getFloat();
+		else if (type == NetStreamConstants.TYPE_INT)
+			return (int) zigzag(varint());
+		else if (type == NetStreamConstants.TYPE_LONG)
+			return zigzag(varint());
+		else if (type == NetStreamConstants.TYPE_SHORT)
+			return (short) zigzag(varint());
+		else if (type == NetStreamConstants.TYPE_BOOLEAN)
+			return data.get() != 0;
+		else if (type == NetStreamConstants.TYPE_STRING)
+			return strings[(int) varint()];
+		else if (type == NetStreamConstants.TYPE_NULL)
+			return null;
+		else if (version < 2)
+			// Version 1 stored the other values as NetStream does.
+			return NetStreamUtils.decodeValue(data, type);
+		else if (type == NetStreamConstants.TYPE_BYTE)
+			return data.get();
+		else if (type == NetStreamConstants.TYPE_ARRAY) {
+			Object[] array = new Object[(int) varint()];
+
+			for (int i = 0; i < array.length; i++)
+				array[i] = value(data.get());
+
+			return array;
+		} else if (type == FileSinkGSB.TYPE_COLOR) {
+			int r = data.get() & 0xFF;
+			int g = data.get() & 0xFF;
+			int b = data.get() & 0xFF;
+
+			return new Color(r, g, b, data.get() & 0xFF);
+		} else if (type == FileSinkGSB.TYPE_MAP) {
+			int size = (int) varint();
+			HashMap<String, Object> map = new HashMap<String, Object>();
+
+			for (int i = 0; i < size; i++) {
+				String key = strings[(int) varint()];
+				map.put(key, value(data.get()));
+			}
+
+			return map;
+		}
+
+		return array(type);
+	}
+
+	/**
+	 * Read a primitive array.
+	 */
+	protected Object array(int type) {
+		int length = (int) varint();
+
+		if (type == NetStreamConstants.TYPE_DOUBLE_ARRAY) {
+			double[] array = new double[length];
+
+			for (int i = 0; i < length; i++)
+				array[i] = data.getDouble();
+
+			return array;
+		} else if (type == NetStreamConstants.TYPE_FLOAT_ARRAY) {
+			float[] array = new float[length];
+
+			for (int i = 0; i < length; i++)
+				array[i] = data.getFloat();
+
+			return array;
+		} else if (type == NetStreamConstants.TYPE_LONG_ARRAY) {
+			long[] array = new long[length];
+
+			for (int i = 0; i < length; i++)
+				array[i] = zigzag(varint());
+
+			return array;
+		} else if (type == NetStreamConstants.TYPE_INT_ARRAY) {
+			int[] array = new int[length];
+
+			for (int i = 0; i < length; i++)
+				array[i] = (int) zigzag(varint());
+
+			return array;
+		} else if (type == NetStreamConstants.TYPE_SHORT_ARRAY) {
+			short[] array = new short[length];
+
+			for (int i = 0; i < length; i++)
+				array[i] = (short) zigzag(varint());
+
+			return array;
+		} else if (type == NetStreamConstants.TYPE_BYTE_ARRAY) {
+			byte[] array = new byte[length];
+			data.get(array);
+			return array;
+		} else if (type == NetStreamConstants.TYPE_BOOLEAN_ARRAY) {
+			boolean[] array = new boolean[length];
+
+			for (int i = 0; i < length; i++)
+				array[i] = data.get() != 0;
+
+			return array;
+		}
+
+		throw new IllegalArgumentException("unknown GSB type " + type);
+	}
+
+	protected long varint() {
+		long number = 0;
+		int shift = 0;
+		byte b;
+
+		do {
+			b = data.get();
+			number |= (b & 127L) << shift;
+			shift += 7;
+		} while ((b & 128) != 0);
+
+		return number;
+	}
+
+	protected long zigzag(long n) {
+		if (version < 2)
+			return ((n & 1) == 0) ? n >> 1 : -(n >> 1);
+
+		return (n >>> 1) ^ -(n & 1);
+	}
+}
@@ -35,7 +35,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
-import java.util.HashSet;
 
 /**
  * Reader for the "LGL" graph format.
@@ -67,26 +66,7 @@ import java.util.HashSet;
  * 
  * The usual file name extension for this format is ".lgl".
  */
-public class FileSourceLGL extends FileSourceBase {
-	// Attribute
-
-	/**
-	 * Allocator for edge identifiers.
-	 */
-	protected int edgeid = 0;
-
-	/**
-	 * Set of existing nodes (if nodes are declared).
-	 */
-	protected HashSet<String> nodes;
-
-	/**
-	 * The current source node.
-	 */
-	protected String source;
-
-	protected String graphName = "LGL_";
-	
+public class FileSourceLGL extends FileSourceEdgeListBase {
 	// Construction
 
 	/**
@@ -103,7 +83,7 @@ public class FileSourceLGL extends FileSourceBase {
 	 *            If true (default=true) this reader outputs nodeAdded events.
 	 */
 	public FileSourceLGL(boolean declareNodes) {
-		nodes = declareNodes ? new HashSet<String>() : null;
+		super("LGL_", declareNodes);
 	}
 
 	// Commands
@@ -127,6 +107,7 @@ public class FileSourceLGL extends FileSourceBase {
 			
 			if(!src.equals("EOL") && !src.equals("EOF")) {
 				source = src;
+				declareNode(src);
 			} else {
 				source = null;
 			}
@@ -149,6 +130,7 @@ public class FileSourceLGL extends FileSourceBase {
 				
 				String edgeId = Integer.toString(edgeid++);
 				
+				declareNode(id1);
 				sendEdgeAdded(graphName, edgeId, source, id1, false);
 				
 				if(weight != null) {
@@ -160,12 +142,39 @@ public class FileSourceLGL extends FileSourceBase {
 		return true;
 	}
 
-	protected void declareNode(String id) {
-		if (nodes != null) {
-			if (!nodes.contains(id)) {
-				sendNodeAdded(graphName, id);
-				nodes.add(id);
+	@Override
+	protected void configureChunk(Chunk chunk) {
+		super.configureChunk(chunk);
+		chunk.commentChar('%');
+		chunk.ordinaryChar('#');
+	}
+
+	@Override
+	protected void parseChunk(Chunk chunk) throws IOException {
+		int tok;
+
+		while ((tok = chunk.next()) != Chunk.EOF) {
+			if (tok == '#') {
+				// A new sequence of edges starts.
+				tok = chunk.next();
+
+				if (tok == Chunk.EOL || tok == Chunk.EOF)
+					chunk.source(-1);
+				else
+					chunk.source(chunk.word(tok));
+			} else if (tok != Chunk.EOL) {
+				int id1 = chunk.wordOrSymbol(tok);
+
+				tok = chunk.next();
+
+				if (tok == Chunk.EOL || tok == Chunk.EOF)
+					chunk.target(id1);
+				else
+					chunk.target(id1, chunk.weight(tok));
 			}
+
+			if (tok == Chunk.EOF)
+				break;
 		}
 	}
 
@@ -196,9 +205,9 @@ public class FileSourceLGL extends FileSourceBase {
 	protected void init() throws IOException {
 		st.eolIsSignificant(true);
 		st.commentChar('%');
+		st.ordinaryChar('#');
 
-		graphName = String.format("%s_%d", graphName,
-				System.currentTimeMillis() + ((long) Math.random() * 10));
+		initGraphName();
 	}
 
 	public boolean nextStep() throws IOException {
@@ -35,7 +35,6 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.net.URL;
-import java.util.HashSet;
 
 /**
  * Reader for the "ncol" graph format.
@@ -76,21 +75,9 @@ import java.util.HashSet;
  * 
  * The usual file name extension for this format is ".ncol".
  */
-public class FileSourceNCol extends FileSourceBase {
+public class FileSourceNCol extends FileSourceEdgeListBase {
 	// Attribute
 
-	/**
-	 * Allocator for edge identifiers.
-	 */
-	protected int edgeid = 0;
-
-	/**
-	 * Set of existing nodes (if nodes are declared).
-	 */
-	protected HashSet<String> nodes;
-
-	protected String graphName = "NCOL_";
-
 	// Construction
 
 	/**
@@ -107,7 +94,7 @@ public class FileSourceNCol extends FileSourceBase {
 	 *            If true (default=true) this reader outputs nodeAdded events.
 	 */
 	public FileSourceNCol(boolean declareNodes) {
-		nodes = declareNodes ? new HashSet<String>() : null;
+		super("NCOL_", declareNodes);
 	}
 
 	// Commands
@@ -164,11 +151,34 @@ public class FileSourceNCol extends FileSourceBase {
 		return true;
 	}
 
-	protected void declareNode(String id) {
-		if (nodes != null) {
-			if (!nodes.contains(id)) {
-				sendNodeAdded(graphName, id);
-				nodes.add(id);
+	@Override
+	protected void parseChunk(Chunk chunk) throws IOException {
+		int tok;
+
+		while ((tok = chunk.next()) != Chunk.EOF) {
+			if (tok != Chunk.EOL) {
+				int id1 = chunk.word(tok);
+
+				chunk.declare(id1);
+
+				tok = chunk.next();
+
+				if (tok == Chunk.EOL || tok == Chunk.EOF)
+					throw new IOException("unexpected EOL or EOF");
+
+				int id2 = chunk.word(tok);
+
+				if (!chunk.same(id1, id2)) {
+					tok = chunk.next();
+
+					if (tok == Chunk.EOL || tok == Chunk.EOF)
+						chunk.edge(id1, id2);
+					else
+						chunk.edge(id1, id2, chunk.weight(tok));
+
+					if (tok == Chunk.EOF)
+						break;
+				}
 			}
 		}
 	}
@@ -201,8 +211,7 @@ public class FileSourceNCol extends FileSourceBase {
 		st.eolIsSignificant(true);
 		st.commentChar('#');
 
-		graphName = String.format("%s_%d", graphName,
-				System.currentTimeMillis() + ((long) Math.random() * 10));
+		initGraphName();
 	}
 
 	public boolean nextStep() throws IOException {
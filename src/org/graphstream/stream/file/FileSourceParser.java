@@ -76,7 +76,7 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 	 * @see org.graphstream.stream.file.FileSource#readAll(java.lang.String)
 	 */
 	public void readAll(String fileName) throws IOException {
-		Parser parser = factory.newParser(createReaderForFile(fileName));
+		Parser parser = createParserForFile(fileName);
 
 		try {
 			parser.all();
@@ -109,7 +109,7 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 	 * @see org.graphstream.stream.file.FileSource#readAll(java.io.InputStream)
 	 */
 	public void readAll(InputStream stream) throws IOException {
-		Parser parser = factory.newParser(new InputStreamReader(stream));
+		Parser parser = createParserForStream(stream);
 
 		try {
 			parser.all();
@@ -144,7 +144,7 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 		if (parser != null)
 			end();
 
-		parser = factory.newParser(createReaderForFile(fileName));
+		parser = createParserForFile(fileName);
 
 		try {
 			parser.open();
@@ -174,7 +174,7 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 	 * @see org.graphstream.stream.file.FileSource#begin(java.io.InputStream)
 	 */
 	public void begin(InputStream stream) throws IOException {
-		parser = factory.newParser(new InputStreamReader(stream));
+		parser = createParserForStream(stream);
 
 		try {
 			parser.open();
@@ -229,6 +229,35 @@ public abstract class FileSourceParser extends SourceBase implements FileSource
 		parser = null;
 	}
 
+	/**
+	 * Create a parser reading the given file. By default the parser reads the
+	 * reader given by {@link #createReaderForFile(String)}.
+	 * 
+	 * @param filename
+	 *            Path of the file.
+	 * @return A new parser.
+	 * @throws IOException
+	 *             If the file cannot be opened.
+	 */
+	protected Parser createParserForFile(String filename) throws IOException {
+		return factory.newParser(createReaderForFile(filename));
+	}
+
+	/**
+	 * Create a parser reading the given stream. By default the parser reads the
+	 * stream through an {@link InputStreamReader}.
+	 * 
+	 * @param stream
+	 *            The input.
+	 * @return A new parser.
+	 * @throws IOException
+	 *             If the stream cannot be read.
+	 */
+	protected Parser createParserForStream(InputStream stream)
+			throws IOException {
+		return factory.newParser(new InputStreamReader(stream));
+	}
+
 	protected Reader createReaderForFile(String filename) throws IOException {
 		return new FileReader(filename);
 	}
@@ -0,0 +1,305 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GZIP output stream compressing in a background thread.
+ * 
+ * <p>
+ * Bytes written to this stream are copied into fixed-size blocks that are
+ * handed to a worker thread, which compresses and writes them to the
+ * underlying stream. The thread writing events therefore only pays for a copy,
+ * while deflating runs on another core. Blocks are recycled, and at most
+ * {@link #BLOCK_COUNT} of them are in flight: when the worker falls behind the
+ * writer blocks.
+ * </p>
+ * 
+ * <p>
+ * Errors raised by the worker are reported by the next call to
+ * {@link #write(byte[], int, int)}, {@link #flush()} or {@link #close()}.
+ * Whatever happened, {@link #close()} stops the worker and closes the
+ * underlying stream.
+ * </p>
+ */
+public class BackgroundGZIPOutputStream extends OutputStream {
+	/**
+	 * Default size of a block.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	/**
+	 * Number of blocks circulating between the writer and the worker.
+	 */
+	public static final int BLOCK_COUNT = 4;
+
+	/**
+	 * A chunk of data, or a flush or close request when its length is negative.
+	 */
+	protected static class Block {
+		static final int FLUSH = -1;
+		static final int CLOSE = -2;
+
+		byte[] data;
+		int length;
+
+		Block(int size) {
+			data = new byte[size];
+		}
+	}
+
+	// Attribute
+
+	/**
+	 * The compressed output, only used by the worker.
+	 */
+	protected GZIPOutputStream out;
+
+	/**
+	 * The underlying stream, closed by the worker when it stops.
+	 */
+	protected OutputStream sink;
+
+	/**
+	 * Blocks waiting to be compressed.
+	 */
+	protected BlockingQueue<Block> pending;
+
+	/**
+	 * Blocks that can be filled.
+	 */
+	protected BlockingQueue<Block> free;
+
+	/**
+	 * Block being filled.
+	 */
+	protected Block current;
+
+	/**
+	 * First error raised by the worker.
+	 */
+	protected volatile IOException error;
+
+	/**
+	 * Signal from the worker that a flush or close request is done.
+	 */
+	protected BlockingQueue<Object> done;
+
+	protected Thread worker;
+
+	protected boolean closed;
+
+	// Construction
+
+	public BackgroundGZIPOutputStream(OutputStream out) throws IOException {
+		this(out, DEFAULT_BLOCK_SIZE);
+	}
+
+	public BackgroundGZIPOutputStream(OutputStream out, int blockSize)
+			throws IOException {
+		this.sink = out;
+		this.out = new GZIPOutputStream(out, blockSize, true);
+		this.pending = new ArrayBlockingQueue<Block>(BLOCK_COUNT + 1);
+		this.free = new ArrayBlockingQueue<Block>(BLOCK_COUNT);
+		this.done = new ArrayBlockingQueue<Object>(1);
+
+		for (int i = 1; i < BLOCK_COUNT; i++)
+			free.add(new Block(blockSize));
+
+		current = new Block(blockSize);
+		worker = new Thread(new Worker(), "gzip-"
+				+ Integer.toHexString(System.identityHashCode(this)));
+		worker.setDaemon(true);
+		worker.start();
+	}
+
+	// Command
+
+	@Override
+	public void write(int b) throws IOException {
+		check();
+
+		if (current.length == current.data.length)
+			send();
+
+		current.data[current.length++] = (byte) b;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		check();
+
+		while (len > 0) {
+			if (current.length == current.data.length)
+				send();
+
+			int n = Math.min(len, current.data.length - current.length);
+
+			System.arraycopy(b, off, current.data, current.length, n);
+			current.length += n;
+			off += n;
+			len -= n;
+		}
+	}
+
+	/**
+	 * Wait until every byte written so far went through the compressor, then
+	 * flush the compressor and the underlying stream. The compressor is
+	 * sync-flushed, so the bytes written so far can be decompressed from
+	 * what reached the underlying stream.
+	 */
+	@Override
+	public void flush() throws IOException {
+		check();
+		request(Block.FLUSH);
+		check();
+	}
+
+	/**
+	 * Finish the compressed stream, close the underlying stream and stop the
+	 * worker.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+
+		closed = true;
+
+		// The close request is sent even after an error: it is the only way
+		// to stop the worker and close the underlying stream.
+		try {
+			request(Block.CLOSE);
+		} catch (InterruptedIOException e) {
+			worker.interrupt();
+			throw e;
+		}
+
+		if (error != null)
+			throw error;
+	}
+
+	protected void check() throws IOException {
+		if (closed)
+			throw new IOException("stream closed");
+
+		if (error != null)
+			throw error;
+	}
+
+	/**
+	 * Hand the current block to the worker and take a free one.
+	 */
+	protected void send() throws IOException {
+		try {
+			pending.put(current);
+			current = free.take();
+			current.length = 0;
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+	}
+
+	protected void request(int kind) throws IOException {
+		if (current.length > 0)
+			send();
+
+		Block request = new Block(0);
+		request.length = kind;
+
+		try {
+			pending.put(request);
+			done.take();
+		} catch (InterruptedException e) {
+			throw new InterruptedIOException();
+		}
+	}
+
+	protected class Worker implements Runnable {
+		public void run() {
+			boolean running = true;
+
+			while (running) {
+				Block block;
+
+				try {
+					block = pending.take();
+				} catch (InterruptedException e) {
+					closeSink();
+					return;
+				}
+
+				running = block.length != Block.CLOSE;
+
+				try {
+					if (error == null) {
+						if (block.length >= 0)
+							out.write(block.data, 0, block.length);
+						else if (running)
+							out.flush();
+						else
+							out.close();
+					}
+				} catch (IOException e) {
+					error = e;
+				}
+
+				if (!running)
+					closeSink();
+
+				if (block.length >= 0)
+					free.add(block);
+				else
+					done.add(block);
+			}
+		}
+
+		/**
+		 * Close the underlying stream, which the compressor may have left
+		 * open if it failed. Closing a closed stream has no effect.
+		 */
+		protected void closeSink() {
+			try {
+				sink.close();
+			} catch (IOException e) {
+				if (error == null)
+					error = e;
+			}
+		}
+	}
+}
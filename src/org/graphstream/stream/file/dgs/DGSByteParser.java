@@ -0,0 +1,512 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import org.graphstream.stream.file.FileSourceDGS;
+import org.graphstream.util.parser.ParseException;
+
+/**
+ * DGS parser working directly on the bytes of the input.
+ * 
+ * <p>
+ * The input is read by large blocks in a direct buffer and decoded as UTF-8 on
+ * the fly. Identifiers and strings made only of ASCII characters, which is the
+ * usual case, are recognized directly in the buffer without going through a
+ * charset decoder or a string builder. Identifiers of elements and attribute
+ * keys are also kept in an intern table, so that an element changed on many
+ * lines is always given with the same string instance. Attribute values are
+ * not interned.
+ * </p>
+ * 
+ * <p>
+ * Other inputs, identifiers and strings with escaped or non-ASCII characters
+ * are parsed by the character level methods of {@link DGSParser}, therefore
+ * this parser produces exactly the same events.
+ * </p>
+ */
+public class DGSByteParser extends DGSParser {
+	/**
+	 * Default size of the read buffer.
+	 */
+	public static final int BYTE_BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * Maximum number of interned identifiers. Once reached, new identifiers
+	 * are still decoded from the bytes but no more remembered.
+	 */
+	public static final int MAX_INTERNED = 1 << 20;
+
+	protected ReadableByteChannel channel;
+
+	protected ByteBuffer bytes;
+
+	protected int position, limit;
+
+	protected boolean eof;
+
+	/**
+	 * Depth of the values being parsed. Strings and words are only interned
+	 * outside of values and steps.
+	 */
+	protected int valueDepth;
+
+	// Intern table.
+
+	protected int[] table = new int[1024];
+
+	protected byte[][] keys = new byte[256][];
+
+	protected int[] hashes = new int[256];
+
+	protected String[] strings = new String[256];
+
+	protected int count;
+
+	/**
+	 * New parser.
+	 * 
+	 * @param dgs
+	 *            The source of the events.
+	 * @param in
+	 *            The input, read as UTF-8.
+	 */
+	public DGSByteParser(FileSourceDGS dgs, InputStream in) {
+		this(dgs, in instanceof FileInputStream ? ((FileInputStream) in)
+				.getChannel() : Channels.newChannel(in), BYTE_BUFFER_SIZE);
+	}
+
+	/**
+	 * New parser.
+	 * 
+	 * @param dgs
+	 *            The source of the events.
+	 * @param channel
+	 *            The input, read as UTF-8.
+	 * @param bufferSize
+	 *            Size of the read buffer, identifiers longer than this are
+	 *            parsed character by character.
+	 */
+	public DGSByteParser(FileSourceDGS dgs, ReadableByteChannel channel,
+			int bufferSize) {
+		super(dgs);
+		this.channel = channel;
+		this.bytes = ByteBuffer.allocateDirect(bufferSize);
+		this.position = 0;
+		this.limit = 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Move the unread bytes to the start of the buffer and read more bytes.
+	 * 
+	 * @return The number of bytes the unread bytes moved backward.
+	 */
+	protected int fill() throws IOException {
+		int shift = position;
+
+		if (eof)
+			return 0;
+
+		bytes.limit(limit).position(position);
+		bytes.compact();
+
+		int r = 0;
+
+		while (bytes.hasRemaining() && (r = channel.read(bytes)) == 0)
+			;
+
+		if (r < 0)
+			eof = true;
+
+		bytes.flip();
+		position = 0;
+		limit = bytes.limit();
+
+		return shift;
+	}
+
+	/**
+	 * Ensure the given number of bytes are available after the position, if
+	 * the input is long enough.
+	 */
+	protected boolean require(int n) throws IOException {
+		while (limit - position < n && !eof)
+			fill();
+
+		return limit - position >= n;
+	}
+
+	@Override
+	protected int nextChar() throws IOException {
+		int c;
+
+		if (pushbackOffset >= 0)
+			return pushback[pushbackOffset--];
+
+		if (!require(1))
+			return -1;
+
+		c = bytes.get(position++) & 0xFF;
+
+		if (c >= 0x80)
+			c = decode(c);
+
+		//
+		// Handle special EOL
+		// - LF
+		// - CR
+		// - CR+LF
+		//
+		if (c == '\r') {
+			if (require(1) && bytes.get(position) == '\n')
+				position++;
+
+			c = '\n';
+		}
+
+		if (c == '\n') {
+			line++;
+			column = 0;
+		} else
+			column++;
+
+		return c;
+	}
+
+	/**
+	 * Decode the end of an UTF-8 sequence. Malformed sequences are replaced by
+	 * U+FFFD.
+	 */
+	protected int decode(int c) throws IOException {
+		int n, cp;
+
+		if (c >= 0xF0 && c < 0xF8) {
+			n = 3;
+			cp = c & 0x07;
+		} else if (c >= 0xE0) {
+			n = 2;
+			cp = c & 0x0F;
+		} else if (c >= 0xC0) {
+			n = 1;
+			cp = c & 0x1F;
+		} else {
+			return 0xFFFD;
+		}
+
+		require(n);
+
+		for (int i = 0; i < n; i++) {
+			if (position >= limit)
+				return 0xFFFD;
+
+			int b = bytes.get(position) & 0xFF;
+
+			if ((b & 0xC0) != 0x80)
+				return 0xFFFD;
+
+			cp = (cp << 6) | (b & 0x3F);
+			position++;
+		}
+
+		return Character.isValidCodePoint(cp) ? cp : 0xFFFD;
+	}
+
+	/**
+	 * Give back to the buffer a character pushed back just after being read,
+	 * so that the fast paths can be used.
+	 */
+	protected void unread() {
+		if (pushbackOffset == 0) {
+			int c = pushback[0];
+
+			if (c >= 0 && c < 0x80 && c != '\n' && position > 0
+					&& bytes.get(position - 1) == c) {
+				pushbackOffset = -1;
+				position--;
+				column--;
+			}
+		}
+	}
+
+	@Override
+	protected void skipWhitespaces() throws IOException {
+		unread();
+
+		if (pushbackOffset >= 0) {
+			super.skipWhitespaces();
+			return;
+		}
+
+		while (require(1)) {
+			byte b = bytes.get(position);
+
+			if (b != ' ' && b != '\t')
+				break;
+
+			position++;
+			column++;
+		}
+	}
+
+	@Override
+	protected String id() throws IOException, ParseException {
+		skipWhitespaces();
+
+		if (pushbackOffset < 0 && require(1)) {
+			byte b = bytes.get(position);
+			String id;
+
+			if (b == '"' || b == '\'')
+				id = scanString();
+			else
+				id = scanId();
+
+			if (id != null)
+				return id;
+		}
+
+		return super.id();
+	}
+
+	@Override
+	protected String string() throws IOException, ParseException {
+		unread();
+
+		if (pushbackOffset < 0 && require(1)) {
+			String s = scanString();
+
+			if (s != null)
+				return s;
+		}
+
+		return super.string();
+	}
+
+	@Override
+	protected Object value(boolean array) throws IOException, ParseException {
+		valueDepth++;
+
+		try {
+			return super.value(array);
+		} finally {
+			valueDepth--;
+		}
+	}
+
+	private boolean interning() {
+		return valueDepth == 0 && lastDirective != Token.ST;
+	}
+
+	private static boolean isIdChar(int b) {
+		return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z')
+				|| (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '_'
+				|| b == '.';
+	}
+
+	/**
+	 * Recognize an ASCII identifier in the buffer.
+	 * 
+	 * @return The identifier or null if it has to be parsed character by
+	 *         character.
+	 */
+	protected String scanId() throws IOException {
+		int i = position;
+		int h = 0;
+
+		while (true) {
+			if (i >= limit) {
+				if (eof || (position == 0 && limit == bytes.capacity()))
+					break;
+
+				i -= fill();
+				continue;
+			}
+
+			int b = bytes.get(i) & 0xFF;
+
+			if (b >= 0x80)
+				return null;
+
+			if (!isIdChar(b))
+				break;
+
+			h = 31 * h + b;
+			i++;
+		}
+
+		if (i >= limit && !eof)
+			return null;
+
+		int length = i - position;
+
+		if (length == 0)
+			return null;
+
+		String id = interning() ? intern(position, length, h) : ascii(
+				position, length);
+
+		position = i;
+		column += length;
+
+		return id;
+	}
+
+	/**
+	 * Recognize a quoted string without escapes, end of lines or non-ASCII
+	 * characters in the buffer.
+	 * 
+	 * @return The content of the string or null if it has to be parsed
+	 *         character by character.
+	 */
+	protected String scanString() throws IOException {
+		int quote = bytes.get(position);
+		int i = position + 1;
+		int h = 0;
+
+		while (true) {
+			if (i >= limit) {
+				if (eof || (position == 0 && limit == bytes.capacity()))
+					return null;
+
+				i -= fill();
+				continue;
+			}
+
+			int b = bytes.get(i) & 0xFF;
+
+			if (b == quote)
+				break;
+
+			if (b >= 0x80 || b == '\\' || b == '\n' || b == '\r')
+				return null;
+
+			h = 31 * h + b;
+			i++;
+		}
+
+		int length = i - position - 1;
+		String s = interning() ? intern(position + 1, length, h) : ascii(
+				position + 1, length);
+
+		position = i + 1;
+		column += length + 2;
+
+		return s;
+	}
+
+	private String ascii(int from, int length) {
+		char[] chars = new char[length];
+
+		for (int i = 0; i < length; i++)
+			chars[i] = (char) bytes.get(from + i);
+
+		return new String(chars);
+	}
+
+	/**
+	 * Find or create the string made of the given ASCII bytes of the buffer.
+	 */
+	protected String intern(int from, int length, int hash) {
+		int mask = table.length - 1;
+		int slot = (hash ^ (hash >>> 16)) & mask;
+
+		while (table[slot] != 0) {
+			int id = table[slot] - 1;
+
+			if (hashes[id] == hash && keys[id].length == length
+					&& sameBytes(keys[id], from))
+				return strings[id];
+
+			slot = (slot + 1) & mask;
+		}
+
+		String s = ascii(from, length);
+
+		if (count >= MAX_INTERNED)
+			return s;
+
+		if (count == keys.length) {
+			keys = Arrays.copyOf(keys, count * 2);
+			hashes = Arrays.copyOf(hashes, count * 2);
+			strings = Arrays.copyOf(strings, count * 2);
+		}
+
+		byte[] key = new byte[length];
+
+		for (int i = 0; i < length; i++)
+			key[i] = bytes.get(from + i);
+
+		keys[count] = key;
+		hashes[count] = hash;
+		strings[count] = s;
+		table[slot] = ++count;
+
+		if (count * 2 > table.length)
+			rehash();
+
+		return s;
+	}
+
+	private boolean sameBytes(byte[] key, int from) {
+		for (int i = 0; i < key.length; i++)
+			if (key[i] != bytes.get(from + i))
+				return false;
+
+		return true;
+	}
+
+	private void rehash() {
+		table = new int[table.length * 2];
+		int mask = table.length - 1;
+
+		for (int id = 0; id < count; id++) {
+			int slot = (hashes[id] ^ (hashes[id] >>> 16)) & mask;
+
+			while (table[slot] != 0)
+				slot = (slot + 1) & mask;
+
+			table[slot] = id + 1;
+		}
+	}
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.file.dgs;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.implementations.AdjacencyListGraph;
+import org.graphstream.stream.SinkAdapter;
+import org.graphstream.stream.file.FileSinkGSB;
+import org.graphstream.stream.file.FileSourceDGS;
+
+/**
+ * Index of the steps of a DGS file.
+ * 
+ * <p>
+ * The index gives the byte offset of each "st" line of a DGS file, and holds
+ * checkpoints: snapshots of the graph, in the GSB format of
+ * {@link FileSinkGSB}, as it is just before some of these lines. Going to a
+ * step then means restoring the nearest checkpoint before it and parsing the
+ * file from the offset of this checkpoint, instead of parsing all the file from
+ * its start. A checkpoint is only placed where the snapshot is exact, that is
+ * when {@link FileSinkGSB#canStore(org.graphstream.graph.Element)} accepts the
+ * graph and all its elements, else it is skipped and seeking replays the file
+ * from the previous checkpoint. Restoring a checkpoint thus always gives the
+ * same graph as reading the file.
+ * </p>
+ * 
+ * <p>
+ * The index is stored in a sidecar file, the name of the DGS file followed by
+ * {@link #SUFFIX}. It is built on the first call to {@link #open(String)}, by
+ * reading all the DGS file, and rebuilt when the DGS file is modified. The
+ * sidecar file is made of:
+ * </p>
+ * 
+ * <ul>
+ * <li>the magic "DGSI" and a version byte,</li>
+ * <li>the length and last modification time of the DGS file,</li>
+ * <li>the GSB snapshots of the checkpoints,</li>
+ * <li>the count of steps, then the value and offset of each step,</li>
+ * <li>the count of checkpoints, then for each its step index, the offset and
+ * the length of its snapshot in the sidecar file,</li>
+ * <li>the offset of the step table.</li>
+ * </ul>
+ * 
+ * <p>
+ * Compressed DGS files cannot be indexed.
+ * </p>
+ */
+public class DGSIndex {
+	/**
+	 * Suffix appended to the name of the DGS file to get the sidecar file.
+	 */
+	public static final String SUFFIX = ".idx";
+
+	/**
+	 * Default number of steps between two checkpoints.
+	 */
+	public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+
+	protected static final byte[] MAGIC = { 'D', 'G', 'S', 'I' };
+
+	protected static final byte VERSION = 2;
+
+	// Attribute
+
+	/**
+	 * The sidecar file.
+	 */
+	protected File file;
+
+	/**
+	 * Value of each step.
+	 */
+	protected double[] steps;
+
+	/**
+	 * Offset of the "st" line of each step in the DGS file.
+	 */
+	protected long[] offsets;
+
+	/**
+	 * Index of the step following each checkpoint, in increasing order.
+	 */
+	protected int[] checkpoints;
+
+	protected long[] checkpointOffsets;
+
+	protected long[] checkpointLengths;
+
+	// Construction
+
+	protected DGSIndex(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Load the index of a DGS file, building it if it does not exist or is
+	 * outdated.
+	 * 
+	 * @param dgsFile
+	 *            Path of the DGS file.
+	 * @return The index.
+	 * @throws IOException
+	 *             If the DGS file cannot be read or is compressed.
+	 */
+	public static DGSIndex open(String dgsFile) throws IOException {
+		DGSIndex index = load(dgsFile);
+
+		if (index == null)
+			index = build(dgsFile, DEFAULT_CHECKPOINT_INTERVAL);
+
+		return index;
+	}
+
+	/**
+	 * Load the index of a DGS file.
+	 * 
+	 * @param dgsFile
+	 *            Path of the DGS file.
+	 * @return The index or null if there is no index or if it is outdated.
+	 */
+	public static DGSIndex load(String dgsFile) throws IOException {
+		File dgs = new File(dgsFile);
+		File sidecar = new File(dgsFile + SUFFIX);
+
+		if (!sidecar.isFile() || sidecar.length() < MAGIC.length + 25)
+			return null;
+
+		RandomAccessFile in = new RandomAccessFile(sidecar, "r");
+
+		try {
+			for (int i = 0; i < MAGIC.length; i++)
+				if (in.readByte() != MAGIC[i])
+					return null;
+
+			if (in.readByte() != VERSION || in.readLong() != dgs.length()
+					|| in.readLong() != dgs.lastModified())
+				return null;
+
+			in.seek(in.length() - 8);
+
+			long start = in.readLong();
+			byte[] bytes = new byte[(int) (in.length() - 8 - start)];
+
+			in.seek(start);
+			in.readFully(bytes);
+
+			ByteBuffer table = ByteBuffer.wrap(bytes);
+			DGSIndex index = new DGSIndex(sidecar);
+			int n = table.getInt();
+
+			index.steps = new double[n];
+			index.offsets = new long[n];
+
+			for (int i = 0; i < n; i++) {
+				index.steps[i] = table.getDouble();
+				index.offsets[i] = table.getLong();
+			}
+
+			n = table.getInt();
+
+			index.checkpoints = new int[n];
+			index.checkpointOffsets = new long[n];
+			index.checkpointLengths = new long[n];
+
+			for (int i = 0; i < n; i++) {
+				index.checkpoints[i] = table.getInt();
+				index.checkpointOffsets[i] = table.getLong();
+				index.checkpointLengths[i] = table.getLong();
+			}
+
+			return index;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Build the index of a DGS file and store it in its sidecar file. If the
+	 * sidecar file cannot be written, the index is stored in a temporary file.
+	 * 
+	 * @param dgsFile
+	 *            Path of the DGS file.
+	 * @param interval
+	 *            Number of steps between two checkpoints.
+	 * @return The index.
+	 */
+	public static DGSIndex build(String dgsFile, final int interval)
+			throws IOException {
+		File dgs = new File(dgsFile);
+		File sidecar = new File(dgsFile + SUFFIX);
+		FileOutputStream out;
+
+		try {
+			out = new FileOutputStream(sidecar);
+		} catch (IOException e) {
+			sidecar = File.createTempFile(dgs.getName(), SUFFIX);
+			sidecar.deleteOnExit();
+			out = new FileOutputStream(sidecar);
+		}
+
+		final DGSIndex index = new DGSIndex(sidecar);
+		final FileOutputStream output = out;
+		final FileChannel channel = out.getChannel();
+		final long length = dgs.length();
+		final long lastModified = dgs.lastModified();
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(MAGIC.length + 17);
+			header.put(MAGIC).put(VERSION).putLong(length).putLong(lastModified);
+			out.write(header.array());
+
+			index.offsets = scan(dgsFile);
+			index.steps = new double[index.offsets.length];
+			index.checkpoints = new int[0];
+			index.checkpointOffsets = new long[0];
+			index.checkpointLengths = new long[0];
+
+			final Graph graph = new AdjacencyListGraph("index", false, true);
+			final FileSinkGSB snapshot = new FileSinkGSB();
+			final IOException[] error = new IOException[1];
+			final int[] step = new int[1];
+			final int[] next = { interval };
+			FileSourceDGS source = new FileSourceDGS();
+
+			source.addSink(graph);
+			source.addSink(new SinkAdapter() {
+				@Override
+				public void stepBegins(String sourceId, long timeId,
+						double time) {
+					int i = step[0]++;
+
+					if (i < index.steps.length)
+						index.steps[i] = time;
+
+					if (i >= next[0] && error[0] == null) {
+						next[0] = i + interval;
+
+						if (isExact(graph)) {
+							try {
+								long start = channel.position();
+								snapshot.writeAll(graph, output);
+								index.addCheckpoint(i, start,
+										channel.position() - start);
+							} catch (IOException e) {
+								error[0] = e;
+							}
+						}
+					}
+				}
+			});
+
+			source.readAll(dgsFile);
+
+			if (error[0] != null)
+				throw error[0];
+
+			if (step[0] != index.offsets.length)
+				throw new IOException(String.format(
+						"found %d step lines but read %d steps",
+						index.offsets.length, step[0]));
+
+			long table = channel.position();
+			DataOutputStream data = new DataOutputStream(
+					new BufferedOutputStream(out));
+
+			data.writeInt(index.steps.length);
+
+			for (int i = 0; i < index.steps.length; i++) {
+				data.writeDouble(index.steps[i]);
+				data.writeLong(index.offsets[i]);
+			}
+
+			data.writeInt(index.checkpoints.length);
+
+			for (int i = 0; i < index.checkpoints.length; i++) {
+				data.writeInt(index.checkpoints[i]);
+				data.writeLong(index.checkpointOffsets[i]);
+				data.writeLong(index.checkpointLengths[i]);
+			}
+
+			data.writeLong(table);
+			data.flush();
+		} finally {
+			out.close();
+		}
+
+		if (dgs.length() != length || dgs.lastModified() != lastModified)
+			throw new IOException("DGS file modified while indexing");
+
+		return index;
+	}
+
+	/**
+	 * Can a snapshot of the graph hold all its attributes?
+	 */
+	protected static boolean isExact(Graph graph) {
+		if (!FileSinkGSB.canStore(graph))
+			return false;
+
+		for (int i = 0; i < graph.getNodeCount(); i++)
+			if (!FileSinkGSB.canStore(graph.getNode(i)))
+				return false;
+
+		for (int i = 0; i < graph.getEdgeCount(); i++)
+			if (!FileSinkGSB.canStore(graph.getEdge(i)))
+				return false;
+
+		return true;
+	}
+
+	/**
+	 * Find the offsets of the lines starting with a "st" directive.
+	 */
+	protected static long[] scan(String dgsFile) throws IOException {
+		FileInputStream in = new FileInputStream(dgsFile);
+		long[] offsets = new long[1024];
+		int count = 0;
+
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+			long base = 0;
+			int line = 0;
+			long lineStart = 0;
+			int state = 0;
+
+			while (channel.read(buffer) >= 0 || buffer.position() > 0) {
+				buffer.flip();
+
+				if (base == 0 && buffer.remaining() >= 2
+						&& buffer.get(0) == (byte) 0x1f
+						&& buffer.get(1) == (byte) 0x8b)
+					throw new IOException("cannot index a compressed file");
+
+				while (buffer.hasRemaining()) {
+					byte b = buffer.get();
+
+					if (b == '\n') {
+						line++;
+						state = 0;
+						lineStart = base + buffer.position();
+						continue;
+					}
+
+					// The two first lines are the header.
+					if (line < 2)
+						continue;
+
+					// State: 0 line start, 1 's' read, 2 "st" read, 3 other.
+					switch (state) {
+					case 0:
+						if (b == 's')
+							state = 1;
+						else if (b != ' ' && b != '\t')
+							state = 3;
+						break;
+					case 1:
+						state = b == 't' ? 2 : 3;
+						break;
+					case 2:
+						if (b == ' ' || b == '\t') {
+							if (count == offsets.length)
+								offsets = Arrays.copyOf(offsets, count * 2);
+
+							offsets[count++] = lineStart;
+						}
+
+						state = 3;
+						break;
+					}
+				}
+
+				base += buffer.limit();
+				buffer.clear();
+			}
+		} finally {
+			in.close();
+		}
+
+		return Arrays.copyOf(offsets, count);
+	}
+
+	protected void addCheckpoint(int step, long offset, long length) {
+		int n = checkpoints.length;
+
+		checkpoints = Arrays.copyOf(checkpoints, n + 1);
+		checkpointOffsets = Arrays.copyOf(checkpointOffsets, n + 1);
+		checkpointLengths = Arrays.copyOf(checkpointLengths, n + 1);
+		checkpoints[n] = step;
+		checkpointOffsets[n] = offset;
+		checkpointLengths[n] = length;
+	}
+
+	// Access
+
+	/**
+	 * Number of steps in the DGS file.
+	 */
+	public int getStepCount() {
+		return steps.length;
+	}
+
+	/**
+	 * Value of a step.
+	 * 
+	 * @param i
+	 *            Index of the step.
+	 */
+	public double getStep(int i) {
+		return steps[i];
+	}
+
+	/**
+	 * Offset of the line of a step in the DGS file.
+	 * 
+	 * @param i
+	 *            Index of the step.
+	 */
+	public long getOffset(int i) {
+		return offsets[i];
+	}
+
+	/**
+	 * Index of the last step whose value is lower or equal to the given one.
+	 * 
+	 * @param step
+	 *            A step value.
+	 * @return A step index, or -1 if all steps are greater.
+	 */
+	public int indexOf(double step) {
+		int found = -1;
+
+		for (int i = 0; i < steps.length; i++)
+			if (steps[i] <= step && (found < 0 || steps[i] >= steps[found]))
+				found = i;
+
+		return found;
+	}
+
+	/**
+	 * Number of checkpoints.
+	 */
+	public int getCheckpointCount() {
+		return checkpoints.length;
+	}
+
+	/**
+	 * Find the nearest checkpoint before a step.
+	 * 
+	 * @param step
+	 *            Index of a step.
+	 * @return Index of the checkpoint, or -1 if there is no checkpoint before
+	 *         this step.
+	 */
+	public int getCheckpointBefore(int step) {
+		int i = Arrays.binarySearch(checkpoints, step);
+		return i >= 0 ? i : -i - 2;
+	}
+
+	/**
+	 * Index of the step that follows a checkpoint. The checkpoint is the state
+	 * of the graph just before the line of this step.
+	 * 
+	 * @param checkpoint
+	 *            Index of the checkpoint.
+	 */
+	public int getCheckpointStep(int checkpoint) {
+		return checkpoints[checkpoint];
+	}
+
+	/**
+	 * Open the GSB snapshot of a checkpoint.
+	 * 
+	 * @param checkpoint
+	 *            Index of the checkpoint.
+	 * @return The snapshot, to be closed by the caller.
+	 */
+	public InputStream openCheckpoint(int checkpoint) throws IOException {
+		RandomAccessFile in = new RandomAccessFile(file, "r");
+		byte[] snapshot = new byte[(int) checkpointLengths[checkpoint]];
+
+		try {
+			in.seek(checkpointOffsets[checkpoint]);
+			in.readFully(snapshot);
+		} finally {
+			in.close();
+		}
+
+		return new ByteArrayInputStream(snapshot);
+	}
+}
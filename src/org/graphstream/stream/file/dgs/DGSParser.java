@@ -71,13 +71,10 @@ public class DGSParser implements Parser {
 	// ISODateIO dateIO;
 
 	public DGSParser(FileSourceDGS dgs, Reader reader) {
-		this.dgs = dgs;
+		this(dgs);
 		this.reader = reader;
 		bufferCapacity = 0;
 		buffer = new char[BUFFER_SIZE];
-		pushback = new int[10];
-		pushbackOffset = -1;
-		this.sourceId = String.format("<DGS stream %x>", System.nanoTime());
 
 		// try {
 		// dateIO = new ISODateIO();
@@ -86,6 +83,20 @@ public class DGSParser implements Parser {
 		// }
 	}
 
+	/**
+	 * Constructor for parsers that do not read characters from a reader.
+	 * Such parsers override {@link #nextChar()} and {@link #close()}.
+	 * 
+	 * @param dgs
+	 *            The source of the events.
+	 */
+	protected DGSParser(FileSourceDGS dgs) {
+		this.dgs = dgs;
+		pushback = new int[10];
+		pushbackOffset = -1;
+		this.sourceId = String.format("<DGS stream %x>", System.nanoTime());
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -602,6 +602,44 @@ package org.graphstream.stream.netstream;
  * <li>the attribute name (encoded with the TYPE_STRING format).</li>
  * </ul>
  * </li>
+ * <li>
+ * <p class="first">
+ * <tt class="docutils literal">EVENT_CHG_NODE_ATTR_DELTA</tt> [0x1F]
+ * </p>
+ * <p>
+ * Change an attribute of a node whose value is an array of numbers, sent as
+ * values quantized with a given precision. These events are only sent by
+ * encoders asked to do so. Followed by:
+ * </p>
+ * <ul class="simple">
+ * <li>the ID of the considered node (TYPE_STRING format)</li>
+ * <li>the attribute name (TYPE_STRING format)</li>
+ * <li>the precision, a signed byte <tt>d</tt>: a value <tt>v</tt> is
+ * quantized as <tt>round(v * 10^d)</tt></li>
+ * <li>the kind of the event, a byte: <tt>DELTA_ABSOLUTE</tt> [0x00] or
+ * <tt>DELTA_RELATIVE</tt> [0x01]</li>
+ * <li>for an absolute event only, the attribute's old value type and the old
+ * value</li>
+ * <li>the number of values (unsigned varint)</li>
+ * <li>for an absolute event, the quantized values, for a relative event, the
+ * differences between the quantized values and the last quantized values
+ * received for this attribute (TYPE_LONG format)</li>
+ * </ul>
+ * <p>
+ * The new value is an array of doubles, the quantized values divided by
+ * <tt>10^d</tt>. A relative event for an attribute whose last values are not
+ * known, because the receiver connected after the absolute event, is ignored
+ * until the next absolute event.
+ * </p>
+ * </li>
+ * <li>
+ * <p class="first">
+ * <tt class="docutils literal">EVENT_CHG_EDGE_ATTR_DELTA</tt> [0x20]
+ * </p>
+ * <p>
+ * Same as <tt>EVENT_CHG_NODE_ATTR_DELTA</tt> for an edge.
+ * </p>
+ * </li>
  * </ul>
  * </div> </div>
  * 
@@ -631,6 +669,18 @@ public class NetStreamConstants {
 	 */
 	public static int EVENT_END = 0x02;
 
+	/**
+	 * Asks the other end to compress what it sends. Not followed by anything.
+	 * Peers not supporting compression ignore it.
+	 */
+	public static int EVENT_DEFLATE_REQUEST = 0x03;
+
+	/**
+	 * Not followed by anything. All the data sent after this message on the
+	 * connection is a deflate stream, flushed after each write.
+	 */
+	public static int EVENT_DEFLATE_START = 0x04;
+
 	//
 	// ----------------------------------
 	// GraphStream's graph events
@@ -715,6 +765,29 @@ public class NetStreamConstants {
 	 */
 	public static int EVENT_DEL_EDGE_ATTR = 0x1e;
 
+	/**
+	 * Followed by - the node id (TYPE_STRING format) - the attribute id
+	 * (TYPE_STRING format) - the precision (one byte) - the delta kind (one
+	 * byte) - for absolute values only, the attribute TYPE and old value - the
+	 * number of values (unsigned varint) - the values (varints)
+	 */
+	public static int EVENT_CHG_NODE_ATTR_DELTA = 0x1f;
+
+	/**
+	 * Same as {@link #EVENT_CHG_NODE_ATTR_DELTA} for an edge.
+	 */
+	public static int EVENT_CHG_EDGE_ATTR_DELTA = 0x20;
+
+	/**
+	 * Kind of a delta event carrying the quantized values themselves.
+	 */
+	public static int DELTA_ABSOLUTE = 0x00;
+
+	/**
+	 * Kind of a delta event carrying the differences with the last values.
+	 */
+	public static int DELTA_RELATIVE = 0x01;
+
 	// Values types
 
 	public static int TYPE_UNKNOWN = 0x00;
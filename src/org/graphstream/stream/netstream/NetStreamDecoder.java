@@ -46,6 +46,11 @@ import java.util.logging.Logger;
 public class NetStreamDecoder extends SourceBase implements ByteDecoder {
     private static final Logger LOGGER = Logger.getLogger(NetStreamDecoder.class.getName());
 
+    /**
+     * Last values received as deltas.
+     */
+    protected final NetStreamDeltas deltas = new NetStreamDeltas();
+
     @Override
     public boolean validate(ByteBuffer buffer) {
         if (buffer.position() >= 4) {
@@ -93,8 +98,16 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
                 serve_EVENT_CHG_EDGE_ATTR(bb);
             } else if (cmd == NetStreamConstants.EVENT_DEL_EDGE_ATTR) {
                 serve_EVENT_DEL_EDGE_ATTR(bb);
+            } else if (cmd == NetStreamConstants.EVENT_CHG_NODE_ATTR_DELTA) {
+                serve_EVENT_CHG_ATTR_DELTA(bb, true);
+            } else if (cmd == NetStreamConstants.EVENT_CHG_EDGE_ATTR_DELTA) {
+                serve_EVENT_CHG_ATTR_DELTA(bb, false);
             } else if (cmd == NetStreamConstants.EVENT_END) {
                 LOGGER.info("NetStreamReceiver : Client properly ended the connection.");
+            } else if (cmd == NetStreamConstants.EVENT_DEFLATE_REQUEST
+                    || cmd == NetStreamConstants.EVENT_DEFLATE_START) {
+                // Handled by the transport.
+                LOGGER.finest("NetStreamReceiver: Received compression control.");
             } else {
                 LOGGER.warning("NetStreamReceiver: Don't know this command: " + cmd);
             }
@@ -103,6 +116,55 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         }
     }
 
+    /**
+     * @see NetStreamConstants#EVENT_CHG_NODE_ATTR_DELTA
+     * @see NetStreamConstants#EVENT_CHG_EDGE_ATTR_DELTA
+     */
+    protected void serve_EVENT_CHG_ATTR_DELTA(ByteBuffer bb, boolean node) {
+        LOGGER.finest("NetStreamServer: Received CHG_ATTR_DELTA command.");
+
+        String sourceId = decodeString(bb);
+        long timeId = decodeUnsignedVarint(bb);
+        String elementId = decodeString(bb);
+        String attrId = decodeString(bb);
+        double scale = NetStreamDeltas.scale(bb.get());
+        boolean relative = bb.get() == NetStreamConstants.DELTA_RELATIVE;
+        double[] last = deltas.get(node, elementId, attrId);
+        Object oldValue = null;
+
+        if (!relative)
+            oldValue = decodeValue(bb, decodeType(bb));
+
+        int length = (int) decodeUnsignedVarint(bb);
+        double[] values = new double[length];
+
+        for (int i = 0; i < length; i++) {
+            long q = decodeVarint(bb);
+
+            if (relative && last != null && last.length == length)
+                q += NetStreamDeltas.quantize(last[i], scale);
+
+            values[i] = q / scale;
+        }
+
+        if (relative) {
+            if (last == null || last.length != length) {
+                LOGGER.fine(String.format("no previous value of %s on %s, waiting for absolute values", attrId,
+                        elementId));
+                return;
+            }
+
+            oldValue = NetStreamDeltas.toObjects(last);
+        }
+
+        deltas.put(node, elementId, attrId, values);
+
+        if (node)
+            sendNodeAttributeChanged(sourceId, timeId, elementId, attrId, oldValue, NetStreamDeltas.toObjects(values));
+        else
+            sendEdgeAttributeChanged(sourceId, timeId, elementId, attrId, oldValue, NetStreamDeltas.toObjects(values));
+    }
+
     /**
      * @param bb
      * @see NetStreamConstants#EVENT_DEL_EDGE
@@ -115,6 +177,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         String edgeId = decodeString(bb);
         String attrId = decodeString(bb);
 
+        deltas.remove(false, edgeId, attrId);
         sendEdgeAttributeRemoved(sourceId, timeId, edgeId, attrId);
     }
 
@@ -133,6 +196,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         int newValueType = decodeType(bb);
         Object newValue = decodeValue(bb, newValueType);
 
+        deltas.remove(false, edgeId, attrId);
         sendEdgeAttributeChanged(sourceId, timeId, edgeId, attrId,
                 oldValue, newValue);
 
@@ -150,6 +214,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         String attrId = decodeString(bb);
         Object value = decodeValue(bb, decodeType(bb));
 
+        deltas.remove(false, edgeId, attrId);
         sendEdgeAttributeAdded(sourceId, timeId, edgeId, attrId,
                 value);
 
@@ -166,6 +231,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         String nodeId = decodeString(bb);
         String attrId = decodeString(bb);
 
+        deltas.remove(true, nodeId, attrId);
         sendNodeAttributeRemoved(sourceId, timeId, nodeId, attrId);
 
     }
@@ -185,6 +251,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         int newValueType = decodeType(bb);
         Object newValue = decodeValue(bb, newValueType);
 
+        deltas.remove(true, nodeId, attrId);
         sendNodeAttributeChanged(sourceId, timeId, nodeId, attrId,
                 oldValue, newValue);
     }
@@ -201,6 +268,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         String attrId = decodeString(bb);
         Object value = decodeValue(bb, decodeType(bb));
 
+        deltas.remove(true, nodeId, attrId);
         sendNodeAttributeAdded(sourceId, timeId, nodeId, attrId,
                 value);
     }
@@ -262,6 +330,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         String sourceId = decodeString(bb);
         long timeId = decodeUnsignedVarint(bb);
 
+        deltas.clear();
         sendGraphCleared(sourceId, timeId);
     }
 
@@ -288,6 +357,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         long timeId = decodeUnsignedVarint(bb);
         String edgeId = decodeString(bb);
 
+        deltas.remove(false, edgeId);
         sendEdgeRemoved(sourceId, timeId, edgeId);
     }
 
@@ -317,6 +387,7 @@ public class NetStreamDecoder extends SourceBase implements ByteDecoder {
         long timeId = decodeUnsignedVarint(bb);
         String nodeId = decodeString(bb);
 
+        deltas.remove(true, nodeId);
         sendNodeRemoved(sourceId, timeId, nodeId);
     }
 
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.netstream;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Last values of the numeric arrays sent as deltas, kept in the same way by
+ * the encoder and the decoder so that both compute the same quantized values.
+ *
+ * @see NetStreamConstants#EVENT_CHG_NODE_ATTR_DELTA
+ */
+class NetStreamDeltas {
+    /**
+     * Largest quantized value, beyond which doubles lose integer precision.
+     */
+    static final double MAX_QUANTIZED = (double) (1L << 52);
+
+    /**
+     * State of an attribute of an element. It is updated in place at each
+     * change, so that a delta event does not allocate.
+     */
+    static class Entry {
+        /**
+         * Last values, null until the first values are stored.
+         */
+        double[] values;
+
+        /**
+         * Number of deltas sent since the last absolute values, used by the
+         * encoder only.
+         */
+        int changes;
+    }
+
+    /**
+     * Attributes of the nodes, by node then by attribute.
+     */
+    protected final Map<String, Map<String, Entry>> nodes = new HashMap<>();
+
+    /**
+     * Attributes of the edges, by edge then by attribute.
+     */
+    protected final Map<String, Map<String, Entry>> edges = new HashMap<>();
+
+    static double scale(int digits) {
+        return Math.pow(10, digits);
+    }
+
+    static long quantize(double value, double scale) {
+        return Math.round(value * scale);
+    }
+
+    /**
+     * Get the length of an array of numbers.
+     *
+     * @return the length, or -1 if the object is not a non-empty array of
+     * numbers
+     */
+    static int length(Object value) {
+        int length;
+
+        if (value instanceof double[])
+            length = ((double[]) value).length;
+        else if (value instanceof float[])
+            length = ((float[]) value).length;
+        else if (value instanceof int[])
+            length = ((int[]) value).length;
+        else if (value instanceof long[])
+            length = ((long[]) value).length;
+        else if (value instanceof short[])
+            length = ((short[]) value).length;
+        else if (value instanceof byte[])
+            length = ((byte[]) value).length;
+        else if (value instanceof Object[]) {
+            Object[] objects = (Object[]) value;
+
+            for (int i = 0; i < objects.length; i++) {
+                if (!(objects[i] instanceof Number))
+                    return -1;
+            }
+
+            length = objects.length;
+        } else
+            return -1;
+
+        return length > 0 ? length : -1;
+    }
+
+    /**
+     * Get a value of an array accepted by {@link #length(Object)}.
+     */
+    static double valueAt(Object value, int i) {
+        if (value instanceof double[])
+            return ((double[]) value)[i];
+        if (value instanceof float[])
+            return ((float[]) value)[i];
+        if (value instanceof int[])
+            return ((int[]) value)[i];
+        if (value instanceof long[])
+            return ((long[]) value)[i];
+        if (value instanceof short[])
+            return ((short[]) value)[i];
+        if (value instanceof byte[])
+            return ((byte[]) value)[i];
+
+        return ((Number) ((Object[]) value)[i]).doubleValue();
+    }
+
+    static Double[] toObjects(double[] values) {
+        Double[] objects = new Double[values.length];
+
+        for (int i = 0; i < values.length; i++)
+            objects[i] = values[i];
+
+        return objects;
+    }
+
+    /**
+     * Get the state of an attribute, created if needed.
+     */
+    Entry entry(boolean node, String elementId, String attribute) {
+        Map<String, Map<String, Entry>> elements = node ? nodes : edges;
+        Map<String, Entry> attributes = elements.get(elementId);
+
+        if (attributes == null) {
+            attributes = new HashMap<>();
+            elements.put(elementId, attributes);
+        }
+
+        Entry entry = attributes.get(attribute);
+
+        if (entry == null) {
+            entry = new Entry();
+            attributes.put(attribute, entry);
+        }
+
+        return entry;
+    }
+
+    double[] get(boolean node, String elementId, String attribute) {
+        Map<String, Map<String, Entry>> elements = node ? nodes : edges;
+
+        if (elements.isEmpty())
+            return null;
+
+        Map<String, Entry> attributes = elements.get(elementId);
+        Entry entry = attributes == null ? null : attributes.get(attribute);
+
+        return entry == null ? null : entry.values;
+    }
+
+    void put(boolean node, String elementId, String attribute, double[] values) {
+        entry(node, elementId, attribute).values = values;
+    }
+
+    void remove(boolean node, String elementId, String attribute) {
+        Map<String, Map<String, Entry>> elements = node ? nodes : edges;
+
+        if (elements.isEmpty())
+            return;
+
+        Map<String, Entry> attributes = elements.get(elementId);
+
+        if (attributes != null)
+            attributes.remove(attribute);
+    }
+
+    void remove(boolean node, String elementId) {
+        Map<String, Map<String, Entry>> elements = node ? nodes : edges;
+
+        if (!elements.isEmpty())
+            elements.remove(elementId);
+    }
+
+    void clear() {
+        nodes.clear();
+        edges.clear();
+    }
+}
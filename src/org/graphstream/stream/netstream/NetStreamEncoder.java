@@ -31,6 +31,8 @@
  */
 package org.graphstream.stream.netstream;
 
+import org.graphstream.stream.BatchSink;
+import org.graphstream.stream.EventBatch;
 import org.graphstream.stream.binary.ByteEncoder;
 
 import static org.graphstream.stream.netstream.NetStreamUtils.*;
@@ -41,23 +43,114 @@ import java.util.List;
 import java.util.logging.Logger;
 
 /**
+ * Encoder of events into NetStream messages.
+ * <p/>
+ * Each event is encoded into a message handed to the transports. When the
+ * encoder receives a batch of events, the messages of the whole batch are
+ * concatenated and handed to the transports at once.
+ * <p/>
+ * Messages are written directly into a work buffer kept by the encoder, and the
+ * encoded forms of recently used identifiers are cached. By default, each
+ * message is then copied into a new buffer of the exact size, so transports
+ * are free to keep it. With {@link #setReusableBuffer(boolean)}, the work
+ * buffer itself is handed to the transports, which makes the encoding free of
+ * allocations in the steady state. Transports must then consume the buffer
+ * before {@link Transport#send(ByteBuffer)} returns.
+ * <p/>
+ * With {@link #setDeltaEncoding(boolean)}, changes of attributes of nodes and
+ * edges whose value is an array of numbers, such as coordinates, are sent as
+ * quantized differences with the previous values. See
+ * {@link NetStreamConstants#EVENT_CHG_NODE_ATTR_DELTA}.
+ *
  * @since 22/01/16.
  */
-public class NetStreamEncoder implements ByteEncoder {
+public class NetStreamEncoder implements ByteEncoder, BatchSink {
     private static final Logger LOGGER = Logger.getLogger(NetStreamEncoder.class.getName());
 
+    /**
+     * Initial capacity of the work buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Number of slots of the identifier cache, must be a power of two.
+     */
+    protected static final int ID_CACHE_SIZE = 1024;
+
+    /**
+     * Default number of decimal digits kept by delta encoding.
+     */
+    public static final int DEFAULT_DELTA_PRECISION = 4;
+
+    /**
+     * Default number of relative deltas sent between two absolute values.
+     */
+    public static final int DEFAULT_DELTA_KEYFRAME_INTERVAL = 64;
+
     protected final List<Transport> transportList;
     protected String sourceId;
-    protected ByteBuffer sourceIdBuff;
-    protected ByteBuffer streamBuffer;
+    protected byte[] sourceIdBytes;
+    protected byte[] streamBytes;
+
+    /**
+     * Buffer where messages are encoded.
+     */
+    protected ByteBuffer buffer;
+
+    /**
+     * Position of the message being encoded in the buffer.
+     */
+    protected int messageStart;
+
+    /**
+     * True while a batch of events is being encoded.
+     */
+    protected boolean batching;
+
+    /**
+     * If true, the work buffer is handed to the transports.
+     */
+    protected boolean reusableBuffer;
+
+    /**
+     * If true, the work buffer is allocated outside of the heap.
+     */
+    protected boolean directBuffer;
+
+    /**
+     * Direct-mapped cache of the encoded forms of identifiers.
+     */
+    protected final String[] cachedIds;
+    protected final byte[][] cachedForms;
+
+    /**
+     * Last values sent as deltas, null if delta encoding is disabled.
+     */
+    protected NetStreamDeltas deltas;
+
+    /**
+     * Number of decimal digits kept by delta encoding.
+     */
+    protected int deltaPrecision;
+
+    /**
+     * Number of relative deltas sent between two absolute values.
+     */
+    protected int deltaKeyframeInterval;
 
     public NetStreamEncoder(Transport... transports) {
         this("default", transports);
     }
 
     public NetStreamEncoder(String stream, Transport... transports) {
-        streamBuffer = encodeString(stream);
+        streamBytes = encodeBytes(stream);
         transportList = new LinkedList<>();
+        buffer = ByteBuffer.allocate(DEFAULT_BUFFER_SIZE);
+        cachedIds = new String[ID_CACHE_SIZE];
+        cachedForms = new byte[ID_CACHE_SIZE][];
+        deltas = null;
+        deltaPrecision = DEFAULT_DELTA_PRECISION;
+        deltaKeyframeInterval = DEFAULT_DELTA_KEYFRAME_INTERVAL;
 
         if (transports != null) {
             for (Transport transport : transports)
@@ -76,49 +169,298 @@ public class NetStreamEncoder implements ByteEncoder {
         transportList.remove(transport);
     }
 
-    protected ByteBuffer getEncodedValue(Object in, int valueType) {
-        ByteBuffer value = encodeValue(in, valueType);
+    /**
+     * Enable or disable the handing of the work buffer to the transports. When
+     * enabled, transports must not keep the buffer after
+     * {@link Transport#send(ByteBuffer)} returns.
+     *
+     * @param on true to hand the work buffer to the transports
+     */
+    public void setReusableBuffer(boolean on) {
+        reusableBuffer = on;
+    }
+
+    /**
+     * Enable the handing of the work buffer to the transports, and set the
+     * initial capacity and kind of the work buffer.
+     *
+     * @param on       true to hand the work buffer to the transports
+     * @param capacity initial capacity of the work buffer
+     * @param direct   true to allocate the work buffer outside of the heap
+     */
+    public void setReusableBuffer(boolean on, int capacity, boolean direct) {
+        reusableBuffer = on;
+        directBuffer = direct;
+
+        if (!batching)
+            buffer = direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    public boolean isReusableBuffer() {
+        return reusableBuffer;
+    }
+
+    /**
+     * Enable or disable the delta encoding of changes of numeric arrays. The
+     * receivers must support {@link NetStreamConstants#EVENT_CHG_NODE_ATTR_DELTA}.
+     *
+     * @param on true to enable delta encoding
+     */
+    public void setDeltaEncoding(boolean on) {
+        deltas = on ? new NetStreamDeltas() : null;
+    }
+
+    /**
+     * Set the precision of delta encoding, as the number of decimal digits
+     * kept. Values are rounded to the nearest multiple of {@code 10^-digits}.
+     *
+     * @param digits number of digits, can be negative
+     */
+    public void setDeltaPrecision(int digits) {
+        deltaPrecision = Math.max(-127, Math.min(127, digits));
 
-        if (value == null) {
-            LOGGER.warning(String.format("unknown value type %d\n", valueType));
+        if (deltas != null)
+            deltas.clear();
+    }
+
+    /**
+     * Set the number of relative deltas sent between two absolute values of
+     * an attribute. Receivers connected in the middle of the stream get the
+     * values of an attribute back with its next absolute values.
+     *
+     * @param interval number of relative deltas
+     */
+    public void setDeltaKeyframeInterval(int interval) {
+        deltaKeyframeInterval = interval;
+    }
+
+    /**
+     * Make the next change of each attribute sent as absolute values, for
+     * example because new receivers have been connected.
+     */
+    public void resetDeltas() {
+        if (deltas != null)
+            deltas.clear();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.graphstream.stream.BatchSink#eventBatch(org.graphstream.stream.EventBatch)
+     */
+    public void eventBatch(EventBatch batch) {
+        buffer.clear();
+        batching = true;
+
+        try {
+            batch.replay(this, this);
+        } finally {
+            batching = false;
         }
 
-        return value;
+        flush();
+    }
+
+    // Encoding
+
+    protected static byte[] encodeBytes(String s) {
+        ByteBuffer bb = encodeString(s);
+        byte[] bytes = new byte[bb.capacity()];
+        bb.get(bytes);
+
+        return bytes;
     }
 
+    /**
+     * Make room for the given number of bytes in the work buffer.
+     */
+    protected void ensure(int size) {
+        if (buffer.remaining() < size) {
+            int capacity = Math.max(buffer.capacity() * 2, buffer.position() + size);
+            ByteBuffer bigger = directBuffer ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+
+            buffer.flip();
+            bigger.put(buffer);
+            buffer = bigger;
+        }
+    }
+
+    /**
+     * Write an identifier, using the cache for its encoded form.
+     */
+    protected void putId(String id) {
+        int slot = id.hashCode() & (ID_CACHE_SIZE - 1);
+        byte[] form = cachedForms[slot];
+
+        if (form == null || !id.equals(cachedIds[slot])) {
+            ensure(getMaxStringSize(id));
+
+            int start = buffer.position();
+            putString(buffer, id);
+
+            form = new byte[buffer.position() - start];
+
+            for (int i = 0; i < form.length; i++)
+                form[i] = buffer.get(start + i);
+
+            cachedIds[slot] = id;
+            cachedForms[slot] = form;
+        } else {
+            ensure(form.length);
+            buffer.put(form);
+        }
+    }
+
+    /**
+     * Write the type and the encoded form of a value.
+     */
+    protected void putTypedValue(Object value) {
+        int valueType = getType(value);
+
+        if (valueType == NetStreamConstants.TYPE_UNKNOWN) {
+            LOGGER.warning(String.format("unknown type of value %s, sent as null", value));
+            valueType = NetStreamConstants.TYPE_NULL;
+        }
+
+        ensure(1 + getMaxValueSize(value, valueType));
+        buffer.put((byte) valueType);
+        putValue(buffer, value, valueType);
+    }
+
+    /**
+     * Encode the change of an attribute of an element as a delta event, if
+     * possible.
+     *
+     * @return true if the event has been sent, false if it has to be sent as a
+     * plain event
+     */
+    protected boolean putDelta(boolean node, String sourceId, long timeId,
+                               String elementId, String attribute, Object oldValue, Object newValue) {
+        int length = NetStreamDeltas.length(newValue);
+        double scale = NetStreamDeltas.scale(deltaPrecision);
+
+        if (length < 0)
+            return false;
+
+        for (int i = 0; i < length; i++) {
+            if (!(Math.abs(NetStreamDeltas.valueAt(newValue, i) * scale) < NetStreamDeltas.MAX_QUANTIZED))
+                return false;
+        }
+
+        NetStreamDeltas.Entry entry = deltas.entry(node, elementId, attribute);
+        double[] last = entry.values;
+        boolean relative = last != null && last.length == length;
 
-    protected void doSend(ByteBuffer event) {
-        for (Transport transport : transportList) {
-            event.rewind();
-            transport.send(event);
+        if (!relative)
+            entry.changes = 0;
+
+        if (entry.changes++ > deltaKeyframeInterval) {
+            entry.changes = 1;
+            relative = false;
         }
+
+        begin(sourceId, timeId, node ? NetStreamConstants.EVENT_CHG_NODE_ATTR_DELTA
+                : NetStreamConstants.EVENT_CHG_EDGE_ATTR_DELTA);
+        putId(elementId);
+        putId(attribute);
+
+        ensure(2);
+        buffer.put((byte) deltaPrecision);
+        buffer.put((byte) (relative ? NetStreamConstants.DELTA_RELATIVE : NetStreamConstants.DELTA_ABSOLUTE));
+
+        if (!relative)
+            putTypedValue(oldValue);
+
+        ensure(5 + 10 * length);
+        putVarint(buffer, length, getVarintSize(length));
+
+        // The last values are replaced in place, each one is read before.
+        if (last == null || last.length != length)
+            last = entry.values = new double[length];
+
+        for (int i = 0; i < length; i++) {
+            long q = NetStreamDeltas.quantize(NetStreamDeltas.valueAt(newValue, i), scale);
+            long v = relative ? q - NetStreamDeltas.quantize(last[i], scale) : q;
+            long zigzag = v >= 0 ? (v << 1) : ((Math.abs(v) << 1) ^ 1);
+
+            putVarint(buffer, zigzag, getVarintSize(zigzag));
+            last[i] = q / scale;
+        }
+
+        end();
+
+        return true;
     }
 
-    protected ByteBuffer getAndPrepareBuffer(String sourceId, long timeId, int eventType, int messageSize) {
+    /**
+     * Forget the last values sent as deltas for an attribute, when it is sent
+     * as a plain event.
+     */
+    protected void forgetDelta(boolean node, String elementId, String attribute) {
+        if (deltas != null)
+            deltas.remove(node, elementId, attribute);
+    }
+
+    /**
+     * Start a message by writing its header. The size of the message is written
+     * by {@link #end()}.
+     */
+    protected void begin(String sourceId, long timeId, int eventType) {
         if (!sourceId.equals(this.sourceId)) {
             this.sourceId = sourceId;
-            sourceIdBuff = encodeString(sourceId);
+            sourceIdBytes = encodeBytes(sourceId);
         }
 
-        streamBuffer.rewind();
-        sourceIdBuff.rewind();
+        if (!batching)
+            buffer.clear();
+
+        ensure(4 + streamBytes.length + 1 + sourceIdBytes.length + 10);
 
-        int size = 4 +
-                +streamBuffer.capacity() // stream
-                + 1 // CMD
-                + sourceIdBuff.capacity() // source id
-                + getVarintSize(timeId) // timeId
-                + messageSize;
+        messageStart = buffer.position();
 
-        ByteBuffer bb = ByteBuffer.allocate(size);
-        bb
-                .putInt(size)
-                .put(streamBuffer)
+        buffer
+                .putInt(0)
+                .put(streamBytes)
                 .put((byte) eventType)
-                .put(sourceIdBuff)
-                .put(encodeUnsignedVarint(timeId));
+                .put(sourceIdBytes);
+
+        putVarint(buffer, timeId, getVarintSize(timeId));
+    }
+
+    /**
+     * End the current message, and send it unless a batch is being encoded.
+     */
+    protected void end() {
+        buffer.putInt(messageStart, buffer.position() - messageStart);
+
+        if (!batching)
+            flush();
+    }
 
-        return bb;
+    /**
+     * Hand the content of the work buffer to the transports.
+     */
+    protected void flush() {
+        buffer.flip();
+
+        if (buffer.hasRemaining()) {
+            if (reusableBuffer) {
+                for (Transport transport : transportList) {
+                    buffer.rewind();
+                    transport.send(buffer);
+                }
+            } else {
+                ByteBuffer copy = ByteBuffer.allocate(buffer.remaining());
+                copy.put(buffer);
+
+                for (Transport transport : transportList) {
+                    copy.rewind();
+                    transport.send(copy);
+                }
+            }
+        }
+
+        buffer.clear();
     }
 
     /*
@@ -130,22 +472,10 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void graphAttributeAdded(String sourceId, long timeId,
                                     String attribute, Object value) {
-        ByteBuffer attrBuff = encodeString(attribute);
-        int valueType = getType(value);
-        ByteBuffer valueBuff = getEncodedValue(value, valueType);
-
-        int innerSize = attrBuff.capacity() // attribute id
-                + 1 // attr type
-                + valueBuff.capacity();
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_ADD_GRAPH_ATTR, innerSize);
-
-        buff
-                .put(attrBuff)
-                .put((byte) valueType)
-                .put(valueBuff);
-
-        doSend(buff);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_ADD_GRAPH_ATTR);
+        putId(attribute);
+        putTypedValue(value);
+        end();
     }
 
     /*
@@ -157,30 +487,11 @@ public class NetStreamEncoder implements ByteEncoder {
 	 */
     public void graphAttributeChanged(String sourceId, long timeId,
                                       String attribute, Object oldValue, Object newValue) {
-        ByteBuffer attrBuff = encodeString(attribute);
-        int oldValueType = getType(oldValue);
-        int newValueType = getType(newValue);
-
-        ByteBuffer oldValueBuff = getEncodedValue(oldValue, oldValueType);
-        ByteBuffer newValueBuff = getEncodedValue(newValue, newValueType);
-
-        int innerSize = attrBuff.capacity() + // attribute id
-                1 + // attr type
-                oldValueBuff.capacity() + // attr value
-                1 + // attr type
-                newValueBuff.capacity(); // attr value
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_CHG_GRAPH_ATTR, innerSize);
-
-        buff
-                .put(attrBuff)
-                .put((byte) oldValueType)
-                .put(oldValueBuff)
-                .put((byte) newValueType)
-                .put(newValueBuff);
-
-        doSend(buff);
-
+        begin(sourceId, timeId, NetStreamConstants.EVENT_CHG_GRAPH_ATTR);
+        putId(attribute);
+        putTypedValue(oldValue);
+        putTypedValue(newValue);
+        end();
     }
 
     /*
@@ -192,15 +503,9 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void graphAttributeRemoved(String sourceId, long timeId,
                                       String attribute) {
-        ByteBuffer attrBuff = encodeString(attribute);
-
-        int innerSize = attrBuff.capacity();
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_DEL_GRAPH_ATTR, innerSize);
-        buff.put(attrBuff);
-
-        doSend(buff);
-
+        begin(sourceId, timeId, NetStreamConstants.EVENT_DEL_GRAPH_ATTR);
+        putId(attribute);
+        end();
     }
 
     /*
@@ -212,26 +517,12 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void nodeAttributeAdded(String sourceId, long timeId, String nodeId,
                                    String attribute, Object value) {
-        ByteBuffer nodeBuff = encodeString(nodeId);
-        ByteBuffer attrBuff = encodeString(attribute);
-        int valueType = getType(value);
-        ByteBuffer valueBuff = getEncodedValue(value, valueType);
-
-        int innerSize = nodeBuff.capacity() + // nodeId
-                attrBuff.capacity() + // attribute
-                1 + // value type
-                valueBuff.capacity();
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_ADD_NODE_ATTR, innerSize);
-
-        buff
-                .put(nodeBuff)
-                .put(attrBuff)
-                .put((byte) valueType)
-                .put(valueBuff);
-
-
-        doSend(buff);
+        forgetDelta(true, nodeId, attribute);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_ADD_NODE_ATTR);
+        putId(nodeId);
+        putId(attribute);
+        putTypedValue(value);
+        end();
     }
 
     /*
@@ -244,33 +535,16 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void nodeAttributeChanged(String sourceId, long timeId,
                                      String nodeId, String attribute, Object oldValue, Object newValue) {
-        ByteBuffer nodeBuff = encodeString(nodeId);
-        ByteBuffer attrBuff = encodeString(attribute);
-
-        int oldValueType = getType(oldValue);
-        int newValueType = getType(newValue);
-
-        ByteBuffer oldValueBuff = getEncodedValue(oldValue, oldValueType);
-        ByteBuffer newValueBuff = getEncodedValue(newValue, newValueType);
-
-        int innerSize = nodeBuff.capacity() + // nodeId
-                attrBuff.capacity() + // attribute
-                1 + // value type
-                oldValueBuff.capacity() + // value
-                1 + // value type
-                newValueBuff.capacity();
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_CHG_NODE_ATTR, innerSize);
-
-        buff
-                .put(nodeBuff)
-                .put(attrBuff)
-                .put((byte) oldValueType)
-                .put(oldValueBuff)
-                .put((byte) newValueType)
-                .put(newValueBuff);
-
-        doSend(buff);
+        if (deltas != null && putDelta(true, sourceId, timeId, nodeId, attribute, oldValue, newValue))
+            return;
+
+        forgetDelta(true, nodeId, attribute);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_CHG_NODE_ATTR);
+        putId(nodeId);
+        putId(attribute);
+        putTypedValue(oldValue);
+        putTypedValue(newValue);
+        end();
     }
 
     /*
@@ -282,20 +556,11 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void nodeAttributeRemoved(String sourceId, long timeId,
                                      String nodeId, String attribute) {
-        ByteBuffer nodeBuff = encodeString(nodeId);
-        ByteBuffer attrBuff = encodeString(attribute);
-
-        int innerSize = nodeBuff.capacity() + // nodeId
-                attrBuff.capacity(); // attribute
-
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_DEL_NODE_ATTR, innerSize);
-
-        buff
-                .put(nodeBuff)
-                .put(attrBuff);
-
-        doSend(buff);
+        forgetDelta(true, nodeId, attribute);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_DEL_NODE_ATTR);
+        putId(nodeId);
+        putId(attribute);
+        end();
     }
 
     /*
@@ -307,27 +572,12 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void edgeAttributeAdded(String sourceId, long timeId, String edgeId,
                                    String attribute, Object value) {
-        ByteBuffer edgeBuff = encodeString(edgeId);
-        ByteBuffer attrBuff = encodeString(attribute);
-
-        int valueType = getType(value);
-
-        ByteBuffer valueBuff = getEncodedValue(value, valueType);
-
-        int innerSize = edgeBuff.capacity() + // nodeId
-                attrBuff.capacity() + // attribute
-                1 + // value type
-                valueBuff.capacity(); // value
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_ADD_EDGE_ATTR, innerSize);
-
-        buff
-                .put(edgeBuff)
-                .put(attrBuff)
-                .put((byte) valueType) // value type
-                .put(valueBuff);
-
-        doSend(buff);
+        forgetDelta(false, edgeId, attribute);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_ADD_EDGE_ATTR);
+        putId(edgeId);
+        putId(attribute);
+        putTypedValue(value);
+        end();
     }
 
     /*
@@ -340,32 +590,16 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void edgeAttributeChanged(String sourceId, long timeId,
                                      String edgeId, String attribute, Object oldValue, Object newValue) {
-        ByteBuffer edgeBuff = encodeString(edgeId);
-        ByteBuffer attrBuff = encodeString(attribute);
-        int oldValueType = getType(oldValue);
-        int newValueType = getType(newValue);
-
-        ByteBuffer oldValueBuff = getEncodedValue(oldValue, oldValueType);
-        ByteBuffer newValueBuff = getEncodedValue(newValue, newValueType);
-
-        int innerSize = edgeBuff.capacity() + // nodeId
-                attrBuff.capacity() + // attribute
-                1 + // value type
-                oldValueBuff.capacity() + // value
-                1 + // value type
-                newValueBuff.capacity();  // value
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_CHG_EDGE_ATTR, innerSize);
-
-        buff
-                .put(edgeBuff)
-                .put(attrBuff)
-                .put((byte) oldValueType)
-                .put(oldValueBuff)
-                .put((byte) newValueType)
-                .put(newValueBuff);
-
-        doSend(buff);
+        if (deltas != null && putDelta(false, sourceId, timeId, edgeId, attribute, oldValue, newValue))
+            return;
+
+        forgetDelta(false, edgeId, attribute);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_CHG_EDGE_ATTR);
+        putId(edgeId);
+        putId(attribute);
+        putTypedValue(oldValue);
+        putTypedValue(newValue);
+        end();
     }
 
     /*
@@ -377,20 +611,11 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void edgeAttributeRemoved(String sourceId, long timeId,
                                      String edgeId, String attribute) {
-        ByteBuffer edgeBuff = encodeString(edgeId);
-        ByteBuffer attrBuff = encodeString(attribute);
-
-        int innerSize = edgeBuff.capacity() + // nodeId
-                attrBuff.capacity(); // attribute
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_DEL_EDGE_ATTR, innerSize);
-
-        buff
-                .put(edgeBuff)
-                .put(attrBuff);
-
-
-        doSend(buff);
+        forgetDelta(false, edgeId, attribute);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_DEL_EDGE_ATTR);
+        putId(edgeId);
+        putId(attribute);
+        end();
     }
 
     /*
@@ -400,14 +625,9 @@ public class NetStreamEncoder implements ByteEncoder {
      * java.lang.String)
      */
     public void nodeAdded(String sourceId, long timeId, String nodeId) {
-        ByteBuffer nodeBuff = encodeString(nodeId);
-
-        int innerSize = nodeBuff.capacity();
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_ADD_NODE, innerSize);
-        buff.put(nodeBuff);
-
-        doSend(buff);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_ADD_NODE);
+        putId(nodeId);
+        end();
     }
 
     /*
@@ -417,14 +637,12 @@ public class NetStreamEncoder implements ByteEncoder {
      * long, java.lang.String)
      */
     public void nodeRemoved(String sourceId, long timeId, String nodeId) {
-        ByteBuffer nodeBuff = encodeString(nodeId);
+        if (deltas != null)
+            deltas.remove(true, nodeId);
 
-        int innerSize = nodeBuff.capacity();
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_DEL_NODE, innerSize);
-        buff.put(nodeBuff);
-
-        doSend(buff);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_DEL_NODE);
+        putId(nodeId);
+        end();
     }
 
     /*
@@ -435,24 +653,13 @@ public class NetStreamEncoder implements ByteEncoder {
      */
     public void edgeAdded(String sourceId, long timeId, String edgeId,
                           String fromNodeId, String toNodeId, boolean directed) {
-        ByteBuffer edgeBuff = encodeString(edgeId);
-        ByteBuffer fromNodeBuff = encodeString(fromNodeId);
-        ByteBuffer toNodeBuff = encodeString(toNodeId);
-
-        int innerSize = edgeBuff.capacity() + // edge
-                fromNodeBuff.capacity() + // from nodeId
-                toNodeBuff.capacity() + // to nodeId
-                1; // direction
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_ADD_EDGE, innerSize);
-
-        buff
-                .put(edgeBuff)
-                .put(fromNodeBuff)
-                .put(toNodeBuff)
-                .put((byte) (!directed ? 0 : 1));
-
-        doSend(buff);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_ADD_EDGE);
+        putId(edgeId);
+        putId(fromNodeId);
+        putId(toNodeId);
+        ensure(1);
+        buffer.put((byte) (!directed ? 0 : 1));
+        end();
     }
 
     /*
@@ -462,14 +669,12 @@ public class NetStreamEncoder implements ByteEncoder {
      * long, java.lang.String)
      */
     public void edgeRemoved(String sourceId, long timeId, String edgeId) {
-        ByteBuffer edgeBuff = encodeString(edgeId);
-
-        int innerSize = edgeBuff.capacity();
-
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_DEL_EDGE, innerSize);
-        buff.put(edgeBuff);
+        if (deltas != null)
+            deltas.remove(false, edgeId);
 
-        doSend(buff);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_DEL_EDGE);
+        putId(edgeId);
+        end();
     }
 
     /*
@@ -479,8 +684,11 @@ public class NetStreamEncoder implements ByteEncoder {
      * long)
      */
     public void graphCleared(String sourceId, long timeId) {
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_CLEARED, 0);
-        doSend(buff);
+        if (deltas != null)
+            deltas.clear();
+
+        begin(sourceId, timeId, NetStreamConstants.EVENT_CLEARED);
+        end();
     }
 
     /*
@@ -490,9 +698,9 @@ public class NetStreamEncoder implements ByteEncoder {
      * long, double)
      */
     public void stepBegins(String sourceId, long timeId, double step) {
-        ByteBuffer buff = getAndPrepareBuffer(sourceId, timeId, NetStreamConstants.EVENT_STEP, 8);
-        buff.putDouble(step);
-
-        doSend(buff);
+        begin(sourceId, timeId, NetStreamConstants.EVENT_STEP);
+        ensure(8);
+        buffer.putDouble(step);
+        end();
     }
 }
@@ -34,6 +34,7 @@ package org.graphstream.stream.netstream;
 import org.graphstream.stream.binary.ByteDecoder;
 import org.graphstream.stream.binary.ByteEncoder;
 import org.graphstream.stream.binary.ByteFactory;
+import org.graphstream.stream.binary.CompressibleByteFactory;
 
 import java.lang.reflect.Array;
 import java.nio.BufferUnderflowException;
@@ -49,7 +50,7 @@ public class NetStreamUtils {
     private static final Logger LOGGER = Logger.getLogger(NetStreamUtils.class.getName());
 
     public static ByteFactory getDefaultNetStreamFactory() {
-        return new ByteFactory() {
+        return new CompressibleByteFactory() {
             @Override
             public ByteEncoder createByteEncoder() {
                 return new NetStreamEncoder();
@@ -59,9 +60,68 @@ public class NetStreamUtils {
             public ByteDecoder createByteDecoder() {
                 return new NetStreamDecoder();
             }
+
+            @Override
+            public ByteBuffer createCompressionRequest() {
+                return encodeControl("default", NetStreamConstants.EVENT_DEFLATE_REQUEST);
+            }
+
+            @Override
+            public ByteBuffer createCompressionStart() {
+                return encodeControl("default", NetStreamConstants.EVENT_DEFLATE_START);
+            }
+
+            @Override
+            public boolean isCompressionRequest(ByteBuffer message) {
+                return decodeControl(message) == NetStreamConstants.EVENT_DEFLATE_REQUEST;
+            }
+
+            @Override
+            public boolean isCompressionStart(ByteBuffer message) {
+                return decodeControl(message) == NetStreamConstants.EVENT_DEFLATE_START;
+            }
         };
     }
 
+    /**
+     * Encode a control message, made of the header of a message only.
+     *
+     * @param stream id of the stream
+     * @param cmd    the control command
+     * @return buffer with the message, ready to be read
+     */
+    public static ByteBuffer encodeControl(String stream, int cmd) {
+        ByteBuffer streamBuffer = encodeString(stream);
+        int size = 4 + streamBuffer.capacity() + 1;
+
+        ByteBuffer bb = ByteBuffer.allocate(size);
+        bb.putInt(size).put(streamBuffer).put((byte) cmd);
+        bb.flip();
+
+        return bb;
+    }
+
+    /**
+     * Get the command of a message, without changing the position of the buffer.
+     *
+     * @param message buffer with a whole message starting at its position
+     * @return the command of the message, or -1 if it can not be read
+     */
+    public static int decodeControl(ByteBuffer message) {
+        ByteBuffer bb = message.duplicate();
+
+        try {
+            bb.getInt();
+
+            int length = (int) decodeUnsignedVarint(bb);
+            bb.position(bb.position() + length);
+
+            return bb.get() & 0xFF;
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
     public static int getType(Object value) {
         int valueType = NetStreamConstants.TYPE_UNKNOWN;
 
@@ -472,6 +532,191 @@ public class NetStreamUtils {
         return b;
     }
 
+    //
+    // DIRECT ENCODING METHODS
+    //
+    // These methods write the same bytes as the encode methods, but directly
+    // into a buffer that must have enough room for the data. The getMax*Size
+    // methods give an upper bound of the room needed.
+    //
+
+    /**
+     * @param s a string
+     * @return upper bound of the size of the encoded string
+     */
+    public static int getMaxStringSize(String s) {
+        return 5 + 3 * s.length();
+    }
+
+    /**
+     * Write a string as {@link #encodeString(Object)} does, without allocating.
+     *
+     * @param buffer the destination
+     * @param s      the string
+     */
+    public static void putString(ByteBuffer buffer, String s) {
+        int n = s.length();
+        int length = 0;
+
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+
+        putVarint(buffer, length, getVarintSize(length));
+
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+
+            if (c < 0x80) {
+                buffer.put((byte) c);
+            } else if (c < 0x800) {
+                buffer.put((byte) (0xC0 | (c >> 6)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n
+                    && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                buffer.put((byte) (0xF0 | (cp >> 18)));
+                buffer.put((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                buffer.put((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                // Malformed, replaced as String.getBytes() does.
+                buffer.put((byte) '?');
+            } else {
+                buffer.put((byte) (0xE0 | (c >> 12)));
+                buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                buffer.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * @param in        a value
+     * @param valueType type of the value as given by {@link #getType(Object)}
+     * @return upper bound of the size of the encoded value
+     */
+    public static int getMaxValueSize(Object in, int valueType) {
+        if (NetStreamConstants.TYPE_NULL == valueType || in == null) {
+            return 0;
+        } else if (NetStreamConstants.TYPE_BOOLEAN == valueType
+                || NetStreamConstants.TYPE_BYTE == valueType) {
+            return 1;
+        } else if (NetStreamConstants.TYPE_SHORT == valueType
+                || NetStreamConstants.TYPE_INT == valueType
+                || NetStreamConstants.TYPE_LONG == valueType) {
+            return 10;
+        } else if (NetStreamConstants.TYPE_FLOAT == valueType) {
+            return 4;
+        } else if (NetStreamConstants.TYPE_DOUBLE == valueType) {
+            return 8;
+        } else if (NetStreamConstants.TYPE_STRING == valueType) {
+            return getMaxStringSize((String) in);
+        }
+
+        int length = Array.getLength(in);
+
+        if (NetStreamConstants.TYPE_BOOLEAN_ARRAY == valueType
+                || NetStreamConstants.TYPE_BYTE_ARRAY == valueType) {
+            return 5 + length;
+        } else if (NetStreamConstants.TYPE_SHORT_ARRAY == valueType
+                || NetStreamConstants.TYPE_INT_ARRAY == valueType
+                || NetStreamConstants.TYPE_LONG_ARRAY == valueType) {
+            return 5 + 10 * length;
+        } else if (NetStreamConstants.TYPE_FLOAT_ARRAY == valueType) {
+            return 5 + 4 * length;
+        } else if (NetStreamConstants.TYPE_DOUBLE_ARRAY == valueType) {
+            return 5 + 8 * length;
+        } else if (NetStreamConstants.TYPE_ARRAY == valueType) {
+            int size = 5;
+
+            for (int i = 0; i < length; i++) {
+                Object o = Array.get(in, i);
+                size += 1 + getMaxValueSize(o, getType(o));
+            }
+
+            return size;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Write a value as {@link #encodeValue(Object, int)} does, without
+     * allocating. Arrays of primitive types are accepted as well as arrays of
+     * objects. Values of type {@link NetStreamConstants#TYPE_ARRAY} are
+     * written as a length followed by the type and the value of each element,
+     * the layout read by {@link #decodeArray(ByteBuffer)}.
+     *
+     * @param buffer    the destination
+     * @param in        the value
+     * @param valueType type of the value as given by {@link #getType(Object)}
+     */
+    public static void putValue(ByteBuffer buffer, Object in, int valueType) {
+        if (NetStreamConstants.TYPE_NULL == valueType || in == null) {
+            return;
+        } else if (NetStreamConstants.TYPE_BOOLEAN == valueType) {
+            buffer.put((byte) (((Boolean) in) ? 1 : 0));
+        } else if (NetStreamConstants.TYPE_BYTE == valueType) {
+            buffer.put((Byte) in);
+        } else if (NetStreamConstants.TYPE_SHORT == valueType
+                || NetStreamConstants.TYPE_INT == valueType
+                || NetStreamConstants.TYPE_LONG == valueType) {
+            long data = ((Number) in).longValue();
+            long zigzag = data >= 0 ? (data << 1) : ((Math.abs(data) << 1) ^ 1);
+            putVarint(buffer, zigzag, getVarintSize(zigzag));
+        } else if (NetStreamConstants.TYPE_FLOAT == valueType) {
+            buffer.putFloat((Float) in);
+        } else if (NetStreamConstants.TYPE_DOUBLE == valueType) {
+            buffer.putDouble((Double) in);
+        } else if (NetStreamConstants.TYPE_STRING == valueType) {
+            putString(buffer, (String) in);
+        } else {
+            int length = Array.getLength(in);
+            Object[] objects = in instanceof Object[] ? (Object[]) in : null;
+
+            putVarint(buffer, length, getVarintSize(length));
+
+            for (int i = 0; i < length; i++) {
+                Object o = objects != null ? objects[i] : Array.get(in, i);
+
+                if (NetStreamConstants.TYPE_BOOLEAN_ARRAY == valueType) {
+                    buffer.put((byte) (((Boolean) o) ? 1 : 0));
+                } else if (NetStreamConstants.TYPE_BYTE_ARRAY == valueType) {
+                    buffer.put((Byte) o);
+                } else if (NetStreamConstants.TYPE_SHORT_ARRAY == valueType
+                        || NetStreamConstants.TYPE_INT_ARRAY == valueType
+                        || NetStreamConstants.TYPE_LONG_ARRAY == valueType) {
+                    long datum = ((Number) o).longValue();
+                    // Same zig-zag as encodeVarintArray().
+                    long zigzag = datum > 0 ? (datum << 1) : ((Math.abs(datum) << 1) ^ 1);
+                    putVarint(buffer, zigzag, getVarintSize(zigzag));
+                } else if (NetStreamConstants.TYPE_FLOAT_ARRAY == valueType) {
+                    buffer.putFloat((Float) o);
+                } else if (NetStreamConstants.TYPE_DOUBLE_ARRAY == valueType) {
+                    buffer.putDouble((Double) o);
+                } else {
+                    int type = getType(o);
+                    buffer.put((byte) type);
+                    putValue(buffer, o, type);
+                }
+            }
+        }
+    }
+
     //
     // DECODING METHODS
     //
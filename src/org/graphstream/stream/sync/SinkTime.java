@@ -32,6 +32,7 @@
 package org.graphstream.stream.sync;
 
 import java.security.AccessControlException;
+import java.util.Arrays;
 import java.util.HashMap;
 
 public class SinkTime {
@@ -61,9 +62,101 @@ public class SinkTime {
 	}
 
 	/**
-	 * Map storing times of sources.
+	 * Number of source slots checked by identity before falling back to the
+	 * hash map. Sources send their events with the same id instance, so most
+	 * lookups end here without hashing the id.
 	 */
-	protected HashMap<String, Long> times = new HashMap<String, Long>();
+	protected static final int IDENTITY_SLOTS = 8;
+
+	/**
+	 * Handle of each known source, the index of its slot in {@link #sourceIds}
+	 * and {@link #times}.
+	 */
+	protected HashMap<String, Integer> handles = new HashMap<String, Integer>();
+
+	/**
+	 * Id of each known source, by handle. This is the last instance seen for
+	 * the id.
+	 */
+	protected String[] sourceIds = new String[IDENTITY_SLOTS];
+
+	/**
+	 * Last time of each known source, by handle.
+	 */
+	protected long[] times = new long[IDENTITY_SLOTS];
+
+	/**
+	 * Number of known sources.
+	 */
+	protected int sourceCount = 0;
+
+	/**
+	 * Handle of the last source looked up.
+	 */
+	protected int lastHandle = -1;
+
+	/**
+	 * Get the handle of a source, registering the source if it is unknown. A
+	 * handle stays valid for the life of this object and can be given to
+	 * {@link #isNewEvent(int, long)} and {@link #setTimeFor(int, long)} to
+	 * skip the id lookup. A newly registered source has no time yet, it will
+	 * accept any event.
+	 * 
+	 * @param sourceId
+	 *            The source id.
+	 * @return The handle of the source.
+	 */
+	public int intern(String sourceId) {
+		int handle = handleOf(sourceId);
+
+		if (handle < 0)
+			handle = register(sourceId, Long.MIN_VALUE);
+
+		return handle;
+	}
+
+	/**
+	 * Find the handle of a source.
+	 * 
+	 * @param sourceId
+	 *            The source id.
+	 * @return The handle or -1 if the source is unknown.
+	 */
+	protected int handleOf(String sourceId) {
+		if (lastHandle >= 0 && sourceIds[lastHandle] == sourceId)
+			return lastHandle;
+
+		int slots = Math.min(sourceCount, IDENTITY_SLOTS);
+
+		for (int i = 0; i < slots; i++) {
+			if (sourceIds[i] == sourceId)
+				return lastHandle = i;
+		}
+
+		Integer handle = handles.get(sourceId);
+
+		if (handle == null)
+			return -1;
+
+		sourceIds[handle] = sourceId;
+
+		return lastHandle = handle;
+	}
+
+	protected int register(String sourceId, long timeId) {
+		if (sourceCount == sourceIds.length) {
+			sourceIds = Arrays.copyOf(sourceIds, sourceCount * 2);
+			times = Arrays.copyOf(times, sourceCount * 2);
+		}
+
+		int handle = sourceCount++;
+
+		sourceIds[handle] = sourceId;
+		times[handle] = timeId;
+		handles.put(sourceId, handle);
+
+		return lastHandle = handle;
+	}
 
 	/**
 	 * Update timeId for a source.
@@ -73,13 +166,27 @@ public class SinkTime {
 	 * @return true if time has been updated
 	 */
 	protected boolean setTimeFor(String sourceId, long timeId) {
-		Long knownTimeId = times.get(sourceId);
+		int handle = handleOf(sourceId);
 
-		if (knownTimeId == null) {
-			times.put(sourceId, timeId);
+		if (handle < 0) {
+			register(sourceId, timeId);
 			return true;
-		} else if (timeId > knownTimeId) {
-			times.put(sourceId, timeId);
+		}
+
+		return setTimeFor(handle, timeId);
+	}
+
+	/**
+	 * Update timeId for a source given by its handle.
+	 * 
+	 * @param handle
+	 *            Handle obtained from {@link #intern(String)}.
+	 * @param timeId
+	 * @return true if time has been updated
+	 */
+	protected boolean setTimeFor(int handle, long timeId) {
+		if (timeId > times[handle]) {
+			times[handle] = timeId;
 			return true;
 		}
 
@@ -97,4 +204,17 @@ public class SinkTime {
 	public boolean isNewEvent(String sourceId, long timeId) {
 		return disableSync || setTimeFor(sourceId, timeId);
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Same as {@link #isNewEvent(String, long)} for a source given by its
+	 * handle.
+	 * 
+	 * @param handle
+	 *            Handle obtained from {@link #intern(String)}.
+	 * @param timeId
+	 * @return true if event is new for the source
+	 */
+	public boolean isNewEvent(int handle, long timeId) {
+		return disableSync || setTimeFor(handle, timeId);
+	}
+}
@@ -41,6 +41,10 @@ public class SourceTime {
 	 * 
 	 */
 	protected SinkTime sinkTime;
+	/**
+	 * Handle of this source in the sink time, -1 until the first event.
+	 */
+	protected int sinkHandle = -1;
 
 	/**
 	 * Create a new SourceTime for a given id. Current time id is set to 0.
@@ -91,17 +95,23 @@ public class SourceTime {
 
 	public void setSourceId(String sourceId) {
 		this.sourceId = sourceId;
+		this.sinkHandle = -1;
 	}
 
 	public void setSinkTime(SinkTime st) {
 		this.sinkTime = st;
+		this.sinkHandle = -1;
 	}
 
 	public long newEvent() {
 		currentTimeId++;
 
-		if (sinkTime != null)
-			sinkTime.setTimeFor(sourceId, currentTimeId);
+		if (sinkTime != null) {
+			if (sinkHandle < 0)
+				sinkHandle = sinkTime.intern(sourceId);
+
+			sinkTime.setTimeFor(sinkHandle, currentTimeId);
+		}
 
 		return currentTimeId;
 	}
@@ -0,0 +1,960 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.stream.thread;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Logger;
+
+import org.graphstream.graph.Graph;
+import org.graphstream.stream.ProxyPipe;
+import org.graphstream.stream.Replayable;
+import org.graphstream.stream.Replayable.Controller;
+import org.graphstream.stream.Source;
+import org.graphstream.stream.SourceBase;
+import org.graphstream.stream.thread.ThreadProxyPipe.GraphEvents;
+
+/**
+ * Proxy pipe between exactly one producer thread and one consumer thread,
+ * backed by a fixed size ring of preallocated event slots.
+ * 
+ * <p>
+ * This pipe is an alternative to {@link ThreadProxyPipe} when the source
+ * produces events at a high rate. Events are copied field by field into a slot
+ * of the ring instead of being wrapped in an array and queued in a locked
+ * list. Posting and pumping an event only involve ordered writes to the head
+ * and tail counters of the ring, no lock is taken while the ring is neither
+ * full nor empty.
+ * </p>
+ * 
+ * <p>
+ * As for {@link ThreadProxyPipe}, the source is registered in the producer
+ * thread with {@link #init(Source)} and the sinks are registered in the
+ * consumer thread, which must call {@link #pump()} regularly. A given pipe
+ * must not be fed by more than one thread, nor pumped by more than one
+ * thread.
+ * </p>
+ * 
+ * <p>
+ * The ring has a fixed capacity. What happens when the producer posts an
+ * event while the ring is full is given by the {@link Backpressure} policy of
+ * the pipe:
+ * <ul>
+ * <li>{@link Backpressure#BLOCK} makes the producer wait until the consumer
+ * frees a slot. No event is lost;</li>
+ * <li>{@link Backpressure#DROP_OLDEST} discards the oldest pending event to make
+ * room for the new one. The consumer may then see an incomplete stream, this
+ * is only meant for monitoring consumers that can tolerate it;</li>
+ * <li>{@link Backpressure#COALESCE} keeps attribute additions and changes that
+ * do not fit in the ring in an overflow table where successive changes of the
+ * same attribute of the same element collapse into the last value. Other
+ * events wait for a free slot, as with {@link Backpressure#BLOCK}, once the
+ * overflow table has been moved back into the ring.</li>
+ * </ul>
+ * </p>
+ */
+public class RingBufferProxyPipe extends SourceBase implements ProxyPipe {
+	/**
+	 * class level logger
+	 */
+	private static final Logger logger = Logger
+			.getLogger(RingBufferProxyPipe.class.getSimpleName());
+
+	/**
+	 * Default number of slots of the ring.
+	 */
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * Policy applied when an event is posted while the ring is full.
+	 */
+	public static enum Backpressure {
+		/**
+		 * The producer waits for a free slot.
+		 */
+		BLOCK,
+		/**
+		 * The oldest pending event is discarded.
+		 */
+		DROP_OLDEST,
+		/**
+		 * Attribute additions and changes are coalesced in an overflow table,
+		 * the other events wait for a free slot.
+		 */
+		COALESCE
+	}
+
+	/**
+	 * An event slot. Slots of the ring are allocated once and overwritten by
+	 * the producer. The fields used depend on the type of the event.
+	 */
+	protected static class Slot {
+		GraphEvents type;
+		String graphId;
+		long timeId;
+		String elementId;
+		String attribute;
+		String fromId;
+		String toId;
+		boolean directed;
+		double step;
+		Object oldValue;
+		Object newValue;
+
+		void copy(Slot other) {
+			type = other.type;
+			graphId = other.graphId;
+			timeId = other.timeId;
+			elementId = other.elementId;
+			attribute = other.attribute;
+			fromId = other.fromId;
+			toId = other.toId;
+			directed = other.directed;
+			step = other.step;
+			oldValue = other.oldValue;
+			newValue = other.newValue;
+		}
+
+		void clear() {
+			graphId = null;
+			elementId = null;
+			attribute = null;
+			fromId = null;
+			toId = null;
+			oldValue = null;
+			newValue = null;
+		}
+	}
+
+	/**
+	 * Proxy id.
+	 */
+	protected String id;
+
+	/**
+	 * The event sender name, usually the graph name.
+	 */
+	protected String from;
+
+	/**
+	 * The ring. Its length is a power of two.
+	 */
+	protected final Slot[] ring;
+
+	/**
+	 * Mask used to get the slot of a sequence number.
+	 */
+	protected final int mask;
+
+	/**
+	 * Sequence number of the next slot to read. Written by the consumer, and
+	 * by the producer when it drops the oldest event.
+	 */
+	protected final AtomicLong head;
+
+	/**
+	 * Sequence number of the next slot to write. Written by the producer only.
+	 */
+	protected final AtomicLong tail;
+
+	/**
+	 * What to do when the ring is full.
+	 */
+	protected final Backpressure backpressure;
+
+	/**
+	 * Number of events discarded because the ring was full.
+	 */
+	protected final AtomicLong dropped;
+
+	/**
+	 * Events that did not fit in the ring, by element and attribute. Only used
+	 * with the {@link Backpressure#COALESCE} policy and always guarded by
+	 * {@link #overflowLock}.
+	 */
+	protected final LinkedHashMap<String, Slot> overflow;
+
+	protected final ReentrantLock overflowLock;
+
+	/**
+	 * Size of the overflow table, readable without the lock.
+	 */
+	protected volatile int overflowSize;
+
+	/**
+	 * Thread waiting in {@link #blockingPump(long)}, if any.
+	 */
+	protected volatile Thread waitingConsumer;
+
+	/**
+	 * Producer thread waiting for a free slot, if any.
+	 */
+	protected volatile Thread waitingProducer;
+
+	/**
+	 * Slot used by the consumer to copy the event it dispatches, so that the
+	 * ring slot can be released before calling the sinks.
+	 */
+	protected final Slot current;
+
+	/**
+	 * Used only to remove the listener. We ensure this is done in the source
+	 * thread.
+	 */
+	protected Source input;
+
+	/**
+	 * Signals that this proxy must be removed from the source input.
+	 */
+	protected boolean unregisterWhenPossible = false;
+
+	/**
+	 * New pipe with {@link #DEFAULT_CAPACITY} slots that blocks the producer
+	 * when full.
+	 */
+	public RingBufferProxyPipe() {
+		this(DEFAULT_CAPACITY, Backpressure.BLOCK);
+	}
+
+	/**
+	 * New pipe.
+	 * 
+	 * @param capacity
+	 *            Minimum number of slots of the ring, rounded up to the next
+	 *            power of two.
+	 * @param backpressure
+	 *            What to do when the ring is full.
+	 */
+	public RingBufferProxyPipe(int capacity, Backpressure backpressure) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("capacity must be positive");
+
+		if (backpressure == null)
+			throw new NullPointerException("backpressure");
+
+		int size = 1;
+
+		while (size < capacity)
+			size <<= 1;
+
+		this.ring = new Slot[size];
+		this.mask = size - 1;
+
+		for (int i = 0; i < size; i++)
+			ring[i] = new Slot();
+
+		this.head = new AtomicLong();
+		this.tail = new AtomicLong();
+		this.dropped = new AtomicLong();
+		this.backpressure = backpressure;
+		this.overflow = new LinkedHashMap<String, Slot>();
+		this.overflowLock = new ReentrantLock();
+		this.current = new Slot();
+		this.from = "<in>";
+		this.input = null;
+	}
+
+	public void init() {
+		init(null, false);
+	}
+
+	/**
+	 * Init the proxy. If there are previous events, they will be cleared.
+	 * 
+	 * @param source
+	 *            source of the events
+	 */
+	public void init(Source source) {
+		init(source, source instanceof Replayable);
+	}
+
+	/**
+	 * Init the proxy. If there are previous events, they will be cleared. This
+	 * must be called from the producer thread, while the consumer does not
+	 * pump.
+	 * 
+	 * @param source
+	 *            source of the events
+	 * @param replay
+	 *            true if the source should be replayed. You need a
+	 *            {@link org.graphstream.stream.Replayable} source to enable
+	 *            replay, else nothing happens.
+	 */
+	public void init(Source source, boolean replay) {
+		if (this.input != null)
+			this.input.removeSink(this);
+
+		this.input = source;
+
+		overflowLock.lock();
+
+		try {
+			for (Slot slot : ring)
+				slot.clear();
+
+			head.set(tail.get());
+			overflow.clear();
+			overflowSize = 0;
+		} finally {
+			overflowLock.unlock();
+		}
+
+		if (source != null) {
+			if (source instanceof Graph)
+				this.from = ((Graph) source).getId();
+
+			this.input.addSink(this);
+
+			if (replay && source instanceof Replayable) {
+				Replayable r = (Replayable) source;
+				Controller rc = r.getReplayController();
+
+				rc.addSink(this);
+				rc.replay();
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		String dest = "nil";
+
+		if (attrSinks.size() > 0)
+			dest = attrSinks.get(0).toString();
+
+		return String.format("ring-proxy(from %s to %s)", from, dest);
+	}
+
+	/**
+	 * Ask the proxy to unregister from the event input source (stop receive
+	 * events) as soon as possible (when the next event will occur in the
+	 * graph).
+	 */
+	public void unregisterFromSource() {
+		unregisterWhenPossible = true;
+	}
+
+	/**
+	 * Number of slots of the ring.
+	 * 
+	 * @return The capacity of the ring.
+	 */
+	public int getCapacity() {
+		return ring.length;
+	}
+
+	/**
+	 * The policy applied when the ring is full.
+	 * 
+	 * @return The backpressure policy.
+	 */
+	public Backpressure getBackpressure() {
+		return backpressure;
+	}
+
+	/**
+	 * Number of events discarded so far by the
+	 * {@link Backpressure#DROP_OLDEST} policy.
+	 * 
+	 * @return The number of dropped events.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public boolean hasPostRemaining() {
+		return tail.get() != head.get() || overflowSize > 0;
+	}
+
+	// Consumer side
+
+	/**
+	 * This method must be called regularly in the output thread to check if the
+	 * input source sent events. If some event occurred, the listeners will be
+	 * called. All the events available are dispatched in batches, reading the
+	 * tail of the ring once per batch.
+	 */
+	public void pump() {
+		boolean more;
+
+		do {
+			more = drainRing();
+
+			if (overflowSize > 0)
+				more |= drainOverflow();
+		} while (more);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see org.graphstream.stream.ProxyPipe#blockingPump()
+	 */
+	public void blockingPump() throws InterruptedException {
+		blockingPump(0);
+	}
+
+	/**
+	 * Wait until some events are available, or until the timeout expires, then
+	 * dispatch them.
+	 * 
+	 * @param timeout
+	 *            Maximum waiting time in milliseconds, zero or less to wait
+	 *            without limit.
+	 * @throws InterruptedException
+	 *             If the consumer thread is interrupted while waiting.
+	 */
+	public void blockingPump(long timeout) throws InterruptedException {
+		long deadline = timeout > 0 ? System.nanoTime()
+				+ TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+
+		while (!hasPostRemaining()) {
+			waitingConsumer = Thread.currentThread();
+
+			try {
+				if (hasPostRemaining())
+					break;
+
+				if (timeout > 0) {
+					long remaining = deadline - System.nanoTime();
+
+					if (remaining <= 0)
+						break;
+
+					LockSupport.parkNanos(this, remaining);
+				} else {
+					LockSupport.park(this);
+				}
+			} finally {
+				waitingConsumer = null;
+			}
+
+			if (Thread.interrupted())
+				throw new InterruptedException();
+		}
+
+		pump();
+	}
+
+	/**
+	 * Dispatch the events of the ring.
+	 * 
+	 * @return True if at least one slot was consumed.
+	 */
+	protected boolean drainRing() {
+		boolean dropping = backpressure == Backpressure.DROP_OLDEST;
+		boolean consumed = false;
+		long h = head.get();
+		long t = tail.get();
+
+		while (h < t) {
+			Slot slot = ring[(int) h & mask];
+			current.copy(slot);
+
+			if (dropping) {
+				// The producer may have discarded this slot and may be
+				// rewriting it, in which case the copy is thrown away.
+				if (!head.compareAndSet(h, h + 1)) {
+					h = head.get();
+					t = tail.get();
+					continue;
+				}
+			} else {
+				slot.clear();
+				// A full store, so that the read of waitingProducer that
+				// follows cannot move before it.
+				head.set(h + 1);
+			}
+
+			h++;
+			consumed = true;
+			wakeProducer();
+			dispatch(current);
+			current.clear();
+
+			if (h == t)
+				t = tail.get();
+		}
+
+		return consumed;
+	}
+
+	/**
+	 * Dispatch the overflow table once the ring has been emptied. The overflow
+	 * always holds events posted after those of the ring.
+	 * 
+	 * @return True if some events were dispatched.
+	 */
+	protected boolean drainOverflow() {
+		Slot[] pending;
+
+		overflowLock.lock();
+
+		try {
+			if (overflow.isEmpty() || head.get() != tail.get())
+				return !overflow.isEmpty();
+
+			pending = overflow.values().toArray(new Slot[overflow.size()]);
+			overflow.clear();
+			overflowSize = 0;
+		} finally {
+			overflowLock.unlock();
+		}
+
+		wakeProducer();
+
+		for (Slot slot : pending)
+			dispatch(slot);
+
+		return true;
+	}
+
+	protected void wakeProducer() {
+		Thread w = waitingProducer;
+
+		if (w != null)
+			LockSupport.unpark(w);
+	}
+
+	protected void wakeConsumer() {
+		Thread w = waitingConsumer;
+
+		if (w != null)
+			LockSupport.unpark(w);
+	}
+
+	// Producer side
+
+	protected boolean maybeUnregister() {
+		if (unregisterWhenPossible) {
+			if (input != null)
+				input.removeSink(this);
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Claim the next slot of the ring. The slot must be filled and then
+	 * published with {@link #publish()}.
+	 * 
+	 * @param type
+	 *            The event type, used to decide if the event can be coalesced.
+	 * @return The slot to fill, or null if the event must go to the overflow
+	 *         table or was discarded.
+	 */
+	protected Slot claim(GraphEvents type) {
+		long t = tail.get();
+
+		if (overflowSize == 0 && t - head.get() < ring.length)
+			return ring[(int) t & mask];
+
+		switch (backpressure) {
+		case DROP_OLDEST:
+			while (t - head.get() >= ring.length) {
+				long h = head.get();
+
+				if (t - h >= ring.length && head.compareAndSet(h, h + 1))
+					dropped.incrementAndGet();
+			}
+
+			return ring[(int) t & mask];
+		case COALESCE:
+			if (isCoalescable(type)) {
+				if (overflowSize > 0)
+					moveOverflow();
+
+				t = tail.get();
+
+				if (overflowSize == 0 && t - head.get() < ring.length)
+					return ring[(int) t & mask];
+
+				return null;
+			}
+
+			// Other events must keep their order.
+			return waitForSlot();
+		default:
+			return waitForSlot();
+		}
+	}
+
+	/**
+	 * Make the slot claimed last visible to the consumer.
+	 */
+	protected void publish() {
+		// A full store, not lazySet(): the read of waitingConsumer must not
+		// pass it, else a consumer registering at the same time could miss
+		// the slot and park without being woken.
+		tail.set(tail.get() + 1);
+		wakeConsumer();
+	}
+
+	/**
+	 * Wait until the overflow table is empty and a slot is free.
+	 * 
+	 * @return The free slot, or null if the producer was interrupted, in which
+	 *         case the event is discarded.
+	 */
+	protected Slot waitForSlot() {
+		while (true) {
+			if (overflowSize > 0)
+				moveOverflow();
+
+			long t = tail.get();
+
+			if (overflowSize == 0 && t - head.get() < ring.length)
+				return ring[(int) t & mask];
+
+			waitingProducer = Thread.currentThread();
+
+			try {
+				if (overflowSize > 0 || t - head.get() >= ring.length)
+					LockSupport.park(this);
+			} finally {
+				waitingProducer = null;
+			}
+
+			if (Thread.currentThread().isInterrupted()) {
+				logger.warning(String.format(
+						"%s: producer interrupted, event discarded.", this));
+				dropped.incrementAndGet();
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Move as many events of the overflow table as possible into the ring.
+	 */
+	protected void moveOverflow() {
+		overflowLock.lock();
+
+		try {
+			Iterator<Slot> it = overflow.values().iterator();
+			long t = tail.get();
+
+			while (it.hasNext() && t - head.get() < ring.length) {
+				ring[(int) t & mask].copy(it.next());
+				it.remove();
+				tail.set(++t);
+			}
+
+			overflowSize = overflow.size();
+		} finally {
+			overflowLock.unlock();
+			wakeConsumer();
+		}
+	}
+
+	protected static boolean isCoalescable(GraphEvents type) {
+		switch (type) {
+		case ADD_GRAPH_ATTR:
+		case CHG_GRAPH_ATTR:
+		case ADD_NODE_ATTR:
+		case CHG_NODE_ATTR:
+		case ADD_EDGE_ATTR:
+		case CHG_EDGE_ATTR:
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Put an attribute event in the overflow table, merging it with a pending
+	 * event on the same attribute of the same element. A pending addition stays
+	 * an addition, a pending change keeps its old value. The merged event also
+	 * keeps its time id, so that time ids stay increasing in the order the
+	 * events are dispatched, which sinks filtering on time ids rely on.
+	 */
+	protected void coalesce(GraphEvents type, String graphId, long timeId,
+			String elementId, String attribute, Object oldValue,
+			Object newValue) {
+		String key;
+
+		switch (type) {
+		case ADD_GRAPH_ATTR:
+		case CHG_GRAPH_ATTR:
+			key = "g\u0000" + attribute;
+			break;
+		case ADD_NODE_ATTR:
+		case CHG_NODE_ATTR:
+			key = "n" + elementId + "\u0000" + attribute;
+			break;
+		default:
+			key = "e" + elementId + "\u0000" + attribute;
+			break;
+		}
+
+		overflowLock.lock();
+
+		try {
+			Slot slot = overflow.get(key);
+
+			if (slot == null) {
+				slot = new Slot();
+				slot.type = type;
+				slot.graphId = graphId;
+				slot.timeId = timeId;
+				slot.elementId = elementId;
+				slot.attribute = attribute;
+				slot.oldValue = oldValue;
+				overflow.put(key, slot);
+			}
+
+			slot.newValue = newValue;
+			overflowSize = overflow.size();
+		} finally {
+			overflowLock.unlock();
+		}
+
+		wakeConsumer();
+	}
+
+	protected void postAttribute(GraphEvents type, String graphId,
+			long timeId, String elementId, String attribute, Object oldValue,
+			Object newValue) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(type);
+
+		if (slot == null) {
+			if (backpressure == Backpressure.COALESCE && isCoalescable(type))
+				coalesce(type, graphId, timeId, elementId, attribute,
+						oldValue, newValue);
+			return;
+		}
+
+		slot.type = type;
+		slot.graphId = graphId;
+		slot.timeId = timeId;
+		slot.elementId = elementId;
+		slot.attribute = attribute;
+		slot.oldValue = oldValue;
+		slot.newValue = newValue;
+		publish();
+	}
+
+	protected void postElement(GraphEvents type, String graphId, long timeId,
+			String elementId) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(type);
+
+		if (slot == null)
+			return;
+
+		slot.type = type;
+		slot.graphId = graphId;
+		slot.timeId = timeId;
+		slot.elementId = elementId;
+		publish();
+	}
+
+	public void edgeAttributeAdded(String graphId, long timeId, String edgeId,
+			String attribute, Object value) {
+		postAttribute(GraphEvents.ADD_EDGE_ATTR, graphId, timeId, edgeId,
+				attribute, null, value);
+	}
+
+	public void edgeAttributeChanged(String graphId, long timeId,
+			String edgeId, String attribute, Object oldValue, Object newValue) {
+		postAttribute(GraphEvents.CHG_EDGE_ATTR, graphId, timeId, edgeId,
+				attribute, oldValue, newValue);
+	}
+
+	public void edgeAttributeRemoved(String graphId, long timeId,
+			String edgeId, String attribute) {
+		postAttribute(GraphEvents.DEL_EDGE_ATTR, graphId, timeId, edgeId,
+				attribute, null, null);
+	}
+
+	public void graphAttributeAdded(String graphId, long timeId,
+			String attribute, Object value) {
+		postAttribute(GraphEvents.ADD_GRAPH_ATTR, graphId, timeId, null,
+				attribute, null, value);
+	}
+
+	public void graphAttributeChanged(String graphId, long timeId,
+			String attribute, Object oldValue, Object newValue) {
+		postAttribute(GraphEvents.CHG_GRAPH_ATTR, graphId, timeId, null,
+				attribute, oldValue, newValue);
+	}
+
+	public void graphAttributeRemoved(String graphId, long timeId,
+			String attribute) {
+		postAttribute(GraphEvents.DEL_GRAPH_ATTR, graphId, timeId, null,
+				attribute, null, null);
+	}
+
+	public void nodeAttributeAdded(String graphId, long timeId, String nodeId,
+			String attribute, Object value) {
+		postAttribute(GraphEvents.ADD_NODE_ATTR, graphId, timeId, nodeId,
+				attribute, null, value);
+	}
+
+	public void nodeAttributeChanged(String graphId, long timeId,
+			String nodeId, String attribute, Object oldValue, Object newValue) {
+		postAttribute(GraphEvents.CHG_NODE_ATTR, graphId, timeId, nodeId,
+				attribute, oldValue, newValue);
+	}
+
+	public void nodeAttributeRemoved(String graphId, long timeId,
+			String nodeId, String attribute) {
+		postAttribute(GraphEvents.DEL_NODE_ATTR, graphId, timeId, nodeId,
+				attribute, null, null);
+	}
+
+	public void edgeAdded(String graphId, long timeId, String edgeId,
+			String fromNodeId, String toNodeId, boolean directed) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.ADD_EDGE);
+
+		if (slot == null)
+			return;
+
+		slot.type = GraphEvents.ADD_EDGE;
+		slot.graphId = graphId;
+		slot.timeId = timeId;
+		slot.elementId = edgeId;
+		slot.fromId = fromNodeId;
+		slot.toId = toNodeId;
+		slot.directed = directed;
+		publish();
+	}
+
+	public void edgeRemoved(String graphId, long timeId, String edgeId) {
+		postElement(GraphEvents.DEL_EDGE, graphId, timeId, edgeId);
+	}
+
+	public void graphCleared(String graphId, long timeId) {
+		postElement(GraphEvents.CLEARED, graphId, timeId, null);
+	}
+
+	public void nodeAdded(String graphId, long timeId, String nodeId) {
+		postElement(GraphEvents.ADD_NODE, graphId, timeId, nodeId);
+	}
+
+	public void nodeRemoved(String graphId, long timeId, String nodeId) {
+		postElement(GraphEvents.DEL_NODE, graphId, timeId, nodeId);
+	}
+
+	public void stepBegins(String graphId, long timeId, double step) {
+		if (maybeUnregister())
+			return;
+
+		Slot slot = claim(GraphEvents.STEP);
+
+		if (slot == null)
+			return;
+
+		slot.type = GraphEvents.STEP;
+		slot.graphId = graphId;
+		slot.timeId = timeId;
+		slot.step = step;
+		publish();
+	}
+
+	// Dispatch
+
+	protected void dispatch(Slot e) {
+		switch (e.type) {
+		case ADD_NODE:
+			sendNodeAdded(e.graphId, e.timeId, e.elementId);
+			break;
+		case DEL_NODE:
+			sendNodeRemoved(e.graphId, e.timeId, e.elementId);
+			break;
+		case ADD_EDGE:
+			sendEdgeAdded(e.graphId, e.timeId, e.elementId, e.fromId,
+					e.toId, e.directed);
+			break;
+		case DEL_EDGE:
+			sendEdgeRemoved(e.graphId, e.timeId, e.elementId);
+			break;
+		case STEP:
+			sendStepBegins(e.graphId, e.timeId, e.step);
+			break;
+		case ADD_GRAPH_ATTR:
+			sendGraphAttributeAdded(e.graphId, e.timeId, e.attribute,
+					e.newValue);
+			break;
+		case CHG_GRAPH_ATTR:
+			sendGraphAttributeChanged(e.graphId, e.timeId, e.attribute,
+					e.oldValue, e.newValue);
+			break;
+		case DEL_GRAPH_ATTR:
+			sendGraphAttributeRemoved(e.graphId, e.timeId, e.attribute);
+			break;
+		case ADD_EDGE_ATTR:
+			sendEdgeAttributeAdded(e.graphId, e.timeId, e.elementId,
+					e.attribute, e.newValue);
+			break;
+		case CHG_EDGE_ATTR:
+			sendEdgeAttributeChanged(e.graphId, e.timeId, e.elementId,
+					e.attribute, e.oldValue, e.newValue);
+			break;
+		case DEL_EDGE_ATTR:
+			sendEdgeAttributeRemoved(e.graphId, e.timeId, e.elementId,
+					e.attribute);
+			break;
+		case ADD_NODE_ATTR:
+			sendNodeAttributeAdded(e.graphId, e.timeId, e.elementId,
+					e.attribute, e.newValue);
+			break;
+		case CHG_NODE_ATTR:
+			sendNodeAttributeChanged(e.graphId, e.timeId, e.elementId,
+					e.attribute, e.oldValue, e.newValue);
+			break;
+		case DEL_NODE_ATTR:
+			sendNodeAttributeRemoved(e.graphId, e.timeId, e.elementId,
+					e.attribute);
+			break;
+		case CLEARED:
+			sendGraphCleared(e.graphId, e.timeId);
+			break;
+		default:
+			logger.warning(String.format("Unknown message %s.", e.type));
+			break;
+		}
+	}
+}
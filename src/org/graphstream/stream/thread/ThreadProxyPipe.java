@@ -39,6 +39,7 @@ import org.graphstream.stream.Sink;
 import org.graphstream.stream.Source;
 import org.graphstream.stream.SourceBase;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
@@ -81,6 +82,16 @@ import java.util.logging.Logger;
  * the graph. This is the default behavior if this filter is constructed with a
  * graph as input.
  * </p>
+ * 
+ * <p>
+ * When the sink thread is only interested in the last value of attributes, for
+ * example when the source is a layout that changes the position of nodes many
+ * times between two pumps, the coalescing mode can be enabled with
+ * {@link #setCoalescing(boolean)}. In this mode, an attribute change is merged
+ * into the pending addition or change of the same attribute of the same
+ * element if it has not been pumped yet. The order of the other events is not
+ * modified.
+ * </p>
  */
 public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 
@@ -119,6 +130,18 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 	 */
 	protected boolean unregisterWhenPossible = false;
 
+	/**
+	 * Merge attribute changes into pending events on the same attribute.
+	 */
+	protected boolean coalescing = false;
+
+	/**
+	 * Data of the attribute events not yet pumped, by element and attribute.
+	 * The element key is made of the element kind and id. Only used in the
+	 * coalescing mode, guarded by the lock.
+	 */
+	protected HashMap<String, HashMap<String, Object[]>> pendingAttributes;
+
 	public ThreadProxyPipe() {
 		this.events = new LinkedList<GraphEvents>();
 		this.eventsData = new LinkedList<Object[]>();
@@ -208,6 +231,9 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 
 			this.events.clear();
 			this.eventsData.clear();
+
+			if (pendingAttributes != null)
+				pendingAttributes.clear();
 		} finally {
 			lock.unlock();
 		}
@@ -247,6 +273,41 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 		unregisterWhenPossible = true;
 	}
 
+	/**
+	 * Enable or disable the coalescing of attribute changes. When enabled, a
+	 * change of an attribute that already has a pending addition or change
+	 * replaces the value of the pending event instead of being queued, so that
+	 * sinks only receive the last value set between two pumps. Events that
+	 * remove the attribute or its element, or clear the graph, end the
+	 * coalescing of the corresponding pending events.
+	 * 
+	 * @param on
+	 *            True to merge attribute changes.
+	 */
+	public void setCoalescing(boolean on) {
+		lock.lock();
+
+		try {
+			coalescing = on;
+
+			if (on && pendingAttributes == null)
+				pendingAttributes = new HashMap<String, HashMap<String, Object[]>>();
+			else if (!on)
+				pendingAttributes = null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Is the coalescing of attribute changes enabled ?
+	 * 
+	 * @return True if attribute changes are merged.
+	 */
+	public boolean isCoalescing() {
+		return coalescing;
+	}
+
 	/**
 	 * This method must be called regularly in the output thread to check if the
 	 * input source sent events. If some event occurred, the listeners will be
@@ -262,6 +323,9 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 			try {
 				e = events.poll();
 				data = eventsData.poll();
+
+				if (e != null && pendingAttributes != null)
+					pumped(e, data);
 			} finally {
 				lock.unlock();
 			}
@@ -303,6 +367,9 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 			try {
 				e = events.poll();
 				data = eventsData.poll();
+
+				if (e != null && pendingAttributes != null)
+					pumped(e, data);
 			} finally {
 				lock.unlock();
 			}
@@ -346,6 +413,9 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 		lock.lock();
 
 		try {
+			if (pendingAttributes != null && coalesce(e, data))
+				return;
+
 			events.add(e);
 			eventsData.add(data);
 
@@ -355,6 +425,135 @@ public class ThreadProxyPipe extends SourceBase implements ProxyPipe {
 		}
 	}
 
+	/**
+	 * Key of the element targeted by an event in the pending attributes, or
+	 * null if the event does not target an element attribute or element.
+	 */
+	protected static String elementKey(GraphEvents e, Object[] data) {
+		switch (e) {
+		case ADD_GRAPH_ATTR:
+		case CHG_GRAPH_ATTR:
+		case DEL_GRAPH_ATTR:
+			return "g";
+		case ADD_NODE_ATTR:
+		case CHG_NODE_ATTR:
+		case DEL_NODE_ATTR:
+		case DEL_NODE:
+			return "n" + data[2];
+		case ADD_EDGE_ATTR:
+		case CHG_EDGE_ATTR:
+		case DEL_EDGE_ATTR:
+		case DEL_EDGE:
+			return "e" + data[2];
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * Update the pending attributes with an event that is about to be posted.
+	 * Called with the lock held.
+	 * 
+	 * @return True if the event was merged into a pending event and must not
+	 *         be posted.
+	 */
+	protected boolean coalesce(GraphEvents e, Object[] data) {
+		HashMap<String, Object[]> attributes;
+		String key;
+
+		switch (e) {
+		case CHG_GRAPH_ATTR:
+		case CHG_NODE_ATTR:
+		case CHG_EDGE_ATTR:
+			key = elementKey(e, data);
+			attributes = pendingAttributes.get(key);
+
+			// The attribute name is just before the value(s).
+			String attribute = (String) data[data.length - 3];
+
+			if (attributes != null) {
+				Object[] pending = attributes.get(attribute);
+
+				// The pending event keeps its place and its time id, only the
+				// value changes. The value is always the last datum.
+				if (pending != null && pending[0].equals(data[0])) {
+					pending[pending.length - 1] = data[data.length - 1];
+					return true;
+				}
+			} else {
+				attributes = new HashMap<String, Object[]>();
+				pendingAttributes.put(key, attributes);
+			}
+
+			attributes.put(attribute, data);
+			return false;
+		case ADD_GRAPH_ATTR:
+		case ADD_NODE_ATTR:
+		case ADD_EDGE_ATTR:
+			key = elementKey(e, data);
+			attributes = pendingAttributes.get(key);
+
+			if (attributes == null) {
+				attributes = new HashMap<String, Object[]>();
+				pendingAttributes.put(key, attributes);
+			}
+
+			attributes.put((String) data[data.length - 2], data);
+			return false;
+		case DEL_GRAPH_ATTR:
+		case DEL_NODE_ATTR:
+		case DEL_EDGE_ATTR:
+			attributes = pendingAttributes.get(elementKey(e, data));
+
+			if (attributes != null)
+				attributes.remove(data[data.length - 1]);
+
+			return false;
+		case DEL_NODE:
+		case DEL_EDGE:
+			pendingAttributes.remove(elementKey(e, data));
+			return false;
+		case CLEARED:
+			pendingAttributes.clear();
+			return false;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Forget a pending attribute event once it has been taken from the queue,
+	 * its data must not be modified anymore. Called with the lock held.
+	 */
+	protected void pumped(GraphEvents e, Object[] data) {
+		String attribute;
+
+		switch (e) {
+		case ADD_GRAPH_ATTR:
+		case ADD_NODE_ATTR:
+		case ADD_EDGE_ATTR:
+			attribute = (String) data[data.length - 2];
+			break;
+		case CHG_GRAPH_ATTR:
+		case CHG_NODE_ATTR:
+		case CHG_EDGE_ATTR:
+			attribute = (String) data[data.length - 3];
+			break;
+		default:
+			return;
+		}
+
+		String key = elementKey(e, data);
+		HashMap<String, Object[]> attributes = pendingAttributes.get(key);
+
+		if (attributes != null && attributes.get(attribute) == data) {
+			attributes.remove(attribute);
+
+			if (attributes.isEmpty())
+				pendingAttributes.remove(key);
+		}
+	}
+
 	public void edgeAttributeAdded(String graphId, long timeId, String edgeId,
 			String attribute, Object value) {
 		if (maybeUnregister())
@@ -114,7 +114,7 @@ public class GraphicEdge extends GraphicElement implements Edge {
 		this.directed = dir;
 
 		if (this.attributes == null)
-			this.attributes = new HashMap<String, Object>();
+			this.attributes = createAttributeStore();
 
 		if (attributes != null)
 			addAttributes(attributes);
@@ -235,7 +235,10 @@ public abstract class GraphicElement extends AbstractElement {
 						logger.warning("Unknown value for style [" + newValue + "].");
 					}
 				} else if (attribute.equals("ui.hide")) {
+					boolean wasIn = mygraph.inBounds(this);
 					hidden = true;
+					mygraph.boundsMoved(this, wasIn, getX(), getY(), getZ());
+					mygraph.geometryVersion++;
 					mygraph.graphChanged = true;
 				} else if (attribute.equals("ui.clicked")) {
 					style.pushEventFor(this, "clicked");
@@ -277,7 +280,10 @@ public abstract class GraphicElement extends AbstractElement {
 					label = "";
 					mygraph.graphChanged = true;
 				} else if (attribute.equals("ui.hide")) {
+					boolean wasIn = mygraph.inBounds(this);
 					hidden = false;
+					mygraph.boundsMoved(this, wasIn, getX(), getY(), getZ());
+					mygraph.geometryVersion++;
 					mygraph.graphChanged = true;
 				} else if (attribute.equals("ui.clicked")) {
 					style.popEventFor(this, "clicked");
@@ -194,6 +194,52 @@ public class GraphicGraph extends AbstractElement implements Graph,
 	 */
 	protected Point3 lo = new Point3();
 
+	/**
+	 * Smallest coordinates, per axis, of the nodes and sprites counted in the
+	 * bounds. Maintained as elements move while {@link #boundsValid} is true.
+	 */
+	protected double[] boundsLo = new double[3];
+
+	/**
+	 * Largest coordinates, per axis, of the nodes and sprites counted in the
+	 * bounds.
+	 */
+	protected double[] boundsHi = new double[3];
+
+	/**
+	 * Number of elements lying on {@link #boundsLo}, per axis.
+	 */
+	protected int[] boundsLoCount = new int[3];
+
+	/**
+	 * Number of elements lying on {@link #boundsHi}, per axis.
+	 */
+	protected int[] boundsHiCount = new int[3];
+
+	/**
+	 * Number of elements counted in the bounds.
+	 */
+	protected int boundsCount = 0;
+
+	/**
+	 * False when the extremes must be searched again among all the elements.
+	 * This happens when the last element on an extreme moves inward or
+	 * leaves the bounds.
+	 */
+	protected boolean boundsValid = false;
+
+	/**
+	 * Spatial index of the node positions, used for picking and culling.
+	 */
+	protected NodeGrid nodeGrid;
+
+	/**
+	 * Incremented each time a node moves, an element is shown, hidden or
+	 * removed, or an element enters a style group. Renderers compare it to
+	 * know if geometry cached during a previous frame is still valid.
+	 */
+	protected long geometryVersion = 0;
+
 	/**
 	 * Set of listeners of this graph.
 	 */
@@ -229,6 +275,7 @@ public class GraphicGraph extends AbstractElement implements Graph,
 		styleSheet = new StyleSheet();
 		styleGroups = new StyleGroupSet(styleSheet);
 		connectivity = new HashMap<GraphicNode, List<GraphicEdge>>();
+		nodeGrid = new NodeGrid(this);
 
 		styleGroups.addListener(this);
 		styleGroups.addElement(this); // Add style to this graph.
@@ -285,6 +332,25 @@ public class GraphicGraph extends AbstractElement implements Graph,
 		return styleGroups;
 	}
 
+	/**
+	 * The spatial index of the node positions.
+	 * 
+	 * @return The node grid.
+	 */
+	public NodeGrid getNodeGrid() {
+		return nodeGrid;
+	}
+
+	/**
+	 * A counter that changes each time the position, visibility or style
+	 * group of an element changes.
+	 * 
+	 * @return The geometry version.
+	 */
+	public long getGeometryVersion() {
+		return geometryVersion;
+	}
+
 	@Override
 	public String toString() {
 		return String.format("[%s %d nodes %d edges]", getId(), getNodeCount(),
@@ -341,89 +407,178 @@ public class GraphicGraph extends AbstractElement implements Graph,
 	 * circumstances be computed according to the graph bounds. The bounds are
 	 * stored in the graph metrics.
 	 * 
-	 * This operation will process each node and sprite and is therefore costly.
-	 * However it does this computation again only when a node or sprite moved.
-	 * Therefore it can be called several times, if nothing moved in the graph,
-	 * the computation will not be redone.
+	 * The extremes are maintained as nodes and sprites move, appear,
+	 * disappear or are hidden, counting for each axis the elements lying on
+	 * the extreme. All the nodes and sprites are processed again only when
+	 * the last element on an extreme moves inward or leaves the bounds.
+	 * Therefore this can be called at each frame, even while a layout runs.
 	 * 
 	 * @see #getMaxPos()
 	 * @see #getMinPos()
 	 */
 	public void computeBounds() {
 		if (boundsChanged) {
-			boolean effectiveChange = false;
-
-			lo.x = lo.y = lo.z = Double.MAX_VALUE;
-			hi.x = hi.y = hi.z = -Double.MAX_VALUE;
-
-			for (Node n : getEachNode()) {
-				GraphicNode node = (GraphicNode) n;
-
-				if (!node.hidden && node.positionned) {
-					effectiveChange = true;
-
-					if (node.x < lo.x)
-						lo.x = node.x;
-					if (node.x > hi.x)
-						hi.x = node.x;
-					if (node.y < lo.y)
-						lo.y = node.y;
-					if (node.y > hi.y)
-						hi.y = node.y;
-					if (node.z < lo.z)
-						lo.z = node.z;
-					if (node.z > hi.z)
-						hi.z = node.z;
-				}
-			}
+			if (!boundsValid)
+				rescanBounds();
 
-			for (GraphicSprite sprite : spriteSet()) {
-				if (!sprite.isAttached()
-						&& sprite.getUnits() == StyleConstants.Units.GU) {
-					double x = sprite.getX();
-					double y = sprite.getY();
-					double z = sprite.getZ();
-
-					if (!sprite.hidden) {
-						effectiveChange = true;
-
-						if (x < lo.x)
-							lo.x = x;
-						if (x > hi.x)
-							hi.x = x;
-						if (y < lo.y)
-							lo.y = y;
-						if (y > hi.y)
-							hi.y = y;
-						if (z < lo.z)
-							lo.z = z;
-						if (z > hi.z)
-							hi.z = z;
-					}
+			if (boundsCount > 0) {
+				lo.set(boundsLo[0], boundsLo[1], boundsLo[2]);
+				hi.set(boundsHi[0], boundsHi[1], boundsHi[2]);
+
+				if (hi.x - lo.x < 0.000001) {
+					hi.x = hi.x + 1;
+					lo.x = lo.x - 1;
+				}
+				if (hi.y - lo.y < 0.000001) {
+					hi.y = hi.y + 1;
+					lo.y = lo.y - 1;
+				}
+				if (hi.z - lo.z < 0.000001) {
+					hi.z = hi.z + 1;
+					lo.z = lo.z - 1;
 				}
-			}
 
-			if (hi.x - lo.x < 0.000001) {
-				hi.x = hi.x + 1;
-				lo.x = lo.x - 1;
+				boundsChanged = false;
+			} else {
+				lo.x = lo.y = lo.z = -1;
+				hi.x = hi.y = hi.z = 1;
 			}
-			if (hi.y - lo.y < 0.000001) {
-				hi.y = hi.y + 1;
-				lo.y = lo.y - 1;
+		}
+	}
+
+	/**
+	 * Search the extremes among all the nodes and sprites counted in the
+	 * bounds.
+	 */
+	protected void rescanBounds() {
+		boundsCount = 0;
+		boundsValid = true;
+
+		for (Node n : getEachNode()) {
+			GraphicNode node = (GraphicNode) n;
+
+			if (inBounds(node))
+				boundsMoved(false, 0, 0, 0, true, node.x, node.y, node.z);
+		}
+
+		for (GraphicSprite sprite : spriteSet()) {
+			if (inBounds(sprite))
+				boundsMoved(false, 0, 0, 0, true, sprite.getX(),
+						sprite.getY(), sprite.getZ());
+		}
+	}
+
+	/**
+	 * Is an element counted in the bounds? Only the visible positioned nodes
+	 * and the visible sprites that are not attached and positioned in graph
+	 * units are.
+	 * 
+	 * @param element
+	 *            The element.
+	 * @return True if the element position is part of the bounds.
+	 */
+	protected boolean inBounds(GraphicElement element) {
+		if (element.hidden)
+			return false;
+
+		switch (element.getSelectorType()) {
+		case NODE:
+			return ((GraphicNode) element).positionned;
+		case SPRITE:
+			GraphicSprite sprite = (GraphicSprite) element;
+			return !sprite.isAttached()
+					&& sprite.getUnits() == StyleConstants.Units.GU;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Update the bounds after an element moved or changed in a way that may
+	 * count or discount it in the bounds.
+	 * 
+	 * @param element
+	 *            The element, in its new state.
+	 * @param wasIn
+	 *            Was the element counted in the bounds before the change?
+	 * @param ox
+	 *            The old abscissa.
+	 * @param oy
+	 *            The old ordinate.
+	 * @param oz
+	 *            The old depth.
+	 */
+	protected void boundsMoved(GraphicElement element, boolean wasIn,
+			double ox, double oy, double oz) {
+		boundsMoved(wasIn, ox, oy, oz, inBounds(element), element.getX(),
+				element.getY(), element.getZ());
+	}
+
+	protected void boundsMoved(boolean wasIn, double ox, double oy,
+			double oz, boolean isIn, double x, double y, double z) {
+		boundsChanged = true;
+
+		if (!boundsValid || (!wasIn && !isIn))
+			return;
+
+		if (!wasIn && boundsCount == 0) {
+			boundsLo[0] = boundsHi[0] = x;
+			boundsLo[1] = boundsHi[1] = y;
+			boundsLo[2] = boundsHi[2] = z;
+			boundsLoCount[0] = boundsLoCount[1] = boundsLoCount[2] = 1;
+			boundsHiCount[0] = boundsHiCount[1] = boundsHiCount[2] = 1;
+			boundsCount = 1;
+			return;
+		}
+
+		if (!wasIn)
+			boundsCount++;
+		else if (!isIn)
+			boundsCount--;
+
+		boundsMoved(0, wasIn, ox, isIn, x);
+		boundsMoved(1, wasIn, oy, isIn, y);
+		boundsMoved(2, wasIn, oz, isIn, z);
+	}
+
+	protected void boundsMoved(int axis, boolean wasIn, double o, boolean isIn,
+			double v) {
+		double min = boundsLo[axis];
+		double max = boundsHi[axis];
+
+		if (wasIn && o == min) {
+			if (isIn && v <= min) {
+				if (v < min) {
+					boundsLo[axis] = v;
+					boundsLoCount[axis] = 1;
+				}
+			} else if (--boundsLoCount[axis] == 0) {
+				boundsValid = false;
 			}
-			if (hi.z - lo.z < 0.000001) {
-				hi.z = hi.z + 1;
-				lo.z = lo.z - 1;
+		} else if (isIn) {
+			if (v < min) {
+				boundsLo[axis] = v;
+				boundsLoCount[axis] = 1;
+			} else if (v == min) {
+				boundsLoCount[axis]++;
 			}
+		}
 
-			//
-			// Prevent infinities that can be produced by Double.MAX_VALUE.
-			//
-			if (effectiveChange)
-				boundsChanged = false;
-			else {
-				lo.x = lo.y = lo.z = -1;
-				hi.x = hi.y = hi.z = 1;
+		if (wasIn && o == max) {
+			if (isIn && v >= max) {
+				if (v > max) {
+					boundsHi[axis] = v;
+					boundsHiCount[axis] = 1;
+				}
+			} else if (--boundsHiCount[axis] == 0) {
+				boundsValid = false;
+			}
+		} else if (isIn) {
+			if (v > max) {
+				boundsHi[axis] = v;
+				boundsHiCount[axis] = 1;
+			} else if (v == max) {
+				boundsHiCount[axis]++;
 			}
 		}
 	}
@@ -432,9 +587,7 @@ public class GraphicGraph extends AbstractElement implements Graph,
 		GraphicNode node = (GraphicNode) styleGroups.getNode(id);
 
 		if (node != null) {
-			node.x = x;
-			node.y = y;
-			node.z = z;
+			node.moveFromEvent(x, y, z);
 			node.addAttribute("x", x);
 			node.addAttribute("y", y);
 			node.addAttribute("z", z);
@@ -527,6 +680,7 @@ public class GraphicGraph extends AbstractElement implements Graph,
 		if (element instanceof GraphicElement) {
 			GraphicElement ge = (GraphicElement) element;
 			ge.style = style;
+			geometryVersion++;
 			graphChanged = true;
 		} else if (element instanceof GraphicGraph) {
 			GraphicGraph gg = (GraphicGraph) element;
@@ -758,7 +912,12 @@ public class GraphicGraph extends AbstractElement implements Graph,
 		clearAttributesWithNoEvent();
 
 		connectivity.clear();
+		nodeGrid.clear();
 		styleGroups.clear();
+
+		boundsValid = false;
+		boundsChanged = true;
+		geometryVersion++;
 		styleSheet.clear();
 
 		step = 0;
@@ -789,6 +948,7 @@ public class GraphicGraph extends AbstractElement implements Graph,
 			styleGroups.removeElement(edge);
 			edge.removed();
 
+			geometryVersion++;
 			graphChanged = true;
 		}
 
@@ -850,9 +1010,12 @@ public class GraphicGraph extends AbstractElement implements Graph,
 				connectivity.remove(node);
 			}
 
+			nodeGrid.remove(node);
+			boundsMoved(inBounds(node), node.x, node.y, node.z, false, 0, 0, 0);
 			styleGroups.removeElement(node);
 			node.removed();
 
+			geometryVersion++;
 			graphChanged = true;
 		}
 
@@ -1246,6 +1409,7 @@ public class GraphicGraph extends AbstractElement implements Graph,
 	protected GraphicSprite addSprite_(String id) {
 		GraphicSprite s = new GraphicSprite(id, this);
 		styleGroups.addElement(s);
+		boundsMoved(s, false, 0, 0, 0);
 		graphChanged = true;
 
 		return s;
@@ -1261,6 +1425,8 @@ public class GraphicGraph extends AbstractElement implements Graph,
 
 		if (sprite != null) {
 			sprite.detach();
+			boundsMoved(inBounds(sprite), sprite.getX(), sprite.getY(),
+					sprite.getZ(), false, 0, 0, 0);
 			styleGroups.removeElement(sprite);
 			sprite.removed();
 
@@ -64,6 +64,17 @@ public class GraphicNode extends GraphicElement implements Node {
 
 	public boolean positionned = false;
 
+	/**
+	 * Key of the cell of the node in the graph {@link NodeGrid}, meaningful
+	 * only if {@link #gridIndexed} is true.
+	 */
+	protected long gridCell;
+
+	/**
+	 * Is the node currently stored in the graph {@link NodeGrid}?
+	 */
+	protected boolean gridIndexed = false;
+
 	/**
 	 * New graphic node.
 	 * 
@@ -105,6 +116,11 @@ public class GraphicNode extends GraphicElement implements Node {
 	}
 
 	protected void moveFromEvent(double x, double y, double z) {
+		boolean wasIn = mygraph.inBounds(this);
+		double ox = this.x;
+		double oy = this.y;
+		double oz = this.z;
+
 		this.x = x;
 		this.y = y;
 		this.z = z;
@@ -114,7 +130,9 @@ public class GraphicNode extends GraphicElement implements Node {
 		}
 
 		mygraph.graphChanged = true;
-		mygraph.boundsChanged = true;
+		mygraph.boundsMoved(this, wasIn, ox, oy, oz);
+		mygraph.nodeGrid.moved(this);
+		mygraph.geometryVersion++;
 	}
 
 	@Override
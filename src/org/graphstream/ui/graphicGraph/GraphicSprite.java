@@ -204,8 +204,11 @@ public class GraphicSprite extends GraphicElement {
 	 *            A graphic node.
 	 */
 	public void attachToNode(GraphicNode node) {
+		boolean wasIn = mygraph.inBounds(this);
+
 		this.edge = null;
 		this.node = node;
+		mygraph.boundsMoved(this, wasIn, getX(), getY(), getZ());
 
 		String prefix = String.format("ui.sprite.%s", getId());
 
@@ -222,8 +225,11 @@ public class GraphicSprite extends GraphicElement {
 	 *            A graphic edge.
 	 */
 	public void attachToEdge(GraphicEdge edge) {
+		boolean wasIn = mygraph.inBounds(this);
+
 		this.node = null;
 		this.edge = edge;
+		mygraph.boundsMoved(this, wasIn, getX(), getY(), getZ());
 
 		String prefix = String.format("ui.sprite.%s", getId());
 
@@ -237,15 +243,22 @@ public class GraphicSprite extends GraphicElement {
 	 * Detach this sprite from the edge or node it was attached to.
 	 */
 	public void detach() {
+		boolean wasIn = mygraph.inBounds(this);
 		String prefix = String.format("ui.sprite.%s", getId());
+		GraphicNode node = this.node;
+		GraphicEdge edge = this.edge;
 
-		if (this.node != null)
-			this.node.removeAttribute(prefix);
-		else if (this.edge != null)
-			this.edge.removeAttribute(prefix);
+		// Detach first, removing the attribute calls back detach().
 
 		this.edge = null;
 		this.node = null;
+		mygraph.boundsMoved(this, wasIn, getX(), getY(), getZ());
+
+		if (node != null)
+			node.removeAttribute(prefix);
+		else if (edge != null)
+			edge.removeAttribute(prefix);
+
 		mygraph.graphChanged = true;
 	}
 
@@ -283,6 +296,10 @@ public class GraphicSprite extends GraphicElement {
 		}
 
 		boolean changed = false;
+		boolean wasIn = mygraph.inBounds(this);
+		double ox = getX();
+		double oy = getY();
+		double oz = getZ();
 
 		if (getX() != x) {
 			changed = true;
@@ -303,7 +320,7 @@ public class GraphicSprite extends GraphicElement {
 
 		if (changed) {
 			mygraph.graphChanged = true;
-			mygraph.boundsChanged = true;
+			mygraph.boundsMoved(this, wasIn, ox, oy, oz);
 
 			String prefix = String.format("ui.sprite.%s", getId());
 
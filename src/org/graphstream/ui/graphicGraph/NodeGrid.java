@@ -0,0 +1,298 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.ui.graphicGraph;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+import org.graphstream.graph.Node;
+
+/**
+ * Uniform grid over the positions of the nodes of a graphic graph.
+ * 
+ * <p>
+ * The grid buckets nodes by the cell their centre falls in, so that the nodes
+ * lying in a rectangle can be found by visiting only the cells the rectangle
+ * covers instead of every node of the graph. This is what the cameras use to
+ * pick the element under the mouse and to cull nodes outside of the view.
+ * </p>
+ * 
+ * <p>
+ * The grid is updated incrementally each time a node moves, only nodes
+ * changing cell cost a hash map update. The cell size is chosen from the graph
+ * bounds so that a cell holds a few nodes on average. When the bounds grow or
+ * shrink too much for the current size, the grid is rebuilt lazily at the
+ * next query. Only the x and y coordinates are considered.
+ * </p>
+ */
+public class NodeGrid {
+	/**
+	 * Average number of nodes per cell aimed at when choosing the cell size.
+	 */
+	public static final int NODES_PER_CELL = 4;
+
+	/**
+	 * The graph whose nodes are indexed.
+	 */
+	protected GraphicGraph graph;
+
+	/**
+	 * Nodes of each non empty cell, by cell key.
+	 */
+	protected HashMap<Long, ArrayList<GraphicNode>> cells = new HashMap<Long, ArrayList<GraphicNode>>();
+
+	/**
+	 * Side of a cell in graph units. Zero while the grid is not built.
+	 */
+	protected double cellSize = 0;
+
+	/**
+	 * Number of indexed nodes.
+	 */
+	protected int nodeCount = 0;
+
+	/**
+	 * New empty grid for the given graph. The grid is built at the first
+	 * query.
+	 * 
+	 * @param graph
+	 *            The indexed graph.
+	 */
+	public NodeGrid(GraphicGraph graph) {
+		this.graph = graph;
+	}
+
+	// Access
+
+	/**
+	 * Side of a cell in graph units, zero if the grid is not built yet.
+	 * 
+	 * @return The cell size.
+	 */
+	public double getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Number of non empty cells.
+	 * 
+	 * @return The cell count.
+	 */
+	public int getCellCount() {
+		return cells.size();
+	}
+
+	/**
+	 * Add to the given collection every positioned node whose centre lies in
+	 * the rectangle (x1,y1)-(x2,y2), bounds included, in graph units. When
+	 * the rectangle covers more cells than there are non empty cells, the
+	 * cells are scanned instead.
+	 * 
+	 * @param x1
+	 *            Min abscissa.
+	 * @param y1
+	 *            Min ordinate.
+	 * @param x2
+	 *            Max abscissa.
+	 * @param y2
+	 *            Max ordinate.
+	 * @param result
+	 *            Receiver for the nodes found.
+	 * @return The number of nodes added.
+	 */
+	public int nodesIn(double x1, double y1, double x2, double y2,
+			Collection<? super GraphicNode> result) {
+		checkCellSize();
+
+		if (nodeCount == 0)
+			return 0;
+
+		long cx1 = cell(x1);
+		long cy1 = cell(y1);
+		long cx2 = cell(x2);
+		long cy2 = cell(y2);
+		int found = 0;
+
+		if ((cx2 - cx1 + 1.0) * (cy2 - cy1 + 1.0) > cells.size()) {
+			for (ArrayList<GraphicNode> nodes : cells.values())
+				found += collect(nodes, x1, y1, x2, y2, result);
+		} else {
+			for (long cx = cx1; cx <= cx2; cx++) {
+				for (long cy = cy1; cy <= cy2; cy++) {
+					ArrayList<GraphicNode> nodes = cells.get(key(cx, cy));
+
+					if (nodes != null)
+						found += collect(nodes, x1, y1, x2, y2, result);
+				}
+			}
+		}
+
+		return found;
+	}
+
+	// Command
+
+	/**
+	 * Update the cell of a node after it moved.
+	 * 
+	 * @param node
+	 *            The node that moved.
+	 */
+	protected void moved(GraphicNode node) {
+		if (cellSize > 0) {
+			long key = key(cell(node.x), cell(node.y));
+
+			if (node.gridIndexed) {
+				if (node.gridCell == key)
+					return;
+
+				remove(node);
+			}
+
+			insert(node, key);
+		}
+	}
+
+	/**
+	 * Remove a node from the grid.
+	 * 
+	 * @param node
+	 *            The removed node.
+	 */
+	protected void remove(GraphicNode node) {
+		if (node.gridIndexed) {
+			ArrayList<GraphicNode> nodes = cells.get(node.gridCell);
+
+			if (nodes != null) {
+				nodes.remove(node);
+
+				if (nodes.isEmpty())
+					cells.remove(node.gridCell);
+			}
+
+			node.gridIndexed = false;
+			nodeCount--;
+		}
+	}
+
+	/**
+	 * Empty the grid. It will be rebuilt at the next query.
+	 */
+	protected void clear() {
+		for (ArrayList<GraphicNode> nodes : cells.values()) {
+			for (GraphicNode node : nodes)
+				node.gridIndexed = false;
+		}
+
+		cells.clear();
+		cellSize = 0;
+		nodeCount = 0;
+	}
+
+	/**
+	 * Rebuild the grid if it is not built yet or if the cell size it has been
+	 * built with is more than twice smaller or larger than the size the
+	 * current graph bounds call for.
+	 */
+	protected void checkCellSize() {
+		int n = graph.getNodeCount();
+
+		if (n == 0)
+			return;
+
+		graph.computeBounds();
+
+		double w = graph.hi.x - graph.lo.x;
+		double h = graph.hi.y - graph.lo.y;
+		double size = Math.sqrt((w * h * NODES_PER_CELL) / n);
+
+		if (!(size > 0) || Double.isInfinite(size))
+			size = 1;
+
+		if (cellSize <= 0 || size > cellSize * 2 || size < cellSize / 2) {
+			clear();
+
+			cellSize = size;
+
+			for (Node n0 : graph) {
+				GraphicNode node = (GraphicNode) n0;
+
+				if (node.positionned)
+					insert(node, key(cell(node.x), cell(node.y)));
+			}
+		}
+	}
+
+	protected void insert(GraphicNode node, long key) {
+		ArrayList<GraphicNode> nodes = cells.get(key);
+
+		if (nodes == null) {
+			nodes = new ArrayList<GraphicNode>(NODES_PER_CELL);
+			cells.put(key, nodes);
+		}
+
+		nodes.add(node);
+
+		node.gridCell = key;
+		node.gridIndexed = true;
+		nodeCount++;
+	}
+
+	protected int collect(ArrayList<GraphicNode> nodes, double x1, double y1,
+			double x2, double y2, Collection<? super GraphicNode> result) {
+		int found = 0;
+
+		for (int i = 0; i < nodes.size(); i++) {
+			GraphicNode node = nodes.get(i);
+
+			if (node.x >= x1 && node.x <= x2 && node.y >= y1 && node.y <= y2) {
+				result.add(node);
+				found++;
+			}
+		}
+
+		return found;
+	}
+
+	/**
+	 * Cell index along one axis. Out of range coordinates saturate on the
+	 * border cells.
+	 */
+	protected long cell(double v) {
+		return (int) Math.floor(v / cellSize);
+	}
+
+	protected static long key(long cx, long cy) {
+		return (cx << 32) | (cy & 0xffffffffL);
+	}
+}
@@ -35,6 +35,7 @@ import org.graphstream.graph.Graph;
 import org.graphstream.stream.ProxyPipe;
 import org.graphstream.stream.Source;
 import org.graphstream.stream.thread.ThreadProxyPipe;
+import org.graphstream.ui.layout.springbox.BarnesHutLayout;
 
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -172,7 +173,24 @@ public class LayoutRunner extends Thread {
 	 * thread.
 	 */
 	public ProxyPipe newLayoutPipe() {
+		return newLayoutPipe(false);
+	}
+
+	/**
+	 * Pipe out whose input is connected to the layout algorithm, optionally
+	 * coalescing attribute changes (see
+	 * {@link ThreadProxyPipe#setCoalescing(boolean)}). When coalescing, only
+	 * the last position of each node computed between two pumps is delivered,
+	 * and it is delivered at the place of the first pending change, that is
+	 * possibly before structural events that were sent in between. This suits
+	 * sinks that only listen to attributes.
+	 * 
+	 * @param coalescing
+	 *            True to merge the attribute changes not yet pumped.
+	 */
+	public ProxyPipe newLayoutPipe(boolean coalescing) {
 		ThreadProxyPipe tpp = new ThreadProxyPipe();
+		tpp.setCoalescing(coalescing);
 		tpp.init(layout);
 		
 		return tpp;
@@ -203,7 +221,9 @@ public class LayoutRunner extends Thread {
 
 	/**
 	 * Release any link to the source of events and stop the layout proces. The
-	 * thread will end after this method has been called.
+	 * thread will end after this method has been called. The threads a
+	 * Barnes-Hut layout may have created to compute in parallel are stopped
+	 * too.
 	 */
 	public void release() {
 		pumpPipe.unregisterFromSource();
@@ -219,6 +239,9 @@ public class LayoutRunner extends Thread {
 			}
 		}
 
+		if (layout instanceof BarnesHutLayout)
+			((BarnesHutLayout) layout).shutdown();
+
 		layout = null;
 	}
 
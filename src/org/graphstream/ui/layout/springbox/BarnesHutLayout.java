@@ -49,6 +49,7 @@ import java.io.PrintStream;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 
 /**
@@ -82,6 +83,10 @@ import java.util.logging.Logger;
  * Barnes-Hut algorithms are disabled), but the computation can take a lot of
  * time (the algorithm becomes O(n^2)). TODO change this into layout.barneshut
  * or something similar.</li>
+ * <li>layout.parallel : if true, the computation of each step is split across
+ * a fork/join pool (see {@link #setParallel(boolean)}). The positions computed
+ * are the same as the sequential ones. The pool is released by
+ * {@link #shutdown()}.</li>
  * </ul>
  * You can also put the following attributes on nodes :
  * <ul>
@@ -115,7 +120,7 @@ public abstract class BarnesHutLayout extends SourceBase implements Layout, Part
 	 * here to break the O(n^2) complexity into a Barnes-Hut algorithm that is
 	 * closer to O(n log n).
 	 */
-	protected ParticleBox nodes;
+	protected ParallelParticleBox nodes;
 
 	/**
 	 * The set of edges.
@@ -260,6 +265,11 @@ public abstract class BarnesHutLayout extends SourceBase implements Layout, Part
 	 */
 	protected SinkTime sinkTime;
 
+	/**
+	 * True if the pool used to compute the steps was created by this layout.
+	 */
+	protected boolean ownPool = false;
+
 	/**
 	 * New 2D Barnes-Hut simulation.
 	 */
@@ -299,7 +309,7 @@ public abstract class BarnesHutLayout extends SourceBase implements Layout, Part
 					new Anchor(1, 1, 0.01f));
 		}
 
-		this.nodes = new ParticleBox(nodesPerCell, space,
+		this.nodes = new ParallelParticleBox(nodesPerCell, space,
 				new GraphCellData());
 
 		nodes.addParticleBoxListener(this);
@@ -376,6 +386,63 @@ public abstract class BarnesHutLayout extends SourceBase implements Layout, Part
 		return nodes;
 	}
 
+	/**
+	 * Is the computation of each step split across a fork/join pool?
+	 * 
+	 * @return True if the layout is computed in parallel.
+	 */
+	public boolean isParallel() {
+		return nodes.getPool() != null;
+	}
+
+	/**
+	 * Split the computation of each step across a fork/join pool using all the
+	 * available processors, or go back to a sequential computation. The
+	 * positions computed do not depend on this mode, the layout stays
+	 * deterministic when a seeded random number generator is given. The pool
+	 * created here is shut down when going back to a sequential computation or
+	 * by {@link #shutdown()}.
+	 * 
+	 * @param on
+	 *            If true, compute the layout in parallel.
+	 * @see #setPool(ForkJoinPool)
+	 */
+	public void setParallel(boolean on) {
+		if (on && nodes.getPool() == null) {
+			setPool(new ForkJoinPool());
+			ownPool = true;
+		} else if (!on) {
+			setPool(null);
+		}
+	}
+
+	/**
+	 * Split the computation of each step across the given pool. The pool is not
+	 * shut down by the layout.
+	 * 
+	 * @param pool
+	 *            The pool to use, or null to compute the layout sequentially.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		if (ownPool && nodes.getPool() != pool) {
+			nodes.getPool().shutdown();
+			ownPool = false;
+		}
+
+		nodes.setPool(pool);
+	}
+
+	/**
+	 * Shut down the pool created by {@link #setParallel(boolean)} or the
+	 * "layout.parallel" attribute, if any, and go back to a sequential
+	 * computation. A pool given to {@link #setPool(ForkJoinPool)} is left
+	 * running. The layout can still be used afterwards.
+	 */
+	public void shutdown() {
+		if (ownPool)
+			setPool(null);
+	}
+
 	public long getLastStepTime() {
 		return lastStepTime;
 	}
@@ -787,6 +854,9 @@ public abstract class BarnesHutLayout extends SourceBase implements Layout, Part
 				outputStats = true;
 
             logger.fine(String.format("layout.%s.output-stats: %b%n", getLayoutAlgorithmName(), outputStats));
+		} else if (attribute.equals("layout.parallel")) {
+			setParallel(newValue != null && !Boolean.FALSE.equals(newValue));
+            logger.fine(String.format("layout.%s.parallel: %b%n", getLayoutAlgorithmName(), isParallel()));
 		} else if (attribute.equals("layout.stabilization-limit")) {
 			if (newValue instanceof Number) {
 				stabilizationLimit = ((Number) newValue).doubleValue();
@@ -51,6 +51,19 @@ public class GraphCellData extends BarycenterCellData {
 	 */
 	public double degree;
 
+	/**
+	 * Set on the data of the root cell while a {@link ParallelParticleBox}
+	 * recomputes the sub-trees concurrently.
+	 */
+	protected boolean concurrentPass;
+
+	/**
+	 * True if this data was computed during the concurrent pass of the current
+	 * step, and therefore must not be computed a second time when the whole
+	 * tree is checked.
+	 */
+	protected boolean upToDate;
+
 	/** 
 	 * Aggregate degree. The sum of the degrees of each node aggregated
 	 * in this barycenter.
@@ -66,6 +79,11 @@ public class GraphCellData extends BarycenterCellData {
 	
 	@Override
 	public void recompute() {
+		if (upToDate) {
+			upToDate = false;
+			return;
+		}
+
 		double x = 0;
 		double y = 0;
 		double z = 0;
@@ -129,6 +147,8 @@ public class GraphCellData extends BarycenterCellData {
 
 			center.set( x, y, z );
 		}
+
+		upToDate = ((GraphCellData) cell.getTree().getRootCell().getData()).concurrentPass;
 		
 		for( NTreeListener listener: cell.getTree().getListeners() ) {
 			listener.cellData( cell.getId(), "barycenter", this );
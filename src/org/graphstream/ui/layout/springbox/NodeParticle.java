@@ -85,6 +85,12 @@ public abstract class NodeParticle extends Particle {
 	 */
 	public double repE;
 
+	/**
+	 * Energy accumulated by this node during the last move. It is added to the
+	 * layout energies in {@link #nextStep(int)}.
+	 */
+	public double energy;
+
 	/**
 	 * If non null, all this node statistics will be output to this stream.
 	 */
@@ -163,6 +169,12 @@ public abstract class NodeParticle extends Particle {
 		return neighbours;
 	}
 
+	/**
+	 * Compute the displacement of this node. This only reads the shared state
+	 * of the layout and writes to this node, so that several nodes can be
+	 * moved concurrently. The layout statistics are updated in
+	 * {@link #nextStep(int)}.
+	 */
 	@Override
 	public void move(int time) {
 		if (!frozen) {
@@ -172,6 +184,7 @@ public abstract class NodeParticle extends Particle {
 
 			repE = 0;
 			attE = 0;
+			energy = 0;
 
 			if (box.viewZone < 0)
 				repulsionN2(delta);
@@ -191,11 +204,6 @@ public abstract class NodeParticle extends Particle {
 				disp.scalarMult((box.area / 2) / len);
 				len = box.area / 2;
 			}
-
-			box.avgLength += len;
-
-			if (len > box.maxMoveLength)
-				box.maxMoveLength = len;
 		}
 	}
 
@@ -209,6 +217,12 @@ public abstract class NodeParticle extends Particle {
 				nextPos.z = pos.z + disp.data[2];
 
 			box.nodeMoveCount++;
+			box.avgLength += len;
+			box.energies.accumulateEnergy(energy);
+
+			if (len > box.maxMoveLength)
+				box.maxMoveLength = len;
+
 			moved = true;
 		} else {
 			nextPos.x = pos.x;
@@ -254,6 +268,16 @@ public abstract class NodeParticle extends Particle {
 		moved = true;
 	}
 
+	/**
+	 * Add a value to the energy of this node for the current step.
+	 * 
+	 * @param value
+	 *            The energy to add.
+	 */
+	protected void accumulateEnergy(double value) {
+		energy += value;
+	}
+
 	/**
 	 * Compute the repulsion for each other node. This is the most precise way,
 	 * but the algorithm is a time hog : complexity is O(n^2).
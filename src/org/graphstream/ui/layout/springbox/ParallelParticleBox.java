@@ -0,0 +1,260 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.ui.layout.springbox;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.miv.pherd.Particle;
+import org.miv.pherd.ParticleBox;
+import org.miv.pherd.ParticleBoxListener;
+import org.miv.pherd.ntree.Cell;
+import org.miv.pherd.ntree.CellData;
+import org.miv.pherd.ntree.CellSpace;
+
+/**
+ * A particle box that can split the work of each step across a fork/join
+ * pool.
+ * 
+ * <p>
+ * A step is made of three phases. First each particle computes its
+ * displacement ({@link Particle#move(int)}), then each particle switches to its
+ * next position ({@link Particle#nextStep(int)}) and finally the n-tree is
+ * checked for subdivisions and barycenters. When a pool is set, the first
+ * phase runs concurrently, as the {@link NodeParticle} only reads the shared
+ * state while moving. The second phase stays sequential, since it updates the
+ * tree and the layout statistics and sends events, and is done in the same
+ * order as the sequential mode. The sub-trees of the n-tree are then
+ * recomputed concurrently before the whole tree is checked, which only
+ * computes again the cells at the top of the tree.
+ * </p>
+ * 
+ * <p>
+ * Random numbers are never drawn during a step and every particle sees the same
+ * positions whatever the mode, therefore the positions computed with a pool
+ * are exactly the ones computed sequentially.
+ * </p>
+ * 
+ * <p>
+ * The n-tree listeners, if any, may be called from the threads of the pool.
+ * </p>
+ */
+public class ParallelParticleBox extends ParticleBox {
+	/**
+	 * Default minimum number of particles moved by a single task.
+	 */
+	public static final int DEFAULT_THRESHOLD = 256;
+
+	/**
+	 * Depth of the n-tree up to which the sub-trees are recomputed by distinct
+	 * tasks.
+	 */
+	public static final int TREE_FORK_DEPTH = 3;
+
+	/**
+	 * The pool used to run the steps, null to run them sequentially.
+	 */
+	protected ForkJoinPool pool;
+
+	/**
+	 * Minimum number of particles moved by a single task.
+	 */
+	protected int threshold = DEFAULT_THRESHOLD;
+
+	/**
+	 * Particles of the current step, in the iteration order of the box.
+	 */
+	protected ArrayList<Particle> snapshot = new ArrayList<Particle>();
+
+	/**
+	 * New particle box.
+	 * 
+	 * @param pmax
+	 *            The maximum number of particles per cell.
+	 * @param universe
+	 *            The space of the root cell.
+	 * @param rootData
+	 *            The data of the root cell.
+	 */
+	public ParallelParticleBox(int pmax, CellSpace universe, CellData rootData) {
+		super(pmax, universe, rootData);
+	}
+
+	/**
+	 * The pool used to run the steps.
+	 * 
+	 * @return The pool or null if the steps are run sequentially.
+	 */
+	public ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Set the pool used to run the steps.
+	 * 
+	 * @param pool
+	 *            The pool, or null to run the steps sequentially.
+	 */
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Minimum number of particles moved by a single task.
+	 * 
+	 * @return The threshold.
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Set the minimum number of particles moved by a single task. Boxes with
+	 * less particles than this are stepped sequentially.
+	 * 
+	 * @param threshold
+	 *            The threshold, at least 1.
+	 */
+	public void setThreshold(int threshold) {
+		if (threshold < 1)
+			throw new IllegalArgumentException("threshold must be at least 1");
+
+		this.threshold = threshold;
+	}
+
+	@Override
+	public void step() {
+		if (pool == null || particles.size() < threshold) {
+			super.step();
+			return;
+		}
+
+		snapshot.clear();
+		snapshot.addAll(particles.values());
+
+		pool.invoke(new MoveTask(0, snapshot.size()));
+
+		Cell root = tree.getRootCell();
+		boolean outside = false;
+
+		for (int i = 0; i < snapshot.size(); i++) {
+			Particle particle = snapshot.get(i);
+
+			particle.nextStep(time);
+
+			if (!root.contains(particle))
+				outside = true;
+		}
+
+		// When a particle left the root cell, the whole tree is rebuilt
+		// by the check.
+
+		if (!outside && root.getData() instanceof GraphCellData) {
+			GraphCellData data = (GraphCellData) root.getData();
+
+			data.concurrentPass = true;
+
+			try {
+				pool.invoke(new TreeTask(root));
+			} finally {
+				data.concurrentPass = false;
+			}
+		}
+
+		tree.checkDivisions();
+
+		for (ParticleBoxListener listener : listeners)
+			listener.stepFinished(time);
+
+		snapshot.clear();
+		time++;
+	}
+
+	/**
+	 * Move a range of the particles snapshot.
+	 */
+	protected class MoveTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		protected int from;
+
+		protected int to;
+
+		protected MoveTask(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= threshold) {
+				for (int i = from; i < to; i++)
+					snapshot.get(i).move(time);
+			} else {
+				int middle = (from + to) >>> 1;
+
+				invokeAll(new MoveTask(from, middle), new MoveTask(middle, to));
+			}
+		}
+	}
+
+	/**
+	 * Recompute the sub-trees of a cell that are at the fork depth.
+	 */
+	protected static class TreeTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		protected Cell cell;
+
+		protected TreeTask(Cell cell) {
+			this.cell = cell;
+		}
+
+		@Override
+		protected void compute() {
+			if (cell.getDepth() >= TREE_FORK_DEPTH) {
+				cell.recompute();
+			} else if (!cell.isLeaf()) {
+				int div = cell.getSpace().getDivisions();
+				TreeTask[] tasks = new TreeTask[div];
+
+				for (int i = 0; i < div; i++)
+					tasks[i] = new TreeTask(cell.getSub(i));
+
+				invokeAll(tasks);
+			}
+
+			// Cells above the fork depth are handled by the sequential check.
+		}
+	}
+}
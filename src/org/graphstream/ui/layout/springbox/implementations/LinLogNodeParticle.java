@@ -35,7 +35,6 @@ import java.util.Iterator;
 
 import org.graphstream.ui.geom.Vector3;
 import org.graphstream.ui.layout.springbox.EdgeSpring;
-import org.graphstream.ui.layout.springbox.Energies;
 import org.graphstream.ui.layout.springbox.GraphCellData;
 import org.graphstream.ui.layout.springbox.NodeParticle;
 import org.miv.pherd.Particle;
@@ -86,7 +85,6 @@ public class LinLogNodeParticle extends NodeParticle {
 		LinLog box = (LinLog) this.box;
 		boolean is3D = box.is3D();
 		ParticleBox nodes = box.getSpatialIndex();
-		Energies energies = box.getEnergies();
 		Iterator<Object> i = nodes.getParticleIdIterator();
 		int deg = neighbours.size();
 
@@ -110,7 +108,7 @@ public class LinLogNodeParticle extends NodeParticle {
 
 					if(factor < -box.maxR) { factor = -box.maxR; }
 					
-					energies.accumulateEnergy(factor); // TODO check this
+					accumulateEnergy(factor); // TODO check this
 					delta.scalarMult(factor);
 					disp.add(delta);
 					repE += factor;
@@ -131,7 +129,6 @@ public class LinLogNodeParticle extends NodeParticle {
 	protected void recurseRepulsion(Cell cell, Vector3 delta) {
 		LinLog box = (LinLog) this.box;
 		boolean is3D = box.is3D();
-		Energies energies = box.getEnergies();
 		int deg = neighbours.size();
 
 		if (intersection(cell)) {
@@ -157,7 +154,7 @@ public class LinLogNodeParticle extends NodeParticle {
 							
 							if(factor < -box.maxR) { factor = -box.maxR; }
 
-							energies.accumulateEnergy(factor);	// TODO check this
+							accumulateEnergy(factor);	// TODO check this
 							delta.scalarMult(factor);
 							disp.add(delta);
 							repE += factor;
@@ -199,7 +196,7 @@ public class LinLogNodeParticle extends NodeParticle {
 
 							if(factor < -box.maxR) { factor = -box.maxR; }
 							
-							energies.accumulateEnergy(factor);	// TODO check this
+							accumulateEnergy(factor);	// TODO check this
 							delta.scalarMult(factor);
 							disp.add(delta);
 							repE += factor;
@@ -214,7 +211,6 @@ public class LinLogNodeParticle extends NodeParticle {
 	protected void attraction(Vector3 delta) {
 		LinLog box = (LinLog) this.box;
 		boolean is3D = box.is3D();
-		Energies energies = box.getEnergies();
 
 		for (EdgeSpring edge : neighbours) {
 			if (!edge.ignored) {
@@ -231,7 +227,7 @@ public class LinLogNodeParticle extends NodeParticle {
 
 					factor = (Math.pow(len, a-2)) * edge.weight * box.aFactor;
 
-					energies.accumulateEnergy(factor);
+					accumulateEnergy(factor);
 					delta.scalarMult(factor);
 					disp.add(delta);
 					attE += factor;
@@ -35,7 +35,6 @@ import java.util.Iterator;
 
 import org.graphstream.ui.geom.Vector3;
 import org.graphstream.ui.layout.springbox.EdgeSpring;
-import org.graphstream.ui.layout.springbox.Energies;
 import org.graphstream.ui.layout.springbox.GraphCellData;
 import org.graphstream.ui.layout.springbox.NodeParticle;
 import org.miv.pherd.Particle;
@@ -87,7 +86,6 @@ public class SpringBoxNodeParticle extends NodeParticle {
 		SpringBox box = (SpringBox) this.box;
 		boolean is3D = box.is3D();
 		ParticleBox nodes = box.getSpatialIndex();
-		Energies energies = box.getEnergies();
 		Iterator<Object> i = nodes.getParticleIdIterator();
 
 		while (i.hasNext()) {
@@ -107,7 +105,7 @@ public class SpringBoxNodeParticle extends NodeParticle {
 				
 					double factor = ((box.K2 / (len * len)) * node.weight);
 
-					energies.accumulateEnergy(factor); // TODO check this
+					accumulateEnergy(factor); // TODO check this
 					delta.scalarMult(-factor);
 					disp.add(delta);
 				}
@@ -127,7 +125,6 @@ public class SpringBoxNodeParticle extends NodeParticle {
 	protected void recurseRepulsion(Cell cell, Vector3 delta) {
 		SpringBox box = (SpringBox) this.box;
 		boolean is3D = box.is3D();
-		Energies energies = box.getEnergies();
 
 		if (intersection(cell)) {
 			if (cell.isLeaf()) {
@@ -149,7 +146,7 @@ public class SpringBoxNodeParticle extends NodeParticle {
 												// repulsion.
 							double factor = ((box.K2 / (len * len)) * node
 									.weight);
-							energies.accumulateEnergy(factor); // TODO check
+							accumulateEnergy(factor); // TODO check
 																// this
 							repE += factor;
 							delta.scalarMult(-factor);
@@ -188,7 +185,7 @@ public class SpringBoxNodeParticle extends NodeParticle {
 								len = box.k; // XXX NEW To prevent infinite
 												// repulsion.
 							double factor = ((box.K2 / (len * len)) * (bary.weight));
-							energies.accumulateEnergy(factor);
+							accumulateEnergy(factor);
 							delta.scalarMult(-factor);
 							repE += factor;
 
@@ -204,7 +201,6 @@ public class SpringBoxNodeParticle extends NodeParticle {
 	protected void attraction(Vector3 delta) {
 		SpringBox box = (SpringBox) this.box;
 		boolean is3D = box.is3D();
-		Energies energies = box.getEnergies();
 		int neighbourCount = neighbours.size();
 
 		for (EdgeSpring edge : neighbours) {
@@ -228,7 +224,7 @@ public class SpringBoxNodeParticle extends NodeParticle {
 
 				disp.add(delta);
 				attE += factor;
-				energies.accumulateEnergy(factor);
+				accumulateEnergy(factor);
 			}
 		}
 	}
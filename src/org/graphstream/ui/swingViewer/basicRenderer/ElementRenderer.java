@@ -89,6 +89,30 @@ public abstract class ElementRenderer {
 				elementInvisible(group, g, camera, ge);
 		}
 
+		renderSpecificElements(group, g, camera);
+	}
+
+	/**
+	 * Render only the (visible) elements of the group that have a dynamic
+	 * style or events. This is used when the bulk elements are drawn in a
+	 * cheaper way, by the level of detail renderer.
+	 */
+	public void renderSpecific(StyleGroup group, Graphics2D g, Camera camera) {
+		if (group.hasDynamicElements() || group.hasEventElements()) {
+			setupRenderingPass(group, g, camera);
+			pushStyle(group, g, camera);
+			renderSpecificElements(group, g, camera);
+		} else {
+			hadEvents = false;
+		}
+	}
+
+	/**
+	 * Render the elements having a dynamic style, then the elements modified
+	 * by events, the style of the group being already pushed.
+	 */
+	protected void renderSpecificElements(StyleGroup group, Graphics2D g,
+			Camera camera) {
 		if (group.hasDynamicElements()) {
 			for (Element e : group.dynamicElements()) {
 				GraphicElement ge = (GraphicElement) e;
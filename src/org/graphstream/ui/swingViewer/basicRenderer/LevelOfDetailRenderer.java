@@ -0,0 +1,337 @@
+/*
+ * Copyright 2006 - 2016
+ *     Stefan Balev     <stefan.balev@graphstream-project.org>
+ *     Julien Baudry    <julien.baudry@graphstream-project.org>
+ *     Antoine Dutot    <antoine.dutot@graphstream-project.org>
+ *     Yoann Pigné      <yoann.pigne@graphstream-project.org>
+ *     Guilhelm Savin   <guilhelm.savin@graphstream-project.org>
+ * 
+ * This file is part of GraphStream <http://graphstream-project.org>.
+ * 
+ * GraphStream is a library whose purpose is to handle static or dynamic
+ * graph, create them from scratch, file or any source and display them.
+ * 
+ * This program is free software distributed under the terms of two licenses, the
+ * CeCILL-C license that fits European law, and the GNU Lesser General Public
+ * License. You can  use, modify and/ or redistribute the software under the terms
+ * of the CeCILL-C license as circulated by CEA, CNRS and INRIA at the following
+ * URL <http://www.cecill.info> or under the terms of the GNU LGPL as published by
+ * the Free Software Foundation, either version 3 of the License, or (at your
+ * option) any later version.
+ * 
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+ * PARTICULAR PURPOSE.  See the GNU Lesser General Public License for more details.
+ * 
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ * 
+ * The fact that you are presently reading this means that you have had
+ * knowledge of the CeCILL-C and LGPL licenses and that you accept their terms.
+ */
+package org.graphstream.ui.swingViewer.basicRenderer;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import org.graphstream.graph.Element;
+import org.graphstream.ui.graphicGraph.GraphicEdge;
+import org.graphstream.ui.graphicGraph.GraphicGraph;
+import org.graphstream.ui.graphicGraph.GraphicNode;
+import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.swingViewer.util.GraphMetrics;
+import org.graphstream.ui.view.Camera;
+
+/**
+ * Cheap rendering of the node and edge groups of graphs too large to be drawn
+ * element by element at the current zoom.
+ * 
+ * <p>
+ * The level of detail is lowered when the camera gives on average less than a
+ * given number of square pixels to each node, this number being the value of
+ * the "ui.lod" graph attribute ({@link #DEFAULT_THRESHOLD} if the attribute
+ * is not a number). Without this attribute the full detail is always used. In
+ * low detail, the bulk elements of the groups are drawn as follows:
+ * <ul>
+ * <li>nodes are counted in square tiles of a few pixels, and each tile is
+ * filled with the colour of the group, its opacity being the part of the tile
+ * the nodes would cover. Dense regions therefore stay visible while isolated
+ * sub-pixel nodes vanish;</li>
+ * <li>the edges of a group are drawn at once as a single hairline path, edges
+ * shorter than a pixel being left out. The path is kept from frame to frame
+ * as long as the geometry of the graph and the zoom do not change.</li>
+ * </ul>
+ * Labels and arrows are not drawn. Elements with a dynamic style or events
+ * are still drawn in full detail by their element renderer.
+ * </p>
+ */
+public class LevelOfDetailRenderer {
+	// Attribute
+
+	/**
+	 * Default number of square pixels per node under which the detail is
+	 * lowered.
+	 */
+	public static final double DEFAULT_THRESHOLD = 16;
+
+	/**
+	 * The full detail is restored only when the number of square pixels per
+	 * node goes this many times above the threshold, so that the rendering
+	 * does not flicker between the two modes around the threshold.
+	 */
+	protected static final double HYSTERESIS = 1.5;
+
+	/**
+	 * Side of the node density tiles, in pixels.
+	 */
+	protected int tileSize = 4;
+
+	/**
+	 * Is the detail currently lowered ?
+	 */
+	protected boolean lowDetail = false;
+
+	/**
+	 * Node counts per tile, reused from frame to frame.
+	 */
+	protected int[] tiles = new int[0];
+
+	/**
+	 * One translucent version of the fill colour per opacity, built lazily
+	 * for each node group.
+	 */
+	protected Color[] shades = new Color[256];
+
+	/**
+	 * Edge paths per style group, in graph units.
+	 */
+	protected HashMap<StyleGroup, Path2D> edgePaths = new HashMap<StyleGroup, Path2D>();
+
+	/**
+	 * Geometry version of the graph when the edge paths were built.
+	 */
+	protected long pathsVersion = -1;
+
+	/**
+	 * Pixel to graph unit ratio when the edge paths were built.
+	 */
+	protected double pathsRatio = 0;
+
+	protected BasicStroke hairline = new BasicStroke(0);
+
+	protected Rectangle2D.Double tile = new Rectangle2D.Double();
+
+	// Access
+
+	/**
+	 * Is the detail lowered since the last call to
+	 * {@link #checkLevelOfDetail(GraphicGraph, Camera)} ?
+	 */
+	public boolean isLowDetail() {
+		return lowDetail;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+
+	// Command
+
+	/**
+	 * Set the side of the node density tiles.
+	 * 
+	 * @param tileSize
+	 *            The side in pixels.
+	 */
+	public void setTileSize(int tileSize) {
+		this.tileSize = Math.max(1, tileSize);
+	}
+
+	/**
+	 * Choose the level of detail of the next frame. This must be called once
+	 * the camera view is pushed, so that the metrics are up to date.
+	 * 
+	 * @param graph
+	 *            The graph to render.
+	 * @param camera
+	 *            The camera.
+	 * @return True if the detail is lowered.
+	 */
+	public boolean checkLevelOfDetail(GraphicGraph graph, Camera camera) {
+		int n = graph.getNodeCount();
+
+		if (n == 0 || !graph.hasAttribute("ui.lod")) {
+			lowDetail = false;
+		} else {
+			GraphMetrics metrics = camera.getMetrics();
+			double threshold = graph.hasNumber("ui.lod") ? graph
+					.getNumber("ui.lod") : DEFAULT_THRESHOLD;
+			double w = Math.max(metrics.size.data[0] * metrics.ratioPx2Gu, 1);
+			double h = Math.max(metrics.size.data[1] * metrics.ratioPx2Gu, 1);
+			double perNode = (w * h) / n;
+
+			if (lowDetail)
+				lowDetail = perNode < threshold * HYSTERESIS;
+			else
+				lowDetail = perNode < threshold;
+		}
+
+		if (!lowDetail)
+			invalidate();
+
+		return lowDetail;
+	}
+
+	/**
+	 * Forget the cached edge paths.
+	 */
+	public void invalidate() {
+		edgePaths.clear();
+		pathsVersion = -1;
+	}
+
+	/**
+	 * Render the bulk nodes of a group as density tiles.
+	 * 
+	 * @param group
+	 *            The node group.
+	 * @param g
+	 *            The Swing graphics, in graph units.
+	 * @param camera
+	 *            The camera.
+	 */
+	public void renderNodes(StyleGroup group, Graphics2D g, Camera camera) {
+		GraphMetrics metrics = camera.getMetrics();
+		double tileGu = tileSize / metrics.ratioPx2Gu;
+		double x0 = metrics.loVisible.x;
+		double y0 = metrics.loVisible.y;
+		int cols = (int) ((metrics.hiVisible.x - x0) / tileGu) + 1;
+		int rows = (int) ((metrics.hiVisible.y - y0) / tileGu) + 1;
+		int count = cols * rows;
+
+		if (count <= 0 || count > (1 << 24))
+			return;
+
+		if (tiles.length < count)
+			tiles = new int[count];
+		else
+			Arrays.fill(tiles, 0, count, 0);
+
+		for (Element e : group.bulkElements()) {
+			GraphicNode node = (GraphicNode) e;
+
+			if (camera.isVisible(node)) {
+				int col = (int) ((node.x - x0) / tileGu);
+				int row = (int) ((node.y - y0) / tileGu);
+
+				if (col >= 0 && col < cols && row >= 0 && row < rows)
+					tiles[row * cols + col]++;
+			}
+		}
+
+		// Part of a tile covered by one node, nodes being approximated by
+		// ellipses.
+
+		double tileArea = tileSize * tileSize;
+		double w = metrics.lengthToPx(group.getSize(), 0);
+		double h = group.getSize().size() > 1 ? metrics.lengthToPx(
+				group.getSize(), 1) : w;
+		double coverage = Math.min(Math.PI * w * h / 4, tileArea) / tileArea;
+		Color color = group.getFillColor(0);
+
+		Arrays.fill(shades, null);
+
+		for (int i = 0; i < count; i++) {
+			if (tiles[i] > 0) {
+				int alpha = (int) (Math.min(1, tiles[i] * coverage) * color
+						.getAlpha());
+
+				if (alpha > 0) {
+					if (shades[alpha] == null)
+						shades[alpha] = new Color(color.getRed(),
+								color.getGreen(), color.getBlue(), alpha);
+
+					tile.setFrame(x0 + (i % cols) * tileGu, y0 + (i / cols)
+							* tileGu, tileGu, tileGu);
+					g.setColor(shades[alpha]);
+					g.fill(tile);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Render the edges of a group as a single cached path. Edges having a
+	 * dynamic style or events are part of the path, their element renderer
+	 * draws them again above it.
+	 * 
+	 * @param graph
+	 *            The graph to render.
+	 * @param group
+	 *            The edge group.
+	 * @param g
+	 *            The Swing graphics, in graph units.
+	 * @param camera
+	 *            The camera.
+	 */
+	public void renderEdges(GraphicGraph graph, StyleGroup group,
+			Graphics2D g, Camera camera) {
+		if (group.getVisibilityMode() == StyleConstants.VisibilityMode.HIDDEN)
+			return;
+
+		GraphMetrics metrics = camera.getMetrics();
+
+		if (pathsVersion != graph.getGeometryVersion()
+				|| pathsRatio != metrics.ratioPx2Gu) {
+			edgePaths.clear();
+			pathsVersion = graph.getGeometryVersion();
+			pathsRatio = metrics.ratioPx2Gu;
+		}
+
+		Path2D path = edgePaths.get(group);
+
+		if (path == null) {
+			path = buildEdgePath(group, metrics);
+			edgePaths.put(group, path);
+		}
+
+		g.setColor(group.getFillColor(0));
+		g.setStroke(hairline);
+		g.draw(path);
+	}
+
+	/**
+	 * Build the path of all the edges of a group that are not hidden and at
+	 * least one pixel long.
+	 */
+	protected Path2D buildEdgePath(StyleGroup group, GraphMetrics metrics) {
+		Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO,
+				group.getElementCount() * 2);
+		double px = 1 / metrics.ratioPx2Gu;
+		double px2 = px * px;
+
+		for (Element e : group.elements()) {
+			GraphicEdge edge = (GraphicEdge) e;
+
+			if (!edge.hidden) {
+				GraphicNode node0 = (GraphicNode) edge.getNode0();
+				GraphicNode node1 = (GraphicNode) edge.getNode1();
+				double dx = node1.x - node0.x;
+				double dy = node1.y - node0.y;
+
+				if (dx * dx + dy * dy >= px2) {
+					path.moveTo(node0.x, node0.y);
+					path.lineTo(node1.x, node1.y);
+				}
+			}
+		}
+
+		return path;
+	}
+}
@@ -80,6 +80,12 @@ import java.util.logging.Logger;
  * </ul>
  * </p>
  * 
+ * <p>
+ * When the graph has a "ui.lod" attribute and the camera is zoomed out far
+ * enough, node and edge groups are drawn with a lower level of detail, see
+ * {@link LevelOfDetailRenderer}.
+ * </p>
+ * 
  * TODO - Les sprites. - Les bordures.
  */
 public class SwingBasicGraphRenderer extends SwingGraphRendererBase {
@@ -99,6 +105,8 @@ public class SwingBasicGraphRenderer extends SwingGraphRendererBase {
 
 	protected SpriteRenderer spriteRenderer = new SpriteRenderer();
 
+	protected LevelOfDetailRenderer lodRenderer = new LevelOfDetailRenderer();
+
 	protected LayerRenderer<Graphics2D> backRenderer = null;
 
 	protected LayerRenderer<Graphics2D> foreRenderer = null;
@@ -126,6 +134,7 @@ public class SwingBasicGraphRenderer extends SwingGraphRendererBase {
 	public void open(GraphicGraph graph, Container renderingSurface) {
 		super.open(graph, renderingSurface);
 		camera = new DefaultCamera(graph);
+		lodRenderer.invalidate();
 	}
 
 	/*
@@ -142,6 +151,7 @@ public class SwingBasicGraphRenderer extends SwingGraphRendererBase {
 		}
 
 		camera = null;
+		lodRenderer.invalidate();
 		super.close();
 	}
 
@@ -224,6 +234,7 @@ public class SwingBasicGraphRenderer extends SwingGraphRendererBase {
 		renderGraphBackground(g);
 		renderBackLayer(g);
 		camera.pushView(graph, g);
+		lodRenderer.checkLevelOfDetail(graph, camera);
 		renderGraphElements(g);
 
 		if (style.getStrokeMode() != StyleConstants.StrokeMode.NONE && style.getStrokeWidth().value != 0) {
@@ -315,10 +326,20 @@ public class SwingBasicGraphRenderer extends SwingGraphRendererBase {
 	protected void renderGroup(Graphics2D g, StyleGroup group) {
 		switch (group.getType()) {
 		case NODE:
-			nodeRenderer.render(group, g, camera);
+			if (lodRenderer.isLowDetail()) {
+				lodRenderer.renderNodes(group, g, camera);
+				nodeRenderer.renderSpecific(group, g, camera);
+			} else {
+				nodeRenderer.render(group, g, camera);
+			}
 			break;
 		case EDGE:
-			edgeRenderer.render(group, g, camera);
+			if (lodRenderer.isLowDetail()) {
+				lodRenderer.renderEdges(graph, group, g, camera);
+				edgeRenderer.renderSpecific(group, g, camera);
+			} else {
+				edgeRenderer.render(group, g, camera);
+			}
 			break;
 		case SPRITE:
 			spriteRenderer.render(group, g, camera);
@@ -41,6 +41,8 @@ import org.graphstream.ui.graphicGraph.GraphicElement;
 import org.graphstream.ui.graphicGraph.GraphicGraph;
 import org.graphstream.ui.graphicGraph.GraphicNode;
 import org.graphstream.ui.graphicGraph.GraphicSprite;
+import org.graphstream.ui.graphicGraph.StyleGroup;
+import org.graphstream.ui.graphicGraph.stylesheet.Selector;
 import org.graphstream.ui.graphicGraph.stylesheet.Style;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
 import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants.Units;
@@ -140,10 +142,12 @@ public class DefaultCamera implements Camera {
 	protected Values padding = new Values(Style.Units.GU, 0, 0, 0);
 
 	/**
-	 * Which node is visible. This allows to mark invisible nodes to fasten
-	 * visibility tests for nodes, attached sprites and edges.
+	 * Which node is visible. This allows to mark visible nodes to fasten
+	 * visibility tests for nodes, attached sprites and edges. Only the nodes
+	 * the graph node grid reports near the view port are tested, so that
+	 * nodes far out of the view cost nothing.
 	 */
-	protected HashSet<String> nodeInvisible = new HashSet<String>();
+	protected HashSet<GraphicNode> nodeVisible = new HashSet<GraphicNode>();
 
 	/**
 	 * The graph view port, if any. The graph view port is a view inside the
@@ -292,7 +296,7 @@ public class DefaultCamera implements Camera {
 		} else {
 			switch (element.getSelectorType()) {
 			case NODE:
-				return !nodeInvisible.contains(element.getId());
+				return nodeVisible.contains(element);
 			case EDGE:
 				return isEdgeVisible((GraphicEdge) element);
 			case SPRITE:
@@ -338,14 +342,13 @@ public class DefaultCamera implements Camera {
 		double W = metrics.viewport[2];
 		double H = metrics.viewport[3];
 
-		nodeInvisible.clear();
+		nodeVisible.clear();
 
-		for (Node node : graph) {
-			boolean visible = isNodeIn((GraphicNode) node, X, Y, X + W, Y + H) && (!((GraphicNode) node).hidden)
-					&& ((GraphicNode) node).positionned;
+		for (GraphicNode node : nodeCandidates(graph, X, Y, X + W, Y + H)) {
+			boolean visible = isNodeIn(node, X, Y, X + W, Y + H) && (!node.hidden) && node.positionned;
 
-			if (!visible)
-				nodeInvisible.add(node.getId());
+			if (visible)
+				nodeVisible.add(node);
 		}
 	}
 
@@ -365,9 +368,10 @@ public class DefaultCamera implements Camera {
 	@Override
 	public GraphicElement findGraphicElementAt(GraphicGraph graph, EnumSet<InteractiveElement> types, double x, double y) {
 		if (types.contains(InteractiveElement.NODE)) {
-			for (Node n : graph) {
-				GraphicNode node = (GraphicNode) n;
+			double X = x + metrics.viewport[0];
+			double Y = y + metrics.viewport[1];
 
+			for (GraphicNode node : nodeCandidates(graph, X, Y, X, Y)) {
 				if (nodeContains(node, x, y))
 					return node;
 			}
@@ -395,9 +399,9 @@ public class DefaultCamera implements Camera {
 		List<GraphicElement> elts = new ArrayList<GraphicElement>();
 
 		if (types.contains(InteractiveElement.NODE)) {
-			for (Node node : graph) {
-				if (isNodeIn((GraphicNode) node, x1, y1, x2, y2))
-					elts.add((GraphicNode) node);
+			for (GraphicNode node : nodeCandidates(graph, x1, y1, x2, y2)) {
+				if (isNodeIn(node, x1, y1, x2, y2))
+					elts.add(node);
 			}
 		}
 
@@ -743,12 +747,72 @@ public class DefaultCamera implements Camera {
 		if ((!node1.positionned) || (!node0.positionned))
 			return false;
 
-		boolean node0Invis = nodeInvisible.contains(node0.getId());
-		boolean node1Invis = nodeInvisible.contains(node1.getId());
+		boolean node0Invis = !nodeVisible.contains(node0);
+		boolean node1Invis = !nodeVisible.contains(node1);
 
 		return !(node0Invis && node1Invis);
 	}
 
+	/**
+	 * Select the nodes that may lie in the given area, in pixels before the
+	 * view port translation (as {@link #isNodeIn(GraphicNode, double, double, double, double)}
+	 * expects it). The area is enlarged by the largest node size of the
+	 * style sheet, mapped back in graph units and searched in the graph node
+	 * grid. The result is a superset of the nodes in the area, which must
+	 * still be tested one by one.
+	 *
+	 * @param graph
+	 *            The graph.
+	 * @param X1
+	 *            The min abscissa of the area.
+	 * @param Y1
+	 *            The min ordinate of the area.
+	 * @param X2
+	 *            The max abscissa of the area.
+	 * @param Y2
+	 *            The max ordinate of the area.
+	 * @return The candidate nodes.
+	 */
+	protected Collection<GraphicNode> nodeCandidates(GraphicGraph graph, double X1, double Y1, double X2, double Y2) {
+		ArrayList<GraphicNode> candidates = new ArrayList<GraphicNode>();
+
+		if (xT == null) {
+			for (Node node : graph)
+				candidates.add((GraphicNode) node);
+
+			return candidates;
+		}
+
+		// One more pixel to absorb rounding errors of the inverse transform.
+		double w2 = 1;
+		double h2 = 1;
+
+		for (StyleGroup group : graph.getStyleGroups().groups()) {
+			if (group.getType() == Selector.Type.NODE) {
+				Values size = group.getSize();
+				double w = metrics.lengthToPx(size, 0) / 2;
+				double h = size.size() > 1 ? metrics.lengthToPx(size, 1) / 2 : w;
+
+				w2 = Math.max(w2, w + 1);
+				h2 = Math.max(h2, h + 1);
+			}
+		}
+
+		double area[] = { Math.min(X1, X2) - w2, Math.min(Y1, Y2) - h2, Math.max(X1, X2) + w2, Math.min(Y1, Y2) - h2,
+				Math.max(X1, X2) + w2, Math.max(Y1, Y2) + h2, Math.min(X1, X2) - w2, Math.max(Y1, Y2) + h2 };
+
+		xT.transform(area, 0, area, 0, 4);
+
+		double minx = Math.min(Math.min(area[0], area[2]), Math.min(area[4], area[6]));
+		double miny = Math.min(Math.min(area[1], area[3]), Math.min(area[5], area[7]));
+		double maxx = Math.max(Math.max(area[0], area[2]), Math.max(area[4], area[6]));
+		double maxy = Math.max(Math.max(area[1], area[3]), Math.max(area[5], area[7]));
+
+		graph.getNodeGrid().nodesIn(minx, miny, maxx, maxy, candidates);
+
+		return candidates;
+	}
+
 	/**
 	 * Is the given node visible in the given area.
 	 *
@@ -847,7 +911,7 @@ public class DefaultCamera implements Camera {
 	 * @return True if the node lies in the given area.
 	 */
 	protected boolean isSpriteIn(GraphicSprite sprite, double X1, double Y1, double X2, double Y2) {
-		if (sprite.isAttachedToNode() && nodeInvisible.contains(sprite.getNodeAttachment().getId())) {
+		if (sprite.isAttachedToNode() && !nodeVisible.contains(sprite.getNodeAttachment())) {
 			return false;
 		} else if (sprite.isAttachedToEdge() && !isEdgeVisible(sprite.getEdgeAttachment())) {
 			return false;
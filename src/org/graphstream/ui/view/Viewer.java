@@ -637,7 +637,8 @@ public class Viewer implements ActionListener {
 				// true);
 				optLayout = new LayoutRunner(graph, layoutAlgorithm, true, false);
 				graph.replay();
-				layoutPipeIn = optLayout.newLayoutPipe();
+				// Only the last positions are drawn.
+				layoutPipeIn = optLayout.newLayoutPipe(true);
 				layoutPipeIn.addAttributeSink(graph);
 			}
 		}